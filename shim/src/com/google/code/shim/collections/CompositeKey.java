@@ -0,0 +1,66 @@
+package com.google.code.shim.collections;
+
+import java.util.Arrays;
+
+/**
+ * Immutable multi-part key, suitable for use as a hash map key when a row needs to be located by more than one
+ * value (for example, group-by keys or compound primary keys). This avoids building a concatenated String for each
+ * lookup. The hash code is computed once, when the key is created.
+ *
+ * @author dgau
+ *
+ */
+public final class CompositeKey {
+
+	private final Object[] parts;
+	private final int hash;
+
+	/**
+	 * Creates a key from the given values. The array is copied, so later changes to it do not affect the key.
+	 *
+	 * @param keyParts
+	 *            the values making up the key, in order. Nulls are allowed.
+	 */
+	public CompositeKey(Object... keyParts) {
+		this.parts = keyParts == null ? new Object[0] : keyParts.clone();
+		this.hash = Arrays.hashCode(parts);
+	}
+
+	/**
+	 * Gets the part of the key at the given position.
+	 *
+	 * @param index
+	 *            zero-based position of the key part.
+	 * @return the value at that position.
+	 */
+	public Object get(int index) {
+		return parts[index];
+	}
+
+	/**
+	 * @return the number of parts in this key.
+	 */
+	public int size() {
+		return parts.length;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof CompositeKey))
+			return false;
+		CompositeKey other = (CompositeKey) obj;
+		return hash == other.hash && Arrays.equals(parts, other.parts);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(parts);
+	}
+}
@@ -0,0 +1,178 @@
+package com.google.code.shim.collections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hash map specialized for primitive <code>long</code> keys, such as integer ids from a database table. Keys are
+ * stored in a <code>long[]</code> using open addressing, so no <code>Long</code> object or map entry is allocated per
+ * key. Iteration order is not defined. Entries cannot be removed; the map is intended to be built once and then
+ * used for lookups. This class is not thread safe while it is being built.
+ *
+ * @author dgau
+ *
+ * @param <V>
+ *            the type of the values
+ */
+public class LongKeyMap<V> {
+
+	private static final float LOAD_FACTOR = 0.5f;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private long[] keys;
+	private Object[] values;
+	private boolean[] used;
+	private int size;
+	private int threshold;
+
+	public LongKeyMap() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize
+	 *            the number of entries expected; the table is sized so that it will not need to grow until this many
+	 *            entries are added.
+	 */
+	public LongKeyMap(int expectedSize) {
+		int capacity = 16;
+		while (capacity < MAXIMUM_CAPACITY && capacity * LOAD_FACTOR < expectedSize) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		used = new boolean[capacity];
+		// At the largest capacity the table fills up instead of growing, keeping one slot free so lookups end.
+		threshold = capacity == MAXIMUM_CAPACITY ? capacity - 1 : (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int hash(long key) {
+		// Spread the high bits into the low bits, since ids are often sequential.
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private int indexOf(long key) {
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while (used[i] && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * Gets the value for the key.
+	 *
+	 * @param key
+	 * @return the value, or null if the key is not present.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int i = indexOf(key);
+		return used[i] ? (V) values[i] : null;
+	}
+
+	/**
+	 * @param key
+	 * @return whether the key is present in the map.
+	 */
+	public boolean containsKey(long key) {
+		return used[indexOf(key)];
+	}
+
+	/**
+	 * Associates the value with the key.
+	 *
+	 * @param key
+	 * @param value
+	 * @return the previous value for the key, or null if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		int i = indexOf(key);
+		if (used[i]) {
+			V previous = (V) values[i];
+			values[i] = value;
+			return previous;
+		}
+		if (size == threshold && keys.length == MAXIMUM_CAPACITY) {
+			throw new IllegalStateException("LongKeyMap is full at " + size + " entries");
+		}
+		used[i] = true;
+		keys[i] = key;
+		values[i] = value;
+		if (++size > threshold) {
+			rehash(keys.length << 1);
+		}
+		return null;
+	}
+
+	private void rehash(int newCapacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		boolean[] oldUsed = used;
+		allocate(newCapacity);
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldUsed[j]) {
+				int i = indexOf(oldKeys[j]);
+				used[i] = true;
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	/**
+	 * @return the number of entries in the map.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return a new array containing the keys, in no particular order.
+	 */
+	public long[] keys() {
+		long[] result = new long[size];
+		int r = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (used[i]) {
+				result[r++] = keys[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return a new list containing the values, in the same order as {@link #keys()}.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values() {
+		List<V> result = new ArrayList<V>(size);
+		for (int i = 0; i < keys.length; i++) {
+			if (used[i]) {
+				result.add((V) values[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes all entries, keeping the current capacity.
+	 */
+	public void clear() {
+		Arrays.fill(used, false);
+		Arrays.fill(values, null);
+		size = 0;
+	}
+}
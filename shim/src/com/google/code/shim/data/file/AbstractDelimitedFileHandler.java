@@ -1,127 +1,442 @@
-package com.google.code.shim.data.file;
-
-import javax.sql.DataSource;
-
-import org.apache.log4j.LogManager;
-import org.apache.log4j.Logger;
-
-import com.csvreader.CsvReader;
-
-/**
- * Abstract class for handling a file. Implements "event like" processing methods for handling each row of the file.
- * 
- * @author dgau
- *
- */
-public abstract class AbstractDelimitedFileHandler implements Runnable {
-
-	static Logger logger = LogManager.getLogger(AbstractDelimitedFileHandler.class);
-	private CsvReader reader;
-	protected final DataSource ds;
-	protected final String fileName;
-	/**
-	 * Zero-based counter for the number of times a row has been read from the file.
-	 */
-	protected String[] headers;
-
-	/**
-	 * 
-	 * @param customerIndexFilename
-	 *            file must be tab delimited with its first column containing the integer customer id.
-	 * @param dataSource
-	 */
-	public AbstractDelimitedFileHandler(String theFileName, DataSource dataSource) {
-		this.fileName = theFileName;
-		this.ds = dataSource;
-
-	}
-
-	/**
-	 * Called once, before any loop processing begins. By default, this method opens the file and reads the first
-	 * header, placing it into the {@link #headers} variable.
-	 * 
-	 * @throws Exception
-	 */
-	public void init() throws Exception {
-
-		reader = new CsvReader(this.fileName, '\t');
-
-		reader.readHeaders();
-
-		headers = reader.getHeaders();
-
-	}
-
-	/**
-	 * Implement handling that occurs immediately before the loop through the customer ids begins.
-	 * 
-	 * @throws Exception
-	 */
-	public abstract void beforeLoop() throws Exception;
-
-	/**
-	 * Implement handling for each record.
-	 * 
-	 * @param headers
-	 *            headers for the file, if any.
-	 * @param values
-	 *            values for the current record.
-	 * @throws Exception
-	 */
-	public abstract void onEachRecord(String[] headers, String[] values) throws Exception;
-
-	/**
-	 * Implement handling that occurs immediate after the loop through the records finishes.
-	 * 
-	 * @throws Exception
-	 */
-	public abstract void afterLoop() throws Exception;
-
-	/**
-	 * Gets the current loop index in the file.
-	 * 
-	 * @return the current loop index.
-	 */
-	public long getCurrentRow() {
-		return this.reader == null ? -1 : this.reader.getCurrentRecord();
-	}
-
-	/**
-	 * Called once, during finalization of the loop - this is also called before exceptions, if any, are thrown,
-	 * allowing you to clean up any resources.
-	 */
-	public abstract void finish();
-
-	/**
-	 * Executes the processing. This handler returns null by default, but you can modify this by setting the
-	 * {@link #returnValue} protected variable in your own implementation if you wish. Sequence of method calls is:
-	 * <ol>
-	 * <li>{@link #init()}, called once, before all other methodss.</li>
-	 * <li>{@link #beforeLoop()}, called once, immediately before the loop begins</li>
-	 * <li>{@link #onEachRecord(Integer)}, called once per each customer id in the index file</li>
-	 * <li>{@link #afterLoop()}, called once, immediately after the loop concludes</li>
-	 * <li></li>
-	 * </ol>
-	 */
-	@Override
-	public void run() {
-		try {
-			init();
-
-			beforeLoop();
-			while (reader.readRecord()) {
-				
-				onEachRecord(reader.getHeaders(), reader.getValues());
-
-			}
-			afterLoop();
-
-		} catch (Exception e) {
-			logger.error(e.getMessage(), e);
-		} finally {
-			finish();
-		}
-
-	}
-
-}
+package com.google.code.shim.data.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.csvreader.CsvReader;
+
+/**
+ * Abstract class for handling a file. Implements "event like" processing methods for handling each row of the file.
+ * 
+ * @author dgau
+ *
+ */
+public abstract class AbstractDelimitedFileHandler implements Runnable {
+
+	static Logger logger = LogManager.getLogger(AbstractDelimitedFileHandler.class);
+	private CsvReader reader;
+	private MappedDelimitedReader mappedReader;
+	private char delimiter = '\t';
+	private char textQualifier = '"';
+	private Charset charset = Charset.forName("ISO-8859-1");
+	private boolean memoryMapped = false;
+	private int workers = 0;
+	private boolean ordered = false;
+	private int batchSize = 100;
+	private int queueCapacity = 0;
+	private ThreadFactory threadFactory;
+	private final AtomicLong recordsProcessed = new AtomicLong();
+	private volatile Exception error;
+	private Checkpoint checkpoint;
+	private int checkpointInterval;
+	private int sinceCheckpoint;
+	protected final DataSource ds;
+	protected final String fileName;
+	/**
+	 * Zero-based counter for the number of times a row has been read from the file.
+	 */
+	protected String[] headers;
+
+	/**
+	 * 
+	 * @param customerIndexFilename
+	 *            file must be tab delimited with its first column containing the integer customer id.
+	 * @param dataSource
+	 */
+	public AbstractDelimitedFileHandler(String theFileName, DataSource dataSource) {
+		this.fileName = theFileName;
+		this.ds = dataSource;
+
+	}
+
+	/**
+	 * Sets the field delimiter. Defaults to tab.
+	 * 
+	 * @param delimiter
+	 */
+	public void setDelimiter(char delimiter) {
+		this.delimiter = delimiter;
+	}
+
+	/**
+	 * Sets the character used to quote fields containing delimiters or line ends. Defaults to '"'.
+	 * 
+	 * @param textQualifier
+	 */
+	public void setTextQualifier(char textQualifier) {
+		this.textQualifier = textQualifier;
+	}
+
+	/**
+	 * Sets the charset of the file. Defaults to ISO-8859-1.
+	 * 
+	 * @param charset
+	 */
+	public void setCharset(Charset charset) {
+		this.charset = charset;
+	}
+
+	/**
+	 * Reads the file with a {@link MappedDelimitedReader} instead of a CsvReader, and passes each record to
+	 * {@link #onEachRecord(String[], DelimitedRecord)}. Worthwhile for large files, where the handler overrides that
+	 * method to work with the record's fields without creating Strings. Requires an ASCII-compatible charset.
+	 * Defaults to false.
+	 * 
+	 * @param memoryMapped
+	 */
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	/**
+	 * Processes records on a pool of worker threads, while the calling thread reads the file. Records are handed to
+	 * the workers in batches through bounded queues, so reading blocks when the workers fall behind. In this mode,
+	 * {@link #onEachRecord(String[], String[])} (or {@link #onEachRecord(String[], DelimitedRecord)}) is called
+	 * concurrently and must be thread-safe; the other methods are still called on the calling thread. If a worker
+	 * throws an exception, reading stops, queued records are discarded, and the exception is handled as it would be
+	 * in serial processing. Defaults to 0, which processes each record on the calling thread as it is read.
+	 * 
+	 * @param workers
+	 */
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+
+	/**
+	 * With worker threads, sends records with the same {@link #getOrderingKey(String[]) ordering key} to the same
+	 * worker, so that they are processed in file order. Otherwise, records are processed in no particular order.
+	 * Defaults to false.
+	 * 
+	 * @param ordered
+	 */
+	public void setOrdered(boolean ordered) {
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Sets the number of records handed to a worker thread at a time. Defaults to 100.
+	 * 
+	 * @param batchSize
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Sets the number of batches that may wait for the worker threads before reading blocks. Defaults to twice the
+	 * number of workers.
+	 * 
+	 * @param batches
+	 */
+	public void setQueueCapacity(int batches) {
+		this.queueCapacity = batches;
+	}
+
+	/**
+	 * Sets the factory for worker threads, for example to name them or to use lightweight threads where the JVM
+	 * offers them. Defaults to {@link java.util.concurrent.Executors#defaultThreadFactory()}.
+	 * 
+	 * @param threadFactory
+	 */
+	public void setThreadFactory(ThreadFactory threadFactory) {
+		this.threadFactory = threadFactory;
+	}
+
+	/**
+	 * Saves the position in the file every <code>records</code> records, after calling {@link #beforeCheckpoint()},
+	 * so that a run that fails can be restarted from the last checkpoint instead of the beginning. A run that
+	 * completes clears the checkpoint. Records after the last checkpoint are processed again on restart, so their
+	 * handling should be idempotent. Checkpoints only apply to serial processing, and are ignored with
+	 * {@link #setWorkers(int) worker threads}.
+	 * 
+	 * @param checkpoint
+	 *            where the position is kept, for example a {@link FileCheckpoint}; null for none.
+	 * @param records
+	 *            the number of records between checkpoints.
+	 */
+	public void setCheckpoint(Checkpoint checkpoint, int records) {
+		this.checkpoint = checkpoint;
+		this.checkpointInterval = Math.max(1, records);
+	}
+
+	/**
+	 * Called before each checkpoint is saved. Override it to make the work done for the records processed so far
+	 * durable, for example by committing a transaction. Does nothing by default.
+	 * 
+	 * @throws Exception
+	 */
+	protected void beforeCheckpoint() throws Exception {
+	}
+
+	/**
+	 * The key that determines which worker processes a record in {@link #setOrdered(boolean) ordered} mode. By
+	 * default, the first column.
+	 * 
+	 * @param values
+	 * @return the key, which must implement equals and hashCode.
+	 */
+	protected Object getOrderingKey(String[] values) {
+		return values.length == 0 ? null : values[0];
+	}
+
+	/**
+	 * The ordering key of a memory-mapped record. By default, the first column.
+	 * 
+	 * @param record
+	 * @return the key, which must implement equals and hashCode.
+	 */
+	protected Object getOrderingKey(DelimitedRecord record) {
+		return record.size() == 0 ? null : record.getString(0);
+	}
+
+	/**
+	 * Called once, before any loop processing begins. By default, this method opens the file and reads the first
+	 * header, placing it into the {@link #headers} variable. Gzip and zip files are decompressed as they are read
+	 * (see {@link CompressedInput}).
+	 * 
+	 * @throws Exception
+	 */
+	public void init() throws Exception {
+
+		File file = new File(this.fileName);
+		boolean compressed = CompressedInput.isCompressed(file);
+		if (memoryMapped && compressed) {
+			logger.warn(fileName + " is compressed, so it is decompressed as it is read rather than memory mapped.");
+		}
+		if (memoryMapped && !compressed) {
+			mappedReader = new MappedDelimitedReader(file, delimiter, textQualifier, charset);
+
+			headers = mappedReader.readHeaders();
+
+		} else {
+			reader = new CsvReader(CompressedInput.open(file), delimiter, charset);
+			reader.setTextQualifier(textQualifier);
+
+			reader.readHeaders();
+
+			headers = reader.getHeaders();
+		}
+
+		if (checkpoint != null) {
+			if (workers > 0) {
+				logger.warn("Checkpoints are not supported with worker threads; ignoring the checkpoint for " + fileName);
+			} else {
+				resume();
+			}
+		}
+	}
+
+	/**
+	 * Moves the reader to the last saved checkpoint, if any.
+	 */
+	private void resume() throws IOException {
+		Checkpoint.Position position = checkpoint.load();
+		if (position == null) {
+			return;
+		}
+		logger.info("Resuming " + fileName + " from " + position);
+		if (mappedReader != null && position.getOffset() >= 0) {
+			mappedReader.seek(position.getOffset(), position.getRecords());
+			return;
+		}
+		// Without a byte offset, read past the records already processed (CsvReader.skipRecord() would not count them).
+		for (long i = 0; i < position.getRecords(); i++) {
+			if (mappedReader != null ? !mappedReader.readRecord() : !reader.readRecord()) {
+				throw new IOException("Checkpoint " + position + " is past the end of " + fileName);
+			}
+		}
+	}
+
+	private void checkpointIfDue() throws Exception {
+		if (checkpoint == null || ++sinceCheckpoint < checkpointInterval) {
+			return;
+		}
+		sinceCheckpoint = 0;
+		beforeCheckpoint();
+		Checkpoint.Position position = mappedReader != null ? new Checkpoint.Position(mappedReader.getPosition(),
+			mappedReader.getCurrentRecord() + 1) : new Checkpoint.Position(-1, reader.getCurrentRecord() + 1);
+		checkpoint.beforeCommit(position, null);
+		checkpoint.afterCommit(position);
+	}
+
+	/**
+	 * Implement handling that occurs immediately before the loop through the customer ids begins.
+	 * 
+	 * @throws Exception
+	 */
+	public abstract void beforeLoop() throws Exception;
+
+	/**
+	 * Implement handling for each record.
+	 * 
+	 * @param headers
+	 *            headers for the file, if any.
+	 * @param values
+	 *            values for the current record.
+	 * @throws Exception
+	 */
+	public abstract void onEachRecord(String[] headers, String[] values) throws Exception;
+
+	/**
+	 * Handling for each record when the file is {@link #setMemoryMapped(boolean) memory mapped}. By default, this
+	 * decodes the record's values and calls {@link #onEachRecord(String[], String[])}; override it to read fields
+	 * directly from the record instead. The record is only valid until this method returns.
+	 * 
+	 * @param headers
+	 *            headers for the file, if any.
+	 * @param record
+	 *            the current record.
+	 * @throws Exception
+	 */
+	public void onEachRecord(String[] headers, DelimitedRecord record) throws Exception {
+		onEachRecord(headers, record.getValues());
+	}
+
+	/**
+	 * Implement handling that occurs immediate after the loop through the records finishes.
+	 * 
+	 * @throws Exception
+	 */
+	public abstract void afterLoop() throws Exception;
+
+	/**
+	 * Gets the current loop index in the file.
+	 * 
+	 * @return the current loop index.
+	 */
+	public long getCurrentRow() {
+		if (this.mappedReader != null) {
+			return this.mappedReader.getCurrentRecord();
+		}
+		return this.reader == null ? -1 : this.reader.getCurrentRecord();
+	}
+
+	/**
+	 * Gets the number of records that have been processed so far. With worker threads, this can lag
+	 * {@link #getCurrentRow()}, which counts records read.
+	 * 
+	 * @return the number of records processed.
+	 */
+	public long getRecordsProcessed() {
+		return recordsProcessed.get();
+	}
+
+	/**
+	 * @return the exception that stopped processing, or null if there was none (or processing is not complete).
+	 */
+	public Exception getError() {
+		return error;
+	}
+
+	/**
+	 * Called once, during finalization of the loop - this is also called before exceptions, if any, are thrown,
+	 * allowing you to clean up any resources.
+	 */
+	public abstract void finish();
+
+	/**
+	 * Executes the processing. This handler returns null by default, but you can modify this by setting the
+	 * {@link #returnValue} protected variable in your own implementation if you wish. Sequence of method calls is:
+	 * <ol>
+	 * <li>{@link #init()}, called once, before all other methodss.</li>
+	 * <li>{@link #beforeLoop()}, called once, immediately before the loop begins</li>
+	 * <li>{@link #onEachRecord(Integer)}, called once per each customer id in the index file</li>
+	 * <li>{@link #afterLoop()}, called once, immediately after the loop concludes</li>
+	 * <li></li>
+	 * </ol>
+	 */
+	@Override
+	public void run() {
+		try {
+			init();
+
+			beforeLoop();
+			if (workers > 0) {
+				readPipelined();
+			} else if (mappedReader != null) {
+				while (mappedReader.readRecord()) {
+
+					onEachRecord(headers, mappedReader.getRecord());
+					recordsProcessed.incrementAndGet();
+					checkpointIfDue();
+
+				}
+			} else {
+				while (reader.readRecord()) {
+
+					onEachRecord(reader.getHeaders(), reader.getValues());
+					recordsProcessed.incrementAndGet();
+					checkpointIfDue();
+
+				}
+			}
+			afterLoop();
+			if (checkpoint != null && workers <= 0) {
+				checkpoint.clear();
+			}
+
+		} catch (Exception e) {
+			error = e;
+			logger.error(e.getMessage(), e);
+		} finally {
+			finish();
+			closeReaders();
+		}
+
+	}
+
+	/**
+	 * Reads the file on this thread, handing records to the worker threads.
+	 */
+	private void readPipelined() throws Exception {
+		RecordPipeline pipeline = new RecordPipeline(this, headers, workers, ordered, batchSize,
+			queueCapacity > 0 ? queueCapacity : workers * 2, threadFactory, recordsProcessed);
+		boolean finished = false;
+		try {
+			if (mappedReader != null) {
+				while (mappedReader.readRecord()) {
+					// The reader reuses its record, so workers get a copy.
+					DelimitedRecord record = mappedReader.getRecord().copy();
+					if (!pipeline.submit(record, ordered ? getOrderingKey(record) : null)) {
+						break;
+					}
+				}
+			} else {
+				while (reader.readRecord()) {
+					String[] values = reader.getValues();
+					if (!pipeline.submit(values, ordered ? getOrderingKey(values) : null)) {
+						break;
+					}
+				}
+			}
+			finished = true;
+			pipeline.finish();
+		} finally {
+			if (!finished) {
+				pipeline.abort();
+			}
+		}
+	}
+
+	private void closeReaders() {
+		if (reader != null) {
+			reader.close();
+		}
+		if (mappedReader != null) {
+			try {
+				mappedReader.close();
+			} catch (IOException e) {
+				logger.warn("Could not close " + fileName + ": " + e.getMessage());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.google.code.shim.data.file;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Durably records how far a long-running load has progressed, so that a failed run can resume from the last committed
+ * position instead of starting over. A checkpoint is saved each time the work done so far is committed:
+ * {@link #beforeCommit(Position, Connection)} is called inside the transaction (so a control table can be updated
+ * atomically with the data), and {@link #afterCommit(Position)} once the commit has succeeded (so a sidecar file
+ * never gets ahead of the data).
+ * <p>
+ * A checkpoint that is saved after the commit can lag the data if the process dies in between, in which case the
+ * last batch is replayed on restart. Loads should therefore be idempotent, for example by using key columns.
+ * </p>
+ *
+ * @author dgau
+ *
+ */
+public abstract class Checkpoint {
+
+	/**
+	 * A committed position in a file: the byte offset of the first record not yet committed (or -1 if the reader
+	 * cannot report byte offsets), and the number of data records before it.
+	 */
+	public static final class Position {
+		private final long offset;
+		private final long records;
+
+		public Position(long offset, long records) {
+			this.offset = offset;
+			this.records = records;
+		}
+
+		/**
+		 * @return the byte offset to resume reading from, or -1 if unknown.
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * @return the number of data records (not counting headers) before the position.
+		 */
+		public long getRecords() {
+			return records;
+		}
+
+		@Override
+		public String toString() {
+			return "record " + records + (offset < 0 ? "" : " (byte " + offset + ")");
+		}
+	}
+
+	/**
+	 * @return the last saved position, or null if there is none (the load starts from the beginning).
+	 * @throws IOException
+	 */
+	public abstract Position load() throws IOException;
+
+	/**
+	 * Called inside the transaction, just before work up to the position is committed. Does nothing by default.
+	 * 
+	 * @param position
+	 * @param conn
+	 *            the connection being committed, or null if the work is not done on a single connection.
+	 * @throws SQLException
+	 */
+	public void beforeCommit(Position position, Connection conn) throws SQLException {
+	}
+
+	/**
+	 * Called once work up to the position has been committed. Does nothing by default.
+	 * 
+	 * @param position
+	 * @throws IOException
+	 */
+	public void afterCommit(Position position) throws IOException {
+	}
+
+	/**
+	 * Removes the saved position, once the load has completed.
+	 * 
+	 * @throws IOException
+	 */
+	public abstract void clear() throws IOException;
+}
@@ -0,0 +1,179 @@
+package com.google.code.shim.data.file;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Opens delimited input that may be compressed. Gzip and zip input is recognized by its leading magic bytes, and
+ * decompressed as it is read; the .gz, .gzip or .zip file name is consulted only when the input is too short to hold
+ * the magic bytes, so a plain file with such a name is read as it is. A zip archive is read from its first file entry.
+ * <p>
+ * Compressed input is decompressed on a separate thread, which reads ahead of the caller through a small queue of
+ * large buffers, so decompression and parsing overlap.
+ * </p>
+ *
+ * @author dgau
+ *
+ */
+public final class CompressedInput {
+
+	/**
+	 * Size of the buffers used to read and decompress input.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+	/**
+	 * Number of decompressed buffers the decompression thread may read ahead.
+	 */
+	static final int READ_AHEAD = 4;
+
+	private static final String[] SUFFIXES = { ".gz", ".gzip", ".zip" };
+
+	/**
+	 * Compression formats that can be read.
+	 */
+	public enum Format {
+		NONE, GZIP, ZIP
+	}
+
+	private CompressedInput() {
+	}
+
+	/**
+	 * @param file
+	 * @return the compression format of the file.
+	 * @throws IOException
+	 */
+	public static Format formatOf(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] magic = new byte[4];
+			int n = readFully(in, magic);
+			return formatOf(magic, n, file.getName());
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @param file
+	 * @return true if the file is gzip or zip compressed.
+	 * @throws IOException
+	 */
+	public static boolean isCompressed(File file) throws IOException {
+		return formatOf(file) != Format.NONE;
+	}
+
+	/**
+	 * Opens a file for reading, decompressing it if it is compressed.
+	 *
+	 * @param file
+	 * @return a buffered stream of the file's (decompressed) content.
+	 * @throws IOException
+	 */
+	public static InputStream open(File file) throws IOException {
+		return open(new FileInputStream(file), file.getName());
+	}
+
+	/**
+	 * Wraps a stream, decompressing it if it is compressed.
+	 *
+	 * @param in
+	 *            the raw stream, which is closed with the returned stream.
+	 * @param name
+	 *            the file or resource name, used when the content is too short to recognize, and to name the
+	 *            decompression thread; may be null.
+	 * @return a buffered stream of the (decompressed) content.
+	 * @throws IOException
+	 */
+	public static InputStream open(InputStream in, String name) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(in, DEFAULT_BUFFER_SIZE);
+		try {
+			byte[] magic = new byte[4];
+			buffered.mark(magic.length);
+			int n = readFully(buffered, magic);
+			buffered.reset();
+
+			InputStream decompressed;
+			switch (formatOf(magic, n, name)) {
+			case GZIP:
+				decompressed = new GZIPInputStream(buffered, DEFAULT_BUFFER_SIZE);
+				break;
+			case ZIP:
+				decompressed = firstEntry(new ZipInputStream(buffered), name);
+				break;
+			default:
+				return buffered;
+			}
+			return new ReadAheadInputStream(decompressed, DEFAULT_BUFFER_SIZE, READ_AHEAD, "decompress "
+				+ (name == null ? "input" : name));
+		} catch (IOException e) {
+			buffered.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param name
+	 *            a file or resource name.
+	 * @return the name without a compression suffix, e.g. "t_city.txt" for "t_city.txt.gz".
+	 */
+	public static String baseName(String name) {
+		String lower = name.toLowerCase(Locale.ENGLISH);
+		for (String suffix : SUFFIXES) {
+			if (lower.endsWith(suffix) && lower.length() > suffix.length()) {
+				return name.substring(0, name.length() - suffix.length());
+			}
+		}
+		return name;
+	}
+
+	private static Format formatOf(byte[] magic, int length, String name) {
+		if (length >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+			return Format.GZIP;
+		}
+		if (length >= 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+			return Format.ZIP;
+		}
+		// Too little content to check the magic bytes; go by the name.
+		if (name != null) {
+			String lower = name.toLowerCase(Locale.ENGLISH);
+			if (length < 2 && (lower.endsWith(".gz") || lower.endsWith(".gzip"))) {
+				return Format.GZIP;
+			}
+			if (length < 4 && lower.endsWith(".zip")) {
+				return Format.ZIP;
+			}
+		}
+		return Format.NONE;
+	}
+
+	private static InputStream firstEntry(ZipInputStream zip, String name) throws IOException {
+		ZipEntry entry;
+		while ((entry = zip.getNextEntry()) != null) {
+			if (!entry.isDirectory()) {
+				AbstractDelimitedFileHandler.logger.debug("Reading " + entry.getName() + " from " + name);
+				return zip;
+			}
+		}
+		throw new IOException("No file entry in zip archive " + name);
+	}
+
+	private static int readFully(InputStream in, byte[] bytes) throws IOException {
+		int n = 0;
+		while (n < bytes.length) {
+			int read = in.read(bytes, n, bytes.length - n);
+			if (read < 0) {
+				break;
+			}
+			n += read;
+		}
+		return n;
+	}
+}
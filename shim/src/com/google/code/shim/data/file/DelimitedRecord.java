@@ -0,0 +1,293 @@
+package com.google.code.shim.data.file;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * One record of a delimited file, whose fields are views onto the bytes they were read from. Nothing is decoded or
+ * copied until a field is asked for as a String (or its characters are read, for multi-byte charsets).
+ * <p>
+ * A record returned by {@link MappedDelimitedReader#getRecord()} is reused for every record read, and its views are
+ * only valid until the next call to {@link MappedDelimitedReader#readRecord()}. Use {@link #copy()} to keep a record
+ * (for example, to hand it to another thread).
+ * </p>
+ *
+ * @author dgau
+ *
+ */
+public class DelimitedRecord {
+
+	private final Charset charset;
+	private final boolean singleByte;
+	private final byte quote;
+
+	ByteBuffer buffer;
+	long recordNumber = -1;
+	int count;
+	int[] starts = new int[16];
+	int[] ends = new int[16];
+	boolean[] escaped = new boolean[16];
+
+	private FieldView[] views = new FieldView[0];
+	private byte[] scratch = new byte[256];
+
+	DelimitedRecord(Charset charset, byte quote) {
+		this.charset = charset;
+		this.quote = quote;
+		String name = charset.name();
+		this.singleByte = "ISO-8859-1".equals(name) || "US-ASCII".equals(name);
+	}
+
+	void clear() {
+		count = 0;
+	}
+
+	void add(int start, int end, boolean hasEscapes) {
+		if (count == starts.length) {
+			starts = Arrays.copyOf(starts, count * 2);
+			ends = Arrays.copyOf(ends, count * 2);
+			escaped = Arrays.copyOf(escaped, count * 2);
+		}
+		starts[count] = start;
+		ends[count] = end;
+		escaped[count] = hasEscapes;
+		count++;
+	}
+
+	/**
+	 * @return the number of fields in the record.
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @return the zero-based number of this record in the file, not counting the header.
+	 */
+	public long getRecordNumber() {
+		return recordNumber;
+	}
+
+	/**
+	 * @param index
+	 * @return true if the field has no characters.
+	 */
+	public boolean isEmpty(int index) {
+		check(index);
+		return starts[index] == ends[index];
+	}
+
+	/**
+	 * Gets a field without creating a String. The view is reused, and is only valid until the next record is read.
+	 *
+	 * @param index
+	 * @return a view of the field's characters.
+	 */
+	public CharSequence get(int index) {
+		check(index);
+		if (index >= views.length) {
+			FieldView[] grown = Arrays.copyOf(views, Math.max(count, index + 1));
+			for (int i = views.length; i < grown.length; i++) {
+				grown[i] = new FieldView(i);
+			}
+			views = grown;
+		}
+		views[index].decoded = null;
+		return views[index];
+	}
+
+	/**
+	 * @param index
+	 * @return the field, decoded into a new String.
+	 */
+	public String getString(int index) {
+		check(index);
+		int length = copyBytes(index);
+		return new String(scratch, 0, length, charset);
+	}
+
+	/**
+	 * @param index
+	 * @return a read-only view of the field's encoded bytes (with any doubled quotes already collapsed).
+	 */
+	public ByteBuffer getBytes(int index) {
+		check(index);
+		if (escaped[index]) {
+			int length = copyBytes(index);
+			return ByteBuffer.wrap(Arrays.copyOf(scratch, length)).asReadOnlyBuffer();
+		}
+		ByteBuffer view = buffer.duplicate();
+		view.limit(ends[index]).position(starts[index]);
+		return view.slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * Parses a field of decimal digits (with an optional sign) directly from its bytes.
+	 *
+	 * @param index
+	 * @return the value
+	 * @throws NumberFormatException
+	 *             if the field is empty or not a valid long.
+	 */
+	public long getLong(int index) {
+		check(index);
+		int p = starts[index];
+		int end = ends[index];
+		if (p == end || escaped[index]) {
+			throw new NumberFormatException("For input string: \"" + getString(index) + "\"");
+		}
+		boolean negative = false;
+		byte first = buffer.get(p);
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			if (++p == end) {
+				throw new NumberFormatException("For input string: \"" + getString(index) + "\"");
+			}
+		}
+		// Accumulate negatively, so that Long.MIN_VALUE can be represented.
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long result = 0;
+		for (; p < end; p++) {
+			int digit = buffer.get(p) - '0';
+			if (digit < 0 || digit > 9 || result < (limit + digit) / 10) {
+				throw new NumberFormatException("For input string: \"" + getString(index) + "\"");
+			}
+			result = result * 10 - digit;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * @param index
+	 * @return the field parsed as an int, see {@link #getLong(int)}.
+	 * @throws NumberFormatException
+	 */
+	public int getInt(int index) {
+		long value = getLong(index);
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw new NumberFormatException("For input string: \"" + getString(index) + "\"");
+		}
+		return (int) value;
+	}
+
+	/**
+	 * @return every field decoded into a String, as {@link com.csvreader.CsvReader#getValues()} would return them.
+	 */
+	public String[] getValues() {
+		String[] values = new String[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = getString(i);
+		}
+		return values;
+	}
+
+	/**
+	 * @return a copy of this record, backed by its own heap buffer, that stays valid after the next record is read.
+	 */
+	public DelimitedRecord copy() {
+		DelimitedRecord copy = new DelimitedRecord(charset, quote);
+		int from = count == 0 ? 0 : starts[0];
+		int to = count == 0 ? 0 : ends[count - 1];
+		byte[] bytes = new byte[to - from];
+		ByteBuffer source = buffer.duplicate();
+		source.position(from);
+		source.get(bytes);
+		copy.buffer = ByteBuffer.wrap(bytes);
+		copy.recordNumber = recordNumber;
+		for (int i = 0; i < count; i++) {
+			copy.add(starts[i] - from, ends[i] - from, escaped[i]);
+		}
+		return copy;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(getValues());
+	}
+
+	private void check(int index) {
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException("Field " + index + " of " + count);
+		}
+	}
+
+	/**
+	 * Copies a field's bytes into the scratch buffer, collapsing doubled quotes.
+	 *
+	 * @return the number of bytes copied.
+	 */
+	private int copyBytes(int index) {
+		int start = starts[index];
+		int length = ends[index] - start;
+		if (scratch.length < length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+		if (!escaped[index]) {
+			ByteBuffer source = buffer.duplicate();
+			source.position(start);
+			source.get(scratch, 0, length);
+			return length;
+		}
+		int n = 0;
+		for (int p = start; p < ends[index]; p++) {
+			byte b = buffer.get(p);
+			scratch[n++] = b;
+			if (b == quote) {
+				// The field is "escaped" because it contains doubled quotes; skip the second one.
+				p++;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Character view of a field. Single-byte charsets are read straight from the buffer; anything else is decoded on
+	 * first access.
+	 */
+	private class FieldView implements CharSequence {
+		private final int index;
+		String decoded;
+
+		FieldView(int index) {
+			this.index = index;
+		}
+
+		private boolean direct() {
+			return singleByte && !escaped[index];
+		}
+
+		private String decoded() {
+			if (decoded == null) {
+				decoded = getString(index);
+			}
+			return decoded;
+		}
+
+		@Override
+		public int length() {
+			return direct() ? ends[index] - starts[index] : decoded().length();
+		}
+
+		@Override
+		public char charAt(int i) {
+			if (direct()) {
+				if (i < 0 || i >= ends[index] - starts[index]) {
+					throw new IndexOutOfBoundsException("index " + i);
+				}
+				return (char) (buffer.get(starts[index] + i) & 0xFF);
+			}
+			return decoded().charAt(i);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().substring(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return decoded();
+		}
+	}
+}
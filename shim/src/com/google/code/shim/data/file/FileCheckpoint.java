@@ -0,0 +1,91 @@
+package com.google.code.shim.data.file;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Keeps a checkpoint in a small sidecar file, by default the data file's name with a ".checkpoint" suffix. The
+ * position is written to a temporary file, forced to disk and renamed over the previous one, so the sidecar always
+ * holds a complete position.
+ *
+ * @author dgau
+ *
+ */
+public class FileCheckpoint extends Checkpoint {
+
+	private final File file;
+
+	/**
+	 * @param file
+	 *            the sidecar file.
+	 */
+	public FileCheckpoint(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * @param dataFile
+	 *            the file being loaded.
+	 * @return a checkpoint kept next to the data file.
+	 */
+	public static FileCheckpoint forDataFile(File dataFile) {
+		return new FileCheckpoint(new File(dataFile.getPath() + ".checkpoint"));
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public Position load() throws IOException {
+		if (!file.exists()) {
+			return null;
+		}
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try {
+			String line = in.readLine();
+			if (line == null) {
+				return null;
+			}
+			String[] parts = line.trim().split("\\s+");
+			try {
+				return new Position(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+			} catch (RuntimeException e) {
+				throw new IOException("Invalid checkpoint in " + file + ": " + line);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	@Override
+	public void afterCommit(Position position) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		FileOutputStream out = new FileOutputStream(temp);
+		try {
+			out.write((position.getOffset() + " " + position.getRecords() + "\n").getBytes("US-ASCII"));
+			out.getChannel().force(true);
+		} finally {
+			out.close();
+		}
+		// Windows will not rename over an existing file.
+		if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+			throw new IOException("Could not replace checkpoint " + file);
+		}
+	}
+
+	@Override
+	public void clear() throws IOException {
+		if (file.exists() && !file.delete()) {
+			throw new IOException("Could not delete checkpoint " + file);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return file.getPath();
+	}
+}
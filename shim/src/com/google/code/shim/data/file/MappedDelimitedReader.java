@@ -0,0 +1,300 @@
+package com.google.code.shim.data.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Reads a delimited file through memory-mapped regions of the file, scanning the mapped bytes for delimiters, quotes
+ * and line ends. Records are exposed as {@link DelimitedRecord} views onto the mapping, so no Strings are created
+ * unless asked for.
+ * <p>
+ * Quoted fields may contain delimiters, line ends and doubled quotes. Lines may end with \n or \r\n, and empty lines
+ * are skipped. As with {@link com.csvreader.CsvReader}, spaces and tabs around fields are trimmed unless
+ * {@link #setTrimWhitespace(boolean) turned off}; the inside of a quoted field is kept as is. The charset must encode the delimiter, quote and line ends as single ASCII bytes, which is true of
+ * UTF-8, ISO-8859-x, windows-125x and US-ASCII but not of UTF-16. A UTF-8 byte order mark is skipped.
+ * </p>
+ * <p>
+ * The file is mapped in windows of {@link #DEFAULT_WINDOW_SIZE} bytes; a record may not be longer than the window.
+ * </p>
+ *
+ * @author dgau
+ *
+ */
+public class MappedDelimitedReader implements Closeable {
+
+	/**
+	 * Size of each mapped region of the file.
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+	private static final Charset DEFAULT_CHARSET = Charset.forName("ISO-8859-1");
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final long fileSize;
+	private final int windowSize;
+	private final byte delimiter;
+	private final byte quote;
+	private final DelimitedRecord record;
+
+	private MappedByteBuffer map;
+	private long regionStart;
+	/**
+	 * File offset of the next unread byte.
+	 */
+	private long position;
+	private long currentRecord = -1;
+	private boolean trimWhitespace = true;
+	/**
+	 * Offset in the mapping of the line last scanned.
+	 */
+	private int lineStart;
+
+	/**
+	 * Opens a file using '"' for quotes and the ISO-8859-1 charset, the same defaults as
+	 * {@link com.csvreader.CsvReader}.
+	 *
+	 * @param fileName
+	 * @param delimiter
+	 * @throws IOException
+	 */
+	public MappedDelimitedReader(String fileName, char delimiter) throws IOException {
+		this(new File(fileName), delimiter, '"', DEFAULT_CHARSET, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * @param file
+	 * @param delimiter
+	 * @param quote
+	 *            the text qualifier
+	 * @param charset
+	 *            an ASCII-compatible charset
+	 * @throws IOException
+	 */
+	public MappedDelimitedReader(File file, char delimiter, char quote, Charset charset) throws IOException {
+		this(file, delimiter, quote, charset, DEFAULT_WINDOW_SIZE);
+	}
+
+	MappedDelimitedReader(File file, char delimiter, char quote, Charset charset, int windowSize) throws IOException {
+		this.delimiter = asciiByte(delimiter, "delimiter");
+		this.quote = asciiByte(quote, "quote");
+		if (charset == null) {
+			charset = DEFAULT_CHARSET;
+		}
+		if ("\t\n,\"".getBytes(charset.name()).length != 4) {
+			throw new IllegalArgumentException("Charset " + charset + " is not ASCII-compatible");
+		}
+		this.windowSize = windowSize;
+		this.record = new DelimitedRecord(charset, this.quote);
+		this.file = new RandomAccessFile(file, "r");
+		this.channel = this.file.getChannel();
+		this.fileSize = channel.size();
+
+		map(0);
+		if ("UTF-8".equals(charset.name()) && fileSize >= 3 && map.get(0) == (byte) 0xEF && map.get(1) == (byte) 0xBB
+			&& map.get(2) == (byte) 0xBF) {
+			position = 3;
+		}
+	}
+
+	private static byte asciiByte(char c, String what) {
+		if (c == '\n' || c == '\r' || c > 127) {
+			throw new IllegalArgumentException("Unsupported " + what + ": '" + c + "'");
+		}
+		return (byte) c;
+	}
+
+	/**
+	 * Sets whether spaces and tabs (unless the tab is the delimiter) before and after fields are dropped, as
+	 * {@link com.csvreader.CsvReader#setTrimWhitespace(boolean)} does. Defaults to true.
+	 *
+	 * @param trimWhitespace
+	 */
+	public void setTrimWhitespace(boolean trimWhitespace) {
+		this.trimWhitespace = trimWhitespace;
+	}
+
+	private boolean isWhitespace(byte b) {
+		return trimWhitespace && (b == ' ' || b == '\t') && b != delimiter;
+	}
+
+	/**
+	 * Reads the next record as the header.
+	 *
+	 * @return the header names, or null if the file is empty.
+	 * @throws IOException
+	 */
+	public String[] readHeaders() throws IOException {
+		return next() ? record.getValues() : null;
+	}
+
+	/**
+	 * Advances to the next record.
+	 *
+	 * @return false at the end of the file.
+	 * @throws IOException
+	 */
+	public boolean readRecord() throws IOException {
+		if (!next()) {
+			return false;
+		}
+		record.recordNumber = ++currentRecord;
+		return true;
+	}
+
+	/**
+	 * @return the current record. The same instance is returned (and refilled) for every record.
+	 */
+	public DelimitedRecord getRecord() {
+		return record;
+	}
+
+	/**
+	 * @return the zero-based number of the current record, not counting the header, or -1 before the first.
+	 */
+	public long getCurrentRecord() {
+		return currentRecord;
+	}
+
+	/**
+	 * @return the file offset of the next unread byte.
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * Moves to a position previously returned by {@link #getPosition()}, such as a checkpoint, which must be the start
+	 * of a record.
+	 *
+	 * @param offset
+	 *            byte offset in the file.
+	 * @param records
+	 *            the number of data records before the offset, so that record numbers continue from there.
+	 * @throws IOException
+	 *             if the offset is outside the file.
+	 */
+	public void seek(long offset, long records) throws IOException {
+		if (offset < 0 || offset > fileSize) {
+			throw new IOException("Offset " + offset + " is outside the file (" + fileSize + " bytes)");
+		}
+		position = offset;
+		currentRecord = records - 1;
+		record.clear();
+		map(offset);
+	}
+
+	@Override
+	public void close() throws IOException {
+		map = null;
+		record.buffer = null;
+		file.close();
+	}
+
+	private void map(long start) throws IOException {
+		regionStart = start;
+		map = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, fileSize - start));
+		record.buffer = map;
+	}
+
+	private boolean next() throws IOException {
+		while (position < fileSize) {
+			if (!scan()) {
+				if (position == regionStart) {
+					throw new IOException("Record at byte " + position + " is longer than the " + windowSize
+						+ " byte window");
+				}
+				// The record runs past the mapped window; map again from the record's start.
+				map(position);
+			} else if (!isEmptyLine()) {
+				return true;
+			}
+		}
+		record.clear();
+		return false;
+	}
+
+	private boolean isEmptyLine() {
+		// A line of whitespace is a record with one empty field, as it is to CsvReader.
+		return record.count == 1 && record.starts[0] == lineStart && record.ends[0] == lineStart;
+	}
+
+	/**
+	 * Scans one record from the current position, filling the record's field offsets.
+	 *
+	 * @return false if the mapped region ended before the record did (and the region is not the end of the file).
+	 */
+	private boolean scan() {
+		int limit = map.limit();
+		boolean eof = regionStart + limit == fileSize;
+		int p = (int) (position - regionStart);
+		lineStart = p;
+		record.clear();
+
+		while (true) {
+			while (p < limit && isWhitespace(map.get(p))) {
+				p++;
+			}
+			if (p < limit && map.get(p) == quote) {
+				int start = ++p;
+				boolean hasEscapes = false;
+				while (true) {
+					if (p >= limit) {
+						if (!eof) {
+							return false;
+						}
+						break;
+					}
+					if (map.get(p) == quote) {
+						if (p + 1 >= limit && !eof) {
+							return false;
+						}
+						if (p + 1 < limit && map.get(p + 1) == quote) {
+							hasEscapes = true;
+							p += 2;
+							continue;
+						}
+						break;
+					}
+					p++;
+				}
+				record.add(start, Math.min(p, limit), hasEscapes);
+				// Skip the closing quote, and anything between it and the next delimiter.
+				while (p < limit && map.get(p) != delimiter && map.get(p) != '\n') {
+					p++;
+				}
+			} else {
+				int start = p;
+				byte b = 0;
+				while (p < limit && (b = map.get(p)) != delimiter && b != '\n') {
+					p++;
+				}
+				int end = p;
+				if (end > start && map.get(end - 1) == '\r' && (p < limit ? b == '\n' : eof)) {
+					end--;
+				}
+				while (end > start && isWhitespace(map.get(end - 1))) {
+					end--;
+				}
+				record.add(start, end, false);
+			}
+
+			if (p >= limit) {
+				if (!eof) {
+					return false;
+				}
+				break;
+			}
+			if (map.get(p++) == '\n') {
+				break;
+			}
+		}
+		position = regionStart + p;
+		return true;
+	}
+}
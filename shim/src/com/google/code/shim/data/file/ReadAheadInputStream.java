@@ -0,0 +1,170 @@
+package com.google.code.shim.data.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads a stream on a background thread, ahead of the caller, through a bounded queue of buffers. Used to decompress
+ * input on one core while it is parsed on another. An exception or error thrown by the source is rethrown to the
+ * caller once the data read before it has been consumed.
+ *
+ * @author dgau
+ *
+ */
+class ReadAheadInputStream extends InputStream {
+
+	private static final Chunk END = new Chunk(new byte[0], 0);
+
+	private static class Chunk {
+		final byte[] bytes;
+		final int length;
+
+		Chunk(byte[] bytes, int length) {
+			this.bytes = bytes;
+			this.length = length;
+		}
+	}
+
+	private final InputStream source;
+	private final BlockingQueue<Chunk> queue;
+	private final Thread thread;
+	private volatile Throwable error;
+	private volatile boolean closed;
+
+	private Chunk current;
+	private int offset;
+
+	/**
+	 * Starts reading the source.
+	 *
+	 * @param source
+	 *            the stream to read, closed with this stream.
+	 * @param bufferSize
+	 *            the size of each buffer read ahead.
+	 * @param depth
+	 *            the number of buffers that may be read ahead.
+	 * @param name
+	 *            names the reading thread.
+	 */
+	ReadAheadInputStream(InputStream source, final int bufferSize, int depth, String name) {
+		this.source = source;
+		this.queue = new ArrayBlockingQueue<Chunk>(Math.max(1, depth));
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				fill(bufferSize);
+			}
+		}, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void fill(int bufferSize) {
+		try {
+			while (!closed) {
+				byte[] bytes = new byte[bufferSize];
+				int n = 0;
+				int read = 0;
+				// Fill the buffer, so the reader sees few, large chunks.
+				while (n < bytes.length && (read = source.read(bytes, n, bytes.length - n)) >= 0) {
+					n += read;
+				}
+				if (n > 0) {
+					queue.put(new Chunk(bytes, n));
+				}
+				if (read < 0) {
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			// Closed.
+		} catch (Throwable t) {
+			error = t;
+		} finally {
+			// The reader always sees the end, unless it has closed the stream and is no longer reading.
+			if (!closed) {
+				try {
+					queue.put(END);
+				} catch (InterruptedException e) {
+					// Closed.
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the current chunk, with bytes left to read, or null at the end of the stream.
+	 */
+	private Chunk chunk() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		while (current == null || (current != END && offset == current.length)) {
+			try {
+				current = queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for input");
+			}
+			offset = 0;
+		}
+		if (current == END) {
+			if (error instanceof IOException) {
+				throw (IOException) error;
+			} else if (error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			} else if (error instanceof Error) {
+				throw (Error) error;
+			} else if (error != null) {
+				throw new IOException(error);
+			}
+			return null;
+		}
+		return current;
+	}
+
+	@Override
+	public int read() throws IOException {
+		Chunk chunk = chunk();
+		return chunk == null ? -1 : chunk.bytes[offset++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		Chunk chunk = chunk();
+		if (chunk == null) {
+			return -1;
+		}
+		int n = Math.min(len, chunk.length - offset);
+		System.arraycopy(chunk.bytes, offset, b, off, n);
+		offset += n;
+		return n;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return current == null || current == END ? 0 : current.length - offset;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		thread.interrupt();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		queue.clear();
+		source.close();
+	}
+}
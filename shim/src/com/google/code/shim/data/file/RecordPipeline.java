@@ -0,0 +1,190 @@
+package com.google.code.shim.data.file;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands records read by an {@link AbstractDelimitedFileHandler} to worker threads, in batches, through bounded queues.
+ * The reading thread blocks when the queues are full.
+ * <p>
+ * Unordered pipelines share one queue between all workers. Ordered pipelines give each worker its own queue and send
+ * each record to the worker chosen by its ordering key, so records with equal keys are processed in file order.
+ * </p>
+ * <p>
+ * The first exception (or error) thrown by a worker stops the pipeline: the reader stops submitting, the remaining
+ * queued records are discarded, and the exception is rethrown by {@link #finish()}.
+ * </p>
+ *
+ * @author dgau
+ *
+ */
+class RecordPipeline {
+
+	private static final Object[] END = new Object[0];
+
+	private final AbstractDelimitedFileHandler handler;
+	private final String[] headers;
+	private final boolean ordered;
+	private final int batchSize;
+	private final AtomicLong processed;
+	private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+	private final List<BlockingQueue<Object[]>> queues;
+	private final Object[][] pending;
+	private final int[] counts;
+	private final int workers;
+	private final ExecutorService pool;
+
+	/**
+	 * Starts the worker threads.
+	 *
+	 * @param handler
+	 * @param headers
+	 * @param workers
+	 *            the number of worker threads.
+	 * @param ordered
+	 * @param batchSize
+	 *            the number of records handed to a worker at a time.
+	 * @param queueCapacity
+	 *            the number of batches that may be waiting, in total, before the reader blocks.
+	 * @param threadFactory
+	 *            creates the worker threads; null for the default.
+	 * @param processed
+	 *            counter incremented for every record processed.
+	 */
+	RecordPipeline(AbstractDelimitedFileHandler handler, String[] headers, int workers, boolean ordered,
+		int batchSize, int queueCapacity, ThreadFactory threadFactory, AtomicLong processed) {
+		this.handler = handler;
+		this.headers = headers;
+		this.workers = Math.max(1, workers);
+		this.ordered = ordered;
+		this.batchSize = Math.max(1, batchSize);
+		this.processed = processed;
+
+		int queueCount = ordered ? this.workers : 1;
+		int capacity = Math.max(1, queueCapacity / queueCount);
+		this.queues = new ArrayList<BlockingQueue<Object[]>>(queueCount);
+		for (int i = 0; i < queueCount; i++) {
+			queues.add(new ArrayBlockingQueue<Object[]>(capacity));
+		}
+		this.pending = new Object[queueCount][this.batchSize];
+		this.counts = new int[queueCount];
+
+		this.pool = threadFactory == null ? Executors.newFixedThreadPool(this.workers) : Executors.newFixedThreadPool(
+			this.workers, threadFactory);
+		for (int i = 0; i < this.workers; i++) {
+			pool.execute(new Worker(queues.get(ordered ? i : 0)));
+		}
+	}
+
+	/**
+	 * Adds a record to the pipeline, blocking if the workers are behind.
+	 *
+	 * @param record
+	 *            a String[] or a {@link DelimitedRecord} that is no longer used by the reader.
+	 * @param key
+	 *            the ordering key, used only by ordered pipelines.
+	 * @return false if a worker has failed, and no more records should be submitted.
+	 * @throws InterruptedException
+	 */
+	boolean submit(Object record, Object key) throws InterruptedException {
+		if (error.get() != null) {
+			return false;
+		}
+		int q = ordered && key != null ? (key.hashCode() & Integer.MAX_VALUE) % queues.size() : 0;
+		pending[q][counts[q]++] = record;
+		if (counts[q] == batchSize) {
+			queues.get(q).put(pending[q]);
+			pending[q] = new Object[batchSize];
+			counts[q] = 0;
+		}
+		return true;
+	}
+
+	/**
+	 * Sends the remaining records, waits for the workers to process them, and stops the workers.
+	 *
+	 * @throws Exception
+	 *             the first exception thrown by a worker, if any. An Error thrown by a worker is rethrown as is.
+	 */
+	void finish() throws Exception {
+		for (int q = 0; q < queues.size(); q++) {
+			if (counts[q] > 0 && error.get() == null) {
+				queues.get(q).put(Arrays.copyOf(pending[q], counts[q]));
+			}
+			counts[q] = 0;
+		}
+		// One end marker per worker; a shared queue gets them all.
+		for (int i = 0; i < workers; i++) {
+			queues.get(ordered ? i : 0).put(END);
+		}
+		pool.shutdown();
+		while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+			AbstractDelimitedFileHandler.logger.debug("Waiting for workers, " + processed.get() + " records processed");
+		}
+		Throwable t = error.get();
+		if (t instanceof Error) {
+			throw (Error) t;
+		} else if (t != null) {
+			throw (Exception) t;
+		}
+	}
+
+	/**
+	 * Stops the workers without waiting for queued records, for example when reading fails.
+	 */
+	void abort() {
+		pool.shutdownNow();
+	}
+
+	private class Worker implements Runnable {
+		private final BlockingQueue<Object[]> queue;
+
+		Worker(BlockingQueue<Object[]> queue) {
+			this.queue = queue;
+		}
+
+		@Override
+		public void run() {
+			try {
+				Object[] batch;
+				while ((batch = queue.take()) != END) {
+					if (error.get() != null) {
+						// Keep draining, so the reader is never blocked by a failed pipeline.
+						continue;
+					}
+					for (Object record : batch) {
+						try {
+							if (record instanceof DelimitedRecord) {
+								handler.onEachRecord(headers, (DelimitedRecord) record);
+							} else {
+								handler.onEachRecord(headers, (String[]) record);
+							}
+							processed.incrementAndGet();
+						} catch (Throwable e) {
+							// Errors too, or an ordered pipeline's reader would wait forever on this worker's queue.
+							if (error.compareAndSet(null, e)) {
+								String description = record instanceof String[] ? Arrays.toString((String[]) record)
+									: String.valueOf(record);
+								AbstractDelimitedFileHandler.logger.error("Worker failed on record " + description + ": "
+									+ e.getMessage(), e);
+							}
+							break;
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
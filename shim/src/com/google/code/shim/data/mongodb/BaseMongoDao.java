@@ -1,563 +1,1672 @@
-package com.google.code.shim.data.mongodb;
-
-import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import org.apache.log4j.LogManager;
-import org.apache.log4j.Logger;
-
-import com.google.code.shim.collections.StringKeyMap;
-import com.google.code.shim.data.BaseDao;
-import com.google.code.shim.data.DataAccessException;
-import com.google.code.shim.data.UnavailableException;
-import com.mongodb.BasicDBObject;
-import com.mongodb.DB;
-import com.mongodb.DBCollection;
-import com.mongodb.DBCursor;
-import com.mongodb.DBObject;
-import com.mongodb.MongoException;
-import com.mongodb.WriteConcern;
-import com.mongodb.util.JSON;
-
-/**
- * Abstract DAO functionality for interacting with a MongoDB collection.
- * 
- * This DAO faciliates basic CRUD operations through its various methods, and
- * sets conventions that can be used for consistent handling of database calls.
- * 
- * @author dgau
- * 
- */
-public abstract class BaseMongoDao extends BaseDao {
-	static final Logger logger = LogManager.getLogger(BaseMongoDao.class);
-	private final DB db;
-	private final String collectionName;
-
-	/**
-	 * Every DAO must be instantiated with a reference to a Mongo DB (analogous
-	 * to a JDBC DataSource)
-	 * 
-	 * @param injectedDb
-	 *            the DB
-	 * @param collName
-	 *            collection name to use
-	 * @throws DataAccessException
-	 */
-	public BaseMongoDao(DB injectedDb, String collName) throws DataAccessException {
-		super();
-		this.db = injectedDb;
-		this.collectionName = collName;
-
-	}
-
-	/**
-	 * Gets the DB.
-	 * 
-	 * @return the mongo database
-	 */
-	protected DB getDB() {
-		return this.db;
-	}
-
-	/**
-	 * Gets the collection.
-	 * 
-	 * @return the mongodb collection
-	 */
-	protected DBCollection getCollection() {
-		return getDB().getCollection(collectionName);
-	}
-
-	/**
-	 * Finds a mongodb object. By convention, the method will assume a property
-	 * exists of the form: "mongo." + [name of method that called this method].
-	 * 
-	 * @param queryParms
-	 *            parameters to be passed into the sql statement.
-	 * @return map representing the mongodb object.
-	 * @throws DataAccessException
-	 */
-	public Map<String,Object> findOne(Object... queryParms) throws DataAccessException {
-		return findOneUsingProperty(getDerivedPropertyName(), queryParms);
-	}
-
-	/**
-	 * Finds a list of mongodb objects. By convention, the method will assume a
-	 * property exists of the form: "mongo." + [name of method that called this
-	 * method].
-	 * 
-	 * @param queryParms
-	 *            parameters to be passed into the sql statement.
-	 * @return list of maps, each map representing a mongodb object.
-	 * 
-	 * @throws DataAccessException
-	 */
-	public List<StringKeyMap> findMany(Object... queryParms) throws DataAccessException {
-		return findManyUsingProperty(getDerivedPropertyName(), queryParms);
-	}
-
-	/**
-	 * Modifies an existing document's fields. 
-	 * The query parms are plugged into a JSON object to locate it.  Existing fields not in the objectToSave map
-	 * will be retained as-is (this behavior is different than the {@link #save(Map, Object...)} method).  
-	 * If the document is not found, a new document will be inserted.
-	 * 
-	 * @param objectToSave
-	 * @param queryParms
-	 * @throws DataAccessException
-	 */
-	public void modify(Map<String, Object> objectToSave, Object... queryParms) throws DataAccessException {
-		saveUsingProperty(getDerivedPropertyName(), objectToSave, queryParms);
-	}
-	
-	/**
-	 * Issues a save. The query parms are plugged into a JSON object to locate
-	 * the document. Please note this method will COMPLETELY REPLACE any previously
-	 * existing object.  If the document is not found, a new document will be inserted.
-	 * 
-	 * @param objectToSave
-	 * @param queryParms
-	 * @throws DataAccessException
-	 */
-	public void save(Map<String, Object> objectToSave, Object... queryParms) throws DataAccessException {
-		saveUsingProperty(getDerivedPropertyName(), objectToSave, queryParms);
-	}
-
-	/**
-	 * Issues a delete. The parms are plugged into a JSON object specified by
-	 * 
-	 * @param queryParms
-	 * @throws DataAccessException
-	 */
-	public void delete(Object... queryParms) throws DataAccessException {
-		deleteUsingProperty(getDerivedPropertyName(), queryParms);
-	}
-
-	/**
-	 * Used internally for deriving the property name containing any templated
-	 * statements that Mongodb is to exeute to insert, save, query or delete
-	 * data.
-	 * 
-	 * @return
-	 */
-	private final String getDerivedPropertyName() {
-		String propName = "mongo." + deriveMethodNameFromStackTrace(4);
-		if (logger.isDebugEnabled()) {
-			logger.debug("mongo query property name: " + propName);
-		}
-		return propName;
-	}
-
-	/**
-	 * <p>
-	 * Issues a find one query.
-	 * </p>
-	 * 
-	 * @param propertyName
-	 *            name of the property where there are templated query parms for
-	 *            the object.
-	 * @param queryParms
-	 *            query parameters to fill in the query template.
-	 * @return a single map representing a mongodb document or null if nothing
-	 *         was found
-	 * @throws DataAccessException
-	 */
-	@SuppressWarnings("unchecked")
-	public StringKeyMap findOneUsingProperty(String propertyName, Object... queryParms) throws DataAccessException {
-		try {
-			String queryJson = getStringProperty(propertyName);
-			if (logger.isDebugEnabled()) {
-				logger.debug("query json: " + queryJson);
-			}
-
-			// Fill parms
-			queryJson = fillJson(queryJson, queryParms);
-
-			// Restrict returned attributes?
-			String fieldsJson = getStringProperty(propertyName + ".fields", null);
-
-			// Do the query.
-			DBCollection coll = getCollection();
-			DBObject result = null;
-			if (fieldsJson == null) {
-				DBObject query = (DBObject) JSON.parse(queryJson);
-				result = coll.findOne(query);
-			} else {
-				DBObject query = (DBObject) JSON.parse(queryJson);
-				DBObject fields = (DBObject) JSON.parse(fieldsJson);
-				result = coll.findOne(query, fields);
-			}
-			if (result == null)
-				return null;
-			return new StringKeyMap(result.toMap());
-
-		} catch (Exception e) {
-			throw handleException(e);
-		}
-	}
-
-	/**
-	 * 
-	 * <p>
-	 * Issues a find many query.
-	 * </p>
-	 * <p>
-	 * Note that this method will build a list from the mongodb cursor, so if
-	 * your query returns a large number of documents, be mindful of the memory
-	 * consuption involved with this.
-	 * </p>
-	 * 
-	 * @param propertyName
-	 *            name of the property where there are templated query parms for
-	 *            the object.
-	 * @param queryParms
-	 *            query parameters to fill in the query template.
-	 * @return list of maps. each map represents a mongodb document
-	 * @throws DataAccessException
-	 */
-	public List<StringKeyMap> findManyUsingProperty(String propertyName, Object... queryParms) throws DataAccessException {
-		try {
-			String queryJson = getStringProperty(propertyName);
-			if (logger.isDebugEnabled()) {
-				logger.debug("query json: " + queryJson);
-			}
-
-			// Fill parms
-			if (queryJson != null) {
-				queryJson = fillJson(queryJson, queryParms);
-			}
-
-			// Restrict returned attributes?
-			String fieldsJson = getStringProperty(propertyName + ".fields", null);
-
-			// Do the query.
-			DBCollection coll = getCollection();
-			DBCursor result = null;
-			if (fieldsJson == null) {
-				DBObject query = (DBObject) JSON.parse(queryJson);
-				result = coll.find(query);
-			} else {
-				DBObject query = (DBObject) JSON.parse(queryJson);
-				DBObject fields = (DBObject) JSON.parse(fieldsJson);
-				result = coll.find(query, fields);
-			}
-			ArrayList<StringKeyMap> results = new ArrayList<StringKeyMap>();
-			while(result.hasNext()){
-				results.add( new StringKeyMap(result.next().toMap()) );
-			}
-			return results;
-
-		} catch (Exception e) {
-			throw handleException(e);
-		}
-	}
-
-	/**
-	 * Issues a save command, which will REPLACE any existing object entirelyw ith the data in the
-	 * objectToSave map of data.  If the object does not exist, a new one will be inserted.
-	 * 
-	 * @param propertyName
-	 *            name of the property where there are templated query parms for
-	 *            the object.
-	 * @param objectToSave
-	 *            map of data to save. The map values will be converted to a
-	 *            JSON object.
-	 * @param queryParms
-	 *            query parameters to fill in the query template.
-	 * @throws DataAccessException
-	 * @see <a href="http://www.mongodb.org/display/DOCS/Updating">Updating in MongoDb</a>
-	 */
-	public void saveUsingProperty(String propertyName, Map<String, Object> objectToSave, Object... queryParms)
-		throws DataAccessException {
-		try {
-			String queryJson = getStringProperty(propertyName);
-			if (logger.isDebugEnabled()) {
-				logger.debug("query json: " + queryJson);
-			}
-			// If query doesn't exist, throw exception.
-			if (queryJson == null || queryJson.isEmpty()) {
-				throw new DataAccessException("No query was provided for the save method.");
-			}
-
-			// Fill parms
-			queryJson = fillJson(queryJson, queryParms);
-
-			// Build the query.
-			DBObject query = (DBObject) JSON.parse(queryJson);
-			
-			
-			// Create the DBObject to save.
-			DBObject toSave = new BasicDBObject();
-			toSave.putAll(objectToSave);
-			replaceBigDecimals(toSave);
-
-			
-			// Do the save.
-			DBCollection coll = getCollection();
-			coll.update(query, toSave, true, false, WriteConcern.SAFE);
-
-		} catch (Exception e) {
-			if (logger.isDebugEnabled()) {
-				// if(objectToSave instanceof Map<String,Object>){
-				// Map<String,Object>.trace( (Map<String,Object>) objectToSave );
-				// }
-				logger.debug("error saving: " + JSON.serialize(objectToSave));
-			}
-			throw handleException(e);
-		}
-
-	}
-	
-	/**
-	 * Modifies an existing dbobject, inserting it if it does not exist.   
-	 * This method modifies only the fields indicated in the  <code>objectToSave</code> map, 
-	 * and  PRESERVES  existing values NOT PART of the map, making it different from 
-	 * {@link #saveUsingProperty(String, Map, Object...)}.  
-	 * 
-	 * @param propertyName
-	 *            name of the property where there are templated query parms for
-	 *            the object.
-	 * @param objectToSave
-	 *            map of data to save. The map values will be converted to a
-	 *            JSON object.
-	 * @param queryParms
-	 *            query parameters to fill in the query template.
-	 * @throws DataAccessException
-	 * @see <a href="http://www.mongodb.org/display/DOCS/Updating">Updating in MongoDb</a>
-	 */
-	public void modifyUsingProperty(String propertyName, Map<String, Object> objectToSave, Object... queryParms)
-		throws DataAccessException {
-		try {
-			String queryJson = getStringProperty(propertyName);
-			if (logger.isDebugEnabled()) {
-				logger.debug("query json: " + queryJson);
-			}
-			// If query doesn't exist, throw exception.
-			if (queryJson == null || queryJson.isEmpty()) {
-				throw new DataAccessException("No query was provided for the save method.");
-			}
-
-			// Fill parms
-			queryJson = fillJson(queryJson, queryParms);
-
-			// Build the query.
-			DBObject query = (DBObject) JSON.parse(queryJson);
-			
-			// Create the DBObject to save.
-			DBObject toSave = new BasicDBObject();
-
-			replaceBigDecimals(objectToSave);
-
-			//Build the modifiers needed for the individual fields
-			for(String key : objectToSave.keySet()){
-				DBObject setInstruction = new BasicDBObject();
-				setInstruction.put(key, objectToSave.get("key"));
-				toSave.put("$set", setInstruction);
-			}
-			
-			// Do the modification.
-			DBCollection coll = getCollection();
-			coll.update(query, toSave, true, false, WriteConcern.SAFE);
-
-		} catch (Exception e) {
-			if (logger.isDebugEnabled()) {
-				// if(objectToSave instanceof Map<String,Object>){
-				// Map<String,Object>.trace( (Map<String,Object>) objectToSave );
-				// }
-				logger.debug("error saving: " + JSON.serialize(objectToSave));
-			}
-			throw handleException(e);
-		}
-
-	}
-
-
-	/**
-	 * Issues a delete command.
-	 * 
-	 * @param propertyName
-	 *            name of the property where there are templated query parms for
-	 *            the object.
-	 * @param queryParms
-	 *            query parameters to fill in the query template.
-	 * @throws DataAccessException
-	 */
-	public void deleteUsingProperty(String propertyName, Object... queryParms) throws DataAccessException {
-		try {
-			String queryJson = getStringProperty(propertyName);
-			if (logger.isDebugEnabled()) {
-				logger.debug("json: " + queryJson);
-			}
-			// If query doesn't exist, throw exception.
-			if (queryJson == null || queryJson.isEmpty()) {
-				throw new DataAccessException("No query was provided for the delete method.");
-			}
-
-			// Fill parms
-			queryJson = fillJson(queryJson, queryParms);
-
-			// Build the delete object..
-			DBObject deleteMatchesThisObject = (DBObject) JSON.parse(queryJson);
-
-			// Do the delete
-			DBCollection coll = getCollection();
-			coll.remove(deleteMatchesThisObject, WriteConcern.SAFE);
-
-		} catch (Exception e) {
-			throw handleException(e);
-		}
-
-	}
-
-	@Override
-	/**
-	 * Overrides
-	 */
-	protected DataAccessException handleException(Exception e) {
-		logger.error(e.getMessage(), e);
-		if (e instanceof DataAccessException) {
-			return (DataAccessException) e;
-
-		} else if (e instanceof MongoException) {
-			MongoException m = (MongoException) e;
-
-			int mongoState = m.getCode();
-
-			switch (mongoState) {
-
-			default:
-				return new DataAccessException(m.getMessage() + "(" + m.getCode() + ")");
-
-			}
-		} else if (e instanceof java.net.ConnectException) {
-			return new UnavailableException(e);
-
-		} else {
-
-			DataAccessException dae = new DataAccessException(e);
-			return dae;
-		}
-	}
-
-	/**
-	 * BigDecimals are not cleanly mapped to supported data types due to 
-	 * <a href="http://comments.gmane.org/gmane.comp.db.mongodb.user/34582">this issue</a>
-	 * 
-	 * This method iterates recursively through a given DBObject or Map to find
-	 * BigDecimals and replace them with double values.
-	 * 
-	 * @param inObj
-	 */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
-	private static void replaceBigDecimals(Object inObj) {
-		// Holding collection for keys that have big decimal values.
-		ArrayList<Object> bigDecimalsHere = new ArrayList<Object>();
-
-		if (inObj instanceof Map) {
-			Map map = (Map) inObj;
-			// Iterate through the map to find BigDecimals.
-			for (Object key : map.keySet()) {
-				Object value = map.get(key);
-				if (value == null)
-					continue;
-				if (value instanceof BigDecimal) {
-					bigDecimalsHere.add(key);
-				} else if (value instanceof Map) {
-					replaceBigDecimals(value);
-				} else if (value instanceof DBObject) {
-					replaceBigDecimals(value);
-				} else if (value instanceof List) {
-					List list = (List) value;
-					for (Object listVal : list) {
-						replaceBigDecimals(listVal);
-					}
-				}
-			}
-			// Go back and replace the BigDecimals
-			for (Object key : bigDecimalsHere) {
-				//
-				// Replace with a double value
-				//
-				BigDecimal bd = (BigDecimal) map.get(key);
-				map.put(key, new Double(bd.doubleValue()));
-			}
-
-		} else if (inObj instanceof DBObject) {
-			DBObject dbobj = (DBObject) inObj;
-			// Iterate through the object to find BigDecimals.
-			for (String key : dbobj.keySet()) {
-				Object value = dbobj.get(key);
-				if (value == null)
-					continue;
-				if (value instanceof BigDecimal) {
-					bigDecimalsHere.add(key);
-				} else if (value instanceof Map) {
-					replaceBigDecimals(value);
-				} else if (value instanceof DBObject) {
-					replaceBigDecimals(value);
-				} else if (value instanceof List) {
-					List list = (List) value;
-					for (Object listVal : list) {
-						replaceBigDecimals(listVal);
-					}
-				}
-			}
-			// Go back and replace the BigDecimals
-			for (Object key : bigDecimalsHere) {
-				//
-				// Replace with a double value
-				//
-				BigDecimal bd = (BigDecimal) dbobj.get((String) key);
-				dbobj.put((String) key, new Double(bd.doubleValue()));
-			}
-		}
-
-	}
-
-	/**
-	 * Fills the jsonString in the same fashion as a PreparedStatement gets
-	 * filled with parameters (substituting each '?' with the corresponding parm
-	 * from the array.
-	 * 
-	 * @param jsonString
-	 *            the template
-	 * @param parms
-	 * @return a filled copy of the template jsonString
-	 */
-	protected static String fillJson(String jsonString, Object... parms) throws DataAccessException {
-		Matcher matcher = Pattern.compile("\\?").matcher(jsonString);
-		int count = 0;
-		while(matcher.find()){
-			count++;
-		}
-		if(count > parms.length){
-			String errMsg = "Not enough parameters were provided for the JSON.  Expected " + count + " parameters, but only "+
-			parms.length + " were provided";
-			throw new DataAccessException(errMsg);
-		}
-		  
-		String copy = jsonString;
-		for (Object object : parms) {
-			String replacement = null;
-			if(object == null){ 
-				replacement = "null";
-			} else if (object instanceof String) {
-				replacement = "\"" + ((String) object) + "\"";
-			} else if (object instanceof Date) {
-				long timestamp = ((Date) object).getTime();
-				replacement = "" + timestamp;
-			} else {
-				replacement = object.toString();
-			}
-		 
-			copy = copy.replaceFirst("\\?", "" + replacement);
-		}
-		return copy;
-	}
-
-}
+package com.google.code.shim.data.mongodb;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.bson.types.ObjectId;
+
+import com.google.code.shim.collections.StringKeyMap;
+import com.google.code.shim.data.BaseDao;
+import com.google.code.shim.data.DataAccessException;
+import com.google.code.shim.data.UnavailableException;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.Bytes;
+import com.mongodb.CommandResult;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.WriteResult;
+import com.mongodb.util.JSON;
+
+/**
+ * Abstract DAO functionality for interacting with a MongoDB collection.
+ * 
+ * This DAO faciliates basic CRUD operations through its various methods, and
+ * sets conventions that can be used for consistent handling of database calls.
+ * 
+ * @author dgau
+ * 
+ */
+public abstract class BaseMongoDao extends BaseDao {
+	static final Logger logger = LogManager.getLogger(BaseMongoDao.class);
+
+	/**
+	 * Default most documents sent in one bulk insert message, or queries combined in one bulk delete.
+	 */
+	public static final int DEFAULT_BULK_CHUNK_SIZE = 1000;
+	/**
+	 * Default most bytes of BSON sent in one bulk insert message.
+	 */
+	public static final int DEFAULT_BULK_CHUNK_BYTES = 4 * 1024 * 1024;
+	/**
+	 * Default number of threads issuing the upserts of a bulk save.
+	 */
+	public static final int DEFAULT_BULK_THREADS = 4;
+	/**
+	 * Default number of threads scanning the ranges of a parallel scan.
+	 */
+	public static final int DEFAULT_SCAN_THREADS = 4;
+	/**
+	 * Most results a parallel scan finds split points for by walking the key's index to each quantile, which costs
+	 * time in proportion to the results.
+	 */
+	public static final long SKIP_SAMPLE_LIMIT = 100000;
+
+	private final DB db;
+	private final String collectionName;
+	private final ConcurrentMap<String, QueryTemplate> templates = new ConcurrentHashMap<String, QueryTemplate>();
+	private volatile int batchSize;
+	private volatile WriteConcern writeConcern = WriteConcern.SAFE;
+	private volatile int bulkChunkSize = DEFAULT_BULK_CHUNK_SIZE;
+	private volatile int bulkChunkBytes = DEFAULT_BULK_CHUNK_BYTES;
+	private volatile int bulkThreads = DEFAULT_BULK_THREADS;
+	private volatile int scanThreads = DEFAULT_SCAN_THREADS;
+	private volatile WriteBehindBuffer writeBehind;
+	private volatile NearCache nearCache;
+	private volatile ReadPreference readPreference;
+	private final ConcurrentMap<String, ReadPreference> readPreferences = new ConcurrentHashMap<String, ReadPreference>();
+
+	/**
+	 * Every DAO must be instantiated with a reference to a Mongo DB (analogous
+	 * to a JDBC DataSource)
+	 * 
+	 * @param injectedDb
+	 *            the DB
+	 * @param collName
+	 *            collection name to use
+	 * @throws DataAccessException
+	 */
+	public BaseMongoDao(DB injectedDb, String collName) throws DataAccessException {
+		super();
+		this.db = injectedDb;
+		this.collectionName = collName;
+		String preference = getStringProperty("mongo.readPreference", null);
+		if (preference != null && preference.trim().length() > 0) {
+			this.readPreference = ReadPreferences.parse(preference);
+		}
+
+	}
+
+	/**
+	 * Gets the DB.
+	 * 
+	 * @return the mongo database
+	 */
+	protected DB getDB() {
+		return this.db;
+	}
+
+	/**
+	 * Gets the collection.
+	 * 
+	 * @return the mongodb collection
+	 */
+	protected DBCollection getCollection() {
+		return getDB().getCollection(collectionName);
+	}
+
+	/**
+	 * @return the number of documents fetched per round trip by queries that do not set their own ".batchSize"
+	 *         property; 0 leaves it to the server.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets the number of documents fetched per round trip by queries that do not set their own ".batchSize" property.
+	 * 
+	 * @param batchSize
+	 *            documents per batch; 0 leaves it to the server.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @return the write concern of saves, modifications and deletes; SAFE unless set.
+	 */
+	public WriteConcern getWriteConcern() {
+		return writeConcern;
+	}
+
+	/**
+	 * Sets the write concern of saves, modifications and deletes. Bulk writes take theirs as a parameter.
+	 * 
+	 * @param writeConcern
+	 */
+	public void setWriteConcern(WriteConcern writeConcern) {
+		this.writeConcern = writeConcern;
+	}
+
+	/**
+	 * Sets how bulk writes are divided.
+	 * 
+	 * @param chunkSize
+	 *            most documents sent in one bulk insert message, queries combined in one bulk delete, or upserts
+	 *            handed to a thread at a time by a bulk save; defaults to {@link #DEFAULT_BULK_CHUNK_SIZE}.
+	 * @param chunkBytes
+	 *            most bytes of BSON sent in one bulk insert message; defaults to {@link #DEFAULT_BULK_CHUNK_BYTES}.
+	 * @param threads
+	 *            number of threads issuing the upserts of a bulk save; defaults to {@link #DEFAULT_BULK_THREADS}.
+	 */
+	public void setBulkLimits(int chunkSize, int chunkBytes, int threads) {
+		this.bulkChunkSize = Math.max(1, chunkSize);
+		this.bulkChunkBytes = chunkBytes;
+		this.bulkThreads = Math.max(1, threads);
+	}
+
+	/**
+	 * Sets the number of threads that scan the ranges of a parallel scan at once.
+	 * 
+	 * @param threads
+	 *            defaults to {@link #DEFAULT_SCAN_THREADS}.
+	 * @see #scanUsingProperty(String, String, int, DocumentHandler, Object...)
+	 */
+	public void setScanThreads(int threads) {
+		this.scanThreads = Math.max(1, threads);
+	}
+
+	/**
+	 * <p>
+	 * Switches saves and modifications to write-behind: instead of being written before they return, they are held in
+	 * a buffer that coalesces repeated writes to the same document and writes them in bulk from a background thread.
+	 * See {@link WriteBehindBuffer} for when it flushes, and what happens to errors.
+	 * </p>
+	 * <p>
+	 * Bulk methods, deletes, {@link DocumentChanges} updates and reads are not buffered. A delete drops the write
+	 * pending for the same query, and a DocumentChanges update flushes it first, so a later flush does not undo them;
+	 * writes pending under other queries are left alone. A read may not see a write still pending; flush the buffer
+	 * first where that matters.
+	 * </p>
+	 * 
+	 * @param capacity
+	 *            most documents with writes pending before writers wait for a flush.
+	 * @param flushIntervalMillis
+	 *            how often pending writes are flushed.
+	 * @param concern
+	 *            write concern for the flushed writes.
+	 * @return the buffer, for flushing and statistics.
+	 */
+	public synchronized WriteBehindBuffer enableWriteBehind(int capacity, long flushIntervalMillis,
+		final WriteConcern concern) {
+		if (writeBehind == null) {
+			writeBehind = new WriteBehindBuffer("mongo-write-behind-" + collectionName, new WriteBehindBuffer.Writer() {
+				@Override
+				public BulkResult write(List<DBObject> queries, List<DBObject> updates) throws DataAccessException {
+					return upsertAll("write-behind", queries, updates, concern);
+				}
+			}, capacity, flushIntervalMillis);
+		}
+		return writeBehind;
+	}
+
+	/**
+	 * @return the write-behind buffer, or null if saves and modifications are written directly.
+	 */
+	public WriteBehindBuffer getWriteBehind() {
+		return writeBehind;
+	}
+
+	/**
+	 * Flushes and closes the write-behind buffer, if any, so that saves and modifications are written directly again.
+	 * 
+	 * @throws DataAccessException
+	 *             if the final flush could not be attempted.
+	 */
+	public synchronized void disableWriteBehind() throws DataAccessException {
+		WriteBehindBuffer buffer = writeBehind;
+		writeBehind = null;
+		if (buffer != null) {
+			buffer.close();
+		}
+	}
+
+	/**
+	 * @return the read preference of queries without their own ".readPreference" property, or null to use the
+	 *         driver's.
+	 */
+	public ReadPreference getReadPreference() {
+		return readPreference;
+	}
+
+	/**
+	 * Sets the read preference of queries without their own ".readPreference" property. It can also be given in the
+	 * properties file as "mongo.readPreference"; see {@link #findOneUsingProperty(String, Object...)} for the form.
+	 * 
+	 * @param readPreference
+	 *            the preference, or null to use the driver's.
+	 */
+	public void setReadPreference(ReadPreference readPreference) {
+		this.readPreference = readPreference;
+	}
+
+	/**
+	 * Gets the read preference of a query: its ".readPreference" property, or the DAO's.
+	 */
+	ReadPreference readPreferenceFor(String propertyName) throws DataAccessException {
+		ReadPreference preference = readPreferences.get(propertyName);
+		if (preference == null) {
+			String value = getStringProperty(propertyName + ".readPreference", null);
+			if (value == null || value.trim().length() == 0) {
+				return readPreference;
+			}
+			preference = ReadPreferences.parse(value);
+			readPreferences.putIfAbsent(propertyName, preference);
+		}
+		return preference;
+	}
+
+	/**
+	 * Routes a cursor's reads by a read preference.
+	 */
+	private static void applyReadPreference(DBCursor cursor, ReadPreference preference) {
+		if (preference != null) {
+			cursor.setReadPreference(preference);
+			if (ReadPreferences.allowsSecondary(preference)) {
+				cursor.addOption(Bytes.QUERYOPTION_SLAVEOK);
+			}
+		}
+	}
+
+	/**
+	 * Starts caching the documents found by {@link #findOneUsingProperty(String, Object...)} in memory, keyed by the
+	 * query, so that repeated lookups skip the server. See {@link NearCache} for when cached documents are evicted.
+	 * Suited to small, hot, rarely changed documents such as configuration and profiles.
+	 * 
+	 * @param maxEntries
+	 *            most documents cached; the least recently used are dropped first.
+	 * @param ttlMillis
+	 *            how long a document may be cached, which bounds how stale a lookup can be after another process
+	 *            changes it.
+	 * @return the cache, for statistics.
+	 */
+	public synchronized NearCache enableNearCache(int maxEntries, long ttlMillis) {
+		if (nearCache == null) {
+			nearCache = new NearCache(maxEntries, ttlMillis);
+		}
+		return nearCache;
+	}
+
+	/**
+	 * @return the near cache, or null if lookups always go to the server.
+	 */
+	public NearCache getNearCache() {
+		return nearCache;
+	}
+
+	/**
+	 * Stops caching lookups, and drops the cached documents.
+	 */
+	public synchronized void disableNearCache() {
+		nearCache = null;
+	}
+
+	/**
+	 * Evicts the cached documents a write with the given query may have changed.
+	 */
+	private void evict(DBObject query) {
+		NearCache cache = nearCache;
+		if (cache != null) {
+			cache.invalidate(query);
+		}
+	}
+
+	/**
+	 * Builds the query stored as JSON under a property, filling each '?' with the corresponding parameter. The JSON is
+	 * parsed once, the first time the property is used, and each call fills a fresh copy of the parsed query; see
+	 * {@link QueryTemplate}.
+	 * 
+	 * @param propertyName
+	 *            name of the property holding the query template.
+	 * @param queryParms
+	 *            query parameters to fill in the query template.
+	 * @return the query, or null if the property does not exist.
+	 * @throws DataAccessException
+	 *             if there are fewer parameters than the template requires.
+	 */
+	protected DBObject buildQuery(String propertyName, Object... queryParms) throws DataAccessException {
+		QueryTemplate template = templates.get(propertyName);
+		if (template == null) {
+			String json = getStringProperty(propertyName, null);
+			if (json == null || json.trim().isEmpty()) {
+				return null;
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("compiling query json for " + propertyName + ": " + json);
+			}
+			template = QueryTemplate.compile(json);
+			QueryTemplate existing = templates.putIfAbsent(propertyName, template);
+			if (existing != null) {
+				template = existing;
+			}
+		}
+		return template.bind(queryParms);
+	}
+
+	/**
+	 * Finds a mongodb object. By convention, the method will assume a property
+	 * exists of the form: "mongo." + [name of method that called this method].
+	 * 
+	 * @param queryParms
+	 *            parameters to be passed into the sql statement.
+	 * @return map representing the mongodb object.
+	 * @throws DataAccessException
+	 */
+	public Map<String,Object> findOne(Object... queryParms) throws DataAccessException {
+		return findOneUsingProperty(getDerivedPropertyName(), queryParms);
+	}
+
+	/**
+	 * Finds a list of mongodb objects. By convention, the method will assume a
+	 * property exists of the form: "mongo." + [name of method that called this
+	 * method].
+	 * 
+	 * @param queryParms
+	 *            parameters to be passed into the sql statement.
+	 * @return list of maps, each map representing a mongodb object.
+	 * 
+	 * @throws DataAccessException
+	 */
+	public List<StringKeyMap> findMany(Object... queryParms) throws DataAccessException {
+		return findManyUsingProperty(getDerivedPropertyName(), queryParms);
+	}
+
+	/**
+	 * Streams the mongodb objects a query finds. By convention, the method will assume a property exists of the form:
+	 * "mongo." + [name of method that called this method].
+	 * 
+	 * @param queryParms
+	 *            parameters to be passed into the query.
+	 * @return a cursor over the documents, which must be closed.
+	 * @throws DataAccessException
+	 * @see #streamUsingProperty(String, Object...)
+	 */
+	public DocumentCursor stream(Object... queryParms) throws DataAccessException {
+		return streamUsingProperty(getDerivedPropertyName(), queryParms);
+	}
+
+	/**
+	 * Runs an aggregation pipeline. By convention, the method will assume a property exists of the form: "mongo." +
+	 * [name of method that called this method].
+	 * 
+	 * @param queryParms
+	 *            parameters to be passed into the pipeline.
+	 * @return list of maps, each map representing a result document.
+	 * @throws DataAccessException
+	 * @see #aggregateUsingProperty(String, Object...)
+	 */
+	public List<StringKeyMap> aggregate(Object... queryParms) throws DataAccessException {
+		return aggregateUsingProperty(getDerivedPropertyName(), queryParms);
+	}
+
+	/**
+	 * Modifies an existing document's fields. 
+	 * The query parms are plugged into a JSON object to locate it.  Existing fields not in the objectToSave map
+	 * will be retained as-is (this behavior is different than the {@link #save(Map, Object...)} method).  
+	 * If the document is not found, a new document will be inserted.
+	 * 
+	 * @param objectToSave
+	 * @param queryParms
+	 * @throws DataAccessException
+	 */
+	public void modify(Map<String, Object> objectToSave, Object... queryParms) throws DataAccessException {
+		modifyUsingProperty(getDerivedPropertyName(), objectToSave, queryParms);
+	}
+	
+	/**
+	 * Applies field-level changes to a document. By convention, the method will assume a property exists of the form:
+	 * "mongo." + [name of method that called this method].
+	 * 
+	 * @param changes
+	 * @param queryParms
+	 * @return true if there were changes to send.
+	 * @throws DataAccessException
+	 * @see #modifyUsingProperty(String, DocumentChanges, Object...)
+	 */
+	public boolean modify(DocumentChanges changes, Object... queryParms) throws DataAccessException {
+		return modifyUsingProperty(getDerivedPropertyName(), changes, queryParms);
+	}
+
+	/**
+	 * Issues a save. The query parms are plugged into a JSON object to locate
+	 * the document. Please note this method will COMPLETELY REPLACE any previously
+	 * existing object.  If the document is not found, a new document will be inserted.
+	 * 
+	 * @param objectToSave
+	 * @param queryParms
+	 * @throws DataAccessException
+	 */
+	public void save(Map<String, Object> objectToSave, Object... queryParms) throws DataAccessException {
+		saveUsingProperty(getDerivedPropertyName(), objectToSave, queryParms);
+	}
+
+	/**
+	 * Issues a delete. The parms are plugged into a JSON object specified by
+	 * 
+	 * @param queryParms
+	 * @throws DataAccessException
+	 */
+	public void delete(Object... queryParms) throws DataAccessException {
+		deleteUsingProperty(getDerivedPropertyName(), queryParms);
+	}
+
+	/**
+	 * Used internally for deriving the property name containing any templated
+	 * statements that Mongodb is to exeute to insert, save, query or delete
+	 * data.
+	 * 
+	 * @return
+	 */
+	private final String getDerivedPropertyName() {
+		String propName = "mongo." + deriveMethodNameFromStackTrace(4);
+		if (logger.isDebugEnabled()) {
+			logger.debug("mongo query property name: " + propName);
+		}
+		return propName;
+	}
+
+	/**
+	 * <p>
+	 * Issues a find one query.
+	 * </p>
+	 * <p>
+	 * Like the other queries, it can be sent to a secondary by an optional propertyName + ".readPreference" property,
+	 * overriding the DAO's {@link #setReadPreference(ReadPreference) read preference}. The property names a MongoDB
+	 * read preference, optionally followed by the replica set tags required of the secondary, e.g.
+	 * <code>secondaryPreferred { dc : "east" }</code>. With this driver, primary and primaryPreferred read from the
+	 * primary, while secondary, secondaryPreferred and nearest read from a secondary when one is available.
+	 * </p>
+	 * 
+	 * @param propertyName
+	 *            name of the property where there are templated query parms for
+	 *            the object.
+	 * @param queryParms
+	 *            query parameters to fill in the query template.
+	 * @return a single map representing a mongodb document or null if nothing
+	 *         was found
+	 * @throws DataAccessException
+	 */
+	public StringKeyMap findOneUsingProperty(String propertyName, Object... queryParms) throws DataAccessException {
+		try {
+			DBObject query = buildQuery(propertyName, queryParms);
+			if (query == null) {
+				throw new DataAccessException("No query was provided for the find method.");
+			}
+
+			NearCache cache = nearCache;
+			String cacheKey = null;
+			long generation = 0;
+			if (cache != null) {
+				cacheKey = propertyName + ' ' + JSON.serialize(query);
+				StringKeyMap cached = cache.get(cacheKey);
+				if (cached != null) {
+					return cached;
+				}
+				// A write evicting this document while it is read makes what is read too old to cache.
+				generation = cache.generation();
+			}
+
+			// Restrict returned attributes?
+			DBObject fields = buildQuery(propertyName + ".fields");
+
+			// Do the query, as findOne does, decoding straight into a StringKeyMap.
+			DBCursor cursor = getCollection().find(query, fields).limit(-1);
+			cursor.setDecoderFactory(StringKeyDocument.DECODER_FACTORY);
+			applyReadPreference(cursor, readPreferenceFor(propertyName));
+			try {
+				if (!cursor.hasNext())
+					return null;
+				StringKeyMap result = StringKeyDocument.asStringKeyMap(cursor.next());
+				if (cache != null) {
+					cache.put(cacheKey, result, generation);
+				}
+				return result;
+			} finally {
+				cursor.close();
+			}
+
+		} catch (Exception e) {
+			throw handleException(e);
+		}
+	}
+
+	/**
+	 * 
+	 * <p>
+	 * Issues a find many query.
+	 * </p>
+	 * <p>
+	 * Note that this method will build a list from the mongodb cursor, so if
+	 * your query returns a large number of documents, be mindful of the memory
+	 * consuption involved with this; {@link #streamUsingProperty(String, Object...)}
+	 * walks the cursor instead.
+	 * </p>
+	 * <p>
+	 * The query honors the same optional properties as {@link #streamUsingProperty(String, Object...)}.
+	 * </p>
+	 * 
+	 * @param propertyName
+	 *            name of the property where there are templated query parms for
+	 *            the object.
+	 * @param queryParms
+	 *            query parameters to fill in the query template.
+	 * @return list of maps. each map represents a mongodb document
+	 * @throws DataAccessException
+	 */
+	public List<StringKeyMap> findManyUsingProperty(String propertyName, Object... queryParms) throws DataAccessException {
+		try {
+			DBCursor result = openCursor(propertyName, queryParms);
+			try {
+				ArrayList<StringKeyMap> results = new ArrayList<StringKeyMap>();
+				while (result.hasNext()) {
+					results.add(StringKeyDocument.asStringKeyMap(result.next()));
+				}
+				return results;
+			} finally {
+				result.close();
+			}
+
+		} catch (Exception e) {
+			throw handleException(e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Issues a find many query, returning a cursor that fetches the documents from the server in batches as it is
+	 * walked, rather than a list. Use this to scan large numbers of documents in constant memory. The cursor must be
+	 * closed.
+	 * </p>
+	 * <p>
+	 * Besides the query and its ".fields", these optional properties shape the query:
+	 * </p>
+	 * <ul>
+	 * <li>propertyName + ".sort": JSON sort order, e.g. <code>{ lastName : 1, firstName : 1 }</code></li>
+	 * <li>propertyName + ".hint": index to use, as JSON keys or an index name</li>
+	 * <li>propertyName + ".skip": number of documents to skip</li>
+	 * <li>propertyName + ".limit": maximum number of documents to return</li>
+	 * <li>propertyName + ".batchSize": documents fetched per round trip, overriding {@link #setBatchSize(int)}</li>
+	 * <li>propertyName + ".readPreference": where to read from; see {@link #findOneUsingProperty(String, Object...)}</li>
+	 * </ul>
+	 * 
+	 * @param propertyName
+	 *            name of the property where there are templated query parms for
+	 *            the object.
+	 * @param queryParms
+	 *            query parameters to fill in the query template.
+	 * @return a cursor over the documents found.
+	 * @throws DataAccessException
+	 */
+	public DocumentCursor streamUsingProperty(String propertyName, Object... queryParms) throws DataAccessException {
+		try {
+			return new DocumentCursor(openCursor(propertyName, queryParms));
+		} catch (Exception e) {
+			throw handleException(e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Scans the documents a find many query finds in parallel, for jobs that process a whole collection. The query's
+	 * results are divided into ranges of a key, and the ranges are scanned at the same time by a bounded pool of
+	 * threads (see {@link #setScanThreads(int)}), each handing its documents to the handler as they arrive. Documents
+	 * arrive in no particular order, and the handler is called from several threads at once.
+	 * </p>
+	 * <p>
+	 * The split points between ranges are quantiles of the key over the query's results when there are at most
+	 * {@link #SKIP_SAMPLE_LIMIT} of them. For more, they come from the server's split points for the key's index (as
+	 * for sharding), or are interpolated between the key's least and greatest values if it holds numbers, dates or
+	 * ObjectIds; otherwise the results are scanned as one range. The key should be indexed, and its values of one
+	 * type; _id is the natural choice. Documents without the key are not scanned.
+	 * </p>
+	 * <p>
+	 * The query's ".fields", ".hint", ".batchSize" and ".readPreference" properties apply to each range; its
+	 * ".sort", ".skip" and ".limit" do not.
+	 * </p>
+	 * 
+	 * @param propertyName
+	 *            name of the property where there are templated query parms for the object.
+	 * @param key
+	 *            field to divide the results by.
+	 * @param partitions
+	 *            number of ranges to divide the results into; more ranges than threads balance uneven ranges.
+	 * @param handler
+	 *            receives the documents.
+	 * @param queryParms
+	 *            query parameters to fill in the query template.
+	 * @return the number of documents handled.
+	 * @throws DataAccessException
+	 *             if the scan fails, or the handler throws.
+	 */
+	public long scanUsingProperty(final String propertyName, String key, int partitions,
+		final DocumentHandler handler, Object... queryParms) throws DataAccessException {
+		ExecutorService pool = null;
+		try {
+			DBObject query = buildQuery(propertyName, queryParms);
+			if (query == null) {
+				query = new BasicDBObject();
+			}
+			final DBObject fields = buildQuery(propertyName + ".fields");
+			final ReadPreference preference = readPreferenceFor(propertyName);
+			final DBCollection coll = getCollection();
+
+			List<Object> splits = sampleSplitPoints(coll, query, key, partitions, preference);
+			List<DBObject> ranges = rangeQueries(query, key, splits);
+			if (logger.isDebugEnabled()) {
+				logger.debug("scanning " + propertyName + " in " + ranges.size() + " ranges of " + key + ": " + splits);
+			}
+
+			final AtomicLong handled = new AtomicLong();
+			final AtomicBoolean failed = new AtomicBoolean();
+			List<Callable<Object>> scans = new ArrayList<Callable<Object>>();
+			for (final DBObject range : ranges) {
+				scans.add(new Callable<Object>() {
+					@Override
+					public Object call() throws Exception {
+						DBCursor cursor = coll.find(range, fields);
+						applyCursorProperties(cursor, propertyName, false);
+						applyReadPreference(cursor, preference);
+						cursor.setDecoderFactory(StringKeyDocument.DECODER_FACTORY);
+						try {
+							while (!failed.get() && cursor.hasNext()) {
+								handler.handle(StringKeyDocument.asStringKeyMap(cursor.next()));
+								handled.incrementAndGet();
+							}
+						} catch (Exception e) {
+							failed.set(true);
+							throw e;
+						} finally {
+							cursor.close();
+						}
+						return null;
+					}
+				});
+			}
+			pool = Executors.newFixedThreadPool(Math.min(scanThreads, scans.size()));
+			List<Future<Object>> results = new ArrayList<Future<Object>>();
+			for (Callable<Object> scan : scans) {
+				results.add(pool.submit(scan));
+			}
+			for (Future<Object> result : results) {
+				result.get();
+			}
+			return handled.get();
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw handleException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw handleException(cause instanceof Exception ? (Exception) cause : e);
+		} catch (Exception e) {
+			throw handleException(e);
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Finds values of a key that divide a query's results into ranges of about the same size. Up to
+	 * {@link #SKIP_SAMPLE_LIMIT} results, the key's index is walked to each quantile of the results. Beyond that,
+	 * walking would cost time in proportion to the collection, so the server's own split points for the key's index are
+	 * used (as for sharding; these divide the whole collection rather than the query's results), or failing that, split
+	 * points interpolated between the key's least and greatest values, for numbers, dates and ObjectIds.
+	 * 
+	 * @return the distinct split points, in ascending order; one fewer than the ranges.
+	 */
+	private static List<Object> sampleSplitPoints(DBCollection coll, DBObject query, String key, int partitions,
+		ReadPreference preference) {
+		List<Object> splits = new ArrayList<Object>();
+		if (partitions < 2) {
+			return splits;
+		}
+		long count = coll.count(query);
+		if (count < partitions) {
+			return splits;
+		}
+		if (count <= SKIP_SAMPLE_LIMIT) {
+			return skipSplitPoints(coll, query, key, partitions, count, preference);
+		}
+		splits = splitVector(coll, key, partitions);
+		if (splits.isEmpty()) {
+			splits = interpolate(keyBound(coll, query, key, 1, preference), keyBound(coll, query, key, -1, preference),
+				partitions);
+		}
+		if (splits.isEmpty()) {
+			logger.warn("Could not find split points for " + coll.getFullName() + " by " + key
+				+ "; scanning it as one range");
+		}
+		return splits;
+	}
+
+	/**
+	 * Walks the key's index to each quantile of the query's results.
+	 */
+	private static List<Object> skipSplitPoints(DBCollection coll, DBObject query, String key, int partitions,
+		long count, ReadPreference preference) {
+		List<Object> splits = new ArrayList<Object>();
+		DBObject keyOnly = keyOnly(key);
+		for (int i = 1; i < partitions; i++) {
+			long skip = count * i / partitions;
+			DBCursor cursor = coll.find(query, keyOnly).sort(new BasicDBObject(key, 1)).skip(
+				(int) Math.min(Integer.MAX_VALUE, skip)).limit(-1);
+			applyReadPreference(cursor, preference);
+			try {
+				if (cursor.hasNext()) {
+					Object value = cursor.next().get(key);
+					if (value != null && (splits.isEmpty() || !value.equals(splits.get(splits.size() - 1)))) {
+						splits.add(value);
+					}
+				}
+			} finally {
+				cursor.close();
+			}
+		}
+		return splits;
+	}
+
+	/**
+	 * Asks the server for split points from the key's index with the splitVector command, which needs an index on
+	 * the key.
+	 * 
+	 * @return the split points, or none if the server could not provide them (e.g. there is no index on the key, the
+	 *         command is not allowed, or this is a mongos).
+	 */
+	private static List<Object> splitVector(DBCollection coll, String key, int partitions) {
+		List<Object> splits = new ArrayList<Object>();
+		try {
+			CommandResult stats = coll.getStats();
+			if (!stats.ok() || !(stats.get("count") instanceof Number) || !(stats.get("size") instanceof Number)) {
+				return splits;
+			}
+			long count = ((Number) stats.get("count")).longValue();
+			long size = ((Number) stats.get("size")).longValue();
+			if (count < partitions || size < partitions) {
+				return splits;
+			}
+			// The server splits at whichever of half the size or the object count comes first, so this asks for
+			// about twice as many points as needed, which are then thinned out evenly.
+			DBObject command = new BasicDBObject("splitVector", coll.getFullName())
+				.append("keyPattern", new BasicDBObject(key, 1)).append("maxChunkSizeBytes", size / partitions)
+				.append("maxChunkObjects", count / partitions);
+			CommandResult result = coll.getDB().command(command);
+			if (!result.ok() || !(result.get("splitKeys") instanceof List)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("splitVector of " + coll.getFullName() + " by " + key + " failed: "
+						+ result.getErrorMessage());
+				}
+				return splits;
+			}
+			List<Object> keys = new ArrayList<Object>();
+			for (Object splitKey : (List<?>) result.get("splitKeys")) {
+				Object value = ((DBObject) splitKey).get(key);
+				if (value != null) {
+					keys.add(value);
+				}
+			}
+			return evenly(keys, partitions);
+
+		} catch (MongoException e) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("splitVector of " + coll.getFullName() + " by " + key + " failed: " + e.getMessage());
+			}
+			return splits;
+		}
+	}
+
+	/**
+	 * @param direction
+	 *            1 for the least value, -1 for the greatest.
+	 * @return the least or greatest value of the key among the query's results, or null if none have it.
+	 */
+	private static Object keyBound(DBCollection coll, DBObject query, String key, int direction,
+		ReadPreference preference) {
+		DBCursor cursor = coll.find(withKeyCondition(query, key, new BasicDBObject("$exists", Boolean.TRUE)),
+			keyOnly(key)).sort(new BasicDBObject(key, direction)).limit(-1);
+		applyReadPreference(cursor, preference);
+		try {
+			return cursor.hasNext() ? cursor.next().get(key) : null;
+		} finally {
+			cursor.close();
+		}
+	}
+
+	private static DBObject keyOnly(String key) {
+		DBObject keyOnly = new BasicDBObject(key, 1);
+		if (!"_id".equals(key)) {
+			keyOnly.put("_id", 0);
+		}
+		return keyOnly;
+	}
+
+	/**
+	 * Picks split points spread evenly through a longer, ordered list of them.
+	 * 
+	 * @return at most <code>partitions - 1</code> of the points.
+	 */
+	static List<Object> evenly(List<Object> points, int partitions) {
+		if (points.size() < partitions) {
+			return points;
+		}
+		List<Object> picked = new ArrayList<Object>(partitions - 1);
+		for (int i = 1; i < partitions; i++) {
+			// The points divide the values into size + 1 ranges; take the end of every (size + 1) / partitions.
+			int index = (int) ((long) (points.size() + 1) * i / partitions) - 1;
+			Object point = points.get(Math.max(0, index));
+			if (picked.isEmpty() || !point.equals(picked.get(picked.size() - 1))) {
+				picked.add(point);
+			}
+		}
+		return picked;
+	}
+
+	/**
+	 * Divides the span from the least to the greatest value of a key evenly, for keys that are integers, other
+	 * numbers, dates or ObjectIds (by their timestamps). Ranges are only as even as the values are spread.
+	 * 
+	 * @return the distinct split points above <code>min</code>, in ascending order; none if the values are of
+	 *         another or mixed type.
+	 */
+	static List<Object> interpolate(Object min, Object max, int partitions) {
+		List<Object> splits = new ArrayList<Object>();
+		if (min == null || max == null) {
+			return splits;
+		}
+		for (int i = 1; i < partitions; i++) {
+			Object point;
+			if (isIntegral(min) && isIntegral(max)) {
+				long lo = ((Number) min).longValue();
+				long value = lo + (long) ((((Number) max).doubleValue() - lo) * i / partitions);
+				if (min instanceof Integer && max instanceof Integer) {
+					point = Integer.valueOf((int) value);
+				} else {
+					point = Long.valueOf(value);
+				}
+			} else if (min instanceof Number && max instanceof Number) {
+				double lo = ((Number) min).doubleValue();
+				point = Double.valueOf(lo + (((Number) max).doubleValue() - lo) * i / partitions);
+			} else if (min instanceof Date && max instanceof Date) {
+				long lo = ((Date) min).getTime();
+				point = new Date(lo + (((Date) max).getTime() - lo) * i / partitions);
+			} else if (min instanceof ObjectId && max instanceof ObjectId) {
+				long lo = ((ObjectId) min).getTimeSecond();
+				// The least ObjectId of its second.
+				point = new ObjectId((int) (lo + (((ObjectId) max).getTimeSecond() - lo) * i / partitions), 0, 0);
+			} else {
+				return splits;
+			}
+			if (!point.equals(min) && (splits.isEmpty() || !point.equals(splits.get(splits.size() - 1)))) {
+				splits.add(point);
+			}
+		}
+		return splits;
+	}
+
+	private static boolean isIntegral(Object value) {
+		return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+	}
+
+	/**
+	 * Divides a query into ranges of a key.
+	 * 
+	 * @param query
+	 *            the query.
+	 * @param key
+	 *            field to divide by.
+	 * @param splits
+	 *            ascending values of the key between the ranges.
+	 * @return a query for each range: below the first split point, between each pair, and from the last on.
+	 */
+	static List<DBObject> rangeQueries(DBObject query, String key, List<Object> splits) {
+		List<DBObject> ranges = new ArrayList<DBObject>(splits.size() + 1);
+		if (splits.isEmpty()) {
+			ranges.add(query);
+			return ranges;
+		}
+		for (int i = 0; i <= splits.size(); i++) {
+			DBObject range = new BasicDBObject();
+			if (i > 0) {
+				range.put("$gte", splits.get(i - 1));
+			}
+			if (i < splits.size()) {
+				range.put("$lt", splits.get(i));
+			}
+			ranges.add(withKeyCondition(query, key, range));
+		}
+		return ranges;
+	}
+
+	/**
+	 * @return the query with a condition on the key added, keeping any condition of the query's own on the key.
+	 */
+	private static DBObject withKeyCondition(DBObject query, String key, DBObject condition) {
+		if (query.containsField(key)) {
+			BasicDBList both = new BasicDBList();
+			both.add(query);
+			both.add(new BasicDBObject(key, condition));
+			return new BasicDBObject("$and", both);
+		}
+		DBObject keyed = new BasicDBObject();
+		keyed.putAll(query);
+		keyed.put(key, condition);
+		return keyed;
+	}
+
+	/**
+	 * Opens a cursor for a find many query, with its optional properties applied.
+	 */
+	private DBCursor openCursor(String propertyName, Object... queryParms) throws DataAccessException {
+		// No query finds every document.
+		DBObject query = buildQuery(propertyName, queryParms);
+
+		// Restrict returned attributes?
+		DBObject fields = buildQuery(propertyName + ".fields");
+
+		DBCollection coll = getCollection();
+		DBCursor cursor = null;
+		if (fields == null) {
+			cursor = coll.find(query);
+		} else {
+			cursor = coll.find(query, fields);
+		}
+		applyCursorProperties(cursor, propertyName, true);
+		applyReadPreference(cursor, readPreferenceFor(propertyName));
+		cursor.setDecoderFactory(StringKeyDocument.DECODER_FACTORY);
+		return cursor;
+	}
+
+	/**
+	 * Applies a query's hint and batch size properties to its cursor, and, if <code>window</code> is true, its sort,
+	 * skip and limit.
+	 */
+	void applyCursorProperties(DBCursor cursor, String propertyName, boolean window) throws DataAccessException {
+		DBObject sort = window ? buildQuery(propertyName + ".sort") : null;
+		if (sort != null) {
+			cursor.sort(sort);
+		}
+		String hint = getStringProperty(propertyName + ".hint", null);
+		if (hint != null && hint.trim().length() > 0) {
+			hint = hint.trim();
+			if (hint.startsWith("{")) {
+				cursor.hint(buildQuery(propertyName + ".hint"));
+			} else {
+				cursor.hint(hint);
+			}
+		}
+		int skip = window ? getIntProperty(propertyName + ".skip", 0) : 0;
+		if (skip > 0) {
+			cursor.skip(skip);
+		}
+		int limit = window ? getIntProperty(propertyName + ".limit", 0) : 0;
+		if (limit > 0) {
+			cursor.limit(limit);
+		}
+		int batch = getIntProperty(propertyName + ".batchSize", batchSize);
+		if (batch > 0) {
+			cursor.batchSize(batch);
+		}
+	}
+
+	private int getIntProperty(String propertyName, int defaultValue) throws DataAccessException {
+		String value = getStringProperty(propertyName, null);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new DataAccessException("The " + propertyName + " property is not a number: " + value);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Runs an aggregation pipeline on the server, so that only its results, rather than the documents it groups or
+	 * sums, cross the network. The property holds the pipeline as a JSON array of stages (a single stage may be given
+	 * as an object), with '?' for parameters as in queries, e.g.
+	 * </p>
+	 * 
+	 * <pre>
+	 * mongo.salesByStore=[ { $match : { sold : { $gte : ? } } }, { $group : { _id : "$store", total : { $sum : "$amount" } } } ]
+	 * </pre>
+	 * <p>
+	 * The server returns the results in one reply, so they are limited to the maximum document size; filter, group or
+	 * $limit in the pipeline to keep them within it.
+	 * </p>
+	 * 
+	 * @param propertyName
+	 *            name of the property holding the pipeline.
+	 * @param queryParms
+	 *            parameters to fill in the pipeline template.
+	 * @return list of maps, each map representing a result document.
+	 * @throws DataAccessException
+	 */
+	public List<StringKeyMap> aggregateUsingProperty(String propertyName, Object... queryParms)
+		throws DataAccessException {
+		try {
+			DBObject pipeline = buildQuery(propertyName, queryParms);
+			if (pipeline == null) {
+				throw new DataAccessException("No pipeline was provided for the aggregate method.");
+			}
+
+			DBObject command = aggregateCommand(collectionName, pipeline);
+			ReadPreference preference = readPreferenceFor(propertyName);
+			CommandResult result;
+			if (preference == null) {
+				result = getDB().command(command);
+			} else {
+				int options = ReadPreferences.allowsSecondary(preference) ? Bytes.QUERYOPTION_SLAVEOK : 0;
+				result = getDB().command(command, options, preference);
+			}
+			result.throwOnError();
+
+			List<?> documents = (List<?>) result.get("result");
+			List<StringKeyMap> results = new ArrayList<StringKeyMap>(documents == null ? 0 : documents.size());
+			if (documents != null) {
+				for (Object document : documents) {
+					results.add(StringKeyDocument.asStringKeyMap((DBObject) document));
+				}
+			}
+			return results;
+
+		} catch (Exception e) {
+			throw handleException(e);
+		}
+	}
+
+	/**
+	 * Builds the aggregate command for a pipeline.
+	 * 
+	 * @param collectionName
+	 *            collection to aggregate.
+	 * @param pipeline
+	 *            list of stages, or a single stage.
+	 * @return the command.
+	 */
+	static DBObject aggregateCommand(String collectionName, DBObject pipeline) {
+		BasicDBList stages;
+		if (pipeline instanceof BasicDBList) {
+			stages = (BasicDBList) pipeline;
+		} else {
+			stages = new BasicDBList();
+			stages.add(pipeline);
+		}
+		return new BasicDBObject("aggregate", collectionName).append("pipeline", stages);
+	}
+
+	/**
+	 * Issues a save command, which will REPLACE any existing object entirelyw ith the data in the
+	 * objectToSave map of data.  If the object does not exist, a new one will be inserted.
+	 * 
+	 * @param propertyName
+	 *            name of the property where there are templated query parms for
+	 *            the object.
+	 * @param objectToSave
+	 *            map of data to save. The map values will be converted to a
+	 *            JSON object.
+	 * @param queryParms
+	 *            query parameters to fill in the query template.
+	 * @throws DataAccessException
+	 * @see <a href="http://www.mongodb.org/display/DOCS/Updating">Updating in MongoDb</a>
+	 */
+	public void saveUsingProperty(String propertyName, Map<String, Object> objectToSave, Object... queryParms)
+		throws DataAccessException {
+		try {
+			// Build the query.
+			DBObject query = buildQuery(propertyName, queryParms);
+			// If query doesn't exist, throw exception.
+			if (query == null) {
+				throw new DataAccessException("No query was provided for the save method.");
+			}
+			
+			
+			WriteBehindBuffer buffer = writeBehind;
+			if (buffer != null) {
+				buffer.add(query, (DBObject) BsonCodec.copy(objectToSave), true);
+				return;
+			}
+
+			// Wrap the map to save; its values are converted as they are written.
+			DBObject toSave = new MapDocument(objectToSave);
+			
+			// Do the save.
+			DBCollection coll = getCollection();
+			upsert(coll, query, toSave, writeConcern);
+			evict(query);
+
+		} catch (Exception e) {
+			if (logger.isDebugEnabled()) {
+				// if(objectToSave instanceof Map<String,Object>){
+				// Map<String,Object>.trace( (Map<String,Object>) objectToSave );
+				// }
+				logger.debug("error saving: " + JSON.serialize(objectToSave));
+			}
+			throw handleException(e);
+		}
+
+	}
+	
+	/**
+	 * Modifies an existing dbobject, inserting it if it does not exist.   
+	 * This method modifies only the fields indicated in the  <code>objectToSave</code> map, 
+	 * and  PRESERVES  existing values NOT PART of the map, making it different from 
+	 * {@link #saveUsingProperty(String, Map, Object...)}.  
+	 * 
+	 * @param propertyName
+	 *            name of the property where there are templated query parms for
+	 *            the object.
+	 * @param objectToSave
+	 *            map of data to save. The map values will be converted to a
+	 *            JSON object.
+	 * @param queryParms
+	 *            query parameters to fill in the query template.
+	 * @throws DataAccessException
+	 * @see <a href="http://www.mongodb.org/display/DOCS/Updating">Updating in MongoDb</a>
+	 */
+	public void modifyUsingProperty(String propertyName, Map<String, Object> objectToSave, Object... queryParms)
+		throws DataAccessException {
+		try {
+			// Build the query.
+			DBObject query = buildQuery(propertyName, queryParms);
+			// If query doesn't exist, throw exception.
+			if (query == null) {
+				throw new DataAccessException("No query was provided for the save method.");
+			}
+			
+			WriteBehindBuffer buffer = writeBehind;
+			if (buffer != null) {
+				buffer.add(query, (DBObject) BsonCodec.copy(objectToSave), false);
+				return;
+			}
+
+			// Create the DBObject to save.
+			DBObject toSave = modifier(new MapDocument(objectToSave));
+			
+			// Do the modification.
+			DBCollection coll = getCollection();
+			upsert(coll, query, toSave, writeConcern);
+			evict(query);
+
+		} catch (Exception e) {
+			if (logger.isDebugEnabled()) {
+				// if(objectToSave instanceof Map<String,Object>){
+				// Map<String,Object>.trace( (Map<String,Object>) objectToSave );
+				// }
+				logger.debug("error saving: " + JSON.serialize(objectToSave));
+			}
+			throw handleException(e);
+		}
+
+	}
+
+
+	/**
+	 * Builds the update that sets the given fields, leaving the document's other fields alone.
+	 * 
+	 * @param fields
+	 *            fields to set.
+	 * @return the modifier object.
+	 */
+	static DBObject modifier(DBObject fields) {
+		// One $set for all of the fields; dotted keys set fields of embedded documents.
+		return new BasicDBObject("$set", fields);
+	}
+
+	/**
+	 * <p>
+	 * Applies field-level changes to a document, inserting it if it does not exist. Only the changes are sent, as
+	 * $set, $unset and $inc modifiers, so this suits small edits to large documents; see
+	 * {@link DocumentChanges#diff(Map, Map)} to find the changes between a document as read and as edited. If there
+	 * are no changes, nothing is sent.
+	 * </p>
+	 * <p>
+	 * These updates are always written directly, even when saves and modifications are written behind; a write still
+	 * pending for the same query is flushed first, so that it does not overwrite the changes later.
+	 * </p>
+	 * 
+	 * @param propertyName
+	 *            name of the property where there are templated query parms for the object.
+	 * @param changes
+	 *            the changes to make.
+	 * @param queryParms
+	 *            query parameters to fill in the query template.
+	 * @return true if there were changes to send.
+	 * @throws DataAccessException
+	 */
+	public boolean modifyUsingProperty(String propertyName, DocumentChanges changes, Object... queryParms)
+		throws DataAccessException {
+		try {
+			// Build the query.
+			DBObject query = buildQuery(propertyName, queryParms);
+			// If query doesn't exist, throw exception.
+			if (query == null) {
+				throw new DataAccessException("No query was provided for the modify method.");
+			}
+			if (changes.isEmpty()) {
+				return false;
+			}
+
+			WriteBehindBuffer buffer = writeBehind;
+			if (buffer != null) {
+				buffer.flush(query);
+			}
+
+			DBCollection coll = getCollection();
+			upsert(coll, query, changes.toDBObject(), writeConcern);
+			evict(query);
+			return true;
+
+		} catch (Exception e) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("error modifying: " + changes);
+			}
+			throw handleException(e);
+		}
+	}
+
+	/**
+	 * Issues a delete command. When saves and modifications are written behind, the write pending for the same query,
+	 * if any, is dropped.
+	 * 
+	 * @param propertyName
+	 *            name of the property where there are templated query parms for
+	 *            the object.
+	 * @param queryParms
+	 *            query parameters to fill in the query template.
+	 * @throws DataAccessException
+	 */
+	public void deleteUsingProperty(String propertyName, Object... queryParms) throws DataAccessException {
+		try {
+			// Build the delete object..
+			DBObject deleteMatchesThisObject = buildQuery(propertyName, queryParms);
+			// If query doesn't exist, throw exception.
+			if (deleteMatchesThisObject == null) {
+				throw new DataAccessException("No query was provided for the delete method.");
+			}
+
+			WriteBehindBuffer buffer = writeBehind;
+			if (buffer != null) {
+				buffer.remove(deleteMatchesThisObject);
+			}
+
+			// Do the delete
+			DBCollection coll = getCollection();
+			remove(coll, deleteMatchesThisObject, writeConcern);
+			evict(deleteMatchesThisObject);
+
+		} catch (Exception e) {
+			throw handleException(e);
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Inserts many documents, sending them in as few messages as the bulk limits allow (see
+	 * {@link #setBulkLimits(int, int, int)}) rather than one round trip per document.
+	 * </p>
+	 * <p>
+	 * If a chunk of documents fails, its documents are inserted again one at a time, so that each has its own outcome
+	 * in the result. A document whose _id was generated by this call and that the chunk had already written is found
+	 * by its _id and counted as a success. Documents given their own _id that the chunk had already written cannot be
+	 * told apart from true duplicates, and report a duplicate key; see {@link BulkResult#isDuplicate(int)}.
+	 * </p>
+	 * <p>
+	 * The maps are written as they are, without being copied, so the _id generated for a map without one is put in
+	 * the map.
+	 * </p>
+	 * 
+	 * @param objectsToInsert
+	 *            maps of data to insert.
+	 * @param concern
+	 *            write concern for the inserts.
+	 * @return the outcome of each document, by its index in <code>objectsToInsert</code>.
+	 * @throws DataAccessException
+	 *             if the inserts could not be attempted.
+	 */
+	public BulkResult insertAll(List<? extends Map<String, Object>> objectsToInsert, WriteConcern concern)
+		throws DataAccessException {
+		try {
+			List<DBObject> docs = new ArrayList<DBObject>(objectsToInsert.size());
+			// Which documents get their _id from the driver during this call.
+			boolean[] generatedId = new boolean[objectsToInsert.size()];
+			for (Map<String, Object> objectToInsert : objectsToInsert) {
+				generatedId[docs.size()] = objectToInsert.get("_id") == null;
+				docs.add(new MapDocument(objectToInsert));
+			}
+
+			BulkResult result = new BulkResult("insert", docs.size(), concern.callGetLastError());
+			DBCollection coll = getCollection();
+			for (int[] chunk : BulkChunks.split(docs, bulkChunkSize, bulkChunkBytes)) {
+				try {
+					insert(coll, docs.subList(chunk[0], chunk[1]), concern);
+				} catch (MongoException e) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("retrying failed insert of documents " + chunk[0] + " to " + (chunk[1] - 1)
+							+ " singly: " + e.getMessage());
+					}
+					for (int i = chunk[0]; i < chunk[1]; i++) {
+						try {
+							insert(coll, docs.subList(i, i + 1), concern);
+						} catch (MongoException single) {
+							// A generated _id is unique to this call, so if it is taken, the chunk wrote the document.
+							boolean written = generatedId[i] && BulkResult.isDuplicate(single)
+								&& exists(coll, docs.get(i).get("_id"));
+							if (!written) {
+								result.fail(i, single);
+							}
+						}
+					}
+				}
+			}
+			return result;
+
+		} catch (Exception e) {
+			throw handleException(e);
+		}
+	}
+
+	/**
+	 * Inserts documents in one message. The driver generates the _id of any document without one.
+	 */
+	void insert(DBCollection coll, List<DBObject> docs, WriteConcern concern) throws MongoException {
+		coll.insert(docs, concern);
+	}
+
+	/**
+	 * Updates the document a query finds, inserting it if there is none.
+	 */
+	WriteResult upsert(DBCollection coll, DBObject query, DBObject update, WriteConcern concern) throws MongoException {
+		return coll.update(query, update, true, false, concern);
+	}
+
+	/**
+	 * Removes the documents a query finds.
+	 */
+	WriteResult remove(DBCollection coll, DBObject query, WriteConcern concern) throws MongoException {
+		return coll.remove(query, concern);
+	}
+
+	/**
+	 * @return true if the primary has a document with the _id.
+	 */
+	boolean exists(DBCollection coll, Object id) throws MongoException {
+		return coll.findOne(new BasicDBObject("_id", id), new BasicDBObject("_id", 1), ReadPreference.PRIMARY) != null;
+	}
+
+	/**
+	 * <p>
+	 * Saves many documents, each REPLACING the document its query finds, or inserted if there is none, as
+	 * {@link #saveUsingProperty(String, Map, Object...)} does. MongoDB has no batched upsert message, so the upserts
+	 * are issued in parallel, in chunks, by a bounded pool of threads (see {@link #setBulkLimits(int, int, int)}) to
+	 * overlap their round trips.
+	 * </p>
+	 * 
+	 * @param propertyName
+	 *            name of the property where there are templated query parms for the objects.
+	 * @param objectsToSave
+	 *            maps of data to save.
+	 * @param queryParms
+	 *            query parameters for each object, in the same order as <code>objectsToSave</code>.
+	 * @param concern
+	 *            write concern for the upserts.
+	 * @return the outcome of each document, by its index in <code>objectsToSave</code>.
+	 * @throws DataAccessException
+	 *             if the saves could not be attempted.
+	 */
+	public BulkResult saveAllUsingProperty(String propertyName, List<? extends Map<String, Object>> objectsToSave,
+		List<Object[]> queryParms, WriteConcern concern) throws DataAccessException {
+		if (objectsToSave.size() != queryParms.size()) {
+			throw new DataAccessException("There are " + objectsToSave.size() + " objects to save but "
+				+ queryParms.size() + " sets of query parameters.");
+		}
+		try {
+			List<DBObject> queries = new ArrayList<DBObject>(queryParms.size());
+			for (Object[] parms : queryParms) {
+				DBObject query = buildQuery(propertyName, parms);
+				if (query == null) {
+					throw new DataAccessException("No query was provided for the save method.");
+				}
+				queries.add(query);
+			}
+			List<DBObject> docs = new ArrayList<DBObject>(objectsToSave.size());
+			for (Map<String, Object> objectToSave : objectsToSave) {
+				docs.add(new MapDocument(objectToSave));
+			}
+			return upsertAll("save", queries, docs, concern);
+
+		} catch (Exception e) {
+			throw handleException(e);
+		}
+	}
+
+	/**
+	 * Issues an upsert for each query and update (a replacement document or modifiers), in parallel chunks.
+	 */
+	BulkResult upsertAll(String operation, final List<DBObject> queries, final List<DBObject> docs,
+		final WriteConcern upsertConcern) throws DataAccessException {
+		ExecutorService pool = null;
+		try {
+			final BulkResult result = new BulkResult(operation, docs.size(), upsertConcern.callGetLastError());
+			final DBCollection coll = getCollection();
+			List<Callable<Object>> chunks = new ArrayList<Callable<Object>>();
+			for (final int[] chunk : BulkChunks.split(docs, bulkChunkSize, 0)) {
+				chunks.add(new Callable<Object>() {
+					@Override
+					public Object call() {
+						for (int i = chunk[0]; i < chunk[1]; i++) {
+							try {
+								WriteResult written = upsert(coll, queries.get(i), docs.get(i), upsertConcern);
+								if (upsertConcern.callGetLastError()) {
+									result.addAffected(written.getN());
+								}
+							} catch (MongoException e) {
+								result.fail(i, e);
+							}
+						}
+						return null;
+					}
+				});
+			}
+			try {
+				if (chunks.size() == 1) {
+					chunks.get(0).call();
+				} else {
+					pool = Executors.newFixedThreadPool(Math.min(bulkThreads, chunks.size()));
+					for (Future<Object> chunk : pool.invokeAll(chunks)) {
+						chunk.get();
+					}
+				}
+			} finally {
+				for (DBObject query : queries) {
+					evict(query);
+				}
+			}
+			return result;
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw handleException(e);
+		} catch (Exception e) {
+			throw handleException(e);
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Deletes the documents matched by many sets of query parameters. The queries of each chunk (see
+	 * {@link #setBulkLimits(int, int, int)}) are combined with $or into a single remove. If a combined remove fails,
+	 * its queries are run again one at a time, so that each has its own outcome in the result. As with
+	 * {@link #deleteUsingProperty(String, Object...)}, writes pending behind for the same queries are dropped.
+	 * </p>
+	 * 
+	 * @param propertyName
+	 *            name of the property where there are templated query parms for the object.
+	 * @param queryParms
+	 *            query parameters for each delete.
+	 * @param concern
+	 *            write concern for the removes.
+	 * @return the outcome of each delete, by its index in <code>queryParms</code>, and the number of documents
+	 *         removed.
+	 * @throws DataAccessException
+	 *             if the deletes could not be attempted.
+	 */
+	public BulkResult deleteManyUsingProperty(String propertyName, List<Object[]> queryParms, WriteConcern concern)
+		throws DataAccessException {
+		try {
+			List<DBObject> queries = new ArrayList<DBObject>(queryParms.size());
+			for (Object[] parms : queryParms) {
+				DBObject query = buildQuery(propertyName, parms);
+				if (query == null) {
+					throw new DataAccessException("No query was provided for the delete method.");
+				}
+				queries.add(query);
+			}
+			WriteBehindBuffer buffer = writeBehind;
+			if (buffer != null) {
+				for (DBObject query : queries) {
+					buffer.remove(query);
+				}
+			}
+
+			boolean acknowledged = concern.callGetLastError();
+			BulkResult result = new BulkResult("delete", queries.size(), acknowledged);
+			DBCollection coll = getCollection();
+			for (int[] chunk : BulkChunks.split(queries, bulkChunkSize, 0)) {
+				DBObject remove = queries.get(chunk[0]);
+				if (chunk[1] - chunk[0] > 1) {
+					BasicDBList any = new BasicDBList();
+					any.addAll(queries.subList(chunk[0], chunk[1]));
+					remove = new BasicDBObject("$or", any);
+				}
+				try {
+					WriteResult removed = remove(coll, remove, concern);
+					if (acknowledged) {
+						result.addAffected(removed.getN());
+					}
+				} catch (MongoException e) {
+					for (int i = chunk[0]; i < chunk[1]; i++) {
+						try {
+							WriteResult removed = remove(coll, queries.get(i), concern);
+							if (acknowledged) {
+								result.addAffected(removed.getN());
+							}
+						} catch (MongoException single) {
+							result.fail(i, single);
+						}
+					}
+				}
+			}
+			for (DBObject query : queries) {
+				evict(query);
+			}
+			return result;
+
+		} catch (Exception e) {
+			throw handleException(e);
+		}
+	}
+
+	@Override
+	/**
+	 * Overrides
+	 */
+	protected DataAccessException handleException(Exception e) {
+		logger.error(e.getMessage(), e);
+		if (e instanceof DataAccessException) {
+			return (DataAccessException) e;
+
+		} else if (e instanceof MongoException) {
+			MongoException m = (MongoException) e;
+
+			int mongoState = m.getCode();
+
+			switch (mongoState) {
+
+			default:
+				return new DataAccessException(m.getMessage() + "(" + m.getCode() + ")");
+
+			}
+		} else if (e instanceof java.net.ConnectException) {
+			return new UnavailableException(e);
+
+		} else {
+
+			DataAccessException dae = new DataAccessException(e);
+			return dae;
+		}
+	}
+
+	/**
+	 * Fills the jsonString in the same fashion as a PreparedStatement gets
+	 * filled with parameters (substituting each '?' with the corresponding parm
+	 * from the array.
+	 * 
+	 * @param jsonString
+	 *            the template
+	 * @param parms
+	 * @return a filled copy of the template jsonString
+	 * @deprecated use {@link #buildQuery(String, Object...)}, which parses each template once and binds parameters
+	 *             without building JSON text.
+	 */
+	@Deprecated
+	protected static String fillJson(String jsonString, Object... parms) throws DataAccessException {
+		Matcher matcher = Pattern.compile("\\?").matcher(jsonString);
+		int count = 0;
+		while(matcher.find()){
+			count++;
+		}
+		if(count > parms.length){
+			String errMsg = "Not enough parameters were provided for the JSON.  Expected " + count + " parameters, but only "+
+			parms.length + " were provided";
+			throw new DataAccessException(errMsg);
+		}
+		  
+		String copy = jsonString;
+		for (Object object : parms) {
+			String replacement = null;
+			if(object == null){ 
+				replacement = "null";
+			} else if (object instanceof String) {
+				// Serializing quotes and escapes the string.
+				replacement = JSON.serialize(object);
+			} else if (object instanceof Date) {
+				long timestamp = ((Date) object).getTime();
+				replacement = "" + timestamp;
+			} else {
+				replacement = object.toString();
+			}
+		 
+			copy = copy.replaceFirst("\\?", Matcher.quoteReplacement(replacement));
+		}
+		return copy;
+	}
+
+}
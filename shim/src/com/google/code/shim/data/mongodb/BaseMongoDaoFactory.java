@@ -1,32 +1,72 @@
-package com.google.code.shim.data.mongodb;
-
-import com.google.code.shim.data.DataAccessException;
-import com.mongodb.DB;
-
-/**
- * Simply capable of handing back the basic Mongo DAOs that are common to all
- * apps. Generally, you'll extend this DAO factory and include getters to your
- * own additional DAOs.
- * 
- * @author dgau
- * 
- */
-public abstract class BaseMongoDaoFactory {
-
-	/**
-	 * An injected reference to the datasource to use for DAOs.
-	 */
-	protected DB db = null;
-
-	/**
-	 * Creates a factory by injecting a datasource that will be used for the
-	 * DAOs created by this factory.
-	 * 
-	 * @param source
-	 * @throws DataAccessException
-	 */
-	public BaseMongoDaoFactory(DB source) throws DataAccessException {
-		this.db = source;
-	}
-
-}
+package com.google.code.shim.data.mongodb;
+
+import com.google.code.shim.data.DataAccessException;
+import com.mongodb.DB;
+
+/**
+ * Simply capable of handing back the basic Mongo DAOs that are common to all
+ * apps. Generally, you'll extend this DAO factory and include getters to your
+ * own additional DAOs.
+ * 
+ * @author dgau
+ * 
+ */
+public abstract class BaseMongoDaoFactory {
+
+	/**
+	 * An injected reference to the datasource to use for DAOs.
+	 */
+	protected DB db = null;
+
+	/**
+	 * An injected reference to the database to use for DAOs serving analytic
+	 * (reporting, batch) reads, so that they do not compete with the
+	 * transactional reads on {@link #db}. The same as {@link #db} unless a
+	 * separate one is given.
+	 */
+	protected DB analyticDb = null;
+
+	/**
+	 * Creates a factory by injecting a datasource that will be used for the
+	 * DAOs created by this factory.
+	 * 
+	 * @param source
+	 * @throws DataAccessException
+	 */
+	public BaseMongoDaoFactory(DB source) throws DataAccessException {
+		this(source, source);
+	}
+
+	/**
+	 * Creates a factory with separate databases for transactional and analytic
+	 * DAOs. Typically both are the same database, reached through different
+	 * Mongo instances: the analytic one set up to read from secondaries (see
+	 * {@link com.mongodb.Mongo#setReadPreference(com.mongodb.ReadPreference)}),
+	 * or connected to a reporting member of the replica set.
+	 * 
+	 * @param transactional
+	 *            database for latency-sensitive DAOs.
+	 * @param analytic
+	 *            database for reporting DAOs.
+	 * @throws DataAccessException
+	 */
+	public BaseMongoDaoFactory(DB transactional, DB analytic) throws DataAccessException {
+		this.db = transactional;
+		this.analyticDb = analytic == null ? transactional : analytic;
+	}
+
+	/**
+	 * @return the database for transactional DAOs.
+	 */
+	protected DB getDB() {
+		return db;
+	}
+
+	/**
+	 * @return the database for analytic DAOs.
+	 */
+	protected DB getAnalyticDB() {
+		return analyticDb;
+	}
+
+}
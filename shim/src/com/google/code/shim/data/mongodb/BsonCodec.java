@@ -0,0 +1,120 @@
+package com.google.code.shim.data.mongodb;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+
+/**
+ * Converts Java values the driver cannot encode into ones it can, in a single pass and without copying collections:
+ * maps and lists are wrapped in views that convert their contents as the driver reads them.
+ * <ul>
+ * <li>BigDecimal becomes a Double (see <a href="http://comments.gmane.org/gmane.comp.db.mongodb.user/34582">this
+ * issue</a>), and BigInteger a Long, or a Double if it is too large.</li>
+ * <li>Calendar becomes its Date.</li>
+ * <li>Enums become their names, and Characters Strings.</li>
+ * </ul>
+ * Other values, including BSON types such as ObjectId, are left alone.
+ * 
+ * @author dgau
+ * 
+ */
+final class BsonCodec {
+
+	private BsonCodec() {
+	}
+
+	/**
+	 * A view over a list that converts its items as they are read.
+	 */
+	private static final class EncodedList extends AbstractList<Object> {
+		private final List<?> list;
+
+		EncodedList(List<?> list) {
+			this.list = list;
+		}
+
+		@Override
+		public Object get(int index) {
+			return encode(list.get(index));
+		}
+
+		@Override
+		public int size() {
+			return list.size();
+		}
+	}
+
+	/**
+	 * Converts a value to one the driver encodes faithfully.
+	 * 
+	 * @param value
+	 * @return the value to encode.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static Object encode(Object value) {
+		if (value == null || value instanceof String) {
+			return value;
+		} else if (value instanceof BigDecimal) {
+			return Double.valueOf(((BigDecimal) value).doubleValue());
+		} else if (value instanceof BigInteger) {
+			BigInteger big = (BigInteger) value;
+			return big.bitLength() < 64 ? (Object) Long.valueOf(big.longValue()) : (Object) Double.valueOf(big
+				.doubleValue());
+		} else if (value instanceof Calendar) {
+			return ((Calendar) value).getTime();
+		} else if (value instanceof Enum) {
+			return ((Enum) value).name();
+		} else if (value instanceof Character) {
+			return value.toString();
+		} else if (value instanceof Map) {
+			return new MapDocument((Map<String, Object>) value);
+		} else if (value instanceof List) {
+			return new EncodedList((List<?>) value);
+		} else if (value instanceof Object[]) {
+			return new EncodedList(Arrays.asList((Object[]) value));
+		} else if (value instanceof Iterable) {
+			BasicDBList list = new BasicDBList();
+			for (Object item : (Iterable<?>) value) {
+				list.add(encode(item));
+			}
+			return list;
+		}
+		return value;
+	}
+
+	/**
+	 * Converts a value as {@link #encode(Object)} does, but copies maps and lists (as BasicDBObjects and BasicDBLists)
+	 * rather than wrapping them, for when the value must not change with the caller's objects.
+	 * 
+	 * @param value
+	 * @return the converted copy.
+	 */
+	@SuppressWarnings("unchecked")
+	static Object copy(Object value) {
+		if (value instanceof Map) {
+			BasicDBObject copy = new BasicDBObject();
+			for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+				copy.put(entry.getKey(), copy(entry.getValue()));
+			}
+			return copy;
+		} else if (value instanceof Iterable || value instanceof Object[]) {
+			Iterable<?> items = value instanceof Object[] ? Arrays.asList((Object[]) value) : (Iterable<?>) value;
+			BasicDBList copy = new BasicDBList();
+			for (Object item : items) {
+				copy.add(copy(item));
+			}
+			return copy;
+		} else if (value instanceof Date) {
+			return new Date(((Date) value).getTime());
+		}
+		return encode(value);
+	}
+}
@@ -0,0 +1,60 @@
+package com.google.code.shim.data.mongodb;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.io.BasicOutputBuffer;
+
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBEncoder;
+
+/**
+ * Splits the documents of a bulk write into chunks that fit in one message to the server.
+ * 
+ * @author dgau
+ * 
+ */
+final class BulkChunks {
+
+	private BulkChunks() {
+	}
+
+	/**
+	 * Splits documents into consecutive chunks of at most <code>maxCount</code> documents and, measured as BSON, at
+	 * most <code>maxBytes</code> bytes. A document larger than <code>maxBytes</code> gets a chunk of its own.
+	 * 
+	 * @param docs
+	 *            the documents.
+	 * @param maxCount
+	 *            most documents per chunk.
+	 * @param maxBytes
+	 *            most bytes per chunk; 0 or less to split by count only.
+	 * @return the chunks, each as the index of its first document and the index after its last.
+	 */
+	static List<int[]> split(List<? extends DBObject> docs, int maxCount, int maxBytes) {
+		List<int[]> chunks = new ArrayList<int[]>();
+		int count = Math.max(1, maxCount);
+		DefaultDBEncoder encoder = maxBytes > 0 ? new DefaultDBEncoder() : null;
+		BasicOutputBuffer buffer = maxBytes > 0 ? new BasicOutputBuffer() : null;
+
+		int start = 0;
+		long bytes = 0;
+		for (int i = 0; i < docs.size(); i++) {
+			int size = 0;
+			if (encoder != null) {
+				buffer.setPosition(0);
+				size = encoder.writeObject(buffer, docs.get(i));
+			}
+			if (i > start && (i - start >= count || maxBytes > 0 && bytes + size > maxBytes)) {
+				chunks.add(new int[] { start, i });
+				start = i;
+				bytes = 0;
+			}
+			bytes += size;
+		}
+		if (start < docs.size()) {
+			chunks.add(new int[] { start, docs.size() });
+		}
+		return chunks;
+	}
+}
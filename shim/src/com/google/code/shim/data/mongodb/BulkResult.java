@@ -0,0 +1,122 @@
+package com.google.code.shim.data.mongodb;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.mongodb.MongoException;
+
+/**
+ * Outcome of a bulk write from {@link BaseMongoDao}. Documents (or, for deletes, queries) are identified by their
+ * index in the list passed to the bulk method; each one either succeeded or has a failure recorded against it. When
+ * the write concern does not wait for acknowledgement, failures on the server go unseen and only errors raised by the
+ * driver (such as network errors) are recorded.
+ * 
+ * @author dgau
+ * 
+ */
+public class BulkResult {
+
+	/**
+	 * Server error codes for duplicate keys.
+	 */
+	private static final int DUPLICATE_KEY = 11000;
+	private static final int DUPLICATE_KEY_ON_UPDATE = 11001;
+
+	private final String operation;
+	private final int count;
+	private final boolean acknowledged;
+	private final SortedMap<Integer, MongoException> failures = new TreeMap<Integer, MongoException>();
+	private long affected;
+
+	BulkResult(String operation, int count, boolean acknowledged) {
+		this.operation = operation;
+		this.count = count;
+		this.acknowledged = acknowledged;
+	}
+
+	synchronized void fail(int index, MongoException e) {
+		failures.put(Integer.valueOf(index), e);
+	}
+
+	synchronized void addAffected(long n) {
+		affected += n;
+	}
+
+	/**
+	 * @return the number of documents or queries submitted.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the number that succeeded (or, if not acknowledged, were sent).
+	 */
+	public synchronized int getSucceeded() {
+		return count - failures.size();
+	}
+
+	/**
+	 * @return the number that failed.
+	 */
+	public synchronized int getFailed() {
+		return failures.size();
+	}
+
+	/**
+	 * @return true if the server acknowledged the writes, so that their failures are known.
+	 */
+	public boolean isAcknowledged() {
+		return acknowledged;
+	}
+
+	/**
+	 * @return for acknowledged saves and deletes, the number of documents the server reports as updated, inserted or
+	 *         removed.
+	 */
+	public synchronized long getAffected() {
+		return affected;
+	}
+
+	/**
+	 * @param index
+	 *            index of the document or query.
+	 * @return the error it failed with, or null if it succeeded.
+	 */
+	public synchronized MongoException getFailure(int index) {
+		return failures.get(Integer.valueOf(index));
+	}
+
+	/**
+	 * @param index
+	 *            index of the document or query.
+	 * @return true if it failed because of a duplicate key. For inserts, this includes documents with their own _id
+	 *         that were already written by a batch that then failed on a later document, since such batches are
+	 *         retried one document at a time.
+	 */
+	public synchronized boolean isDuplicate(int index) {
+		return isDuplicate(getFailure(index));
+	}
+
+	/**
+	 * @return true if the error is a duplicate key.
+	 */
+	static boolean isDuplicate(MongoException e) {
+		return e != null
+			&& (e instanceof MongoException.DuplicateKey || e.getCode() == DUPLICATE_KEY || e.getCode() == DUPLICATE_KEY_ON_UPDATE);
+	}
+
+	/**
+	 * @return the failures, by index, in index order.
+	 */
+	public synchronized SortedMap<Integer, MongoException> getFailures() {
+		return new TreeMap<Integer, MongoException>(failures);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return operation + ": " + getSucceeded() + " of " + count + " succeeded" + (acknowledged ? "" : " (unacknowledged)")
+			+ (failures.isEmpty() ? "" : ", first failure at " + failures.firstKey() + ": "
+				+ failures.get(failures.firstKey()).getMessage());
+	}
+}
@@ -0,0 +1,207 @@
+package com.google.code.shim.data.mongodb;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * <p>
+ * The field-level changes to make to a document: fields to set, remove or increment, named by dotted paths into
+ * embedded documents (e.g. "address.city"). Sent with
+ * {@link BaseMongoDao#modifyUsingProperty(String, DocumentChanges, Object...)}, only the changed fields cross the
+ * network, rather than the whole document.
+ * </p>
+ * <p>
+ * Changes can be listed directly:
+ * </p>
+ * 
+ * <pre>
+ * DocumentChanges changes = new DocumentChanges().set(&quot;lastSeen&quot;, now).inc(&quot;visits&quot;, 1).unset(&quot;pending&quot;);
+ * </pre>
+ * <p>
+ * or found by comparing a document as it was read with the same document after the caller's edits, using
+ * {@link #diff(Map, Map)}.
+ * </p>
+ * 
+ * @author dgau
+ * 
+ */
+public class DocumentChanges {
+
+	private final Map<String, Object> sets = new LinkedHashMap<String, Object>();
+	private final Map<String, Object> unsets = new LinkedHashMap<String, Object>();
+	private final Map<String, Number> incs = new LinkedHashMap<String, Number>();
+
+	/**
+	 * Finds the changes that turn one version of a document into another: fields added or changed are set, and
+	 * fields removed are unset. Embedded documents present in both are compared field by field, so a change deep
+	 * inside one sets only the changed field. Values are compared as they would be stored, so, for example, a
+	 * BigDecimal equal to a stored Double is unchanged.
+	 * 
+	 * @param before
+	 *            the document as it was read.
+	 * @param after
+	 *            the document as it should be.
+	 * @return the changes, which may be empty.
+	 */
+	public static DocumentChanges diff(Map<String, ?> before, Map<String, ?> after) {
+		return diff(before, after, false);
+	}
+
+	/**
+	 * Finds the changes that turn one version of a document into another, as {@link #diff(Map, Map)} does, but
+	 * optionally sends changes to whole numbers (Integers, Longs, Shorts and Bytes) as increments. Increments combine
+	 * with concurrent changes to the same field rather than overwriting them, which suits counters.
+	 * 
+	 * @param before
+	 *            the document as it was read.
+	 * @param after
+	 *            the document as it should be.
+	 * @param incrementWholeNumbers
+	 *            true to increment whole numbers by their difference rather than set them.
+	 * @return the changes, which may be empty.
+	 */
+	public static DocumentChanges diff(Map<String, ?> before, Map<String, ?> after, boolean incrementWholeNumbers) {
+		DocumentChanges changes = new DocumentChanges();
+		changes.compare("", before, after, incrementWholeNumbers);
+		return changes;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void compare(String prefix, Map<String, ?> before, Map<String, ?> after, boolean incrementWholeNumbers) {
+		for (Map.Entry<String, ?> entry : after.entrySet()) {
+			String key = entry.getKey();
+			String path = prefix + key;
+			Object newValue = entry.getValue();
+			if (!before.containsKey(key)) {
+				set(path, newValue);
+				continue;
+			}
+			Object oldValue = before.get(key);
+			if (oldValue instanceof Map && newValue instanceof Map && !((Map<String, ?>) newValue).isEmpty()) {
+				compare(path + ".", (Map<String, ?>) oldValue, (Map<String, ?>) newValue, incrementWholeNumbers);
+			} else if (incrementWholeNumbers && isWholeNumber(oldValue) && isWholeNumber(newValue)) {
+				long difference = ((Number) newValue).longValue() - ((Number) oldValue).longValue();
+				if (difference != 0) {
+					inc(path, difference);
+				}
+			} else if (!same(oldValue, newValue)) {
+				set(path, newValue);
+			}
+		}
+		for (String key : before.keySet()) {
+			if (!after.containsKey(key)) {
+				unset(prefix + key);
+			}
+		}
+	}
+
+	private static boolean isWholeNumber(Object value) {
+		return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+	}
+
+	private static boolean same(Object a, Object b) {
+		Object encodedA = BsonCodec.encode(a);
+		Object encodedB = BsonCodec.encode(b);
+		if (encodedA instanceof MapDocument || encodedB instanceof MapDocument) {
+			// A map against something else, or an empty map.
+			return a instanceof Map && b instanceof Map && ((Map<?, ?>) a).equals(b);
+		}
+		return encodedA == null ? encodedB == null : encodedA.equals(encodedB);
+	}
+
+	/**
+	 * Sets a field.
+	 * 
+	 * @param path
+	 *            field name, dotted into embedded documents.
+	 * @param value
+	 * @return these changes.
+	 */
+	public DocumentChanges set(String path, Object value) {
+		unsets.remove(path);
+		incs.remove(path);
+		sets.put(path, value);
+		return this;
+	}
+
+	/**
+	 * Removes a field.
+	 * 
+	 * @param path
+	 *            field name, dotted into embedded documents.
+	 * @return these changes.
+	 */
+	public DocumentChanges unset(String path) {
+		sets.remove(path);
+		incs.remove(path);
+		unsets.put(path, Integer.valueOf(1));
+		return this;
+	}
+
+	/**
+	 * Increments a numeric field, which is created with the amount if it does not exist. Increments of the same
+	 * field add up.
+	 * 
+	 * @param path
+	 *            field name, dotted into embedded documents.
+	 * @param amount
+	 * @return these changes.
+	 */
+	public DocumentChanges inc(String path, long amount) {
+		sets.remove(path);
+		unsets.remove(path);
+		Number current = incs.get(path);
+		long total = (current == null ? 0 : current.longValue()) + amount;
+		incs.put(path, total >= Integer.MIN_VALUE && total <= Integer.MAX_VALUE ? (Number) Integer.valueOf((int) total)
+			: (Number) Long.valueOf(total));
+		return this;
+	}
+
+	/**
+	 * Increments a numeric field by a fractional amount.
+	 * 
+	 * @param path
+	 *            field name, dotted into embedded documents.
+	 * @param amount
+	 * @return these changes.
+	 */
+	public DocumentChanges inc(String path, double amount) {
+		sets.remove(path);
+		unsets.remove(path);
+		Number current = incs.get(path);
+		incs.put(path, Double.valueOf((current == null ? 0 : current.doubleValue()) + amount));
+		return this;
+	}
+
+	/**
+	 * @return true if there are no changes.
+	 */
+	public boolean isEmpty() {
+		return sets.isEmpty() && unsets.isEmpty() && incs.isEmpty();
+	}
+
+	/**
+	 * @return the changes as an update document of $set, $unset and $inc modifiers.
+	 */
+	public DBObject toDBObject() {
+		DBObject update = new BasicDBObject();
+		if (!sets.isEmpty()) {
+			update.put("$set", new MapDocument(sets));
+		}
+		if (!unsets.isEmpty()) {
+			update.put("$unset", new BasicDBObject(unsets));
+		}
+		if (!incs.isEmpty()) {
+			update.put("$inc", new BasicDBObject(incs));
+		}
+		return update;
+	}
+
+	@Override
+	public String toString() {
+		return toDBObject().toString();
+	}
+}
@@ -0,0 +1,89 @@
+package com.google.code.shim.data.mongodb;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import com.google.code.shim.collections.StringKeyMap;
+import com.mongodb.DBCursor;
+
+/**
+ * Streams the documents a query finds, one at a time, fetching them from the server in batches as the cursor is
+ * walked. Only the current batch is held in memory, so large collections can be scanned in constant memory. The
+ * cursor can be iterated directly in a for-each loop, and must be closed when finished with, even if not read to the
+ * end:
+ * 
+ * <pre>
+ * DocumentCursor cursor = dao.streamUsingProperty(&quot;mongo.findByCity&quot;, city);
+ * try {
+ * 	for (StringKeyMap doc : cursor) {
+ * 		...
+ * 	}
+ * } finally {
+ * 	cursor.close();
+ * }
+ * </pre>
+ * 
+ * Errors from the server while iterating surface as the driver's (unchecked) MongoException.
+ * 
+ * @author dgau
+ * 
+ */
+public class DocumentCursor implements Iterator<StringKeyMap>, Iterable<StringKeyMap>, Closeable {
+
+	private final DBCursor cursor;
+	private long count;
+	private boolean closed;
+
+	DocumentCursor(DBCursor cursor) {
+		this.cursor = cursor;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+		return cursor.hasNext();
+	}
+
+	@Override
+	public StringKeyMap next() {
+		StringKeyMap doc = StringKeyDocument.asStringKeyMap(cursor.next());
+		count++;
+		return doc;
+	}
+
+	/**
+	 * Not supported.
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Documents cannot be removed through a cursor.");
+	}
+
+	/**
+	 * @return this cursor, so that it can be used in a for-each loop. The documents can only be walked once.
+	 */
+	@Override
+	public Iterator<StringKeyMap> iterator() {
+		return this;
+	}
+
+	/**
+	 * @return the number of documents read so far.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Closes the cursor on the server. Safe to call more than once.
+	 */
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			cursor.close();
+		}
+	}
+}
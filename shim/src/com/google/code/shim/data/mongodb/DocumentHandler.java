@@ -0,0 +1,22 @@
+package com.google.code.shim.data.mongodb;
+
+import com.google.code.shim.collections.StringKeyMap;
+
+/**
+ * Receives the documents of a scan, such as
+ * {@link BaseMongoDao#scanUsingProperty(String, String, int, DocumentHandler, Object...)}. Parallel scans call the
+ * handler from several threads at once, so it must be thread safe.
+ * 
+ * @author dgau
+ * 
+ */
+public interface DocumentHandler {
+
+	/**
+	 * Handles one document. Throwing stops the scan.
+	 * 
+	 * @param document
+	 * @throws Exception
+	 */
+	void handle(StringKeyMap document) throws Exception;
+}
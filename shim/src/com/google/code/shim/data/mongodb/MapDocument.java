@@ -0,0 +1,99 @@
+package com.google.code.shim.data.mongodb;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.BSONObject;
+
+import com.mongodb.DBObject;
+
+/**
+ * A DBObject view over a caller's map, so that the map can be written without first being copied into a
+ * BasicDBObject. Values are converted by {@link BsonCodec} as the driver reads them; embedded maps become views in
+ * turn. Fields the driver sets, such as the _id it generates on insert, are put in the underlying map.
+ * 
+ * @author dgau
+ * 
+ */
+final class MapDocument implements DBObject {
+
+	private final Map<String, Object> map;
+	private boolean partial;
+
+	MapDocument(Map<String, Object> map) {
+		this.map = map;
+	}
+
+	@Override
+	public Object put(String key, Object v) {
+		return map.put(key, v);
+	}
+
+	@Override
+	public void putAll(BSONObject o) {
+		for (String key : o.keySet()) {
+			map.put(key, o.get(key));
+		}
+	}
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void putAll(Map m) {
+		map.putAll(m);
+	}
+
+	@Override
+	public Object get(String key) {
+		return BsonCodec.encode(map.get(key));
+	}
+
+	/**
+	 * @return a converted copy of the map.
+	 */
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Map toMap() {
+		Map<String, Object> copy = new LinkedHashMap<String, Object>();
+		for (String key : map.keySet()) {
+			copy.put(key, get(key));
+		}
+		return copy;
+	}
+
+	@Override
+	public Object removeField(String key) {
+		return map.remove(key);
+	}
+
+	@Override
+	@Deprecated
+	public boolean containsKey(String s) {
+		return map.containsKey(s);
+	}
+
+	@Override
+	public boolean containsField(String s) {
+		return map.containsKey(s);
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return map.keySet();
+	}
+
+	@Override
+	public void markAsPartialObject() {
+		partial = true;
+	}
+
+	@Override
+	public boolean isPartialObject() {
+		return partial;
+	}
+
+	@Override
+	public String toString() {
+		return map.toString();
+	}
+}
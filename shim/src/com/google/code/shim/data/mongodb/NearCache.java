@@ -0,0 +1,240 @@
+package com.google.code.shim.data.mongodb;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.code.shim.collections.StringKeyMap;
+import com.mongodb.DBObject;
+
+/**
+ * <p>
+ * Keeps the documents found by a {@link BaseMongoDao}'s findOne queries in memory, keyed by query, so that repeated
+ * lookups of the same document skip the round trip to the server. The cache holds at most a fixed number of
+ * documents, dropping the least recently used, and each for at most a fixed time.
+ * </p>
+ * <p>
+ * Writes through the same DAO evict the documents they may change: a write whose query is a plain _id match evicts
+ * that document, and any other write empties the cache. A lookup that was reading the server when a write evicted
+ * documents does not cache what it read, which may predate the write. Writes by other DAOs or processes are only
+ * seen once a cached document expires, so the time to live bounds how stale a lookup can be. Queries that find
+ * nothing are not cached, nor are documents without an _id (found by a projection that leaves it out), since a
+ * write to their _id could not evict them.
+ * </p>
+ * <p>
+ * Callers get their own copy of a cached document, so they can change it without affecting the cache.
+ * </p>
+ * 
+ * @author dgau
+ * 
+ */
+public class NearCache {
+
+	private static final class Cached {
+		final StringKeyMap document;
+		final long expires;
+
+		Cached(StringKeyMap document, long expires) {
+			this.document = document;
+			this.expires = expires;
+		}
+	}
+
+	private final int maxEntries;
+	private final long ttlNanos;
+	private final LinkedHashMap<String, Cached> entries;
+
+	/**
+	 * Counts invalidations, so a lookup that read the server before one does not cache what it read.
+	 */
+	private long generation;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * @param maxEntries
+	 *            most documents held.
+	 * @param ttlMillis
+	 *            how long a document may be held.
+	 */
+	NearCache(final int maxEntries, long ttlMillis) {
+		this.maxEntries = Math.max(1, maxEntries);
+		this.ttlNanos = ttlMillis * 1000000L;
+		this.entries = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+				if (size() > NearCache.this.maxEntries) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @param key
+	 *            the query key.
+	 * @return a copy of the cached document, or null if it is not cached or has expired.
+	 */
+	synchronized StringKeyMap get(String key) {
+		Cached entry = entries.get(key);
+		if (entry != null && entry.expires - System.nanoTime() <= 0) {
+			entries.remove(key);
+			evictions++;
+			entry = null;
+		}
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return copy(entry.document);
+	}
+
+	/**
+	 * @return the current generation, to take before reading a document from the server and pass to
+	 *         {@link #put(String, StringKeyMap, long)}.
+	 */
+	synchronized long generation() {
+		return generation;
+	}
+
+	/**
+	 * Caches a copy of a document, unless it has no _id, or the cache has been invalidated since the document was
+	 * read, in which case it may be stale.
+	 * 
+	 * @param key
+	 *            the query key.
+	 * @param document
+	 * @param readGeneration
+	 *            the {@link #generation()} taken before the document was read.
+	 * @return true if the document was cached.
+	 */
+	synchronized boolean put(String key, StringKeyMap document, long readGeneration) {
+		if (readGeneration != generation || document.get("_id") == null) {
+			return false;
+		}
+		entries.put(key, new Cached(copy(document), System.nanoTime() + ttlNanos));
+		return true;
+	}
+
+	/**
+	 * Evicts the documents a write with the given query may change.
+	 * 
+	 * @param query
+	 *            the write's query, or null to evict everything.
+	 */
+	synchronized void invalidate(DBObject query) {
+		generation++;
+		Object id = idOf(query);
+		if (id == null) {
+			evictions += entries.size();
+			entries.clear();
+			return;
+		}
+		for (Iterator<Cached> i = entries.values().iterator(); i.hasNext();) {
+			if (id.equals(i.next().document.get("_id"))) {
+				i.remove();
+				evictions++;
+			}
+		}
+	}
+
+	/**
+	 * @return the _id a query matches exactly, or null if it may match other documents.
+	 */
+	private static Object idOf(DBObject query) {
+		if (query == null || query.keySet().size() != 1) {
+			return null;
+		}
+		Object id = query.get("_id");
+		if (id instanceof DBObject || id instanceof Map) {
+			// An operator, or an embedded _id; either way, not worth matching.
+			return null;
+		}
+		return id;
+	}
+
+	/**
+	 * Copies a document, and the documents and lists embedded in it.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Object copyValue(Object value) {
+		if (value instanceof Map) {
+			return copy((Map<String, Object>) value);
+		} else if (value instanceof List) {
+			List<Object> copy = new ArrayList<Object>(((List<?>) value).size());
+			for (Object item : (List<?>) value) {
+				copy.add(copyValue(item));
+			}
+			return copy;
+		}
+		return value;
+	}
+
+	private static StringKeyMap copy(Map<String, Object> document) {
+		StringKeyMap copy = new StringKeyMap(Math.max(16, document.size() * 2));
+		for (Map.Entry<String, Object> entry : document.entrySet()) {
+			copy.put(entry.getKey(), copyValue(entry.getValue()));
+		}
+		return copy;
+	}
+
+	/**
+	 * Empties the cache.
+	 */
+	public synchronized void clear() {
+		generation++;
+		evictions += entries.size();
+		entries.clear();
+	}
+
+	/**
+	 * @return the number of documents cached, including any that have expired but not yet been dropped.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the number of lookups answered from the cache.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of lookups that went to the server.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the number of documents dropped because the cache was full, they expired, or a write evicted them.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return the fraction of lookups answered from the cache, or 0 if there have been none.
+	 */
+	public synchronized double getHitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "near cache: " + entries.size() + " of " + maxEntries + " documents, " + hits + " hits, " + misses
+			+ " misses, " + evictions + " evictions";
+	}
+}
@@ -0,0 +1,163 @@
+package com.google.code.shim.data.mongodb;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+import com.google.code.shim.data.DataAccessException;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+
+/**
+ * A JSON query template from a DAO properties file, parsed once. Each '?' outside a quoted string is a parameter
+ * slot, filled in order, in the same fashion as a PreparedStatement. Binding copies the parsed template and places the
+ * parameter values directly in the copy, so Strings need no quoting or escaping, and Dates, ObjectIds, Maps and Lists
+ * keep their types.
+ *
+ * @author dgau
+ *
+ */
+final class QueryTemplate {
+
+	/**
+	 * Stands in for '?' while the template is parsed.
+	 */
+	private static final String MARKER = "\u0000shim-parameter-";
+
+	/**
+	 * A parameter position in the parsed template.
+	 */
+	private static final class Slot {
+		final int index;
+
+		Slot(int index) {
+			this.index = index;
+		}
+	}
+
+	private final String json;
+	private final Object template;
+	private final int parameterCount;
+
+	private QueryTemplate(String json, Object template, int parameterCount) {
+		this.json = json;
+		this.template = template;
+		this.parameterCount = parameterCount;
+	}
+
+	/**
+	 * Parses a template.
+	 *
+	 * @param json
+	 *            the template, with '?' for each parameter.
+	 * @return the compiled template.
+	 * @throws com.mongodb.util.JSONParseException
+	 *             if the template is not valid JSON.
+	 */
+	static QueryTemplate compile(String json) {
+		StringBuilder marked = new StringBuilder(json.length() + 16);
+		int count = 0;
+		char quote = 0;
+		for (int i = 0; i < json.length(); i++) {
+			char c = json.charAt(i);
+			if (quote != 0) {
+				marked.append(c);
+				if (c == '\\' && i + 1 < json.length()) {
+					marked.append(json.charAt(++i));
+				} else if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+				marked.append(c);
+			} else if (c == '?') {
+				marked.append('"').append(MARKER).append(count++).append('"');
+			} else {
+				marked.append(c);
+			}
+		}
+		Object parsed = JSON.parse(marked.toString());
+		return new QueryTemplate(json, count == 0 ? parsed : mark(parsed), count);
+	}
+
+	/**
+	 * @return the number of parameters the template expects.
+	 */
+	int getParameterCount() {
+		return parameterCount;
+	}
+
+	/**
+	 * Fills the template.
+	 *
+	 * @param parms
+	 *            a value for each parameter; extra values are ignored.
+	 * @return a new copy of the template, with the parameter values in place of the '?'s.
+	 * @throws DataAccessException
+	 *             if there are not enough parameters.
+	 */
+	DBObject bind(Object... parms) throws DataAccessException {
+		int provided = parms == null ? 0 : parms.length;
+		if (parameterCount > provided) {
+			throw new DataAccessException("Not enough parameters were provided for the JSON.  Expected "
+				+ parameterCount + " parameters, but only " + provided + " were provided");
+		}
+		return (DBObject) copy(template, parms);
+	}
+
+	@Override
+	public String toString() {
+		return json;
+	}
+
+	/**
+	 * Replaces marker strings in the parsed tree with slots.
+	 */
+	private static Object mark(Object node) {
+		if (node instanceof String) {
+			String s = (String) node;
+			if (s.startsWith(MARKER)) {
+				return new Slot(Integer.parseInt(s.substring(MARKER.length())));
+			}
+		} else if (node instanceof BasicDBList) {
+			BasicDBList list = (BasicDBList) node;
+			for (int i = 0; i < list.size(); i++) {
+				list.set(i, mark(list.get(i)));
+			}
+		} else if (node instanceof DBObject) {
+			DBObject object = (DBObject) node;
+			for (String key : new ArrayList<String>(object.keySet())) {
+				object.put(key, mark(object.get(key)));
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Copies the containers of the tree, substituting parameter values for slots. Leaf values from the template are
+	 * immutable (strings, numbers, booleans and the like), so they are shared; dates are copied.
+	 */
+	private static Object copy(Object node, Object[] parms) {
+		if (node instanceof Slot) {
+			return BsonCodec.encode(parms[((Slot) node).index]);
+		} else if (node instanceof BasicDBList) {
+			BasicDBList list = (BasicDBList) node;
+			BasicDBList copy = new BasicDBList();
+			for (Object item : list) {
+				copy.add(copy(item, parms));
+			}
+			return copy;
+		} else if (node instanceof DBObject) {
+			DBObject object = (DBObject) node;
+			BasicDBObject copy = new BasicDBObject();
+			for (String key : object.keySet()) {
+				copy.put(key, copy(object.get(key), parms));
+			}
+			return copy;
+		} else if (node instanceof Date) {
+			return new Date(((Date) node).getTime());
+		}
+		return node;
+	}
+}
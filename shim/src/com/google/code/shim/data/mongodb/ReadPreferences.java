@@ -0,0 +1,80 @@
+package com.google.code.shim.data.mongodb;
+
+import com.google.code.shim.data.DataAccessException;
+import com.mongodb.DBObject;
+import com.mongodb.ReadPreference;
+import com.mongodb.util.JSON;
+import com.mongodb.util.JSONParseException;
+
+/**
+ * Reads read preferences from DAO properties. A preference is given by its MongoDB name, optionally followed by a JSON
+ * object of replica set tags that the secondary read from must have:
+ * 
+ * <pre>
+ * mongo.salesByStore.readPreference=secondaryPreferred { dc : "east", use : "reporting" }
+ * </pre>
+ * 
+ * The driver distinguishes only reading from the primary from reading from a secondary when one is available, so
+ * primary and primaryPreferred read from the primary, and secondary, secondaryPreferred and nearest read from a
+ * secondary.
+ * 
+ * @author dgau
+ * 
+ */
+final class ReadPreferences {
+
+	private ReadPreferences() {
+	}
+
+	/**
+	 * @param value
+	 *            the preference name, and any tags.
+	 * @return the read preference.
+	 * @throws DataAccessException
+	 *             if the name is not a read preference, or the tags are not a JSON object.
+	 */
+	static ReadPreference parse(String value) throws DataAccessException {
+		String text = value.trim();
+		String name = text;
+		String tags = null;
+		int brace = text.indexOf('{');
+		if (brace >= 0) {
+			name = text.substring(0, brace).trim();
+			tags = text.substring(brace);
+		}
+
+		boolean primary;
+		if (name.equalsIgnoreCase("primary") || name.equalsIgnoreCase("primaryPreferred")) {
+			primary = true;
+		} else if (name.equalsIgnoreCase("secondary") || name.equalsIgnoreCase("secondaryPreferred")
+			|| name.equalsIgnoreCase("nearest")) {
+			primary = false;
+		} else {
+			throw new DataAccessException("Unknown read preference: " + value);
+		}
+
+		if (tags == null) {
+			return primary ? ReadPreference.PRIMARY : ReadPreference.SECONDARY;
+		}
+		if (primary) {
+			throw new DataAccessException("Tags cannot be given for reads from the primary: " + value);
+		}
+		Object parsed;
+		try {
+			parsed = JSON.parse(tags);
+		} catch (JSONParseException e) {
+			throw new DataAccessException("Read preference tags are not valid JSON: " + value, e);
+		}
+		if (!(parsed instanceof DBObject)) {
+			throw new DataAccessException("Read preference tags are not a JSON object: " + value);
+		}
+		return new ReadPreference.TaggedReadPreference((DBObject) parsed);
+	}
+
+	/**
+	 * @return true if reads with the preference may go to a secondary.
+	 */
+	static boolean allowsSecondary(ReadPreference preference) {
+		return preference != null && preference != ReadPreference.PRIMARY;
+	}
+}
@@ -0,0 +1,120 @@
+package com.google.code.shim.data.mongodb;
+
+import java.util.List;
+import java.util.Map;
+
+import org.bson.BSONObject;
+
+import com.google.code.shim.collections.StringKeyMap;
+import com.mongodb.DBCallback;
+import com.mongodb.DBCollection;
+import com.mongodb.DBDecoder;
+import com.mongodb.DBDecoderFactory;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBCallback;
+import com.mongodb.DefaultDBDecoder;
+
+/**
+ * A document read from MongoDB that is also a {@link StringKeyMap}. The DAO's cursors decode documents, and the
+ * documents embedded in them, straight into this class (see {@link #DECODER_FACTORY}), so they can be returned to
+ * callers as they are rather than copied into a new map.
+ * 
+ * @author dgau
+ * 
+ */
+public class StringKeyDocument extends StringKeyMap implements DBObject {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Decodes documents into StringKeyDocuments; arrays are decoded as usual.
+	 */
+	public static final DBDecoderFactory DECODER_FACTORY = new DBDecoderFactory() {
+		@Override
+		public DBDecoder create() {
+			return new DefaultDBDecoder() {
+				@Override
+				public DBCallback getDBCallback(DBCollection collection) {
+					return new DefaultDBCallback(collection) {
+						@Override
+						public BSONObject create(boolean array, List<String> path) {
+							return array ? super.create(array, path) : new StringKeyDocument();
+						}
+					};
+				}
+			};
+		}
+	};
+
+	private boolean partial;
+
+	public StringKeyDocument() {
+		super();
+	}
+
+	/**
+	 * Returns a document as a StringKeyMap, copying it only if it is not a StringKeyDocument already.
+	 * 
+	 * @param document
+	 * @return the document as a map.
+	 */
+	@SuppressWarnings("unchecked")
+	static StringKeyMap asStringKeyMap(DBObject document) {
+		if (document instanceof StringKeyMap) {
+			return (StringKeyMap) document;
+		}
+		return new StringKeyMap(document.toMap());
+	}
+
+	@Override
+	public void markAsPartialObject() {
+		partial = true;
+	}
+
+	@Override
+	public boolean isPartialObject() {
+		return partial;
+	}
+
+	@Override
+	public void putAll(BSONObject o) {
+		for (String key : o.keySet()) {
+			put(key, o.get(key));
+		}
+	}
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void putAll(Map m) {
+		super.putAll(m);
+	}
+
+	@Override
+	public Object get(String key) {
+		return super.get(key);
+	}
+
+	/**
+	 * @return this document, which is already a map.
+	 */
+	@Override
+	public Map<String, Object> toMap() {
+		return this;
+	}
+
+	@Override
+	public Object removeField(String key) {
+		return remove(key);
+	}
+
+	@Override
+	@Deprecated
+	public boolean containsKey(String s) {
+		return super.containsKey(s);
+	}
+
+	@Override
+	public boolean containsField(String s) {
+		return super.containsKey(s);
+	}
+}
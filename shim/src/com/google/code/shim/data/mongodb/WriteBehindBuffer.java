@@ -0,0 +1,441 @@
+package com.google.code.shim.data.mongodb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.google.code.shim.data.DataAccessException;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import com.mongodb.util.JSON;
+
+/**
+ * <p>
+ * Holds the saves and modifications of a {@link BaseMongoDao} in memory and writes them to the database later, in
+ * bulk, from a background thread. Writes to the same document (the same query) made while they wait are coalesced
+ * into one: a save replaces whatever was pending, and a modification's fields are merged into the pending save or
+ * modification. Pending writes are flushed every flush interval, when the buffer fills, when {@link #flush()} is
+ * called, and when the buffer is closed, which happens at the latest when the JVM shuts down.
+ * </p>
+ * <p>
+ * A delete through the DAO drops the write pending for the same query, and a {@link DocumentChanges} update flushes
+ * it first, so neither is undone by a later flush.
+ * </p>
+ * <p>
+ * Callers are not told of failed writes, which are logged and counted; see {@link #getFailed()}. When the buffer
+ * holds as many documents as its capacity, a write to another document waits for a flush to make room.
+ * </p>
+ * 
+ * @author dgau
+ * 
+ */
+public class WriteBehindBuffer {
+	static final Logger logger = LogManager.getLogger(WriteBehindBuffer.class);
+
+	/**
+	 * Writes a flushed batch of upserts.
+	 */
+	interface Writer {
+		BulkResult write(List<DBObject> queries, List<DBObject> updates) throws DataAccessException;
+	}
+
+	/**
+	 * A write waiting to be flushed: either a replacement document or fields to set.
+	 */
+	private static final class PendingWrite {
+		final DBObject query;
+		DBObject fields;
+		boolean replace;
+
+		PendingWrite(DBObject query, DBObject fields, boolean replace) {
+			this.query = query;
+			this.fields = fields;
+			this.replace = replace;
+		}
+
+		void merge(DBObject newFields, boolean newReplace) {
+			if (newReplace) {
+				fields = newFields;
+				replace = true;
+			} else if (replace) {
+				for (String key : newFields.keySet()) {
+					setPath(fields, key, newFields.get(key));
+				}
+			} else {
+				fields.putAll(newFields);
+			}
+		}
+	}
+
+	private final Writer writer;
+	private final int capacity;
+	private final ScheduledExecutorService flusher;
+	private final Thread shutdownHook;
+
+	private final Object lock = new Object();
+	private final Object flushLock = new Object();
+	private LinkedHashMap<String, PendingWrite> pending = new LinkedHashMap<String, PendingWrite>();
+	private boolean flushRequested;
+	private boolean closed;
+	// Batches taken from pending, and batches written.
+	private long taken;
+	private long written;
+
+	private long submittedWrites;
+	private long coalescedWrites;
+	private long writtenDocuments;
+	private long failedDocuments;
+	private volatile MongoException lastFailure;
+
+	/**
+	 * Starts the background flushing.
+	 * 
+	 * @param name
+	 *            names the flushing thread.
+	 * @param writer
+	 *            writes flushed batches.
+	 * @param capacity
+	 *            most documents held before writers wait.
+	 * @param flushIntervalMillis
+	 *            how often pending writes are flushed.
+	 */
+	WriteBehindBuffer(final String name, Writer writer, int capacity, long flushIntervalMillis) {
+		this.writer = writer;
+		this.capacity = Math.max(1, capacity);
+		this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		flusher.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				flushQuietly();
+			}
+		}, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+
+		this.shutdownHook = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				closeQuietly();
+			}
+		}, name + "-shutdown");
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	/**
+	 * Adds a write, coalescing it with any pending write to the same document.
+	 * 
+	 * @param query
+	 *            finds the document.
+	 * @param fields
+	 *            the replacement document, or the fields to set.
+	 * @param replace
+	 *            true for a save, false for a modification.
+	 * @throws DataAccessException
+	 *             if the buffer is closed, or interrupted while waiting for room.
+	 */
+	void add(DBObject query, DBObject fields, boolean replace) throws DataAccessException {
+		String key = JSON.serialize(query);
+		synchronized (lock) {
+			while (!closed && pending.size() >= capacity && !pending.containsKey(key)) {
+				requestFlush();
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new DataAccessException("Interrupted while waiting for the write-behind buffer to flush.", e);
+				}
+			}
+			if (closed) {
+				throw new DataAccessException("The write-behind buffer is closed.");
+			}
+			submittedWrites++;
+			PendingWrite write = pending.get(key);
+			if (write == null) {
+				pending.put(key, new PendingWrite(query, fields, replace));
+			} else {
+				write.merge(fields, replace);
+				coalescedWrites++;
+			}
+			if (pending.size() >= capacity) {
+				requestFlush();
+			}
+		}
+	}
+
+	private void requestFlush() {
+		if (!flushRequested) {
+			flushRequested = true;
+			flusher.execute(new Runnable() {
+				@Override
+				public void run() {
+					flushQuietly();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Writes everything pending now, in the calling thread.
+	 * 
+	 * @return the outcome of the writes.
+	 * @throws DataAccessException
+	 *             if the writes could not be attempted.
+	 */
+	public BulkResult flush() throws DataAccessException {
+		synchronized (flushLock) {
+			LinkedHashMap<String, PendingWrite> batch;
+			synchronized (lock) {
+				batch = pending;
+				pending = new LinkedHashMap<String, PendingWrite>();
+				flushRequested = false;
+				taken++;
+				lock.notifyAll();
+			}
+			try {
+				return write(batch.values());
+			} finally {
+				synchronized (lock) {
+					written++;
+					lock.notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the write pending for one document now, in the calling thread, after any flush already under way, so
+	 * that a write made directly afterwards lands on top of it.
+	 * 
+	 * @param query
+	 *            finds the document, as given to {@link #add(DBObject, DBObject, boolean)}.
+	 * @throws DataAccessException
+	 *             if the write could not be attempted.
+	 */
+	void flush(DBObject query) throws DataAccessException {
+		String key = JSON.serialize(query);
+		synchronized (flushLock) {
+			PendingWrite write;
+			synchronized (lock) {
+				write = pending.remove(key);
+				lock.notifyAll();
+			}
+			if (write != null) {
+				write(Collections.singletonList(write));
+			}
+		}
+	}
+
+	/**
+	 * Drops the write pending for one document, after any flush already under way, so that it cannot undo a delete
+	 * made directly afterwards.
+	 * 
+	 * @param query
+	 *            finds the document, as given to {@link #add(DBObject, DBObject, boolean)}.
+	 * @return true if a write was dropped.
+	 */
+	boolean remove(DBObject query) {
+		String key = JSON.serialize(query);
+		synchronized (flushLock) {
+			synchronized (lock) {
+				boolean removed = pending.remove(key) != null;
+				lock.notifyAll();
+				return removed;
+			}
+		}
+	}
+
+	private BulkResult write(Collection<PendingWrite> batch) throws DataAccessException {
+		try {
+			List<DBObject> queries = new ArrayList<DBObject>(batch.size());
+			List<DBObject> updates = new ArrayList<DBObject>(batch.size());
+			for (PendingWrite write : batch) {
+				queries.add(write.query);
+				updates.add(write.replace ? write.fields : BaseMongoDao.modifier(write.fields));
+			}
+			BulkResult result = queries.isEmpty() ? new BulkResult("write-behind", 0, true) : writer.write(queries,
+				updates);
+			if (result.getFailed() > 0) {
+				MongoException first = result.getFailures().get(result.getFailures().firstKey());
+				lastFailure = first;
+				logger.error(result.getFailed() + " of " + result.getCount() + " write-behind documents failed: "
+					+ first.getMessage());
+			}
+			synchronized (lock) {
+				writtenDocuments += result.getSucceeded();
+				failedDocuments += result.getFailed();
+			}
+			return result;
+		} catch (DataAccessException e) {
+			synchronized (lock) {
+				failedDocuments += batch.size();
+			}
+			throw e;
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (DataAccessException e) {
+			logger.error("Could not flush write-behind buffer: " + e.getMessage(), e);
+		} catch (RuntimeException e) {
+			logger.error("Could not flush write-behind buffer: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Waits until the writes pending now have been flushed by the background thread (or another caller).
+	 * 
+	 * @param timeout
+	 * @param unit
+	 * @return true if they were flushed, false if the time ran out first.
+	 * @throws InterruptedException
+	 */
+	public boolean awaitFlush(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (lock) {
+			long target = pending.isEmpty() ? taken : taken + 1;
+			if (!pending.isEmpty()) {
+				requestFlush();
+			}
+			while (written < target) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Stops the background flushing and flushes what is pending. Later writes fail.
+	 * 
+	 * @throws DataAccessException
+	 *             if the final flush could not be attempted.
+	 */
+	public void close() throws DataAccessException {
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			lock.notifyAll();
+		}
+		flusher.shutdown();
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			// Already shutting down.
+		}
+		flush();
+	}
+
+	private void closeQuietly() {
+		try {
+			close();
+		} catch (DataAccessException e) {
+			logger.error("Could not flush write-behind buffer at shutdown: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return the number of documents with writes waiting to be flushed.
+	 */
+	public int getPending() {
+		synchronized (lock) {
+			return pending.size();
+		}
+	}
+
+	/**
+	 * @return the number of saves and modifications submitted.
+	 */
+	public long getSubmitted() {
+		synchronized (lock) {
+			return submittedWrites;
+		}
+	}
+
+	/**
+	 * @return the number of saves and modifications merged into one already pending.
+	 */
+	public long getCoalesced() {
+		synchronized (lock) {
+			return coalescedWrites;
+		}
+	}
+
+	/**
+	 * @return the number of documents written.
+	 */
+	public long getWritten() {
+		synchronized (lock) {
+			return writtenDocuments;
+		}
+	}
+
+	/**
+	 * @return the number of document writes that failed.
+	 */
+	public long getFailed() {
+		synchronized (lock) {
+			return failedDocuments;
+		}
+	}
+
+	/**
+	 * @return the most recent failure, or null if none.
+	 */
+	public MongoException getLastFailure() {
+		return lastFailure;
+	}
+
+	@Override
+	public String toString() {
+		synchronized (lock) {
+			return "write-behind: " + pending.size() + " pending, " + submittedWrites + " submitted, "
+				+ coalescedWrites + " coalesced, " + writtenDocuments + " written, " + failedDocuments + " failed";
+		}
+	}
+
+	/**
+	 * Sets a field, given as a dotted path, in a document, creating the embedded documents along the way.
+	 */
+	@SuppressWarnings("rawtypes")
+	static void setPath(DBObject doc, String path, Object value) {
+		int dot = path.indexOf('.');
+		if (dot < 0) {
+			doc.put(path, value);
+			return;
+		}
+		String head = path.substring(0, dot);
+		Object child = doc.get(head);
+		if (!(child instanceof DBObject)) {
+			if (child instanceof Map) {
+				child = new BasicDBObject((Map) child);
+			} else {
+				child = new BasicDBObject();
+			}
+			doc.put(head, child);
+		}
+		setPath((DBObject) child, path.substring(dot + 1), value);
+	}
+}
@@ -1,6 +1,6 @@
-package com.google.code.shim.data.sql;
-
-public enum DbType {
-
-	SQLSERVER, HSQLDB
-}
+package com.google.code.shim.data.sql;
+
+public enum DbType {
+
+	SQLSERVER, HSQLDB
+}
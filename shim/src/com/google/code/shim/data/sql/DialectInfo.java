@@ -1,69 +1,107 @@
-package com.google.code.shim.data.sql;
-
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Properties;
-
-/**
- * Encapsulates SQL dialect-specific settings needed by the framework.
- * @author dgau
- *
- */
-public final class DialectInfo extends Properties{
-
-	private static final long serialVersionUID = 1L;
-	public static final String GENERIC_DIALECT = "generic";
-
-	private String dialectName;
-	
-	public DialectInfo()throws IOException{
-		super();
-		this.dialectName=GENERIC_DIALECT;
-		InputStream in = getClass().getResourceAsStream(getClass().getSimpleName() + ".properties");
-		load(in);
-		in.close();
-		
-	}
-	
-	public DialectInfo(String dialectName) throws IOException{
-		super();
-		this.dialectName = dialectName;
-		InputStream in = getClass().getResourceAsStream(getClass().getSimpleName() + ".properties");
-		load(in);
-		in.close();
-	}
-	
-	/**
-	 * Gets readable dialect-specific description of the SQLState.
-	 * @param sqlState
-	 * @return a description of the SQL state
-	 */
-	public String getSQLStateDescription(String sqlState){
-		String key = "sqlstate."+ dialectName + "."+sqlState;
-		return getProperty(key, null);
-	}
-	
-	/**
-	 * Tests whether the given SQLState matches a state where the database is not available
-	 * for some reason.
-	 * @param sqlState
-	 * @return a boolean indicating whether the database is unavailable based on the sql state value.
-	 */
-	public boolean isDatabaseUnavailableSQLState(String sqlState){
-		if(sqlState==null) return false;
-		
-		String key = "unavailable.sqlstates."+ dialectName;
-		String states = getProperty(key);
-		String[] statesArray = states.split(",");
-		for(String s: statesArray){
-			if(sqlState.equalsIgnoreCase(s)) return true;
-		}
-		
-		//Check standard class codes
-		if(sqlState.startsWith("08"))	{
-			return true;
-		}
-		return false;
-	}
-	
-}
+package com.google.code.shim.data.sql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Encapsulates SQL dialect-specific settings needed by the framework.
+ * @author dgau
+ *
+ */
+public final class DialectInfo extends Properties{
+
+	private static final long serialVersionUID = 1L;
+	public static final String GENERIC_DIALECT = "generic";
+
+	private String dialectName;
+	
+	public DialectInfo()throws IOException{
+		super();
+		this.dialectName=GENERIC_DIALECT;
+		InputStream in = getClass().getResourceAsStream(getClass().getSimpleName() + ".properties");
+		load(in);
+		in.close();
+		
+	}
+	
+	public DialectInfo(String dialectName) throws IOException{
+		super();
+		this.dialectName = dialectName;
+		InputStream in = getClass().getResourceAsStream(getClass().getSimpleName() + ".properties");
+		load(in);
+		in.close();
+	}
+	
+	/**
+	 * Gets readable dialect-specific description of the SQLState.
+	 * @param sqlState
+	 * @return a description of the SQL state
+	 */
+	public String getSQLStateDescription(String sqlState){
+		String key = "sqlstate."+ dialectName + "."+sqlState;
+		return getProperty(key, null);
+	}
+	
+	/**
+	 * Tests whether the given SQLState matches a state where the database is not available
+	 * for some reason.
+	 * @param sqlState
+	 * @return a boolean indicating whether the database is unavailable based on the sql state value.
+	 */
+	public boolean isDatabaseUnavailableSQLState(String sqlState){
+		if(sqlState==null) return false;
+		
+		String key = "unavailable.sqlstates."+ dialectName;
+		String states = getProperty(key, "");
+		String[] statesArray = states.split(",");
+		for(String s: statesArray){
+			if(sqlState.equalsIgnoreCase(s)) return true;
+		}
+		
+		//Check standard class codes
+		if(sqlState.startsWith("08"))	{
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Gets a dialect-specific SQL template, for example the MERGE statement used for set-based loads. Templates are
+	 * {@link java.text.MessageFormat} patterns stored under <code>sql.[dialect].[name]</code>. When the dialect does not
+	 * define the template, the generic one is returned.
+	 * @param name template name, e.g. "merge"
+	 * @return the template, or null if neither the dialect nor the generic dialect defines it.
+	 */
+	public String getSqlTemplate(String name){
+		String template = getProperty("sql." + dialectName + "." + name);
+		if(template==null){
+			template = getProperty("sql." + GENERIC_DIALECT + "." + name);
+		}
+		return template;
+	}
+	
+	/**
+	 * Gets a dialect capability, such as which statements may be sent to the database in JDBC batches. Capabilities
+	 * are stored under <code>capability.[dialect].[name]</code>; when the dialect does not define one, the generic
+	 * value is returned.
+	 * @param name capability name, e.g. "script.batch"
+	 * @param defaultValue returned if neither the dialect nor the generic dialect defines the capability.
+	 * @return the capability value.
+	 */
+	public String getCapability(String name, String defaultValue){
+		String value = getProperty("capability." + dialectName + "." + name);
+		if(value==null){
+			value = getProperty("capability." + GENERIC_DIALECT + "." + name, defaultValue);
+		}
+		return value;
+	}
+	
+	/**
+	 * @return the name of the dialect.
+	 */
+	public String getDialectName(){
+		return dialectName;
+	}
+	
+}
@@ -0,0 +1,64 @@
+package com.google.code.shim.data.sql.handler;
+
+import java.util.Map;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.apache.commons.dbutils.RowProcessor;
+
+import com.google.code.shim.collections.CompositeKey;
+
+/**
+ * Common behavior for handlers that index result set rows by one or more key columns while the
+ * <code>ResultSet</code> is being read, so that no intermediate list of rows is built.
+ * 
+ * @author dgau
+ * 
+ * @param <T>
+ *            the type of index returned by the handler
+ */
+abstract class AbstractRowIndexHandler<T> implements ResultSetHandler<T> {
+
+	/**
+	 * The RowProcessor implementation to use when converting rows into Maps.
+	 */
+	protected final RowProcessor convert;
+	protected final String[] keyColumns;
+	protected final int expectedRows;
+
+	protected AbstractRowIndexHandler(RowProcessor r, int expectedRows, String... keyColumns) {
+		if (keyColumns == null || keyColumns.length == 0) {
+			throw new IllegalArgumentException("At least one key column is required.");
+		}
+		this.convert = r;
+		this.expectedRows = expectedRows;
+		this.keyColumns = new String[keyColumns.length];
+		for (int i = 0; i < keyColumns.length; i++) {
+			this.keyColumns[i] = keyColumns[i].toLowerCase();
+		}
+	}
+
+	/**
+	 * Builds the key for a row. A single key column yields the column value itself; multiple key columns yield a
+	 * {@link CompositeKey} of the values, in the order the key columns were given.
+	 * 
+	 * @param row
+	 * @return the key for the row
+	 */
+	protected Object keyFor(Map<String, Object> row) {
+		if (keyColumns.length == 1) {
+			return row.get(keyColumns[0]);
+		}
+		Object[] parts = new Object[keyColumns.length];
+		for (int i = 0; i < keyColumns.length; i++) {
+			parts[i] = row.get(keyColumns[i]);
+		}
+		return new CompositeKey(parts);
+	}
+
+	/**
+	 * @return an initial hash table capacity that will hold the expected number of rows without rehashing.
+	 */
+	protected int initialCapacity() {
+		return (int) (Math.max(expectedRows, 12) / 0.75f) + 1;
+	}
+}
@@ -0,0 +1,175 @@
+package com.google.code.shim.data.sql.handler;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+
+import com.google.code.shim.collections.CompositeKey;
+import com.google.code.shim.collections.Transformations;
+import com.google.code.shim.collections.Transformations.AggregateFunction;
+
+/**
+ * <code>ResultSetHandler</code> implementation that performs "group by" aggregation while the <code>ResultSet</code>
+ * is being read. Only one accumulator per distinct group is kept in memory, so this is a streaming alternative to
+ * loading every row with a {@link RowListHandler} and then calling
+ * {@link Transformations#groupBy(List, String, AggregateFunction, String...)}. Unlike that method, the result set does
+ * not need to be sorted; groups are returned in the order they were first encountered.
+ * <p>
+ * Each returned row contains the group by keys/values followed by the numeric key holding the aggregated value, the
+ * same shape produced by {@link Transformations#groupBy(List, String, AggregateFunction, String...)}. Column names are
+ * matched case insensitively and returned lower-cased, as with {@link OrderedBasicRowProcessor}.
+ * </p>
+ * <p>
+ * Null numeric values are ignored by SUM, MIN, MAX and AVG. COUNT returns the number of rows in each group.
+ * </p>
+ * This class is thread safe.
+ *
+ * @author dgau
+ *
+ */
+public class GroupByHandler implements ResultSetHandler<List<Map<String, Object>>> {
+
+	private final ResultSetTypeMapper mapper;
+	private final String numericKey;
+	private final AggregateFunction fc;
+	private final String[] groupByKeys;
+
+	/**
+	 * @param numericKey
+	 *            column containing the numeric data to be aggregated
+	 * @param fc
+	 *            aggregate function to be applied
+	 * @param groupByKeys
+	 *            the columns used to group the data
+	 */
+	public GroupByHandler(String numericKey, AggregateFunction fc, String... groupByKeys) {
+		this(new BasicResultSetTypeMapper(), numericKey, fc, groupByKeys);
+	}
+
+	/**
+	 * @param theMapper
+	 *            maps the group by values from the result set (for example BigDecimal to Double).
+	 * @param numericKey
+	 *            column containing the numeric data to be aggregated
+	 * @param fc
+	 *            aggregate function to be applied
+	 * @param groupByKeys
+	 *            the columns used to group the data
+	 */
+	public GroupByHandler(ResultSetTypeMapper theMapper, String numericKey, AggregateFunction fc,
+		String... groupByKeys) {
+		this.mapper = theMapper;
+		this.numericKey = numericKey.toLowerCase();
+		this.fc = fc;
+		this.groupByKeys = new String[groupByKeys.length];
+		for (int i = 0; i < groupByKeys.length; i++) {
+			this.groupByKeys[i] = groupByKeys[i].toLowerCase();
+		}
+	}
+
+	@Override
+	public List<Map<String, Object>> handle(ResultSet rs) throws SQLException {
+		// Resolve the column positions once, rather than by name on every row.
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int numericColumn = findColumn(rsmd, numericKey);
+		int numericType = rsmd.getColumnType(numericColumn);
+		int[] keyColumns = new int[groupByKeys.length];
+		int[] keyTypes = new int[groupByKeys.length];
+		for (int k = 0; k < groupByKeys.length; k++) {
+			keyColumns[k] = findColumn(rsmd, groupByKeys[k]);
+			keyTypes[k] = rsmd.getColumnType(keyColumns[k]);
+		}
+
+		Map<CompositeKey, Accumulator> groups = new LinkedHashMap<CompositeKey, Accumulator>();
+		Object[] keyValues = new Object[keyColumns.length];
+		while (rs.next()) {
+			for (int k = 0; k < keyColumns.length; k++) {
+				keyValues[k] = mapper.mapValue(keyTypes[k], rs.getObject(keyColumns[k]));
+			}
+			CompositeKey key = new CompositeKey(keyValues);
+			Accumulator acc = groups.get(key);
+			if (acc == null) {
+				acc = new Accumulator();
+				groups.put(key, acc);
+			}
+
+			acc.rows++;
+			if (fc == AggregateFunction.COUNT) {
+				continue;
+			}
+			Object value = mapper.mapValue(numericType, rs.getObject(numericColumn));
+			if (value instanceof Number) {
+				acc.add((Number) value);
+			} else if (value != null) {
+				throw new SQLException("Column " + numericKey + " is not numeric: " + value.getClass().getName());
+			}
+		}
+
+		List<Map<String, Object>> result = new ArrayList<Map<String, Object>>(groups.size());
+		for (Map.Entry<CompositeKey, Accumulator> entry : groups.entrySet()) {
+			CompositeKey key = entry.getKey();
+			Map<String, Object> record = new LinkedHashMap<String, Object>();
+			for (int k = 0; k < groupByKeys.length; k++) {
+				record.put(groupByKeys[k], key.get(k));
+			}
+			record.put(numericKey, entry.getValue().result(fc));
+			result.add(record);
+		}
+		return result;
+	}
+
+	private static int findColumn(ResultSetMetaData rsmd, String name) throws SQLException {
+		int cols = rsmd.getColumnCount();
+		for (int i = 1; i <= cols; i++) {
+			if (name.equalsIgnoreCase(rsmd.getColumnName(i))) {
+				return i;
+			}
+		}
+		throw new SQLException("Column not found in result set: " + name);
+	}
+
+	/**
+	 * Running aggregate for a single group.
+	 */
+	private static final class Accumulator {
+		int rows;
+		int values;
+		double sum;
+		Number min;
+		Number max;
+
+		void add(Number n) {
+			values++;
+			double d = n.doubleValue();
+			sum += d;
+			if (min == null || d < min.doubleValue()) {
+				min = n;
+			}
+			if (max == null || d > max.doubleValue()) {
+				max = n;
+			}
+		}
+
+		Number result(AggregateFunction fc) {
+			switch (fc) {
+			case SUM:
+				return values == 0 ? null : sum;
+			case AVG:
+				return values == 0 ? null : sum / values;
+			case MIN:
+				return min;
+			case MAX:
+				return max;
+			case COUNT:
+				return rows;
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.google.code.shim.data.sql.handler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.apache.commons.dbutils.RowProcessor;
+
+import com.google.code.shim.collections.LongKeyMap;
+
+/**
+ * <code>ResultSetHandler</code> implementation that indexes rows by an integer id column into a {@link LongKeyMap},
+ * avoiding a boxed key per row. Rows whose id is null are skipped. When an id repeats, the index will contain the last
+ * row for that id. This class is thread safe.
+ * 
+ * @author dgau
+ * 
+ */
+public class LongKeyRowIndexHandler implements ResultSetHandler<LongKeyMap<Map<String, Object>>> {
+
+	/**
+	 * The RowProcessor implementation to use when converting rows into Maps.
+	 */
+	private final RowProcessor convert;
+	private final String keyColumn;
+	private final int expectedRows;
+
+	/**
+	 * @param keyColumn
+	 *            integer column identifying each row
+	 */
+	public LongKeyRowIndexHandler(String keyColumn) {
+		this(new OrderedBasicRowProcessor(), 0, keyColumn);
+	}
+
+	/**
+	 * @param expectedRows
+	 *            expected number of rows, used to presize the index.
+	 * @param keyColumn
+	 *            integer column identifying each row
+	 */
+	public LongKeyRowIndexHandler(int expectedRows, String keyColumn) {
+		this(new OrderedBasicRowProcessor(), expectedRows, keyColumn);
+	}
+
+	public LongKeyRowIndexHandler(RowProcessor r, int expectedRows, String keyColumn) {
+		this.convert = r;
+		this.expectedRows = expectedRows;
+		this.keyColumn = keyColumn;
+	}
+
+	@Override
+	public LongKeyMap<Map<String, Object>> handle(ResultSet rs) throws SQLException {
+		LongKeyMap<Map<String, Object>> index = new LongKeyMap<Map<String, Object>>(expectedRows);
+		int column = rs.findColumn(keyColumn);
+		while (rs.next()) {
+			long id = rs.getLong(column);
+			if (rs.wasNull()) {
+				continue;
+			}
+			index.put(id, convert.toMap(rs));
+		}
+		return index;
+	}
+
+}
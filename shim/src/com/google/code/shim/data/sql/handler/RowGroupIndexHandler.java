@@ -0,0 +1,76 @@
+package com.google.code.shim.data.sql.handler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.dbutils.RowProcessor;
+
+import com.google.code.shim.collections.CompositeKey;
+
+/**
+ * <code>ResultSetHandler</code> implementation that builds a hash index of rows for non-unique keys: each key maps to
+ * the list of rows having that key, in result set order. The index is built in a single pass over the
+ * <code>ResultSet</code>. For unique keys, use {@link RowIndexHandler}.
+ * <p>
+ * With a single key column the map key is the column value; with several it is a {@link CompositeKey} of the values
+ * in the order the key columns were given. This class is thread safe.
+ * </p>
+ * 
+ * @author dgau
+ * 
+ */
+public class RowGroupIndexHandler extends AbstractRowIndexHandler<Map<Object, List<Map<String, Object>>>> {
+
+	/**
+	 * @param keyColumns
+	 *            columns (case insensitive) whose values are used to group rows
+	 */
+	public RowGroupIndexHandler(String... keyColumns) {
+		this(new OrderedBasicRowProcessor(), 0, keyColumns);
+	}
+
+	/**
+	 * @param expectedKeys
+	 *            expected number of distinct keys, used to presize the index.
+	 * @param keyColumns
+	 *            columns (case insensitive) whose values are used to group rows
+	 */
+	public RowGroupIndexHandler(int expectedKeys, String... keyColumns) {
+		this(new OrderedBasicRowProcessor(), expectedKeys, keyColumns);
+	}
+
+	/**
+	 * @param r
+	 *            converts each row into a map; it must produce lower-cased keys, as {@link OrderedBasicRowProcessor}
+	 *            does.
+	 * @param expectedKeys
+	 *            expected number of distinct keys, used to presize the index.
+	 * @param keyColumns
+	 *            columns (case insensitive) whose values are used to group rows
+	 */
+	public RowGroupIndexHandler(RowProcessor r, int expectedKeys, String... keyColumns) {
+		super(r, expectedKeys, keyColumns);
+	}
+
+	@Override
+	public Map<Object, List<Map<String, Object>>> handle(ResultSet rs) throws SQLException {
+		Map<Object, List<Map<String, Object>>> index = new LinkedHashMap<Object, List<Map<String, Object>>>(
+			initialCapacity());
+		while (rs.next()) {
+			Map<String, Object> row = convert.toMap(rs);
+			Object key = keyFor(row);
+			List<Map<String, Object>> rows = index.get(key);
+			if (rows == null) {
+				rows = new ArrayList<Map<String, Object>>(2);
+				index.put(key, rows);
+			}
+			rows.add(row);
+		}
+		return index;
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.google.code.shim.data.sql.handler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.dbutils.RowProcessor;
+
+import com.google.code.shim.collections.CompositeKey;
+import com.google.code.shim.collections.Transformations;
+
+/**
+ * <code>ResultSetHandler</code> implementation that builds a hash index of rows, keyed by the value of one or more key
+ * columns, in a single pass over the <code>ResultSet</code>. This replaces loading a list of rows and then calling
+ * {@link Transformations#createMap(List, String, String)} or scanning the list. Keys are unique; when a key repeats,
+ * the map will contain the last row for that key. For non-unique keys, use {@link RowGroupIndexHandler}.
+ * <p>
+ * With a single key column the map key is the column value; with several it is a {@link CompositeKey} of the values
+ * in the order the key columns were given. Map iteration order follows the result set. This class is thread safe.
+ * </p>
+ * 
+ * @author dgau
+ * 
+ */
+public class RowIndexHandler extends AbstractRowIndexHandler<Map<Object, Map<String, Object>>> {
+
+	/**
+	 * @param keyColumns
+	 *            columns (case insensitive) whose values identify each row
+	 */
+	public RowIndexHandler(String... keyColumns) {
+		this(new OrderedBasicRowProcessor(), 0, keyColumns);
+	}
+
+	/**
+	 * @param expectedRows
+	 *            expected number of rows, used to presize the index.
+	 * @param keyColumns
+	 *            columns (case insensitive) whose values identify each row
+	 */
+	public RowIndexHandler(int expectedRows, String... keyColumns) {
+		this(new OrderedBasicRowProcessor(), expectedRows, keyColumns);
+	}
+
+	/**
+	 * @param r
+	 *            converts each row into a map; it must produce lower-cased keys, as {@link OrderedBasicRowProcessor}
+	 *            does.
+	 * @param expectedRows
+	 *            expected number of rows, used to presize the index.
+	 * @param keyColumns
+	 *            columns (case insensitive) whose values identify each row
+	 */
+	public RowIndexHandler(RowProcessor r, int expectedRows, String... keyColumns) {
+		super(r, expectedRows, keyColumns);
+	}
+
+	@Override
+	public Map<Object, Map<String, Object>> handle(ResultSet rs) throws SQLException {
+		Map<Object, Map<String, Object>> index = new LinkedHashMap<Object, Map<String, Object>>(initialCapacity());
+		while (rs.next()) {
+			Map<String, Object> row = convert.toMap(rs);
+			index.put(keyFor(row), row);
+		}
+		return index;
+	}
+
+}
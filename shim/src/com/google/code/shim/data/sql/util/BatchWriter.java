@@ -0,0 +1,316 @@
+package com.google.code.shim.data.sql.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Arrays;
+
+import org.apache.commons.dbutils.DbUtils;
+import org.apache.commons.dbutils.QueryRunner;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Writes converted records to a table on a single connection, using JDBC batches and committing every
+ * <code>commitInterval</code> rows. When a batch fails, it is rolled back and replayed one row at a time, so only the
+ * offending rows are rejected. Where the driver supports savepoints, a savepoint is taken before each batch so that
+ * earlier uncommitted batches survive the rollback; otherwise every batch is committed on its own.
+ * <p>
+ * The writer does not close or otherwise manage the connection itself, but it does switch off auto-commit.
+ * </p>
+ *
+ * @author dgau
+ *
+ */
+class BatchWriter {
+	static Logger logger = LogManager.getLogger(BatchWriter.class);
+
+	private final Connection conn;
+	private final LoadLayout layout;
+	private final LoadResult result;
+	private final QueryRunner qr;
+	private final boolean savepoints;
+	private final int batchSize;
+	private final int commitInterval;
+
+	private final PreparedStatement insert;
+	private PreparedStatement multiRowInsert;
+	private int rowsPerInsert = 1;
+	private PreparedStatement select;
+	private PreparedStatement update;
+
+	private final Object[][] batch;
+	private int batchCount = 0;
+	private int rowsSinceCommit = 0;
+	private CommitHook commitHook;
+
+	/**
+	 * Callback around each commit of the writer's work, for example to record a checkpoint.
+	 */
+	interface CommitHook {
+		/**
+		 * Called inside the transaction, just before it is committed.
+		 *
+		 * @param pending
+		 *            how many of the most recently added rows are not part of the commit, because a failed batch is
+		 *            being replayed and committed row by row; 0 when every row added so far is written or rejected.
+		 */
+		void beforeCommit(Connection conn, int pending) throws SQLException;
+
+		/**
+		 * Called after a successful commit.
+		 */
+		void afterCommit() throws SQLException;
+	}
+
+	BatchWriter(Connection conn, LoadLayout layout, int batchSize, int commitInterval, LoadResult result)
+		throws SQLException {
+		this.conn = conn;
+		this.layout = layout;
+		this.result = result;
+		this.qr = new QueryRunner();
+		this.batchSize = Math.max(1, batchSize);
+		this.savepoints = conn.getMetaData().supportsSavepoints();
+		// Without savepoints, a failed batch can only be isolated if nothing else is uncommitted.
+		this.commitInterval = savepoints ? Math.max(this.batchSize, commitInterval) : this.batchSize;
+		this.batch = new Object[this.batchSize][];
+
+		conn.setAutoCommit(false);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Insert SQL: " + layout.insertSql);
+		}
+		insert = conn.prepareStatement(layout.insertSql);
+		try {
+			if (layout.isUpsert()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Select SQL: " + layout.selectSql);
+					logger.debug("Update SQL: " + layout.updateSql);
+				}
+				select = conn.prepareStatement(layout.selectSql);
+				if (layout.updateSql != null) {
+					update = conn.prepareStatement(layout.updateSql);
+				}
+			}
+		} catch (SQLException e) {
+			close();
+			throw e;
+		}
+	}
+
+	void setCommitHook(CommitHook hook) {
+		this.commitHook = hook;
+	}
+
+	/**
+	 * @return the most rows held in a batch before it is written.
+	 */
+	int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Writes plain inserts as statements with multi-row VALUES clauses, each holding up to <code>rows</code> rows;
+	 * these are themselves sent in JDBC batches. Rows left over at the end of a batch are inserted singly. Has no
+	 * effect on upserts.
+	 *
+	 * @param rows
+	 *            rows per statement; 1 (the default) for single-row inserts.
+	 * @throws SQLException
+	 */
+	void setRowsPerInsert(int rows) throws SQLException {
+		rows = Math.min(rows, batchSize);
+		if (layout.isUpsert() || rows <= 1 || rows == rowsPerInsert) {
+			return;
+		}
+		DbUtils.closeQuietly(multiRowInsert);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Inserting " + rows + " rows per statement");
+		}
+		multiRowInsert = conn.prepareStatement(layout.insertSql(rows));
+		rowsPerInsert = rows;
+	}
+
+	/**
+	 * Adds a record to the current batch, executing the batch when it is full.
+	 *
+	 * @param values
+	 *            converted values, in file column order.
+	 * @throws SQLException
+	 *             if the batch could not be committed.
+	 */
+	void add(Object[] values) throws SQLException {
+		batch[batchCount++] = values;
+		if (batchCount == batchSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * Executes any pending batch and commits all outstanding work.
+	 *
+	 * @throws SQLException
+	 */
+	void finish() throws SQLException {
+		flush();
+		commit(0);
+	}
+
+	/**
+	 * Closes the statements used by this writer. Uncommitted work is left to the caller to roll back.
+	 */
+	void close() {
+		DbUtils.closeQuietly(select);
+		DbUtils.closeQuietly(update);
+		DbUtils.closeQuietly(multiRowInsert);
+		DbUtils.closeQuietly(insert);
+	}
+
+	private void flush() throws SQLException {
+		if (batchCount == 0) {
+			return;
+		}
+		Savepoint sp = (savepoints && rowsSinceCommit > 0) ? conn.setSavepoint() : null;
+		try {
+			write(batch, batchCount);
+			result.rowsLoaded += batchCount;
+			release(sp);
+		} catch (SQLException e) {
+			rollback(sp);
+			logger.warn("Batch of " + batchCount + " rows failed, retrying row by row: " + e.getMessage());
+			replay();
+		}
+		rowsSinceCommit += batchCount;
+		batchCount = 0;
+		if (rowsSinceCommit >= commitInterval) {
+			commit(0);
+		}
+	}
+
+	/**
+	 * Re-executes the rows of a failed batch individually, rejecting the rows that fail. Without savepoints, each row
+	 * is committed as it is written, so a later rejected row does not roll it back.
+	 */
+	private void replay() throws SQLException {
+		Object[][] single = new Object[1][];
+		for (int i = 0; i < batchCount; i++) {
+			single[0] = batch[i];
+			Savepoint sp = (savepoints && (rowsSinceCommit > 0 || i > 0)) ? conn.setSavepoint() : null;
+			try {
+				write(single, 1);
+				result.rowsLoaded++;
+				release(sp);
+				if (!savepoints) {
+					rowsSinceCommit++;
+					commit(batchCount - i - 1);
+				}
+			} catch (SQLException e) {
+				rollback(sp);
+				result.rowsRejected++;
+				logger.error("Rejected record " + Arrays.toString(batch[i]) + ": " + e.getMessage());
+			}
+		}
+	}
+
+	private void write(Object[][] rows, int count) throws SQLException {
+		if (layout.isUpsert()) {
+			for (int i = 0; i < count; i++) {
+				upsert(rows[i]);
+			}
+		} else {
+			int i = 0;
+			if (multiRowInsert != null && count >= rowsPerInsert) {
+				try {
+					Object[] parms = new Object[rowsPerInsert * layout.columns.length];
+					for (; i + rowsPerInsert <= count; i += rowsPerInsert) {
+						for (int r = 0; r < rowsPerInsert; r++) {
+							System.arraycopy(rows[i + r], 0, parms, r * layout.columns.length, layout.columns.length);
+						}
+						qr.fillStatement(multiRowInsert, parms);
+						multiRowInsert.addBatch();
+					}
+					multiRowInsert.executeBatch();
+				} finally {
+					multiRowInsert.clearBatch();
+				}
+			}
+			if (i == count) {
+				return;
+			}
+			try {
+				for (; i < count; i++) {
+					qr.fillStatement(insert, rows[i]);
+					insert.addBatch();
+				}
+				insert.executeBatch();
+			} finally {
+				insert.clearBatch();
+			}
+		}
+	}
+
+	private void upsert(Object[] values) throws SQLException {
+		qr.fillStatement(select, layout.selectParameters(values));
+		int count = 0;
+		ResultSet rs = select.executeQuery();
+		try {
+			while (rs.next()) {
+				count = rs.getInt(1);
+			}
+		} finally {
+			DbUtils.close(rs);
+		}
+		if (count > 0) {
+			if (update != null) {
+				qr.fillStatement(update, layout.updateParameters(values));
+				update.executeUpdate();
+			}
+		} else {
+			qr.fillStatement(insert, values);
+			insert.executeUpdate();
+		}
+	}
+
+	/**
+	 * Commits outstanding work, with the commit hook around it.
+	 *
+	 * @param pending
+	 *            rows at the end of the batch that are not yet written.
+	 */
+	private void commit(int pending) throws SQLException {
+		if (rowsSinceCommit == 0) {
+			return;
+		}
+		if (commitHook != null) {
+			commitHook.beforeCommit(conn, pending);
+		}
+		conn.commit();
+		rowsSinceCommit = 0;
+		if (commitHook != null) {
+			commitHook.afterCommit();
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Committed " + result);
+		}
+	}
+
+	private void rollback(Savepoint sp) throws SQLException {
+		if (sp == null) {
+			conn.rollback();
+		} else {
+			conn.rollback(sp);
+		}
+	}
+
+	private void release(Savepoint sp) {
+		if (sp == null) {
+			return;
+		}
+		try {
+			conn.releaseSavepoint(sp);
+		} catch (SQLException e) {
+			// Not all drivers support releasing; the savepoint goes away at commit regardless.
+		}
+	}
+}
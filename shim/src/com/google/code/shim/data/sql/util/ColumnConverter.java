@@ -0,0 +1,307 @@
+package com.google.code.shim.data.sql.util;
+
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Converts the text of one column of a load file into the object bound to the insert statement. The data type header
+ * row of a file is compiled once into an array of converters (see {@link #compile(String[])}), so converting a record
+ * is just an indexed call per field.
+ * <p>
+ * Empty fields convert to null, except for varchar columns. Temporal converters keep a calendar, so a compiled
+ * array of converters must only be used by one thread at a time; compile one per thread instead.
+ * </p>
+ * Supported data types:
+ * <ul>
+ * <li><b>varchar</b>: the text as is.</li>
+ * <li><b>integer</b> (or int), <b>bigint</b>, <b>smallint</b>: Integer, Long, Short.</li>
+ * <li><b>decimal</b>, <b>numeric</b>: Double.</li>
+ * <li><b>boolean</b>: Boolean, from true/false, t/f, yes/no, y/n or 1/0 (in any case).</li>
+ * <li><b>date</b>: java.sql.Date, from yyyy-MM-dd.</li>
+ * <li><b>time</b>: java.sql.Time, from HH:mm[:ss[.fff]] with an optional zone.</li>
+ * <li><b>timestamp</b>: java.sql.Timestamp, from yyyy-MM-dd[THH:mm[:ss[.fffffffff]]] with an optional zone (Z, +hh,
+ * +hhmm or +hh:mm). A space may be used in place of the 'T'. Fractional seconds are kept to the nanosecond.</li>
+ * <li><b>datetime</b>: java.util.Date, in the same format as timestamp (to the millisecond).</li>
+ * </ul>
+ * Values without a zone are in the JVM's default time zone.
+ *
+ * @author dgau
+ *
+ */
+abstract class ColumnConverter {
+
+	/**
+	 * @param value
+	 *            the field text, possibly null.
+	 * @return the converted value, or null for a null or empty field.
+	 * @throws ParseException
+	 *             if the text is not valid for the type. Numeric types may throw NumberFormatException instead, and
+	 *             out-of-range dates IllegalArgumentException.
+	 */
+	Object convert(String value) throws ParseException {
+		if (value == null || value.length() == 0) {
+			return null;
+		}
+		return parse(value);
+	}
+
+	abstract Object parse(String value) throws ParseException;
+
+	/**
+	 * Compiles the data type header row of a load file.
+	 *
+	 * @param dataTypes
+	 * @return a converter for each column.
+	 * @throws ParseException
+	 *             if a data type is not supported.
+	 */
+	static ColumnConverter[] compile(String[] dataTypes) throws ParseException {
+		ColumnConverter[] converters = new ColumnConverter[dataTypes.length];
+		for (int i = 0; i < dataTypes.length; i++) {
+			converters[i] = forType(dataTypes[i]);
+			if (converters[i] == null) {
+				throw new ParseException("Unsupported data type '" + dataTypes[i] + "' for column " + (i + 1), i);
+			}
+		}
+		return converters;
+	}
+
+	/**
+	 * @param dataTypeName
+	 * @return the converter for a data type, or null if the type is not supported.
+	 */
+	static ColumnConverter forType(String dataTypeName) {
+		String type = dataTypeName == null ? "" : dataTypeName.trim().toLowerCase(Locale.ENGLISH);
+		if ("varchar".equals(type)) {
+			return VARCHAR;
+		} else if ("integer".equals(type) || "int".equals(type)) {
+			return INTEGER;
+		} else if ("bigint".equals(type)) {
+			return BIGINT;
+		} else if ("smallint".equals(type)) {
+			return SMALLINT;
+		} else if ("decimal".equals(type) || "numeric".equals(type)) {
+			return DOUBLE;
+		} else if ("boolean".equals(type)) {
+			return BOOLEAN;
+		} else if ("date".equals(type)) {
+			return new TemporalConverter(Kind.DATE);
+		} else if ("time".equals(type)) {
+			return new TemporalConverter(Kind.TIME);
+		} else if ("timestamp".equals(type)) {
+			return new TemporalConverter(Kind.TIMESTAMP);
+		} else if ("datetime".equals(type)) {
+			return new TemporalConverter(Kind.DATETIME);
+		}
+		return null;
+	}
+
+	static final ColumnConverter VARCHAR = new ColumnConverter() {
+		@Override
+		Object convert(String value) {
+			return value;
+		}
+
+		@Override
+		Object parse(String value) {
+			return value;
+		}
+	};
+
+	static final ColumnConverter INTEGER = new ColumnConverter() {
+		@Override
+		Object parse(String value) {
+			return Integer.valueOf(Integer.parseInt(value));
+		}
+	};
+
+	static final ColumnConverter BIGINT = new ColumnConverter() {
+		@Override
+		Object parse(String value) {
+			return Long.valueOf(Long.parseLong(value));
+		}
+	};
+
+	static final ColumnConverter SMALLINT = new ColumnConverter() {
+		@Override
+		Object parse(String value) {
+			return Short.valueOf(Short.parseShort(value));
+		}
+	};
+
+	static final ColumnConverter DOUBLE = new ColumnConverter() {
+		@Override
+		Object parse(String value) {
+			return Double.valueOf(Double.parseDouble(value));
+		}
+	};
+
+	static final ColumnConverter BOOLEAN = new ColumnConverter() {
+		@Override
+		Object parse(String value) throws ParseException {
+			if (value.length() == 1) {
+				switch (value.charAt(0)) {
+				case '1': case 't': case 'T': case 'y': case 'Y':
+					return Boolean.TRUE;
+				case '0': case 'f': case 'F': case 'n': case 'N':
+					return Boolean.FALSE;
+				}
+			} else if ("true".equalsIgnoreCase(value) || "yes".equalsIgnoreCase(value)) {
+				return Boolean.TRUE;
+			} else if ("false".equalsIgnoreCase(value) || "no".equalsIgnoreCase(value)) {
+				return Boolean.FALSE;
+			}
+			throw new ParseException("Not a boolean value: '" + value + "'", 0);
+		}
+	};
+
+	private enum Kind {
+		DATE, TIME, TIMESTAMP, DATETIME
+	}
+
+	/**
+	 * Parses ISO-8601 style dates and times by character position, without intermediate strings.
+	 */
+	private static class TemporalConverter extends ColumnConverter {
+		private final Kind kind;
+		private final Calendar local;
+		private Calendar utc;
+
+		TemporalConverter(Kind kind) {
+			this.kind = kind;
+			this.local = new GregorianCalendar();
+			this.local.setLenient(false);
+		}
+
+		@Override
+		Object parse(String s) throws ParseException {
+			int len = s.length();
+			int pos = 0;
+			int year = 1970, month = 1, day = 1, hour = 0, minute = 0, second = 0, nanos = 0;
+
+			if (kind != Kind.TIME) {
+				year = digits(s, 0, 4);
+				expect(s, 4, '-');
+				month = digits(s, 5, 2);
+				expect(s, 7, '-');
+				day = digits(s, 8, 2);
+				pos = 10;
+				if (kind != Kind.DATE && pos < len) {
+					char c = s.charAt(pos);
+					if (c != 'T' && c != 't' && c != ' ') {
+						throw new ParseException("Expected 'T' in " + kind + " value '" + s + "'", pos);
+					}
+					pos++;
+				}
+			}
+
+			if (kind != Kind.DATE && pos < len) {
+				hour = digits(s, pos, 2);
+				expect(s, pos + 2, ':');
+				minute = digits(s, pos + 3, 2);
+				pos += 5;
+				if (pos < len && s.charAt(pos) == ':') {
+					second = digits(s, pos + 1, 2);
+					pos += 3;
+					if (pos < len && (s.charAt(pos) == '.' || s.charAt(pos) == ',')) {
+						int start = ++pos;
+						while (pos < len && isDigit(s.charAt(pos))) {
+							if (pos - start < 9) {
+								nanos = nanos * 10 + (s.charAt(pos) - '0');
+							}
+							pos++;
+						}
+						if (pos == start) {
+							throw new ParseException("Missing fraction in " + kind + " value '" + s + "'", pos);
+						}
+						for (int i = pos - start; i < 9; i++) {
+							nanos *= 10;
+						}
+					}
+				}
+			}
+
+			boolean zoned = false;
+			int offsetMillis = 0;
+			if (kind != Kind.DATE && pos < len) {
+				char c = s.charAt(pos);
+				if (c == 'Z' || c == 'z') {
+					zoned = true;
+					pos++;
+				} else if (c == '+' || c == '-') {
+					zoned = true;
+					int offsetMinutes = digits(s, pos + 1, 2) * 60;
+					pos += 3;
+					if (pos < len) {
+						if (s.charAt(pos) == ':') {
+							pos++;
+						}
+						offsetMinutes += digits(s, pos, 2);
+						pos += 2;
+					}
+					offsetMillis = (c == '-' ? -offsetMinutes : offsetMinutes) * 60000;
+				}
+			}
+			if (pos != len) {
+				throw new ParseException("Unexpected text in " + kind + " value '" + s + "'", pos);
+			}
+
+			Calendar cal = zoned ? utc() : local;
+			cal.clear();
+			cal.set(year, month - 1, day, hour, minute, second);
+			long millis = cal.getTimeInMillis() - offsetMillis + nanos / 1000000;
+
+			switch (kind) {
+			case DATE:
+				return new java.sql.Date(millis);
+			case TIME:
+				return new Time(millis);
+			case TIMESTAMP:
+				Timestamp ts = new Timestamp(millis);
+				ts.setNanos(nanos);
+				return ts;
+			default:
+				return new Date(millis);
+			}
+		}
+
+		private Calendar utc() {
+			if (utc == null) {
+				utc = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
+				utc.setLenient(false);
+			}
+			return utc;
+		}
+
+		private int digits(String s, int from, int count) throws ParseException {
+			if (from + count > s.length()) {
+				throw new ParseException("Truncated " + kind + " value '" + s + "'", s.length());
+			}
+			int n = 0;
+			for (int i = from; i < from + count; i++) {
+				char c = s.charAt(i);
+				if (!isDigit(c)) {
+					throw new ParseException("Expected a digit in " + kind + " value '" + s + "'", i);
+				}
+				n = n * 10 + (c - '0');
+			}
+			return n;
+		}
+
+		private void expect(String s, int pos, char c) throws ParseException {
+			if (pos >= s.length() || s.charAt(pos) != c) {
+				throw new ParseException("Expected '" + c + "' in " + kind + " value '" + s + "'", pos);
+			}
+		}
+
+		private static boolean isDigit(char c) {
+			return c >= '0' && c <= '9';
+		}
+	}
+}
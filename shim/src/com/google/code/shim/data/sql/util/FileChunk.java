@@ -0,0 +1,189 @@
+package com.google.code.shim.data.sql.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A byte range of a delimited file that begins at the start of a record and ends after the last byte of a record.
+ * Chunk boundaries are found by scanning for newline bytes, so records must not contain embedded newlines (for
+ * example, inside quoted fields) and the file must use an ASCII-compatible charset such as UTF-8 or ISO-8859-1.
+ *
+ * @author dgau
+ *
+ */
+class FileChunk {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	final File file;
+	final int index;
+	final long start;
+	final long end;
+
+	FileChunk(File file, int index, long start, long end) {
+		this.file = file;
+		this.index = index;
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * @return the number of bytes in the chunk.
+	 */
+	long length() {
+		return end - start;
+	}
+
+	/**
+	 * Opens a buffered stream over the chunk's bytes. The caller must close it.
+	 *
+	 * @return the stream
+	 * @throws IOException
+	 */
+	InputStream open() throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			in.getChannel().position(start);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+		return new BufferedInputStream(new RangeInputStream(in, length()), BUFFER_SIZE);
+	}
+
+	@Override
+	public String toString() {
+		return "chunk " + index + " [bytes " + start + "-" + end + "]";
+	}
+
+	/**
+	 * Finds the offset just past the given number of lines, for example to skip header lines.
+	 *
+	 * @param file
+	 * @param lines
+	 * @return the byte offset of the first byte after the lines, or the file length if it has fewer lines.
+	 * @throws IOException
+	 */
+	static long skipLines(File file, int lines) throws IOException {
+		if (lines <= 0) {
+			return 0;
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			return nextLineStart(raf, 0, lines);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Splits the data portion of a file into at most <code>count</code> chunks of roughly equal size, aligned on record
+	 * boundaries.
+	 *
+	 * @param file
+	 * @param dataStart
+	 *            offset of the first data record (after any headers)
+	 * @param count
+	 *            the desired number of chunks
+	 * @return the chunks, in file order. Empty chunks are omitted.
+	 * @throws IOException
+	 */
+	static List<FileChunk> split(File file, long dataStart, int count) throws IOException {
+		List<FileChunk> chunks = new ArrayList<FileChunk>(count);
+		long length = file.length();
+		long target = Math.max(1, (length - dataStart) / Math.max(1, count));
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			long start = dataStart;
+			while (start < length) {
+				long end = chunks.size() == count - 1 ? length : nextLineStart(raf, start + target - 1, 1);
+				chunks.add(new FileChunk(file, chunks.size(), start, end));
+				start = end;
+			}
+		} finally {
+			raf.close();
+		}
+		return chunks;
+	}
+
+	/**
+	 * @return the offset just past the <code>lines</code>-th newline found at or after <code>from</code>, or the file
+	 *         length.
+	 */
+	private static long nextLineStart(RandomAccessFile raf, long from, int lines) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long pos = from;
+		int found = 0;
+		raf.seek(from);
+		int read;
+		while ((read = raf.read(buffer)) > 0) {
+			for (int i = 0; i < read; i++) {
+				if (buffer[i] == '\n' && ++found == lines) {
+					return pos + i + 1;
+				}
+			}
+			pos += read;
+		}
+		return raf.length();
+	}
+
+	/**
+	 * Limits reads from the underlying stream to a fixed number of bytes.
+	 */
+	private static class RangeInputStream extends FilterInputStream {
+		private long remaining;
+
+		RangeInputStream(InputStream in, long length) {
+			super(in);
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+			int b = super.read();
+			if (b >= 0) {
+				remaining--;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+			int n = super.read(b, off, (int) Math.min(len, remaining));
+			if (n > 0) {
+				remaining -= n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(Math.min(n, remaining));
+			remaining -= skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(super.available(), remaining);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
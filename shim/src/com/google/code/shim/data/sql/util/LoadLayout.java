@@ -0,0 +1,207 @@
+package com.google.code.shim.data.sql.util;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes how the columns of a delimited load file map onto a table, and holds the SQL statements derived from the
+ * file header. Key columns are marked in the header by an asterisk suffix, for example <code>customer_id*</code>.
+ *
+ * @author dgau
+ *
+ */
+class LoadLayout {
+
+	final String table;
+	final String[] columns;
+	final int[] keyIndices;
+	final int[] updateIndices;
+
+	final String insertSql;
+	final String selectSql;
+	final String updateSql;
+
+	LoadLayout(String table, String[] rawColumns) {
+		this.table = table;
+		this.columns = new String[rawColumns.length];
+
+		List<Integer> keys = new ArrayList<Integer>();
+		List<Integer> updates = new ArrayList<Integer>();
+		for (int i = 0; i < rawColumns.length; i++) {
+			String column = rawColumns[i].trim();
+			if (column.endsWith("*")) {
+				columns[i] = column.substring(0, column.lastIndexOf('*'));
+				keys.add(i);
+			} else {
+				columns[i] = column;
+				updates.add(i);
+			}
+		}
+		keyIndices = toArray(keys);
+		updateIndices = toArray(updates);
+
+		insertSql = insertSql(1);
+
+		StringBuilder sql = new StringBuilder();
+		if (isUpsert()) {
+			// Select
+			sql.append("select count(*) from ").append(table).append(" where ");
+			appendList(sql, columns, keyIndices, "=? and ");
+			sql.append("=?");
+			selectSql = sql.toString();
+
+			// Update
+			if (updateIndices.length > 0) {
+				sql.setLength(0);
+				sql.append("update ").append(table).append(" set ");
+				appendList(sql, columns, updateIndices, "=?, ");
+				sql.append("=? where ");
+				appendList(sql, columns, keyIndices, "=? and ");
+				sql.append("=?");
+				updateSql = sql.toString();
+			} else {
+				// Nothing but keys: an existing row needs no update.
+				updateSql = null;
+			}
+		} else {
+			selectSql = null;
+			updateSql = null;
+		}
+	}
+
+	/**
+	 * @param rows
+	 * @return an insert statement with a multi-row VALUES clause holding parameters for the given number of rows.
+	 */
+	String insertSql(int rows) {
+		StringBuilder sql = new StringBuilder();
+		sql.append("insert into ").append(table).append(" (");
+		appendList(sql, columns, null, ", ");
+		sql.append(" ) values ");
+		for (int r = 0; r < rows; r++) {
+			sql.append(r == 0 ? "( " : ", ( ");
+			for (int i = 0; i < columns.length; i++) {
+				sql.append(i == 0 ? "?" : ", ?");
+			}
+			sql.append(" )");
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * @param sourceTable
+	 *            a table with (at least) the file's columns.
+	 * @return a statement that copies every row of the source table into this layout's table.
+	 */
+	String insertSelectSql(String sourceTable) {
+		String list = columnList();
+		return "insert into " + table + " (" + list + ") select " + list + " from " + sourceTable;
+	}
+
+	/**
+	 * @return the file's column names, separated by commas.
+	 */
+	String columnList() {
+		StringBuilder list = new StringBuilder();
+		appendList(list, columns, null, ", ");
+		return list.toString();
+	}
+
+	/**
+	 * @return true if the header identified key columns, meaning existing rows are updated rather than inserted.
+	 */
+	boolean isUpsert() {
+		return keyIndices.length > 0;
+	}
+
+	/**
+	 * @param values
+	 *            values for a record, in file column order.
+	 * @return the parameters for the select statement.
+	 */
+	Object[] selectParameters(Object[] values) {
+		Object[] parms = new Object[keyIndices.length];
+		for (int i = 0; i < keyIndices.length; i++) {
+			parms[i] = values[keyIndices[i]];
+		}
+		return parms;
+	}
+
+	/**
+	 * @param values
+	 *            values for a record, in file column order.
+	 * @return the parameters for the update statement: first the "SET" values, then the "WHERE" values.
+	 */
+	Object[] updateParameters(Object[] values) {
+		Object[] parms = new Object[values.length];
+		int p = 0;
+		for (int idx : updateIndices) {
+			parms[p++] = values[idx];
+		}
+		for (int idx : keyIndices) {
+			parms[p++] = values[idx];
+		}
+		return parms;
+	}
+
+	/**
+	 * @param otherTable
+	 * @return a layout with the same columns, for plain inserts (no key columns) into another table.
+	 */
+	LoadLayout insertInto(String otherTable) {
+		return new LoadLayout(otherTable, columns);
+	}
+
+	/**
+	 * Builds the statement that merges a staging table holding the file's records into the target table.
+	 *
+	 * @param template
+	 *            dialect-specific merge template, see {@link com.google.code.shim.data.sql.DialectInfo}.
+	 * @param stagingTable
+	 * @return the merge statement.
+	 */
+	String mergeSql(String template, String stagingTable) {
+		StringBuilder on = new StringBuilder();
+		for (int i = 0; i < keyIndices.length; i++) {
+			String column = columns[keyIndices[i]];
+			if (i > 0) {
+				on.append(" and ");
+			}
+			on.append("t.").append(column).append("=s.").append(column);
+		}
+
+		StringBuilder matched = new StringBuilder();
+		for (int i = 0; i < updateIndices.length; i++) {
+			String column = columns[updateIndices[i]];
+			matched.append(i == 0 ? "when matched then update set " : ", ");
+			matched.append(column).append("=s.").append(column);
+		}
+
+		String insertColumns = columnList();
+		StringBuilder insertValues = new StringBuilder();
+		for (int i = 0; i < columns.length; i++) {
+			insertValues.append(i == 0 ? "s." : ", s.").append(columns[i]);
+		}
+
+		return MessageFormat.format(template, table, stagingTable, on, matched, insertColumns, insertValues);
+	}
+
+	private static void appendList(StringBuilder sql, String[] columns, int[] indices, String separator) {
+		int count = indices == null ? columns.length : indices.length;
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sql.append(separator);
+			}
+			sql.append(columns[indices == null ? i : indices[i]]);
+		}
+	}
+
+	private static int[] toArray(List<Integer> list) {
+		int[] result = new int[list.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = list.get(i);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,140 @@
+package com.google.code.shim.data.sql.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statistics for a single run of the {@link Loader}. For parallel loads, the overall result also holds the result of
+ * each part of the file that was loaded on its own connection.
+ *
+ * @author dgau
+ *
+ */
+public class LoadResult {
+
+	private final String table;
+	private final String part;
+	private final long startTime;
+	private long endTime;
+	private Exception error;
+	private final List<LoadResult> parts = new ArrayList<LoadResult>();
+	long rowsRead;
+	long rowsLoaded;
+	long rowsRejected;
+
+	LoadResult(String table) {
+		this(table, null);
+	}
+
+	LoadResult(String table, String part) {
+		this.table = table;
+		this.part = part;
+		this.startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Records a failure that stopped this load (or part of a load).
+	 */
+	void fail(Exception e) {
+		this.error = e;
+	}
+
+	/**
+	 * Adds the counts of a part of the load to this result.
+	 */
+	void add(LoadResult partResult) {
+		parts.add(partResult);
+		rowsRead += partResult.rowsRead;
+		rowsLoaded += partResult.rowsLoaded;
+		rowsRejected += partResult.rowsRejected;
+	}
+
+	void finish() {
+		endTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return the table that was loaded.
+	 */
+	public String getTable() {
+		return table;
+	}
+
+	/**
+	 * @return a description of the part of the file this result covers, or null for a whole-file result.
+	 */
+	public String getPart() {
+		return part;
+	}
+
+	/**
+	 * @return the exception that stopped this part of the load, or null if it completed.
+	 */
+	public Exception getError() {
+		return error;
+	}
+
+	/**
+	 * @return the results for each part of a parallel load; empty for a serial load.
+	 */
+	public List<LoadResult> getParts() {
+		return Collections.unmodifiableList(parts);
+	}
+
+	/**
+	 * @return the parts of a parallel load that failed.
+	 */
+	public List<LoadResult> getFailedParts() {
+		List<LoadResult> failed = new ArrayList<LoadResult>();
+		for (LoadResult p : parts) {
+			if (p.error != null) {
+				failed.add(p);
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * @return the number of data records read from the file (excluding the header lines).
+	 */
+	public long getRowsRead() {
+		return rowsRead;
+	}
+
+	/**
+	 * @return the number of rows written to the table.
+	 */
+	public long getRowsLoaded() {
+		return rowsLoaded;
+	}
+
+	/**
+	 * @return the number of rows that could not be converted or written, and were skipped.
+	 */
+	public long getRowsRejected() {
+		return rowsRejected;
+	}
+
+	/**
+	 * @return elapsed time of the load in milliseconds (or so far, if the load is still running).
+	 */
+	public long getElapsedMillis() {
+		return (endTime == 0 ? System.currentTimeMillis() : endTime) - startTime;
+	}
+
+	/**
+	 * @return throughput of the load in rows written per second.
+	 */
+	public double getRowsPerSecond() {
+		long elapsed = getElapsedMillis();
+		return elapsed == 0 ? rowsLoaded : rowsLoaded * 1000.0 / elapsed;
+	}
+
+	@Override
+	public String toString() {
+		String s = String.format("%s%s: %d read, %d loaded, %d rejected in %d ms (%.1f rows/sec)", table,
+			part == null ? "" : " " + part, rowsRead, rowsLoaded, rowsRejected, getElapsedMillis(), getRowsPerSecond());
+		return error == null ? s : s + " FAILED: " + error.getMessage();
+	}
+}
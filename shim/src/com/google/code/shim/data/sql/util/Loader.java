@@ -1,281 +1,984 @@
-package com.google.code.shim.data.sql.util;
-
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.Charset;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Iterator;
-
-import javax.sql.DataSource;
-
-import org.apache.commons.dbutils.DbUtils;
-import org.apache.commons.dbutils.QueryRunner;
-import org.apache.log4j.LogManager;
-import org.apache.log4j.Logger;
-
-import com.csvreader.CsvReader;
-import com.google.code.shim.data.DataAccessException;
-import com.google.code.shim.data.sql.BaseSqlDao;
- 
-/**
- * Load utility.  Allows you to load delimited files into database tables directly, 
- * following certain file formatting conventions.
- * @author dgau
- *
- */
-public class Loader extends BaseSqlDao {
-	static Logger logger = LogManager.getLogger(Loader.class); 
-	
-	static SimpleDateFormat lenientISODateTime = new SimpleDateFormat("yyyy-MM-dd'T'hh:mm:ssZ");
-	static{
-		lenientISODateTime.setLenient(true);
-	}
-	public Loader(DataSource dsToUse) throws DataAccessException{
-		super(dsToUse); 
-	}
-	/**
-	 * 
-	 * Loads a database table from a file (specified by a classpath resource).  The following file conventions are required:
-	 * <ol>
-	 * <li>the file must have the name: [table name].[filesuffix]   </li>
-	 * <li>the file must contain a single header line whose header names exactly correspond to the columns in the table</li>
-	 * <li>For "upsert" behavior, id lookup is necessary (to do an update instead of an insert).  To indicate which columns
-	 * are ids, suffix the column name with an asterisk '*'.  Key columns MUST come before non-key columns in your file format
-	 * (Compound keys are acceptable).  </li> 
-	 * 
-	 * </ol>
-	 * @param delimiter must be provided
-	 * @param charsetName
-	 * @throws IOException
-	 * @throws DataAccessException 
-	 * @throws ParseException 
-	 */
-	public void load(String resourceName, char delimiter, String charsetName ) throws IOException, DataAccessException, ParseException {
-		InputStream in = getClass().getResourceAsStream(resourceName);
-		try{
-			if(charsetName==null || charsetName.isEmpty()){
-				charsetName="US-ASCII";
-			}
-			
-			//Derive the table name.
-			int suffixBegin = resourceName.lastIndexOf('.');
-			String table = resourceName.substring(0, suffixBegin);
-			table = table.substring(resourceName.lastIndexOf('/')+1);
-			 
-			//Begin scanning the file.
-			CsvReader reader = new CsvReader (in, delimiter, Charset.forName(charsetName));
-			
-			//Read the headers
-			reader.readHeaders();
-			String[] rawColumns = reader.getHeaders();
-			String[] columns = new String[rawColumns.length];
-			
-			reader.readRecord();
-			String[] dataTypes = reader.getValues();
-			
-			//Scan for key and keep track of where they are in the statement.
-			ArrayList<Integer> keyValueIndices = new ArrayList<Integer>();
-			ArrayList<Integer> updateValueIndices  = new ArrayList<Integer>();
-			
-			ArrayList<String> keys = new ArrayList<String>();
-			for(int i=0; i<rawColumns.length; i++){
-				String column=rawColumns[i];
-				if(column.endsWith("*")){
-					keys.add(column.substring(0,column.lastIndexOf("*")));
-					keyValueIndices.add(i);
-					columns[i] = column.substring(0,column.lastIndexOf("*"));
-				} else {
-					updateValueIndices.add(i);
-					columns[i] = rawColumns[i];
-				}
-			} 
-			
-			//Rename
-			
-			//Build the SQL.
-			//Insert
-			StringBuilder insertSql = new StringBuilder();
-			insertSql.append("insert into " ).append(table).append(" (");
-			for(int i=0;i<columns.length; i++){
-				if(columns[i].endsWith("*")){
-					insertSql.append(columns[i].substring(0,columns[i].lastIndexOf("*")));
-				} else {
-					insertSql.append(columns[i]);
-				}
-				if(i<columns.length-1){
-					insertSql.append(", ");
-				}
-			}
-			insertSql.append(" ) values ( ");
-			for(int i=0;i<columns.length; i++){
-				insertSql.append("?");
-				
-				if(i<columns.length-1){
-					insertSql.append(", ");
-				}
-			}
-			insertSql.append(" )");
-			if(logger.isDebugEnabled()){
-				logger.debug("Insert SQL: " + insertSql.toString());
-			}
-			
-			PreparedStatement insert = getDataSource().getConnection().prepareStatement(insertSql.toString());
-			
-			
-			//Select and Update
-			PreparedStatement select = null;
-			PreparedStatement update = null;
-			boolean upsertMode = !keys.isEmpty();
-			if(upsertMode){
-				
-				//Select
-				StringBuilder selectSql = new StringBuilder();
-				selectSql.append("select count(*) from " ).append(table).append(" where ");
-				Iterator<String> keyIter = keys.iterator();
-				while(keyIter.hasNext()){
-					String column = keyIter.next();
-					selectSql.append(column).append("=?");
-					if(keyIter.hasNext()){
-						selectSql.append(" and ");
-					}
-				}
-				
-				if(logger.isDebugEnabled()){
-					logger.debug("Select SQL: " + selectSql.toString());
-				}
-				select = getDataSource().getConnection().prepareStatement(selectSql.toString());
-				
-				
-				//Update
-				StringBuilder updateSql = new StringBuilder();
-				updateSql.append("update " ).append(table).append(" set ");
-				for(int i=0;i<columns.length; i++){
-					if(columns[i].endsWith("*")){
-						continue;
-					}
-					updateSql.append(columns[i]).append("=?");
-					if(i<columns.length-1){
-						updateSql.append(", ");
-					}
-				}
-				if(!keys.isEmpty()){
-				updateSql.append(" where ");
-				keyIter = keys.iterator();
-				while(keyIter.hasNext()){
-					String column = keyIter.next();
-					updateSql.append(column).append("=?");
-					if(keyIter.hasNext()){
-						updateSql.append(" and ");
-					}
-				}
-				}
-				if(logger.isDebugEnabled()){
-					logger.debug("Update SQL: " + updateSql.toString());
-				}
-				
-				
-				update = getDataSource().getConnection().prepareStatement(updateSql.toString());
-				
-			}
-			
-			//Loop through the rest of the file.
-			QueryRunner qr = new QueryRunner(getDataSource());
-			while(reader.readRecord()){
-				String[] stringValues = reader.getValues();
-				
-				Object[] values = convert(dataTypes, stringValues);
-				if(upsertMode){
-					Object[] valueParmsForSelect = new String[ keyValueIndices.size() ];
-					Object[] valueParmsForUpdate = new String[ values.length ];
-					int idx1 = 0;//for update
-					//First the "SET" parameters.
-					for(Integer idx: updateValueIndices){
-						valueParmsForUpdate[idx1++] = values[idx];
-					}
-					//Then the "WHERE" parameters
-					int idx2=0;//for select
-					for(Integer idx: keyValueIndices){
-						valueParmsForUpdate[idx1++] = values[idx];
-						valueParmsForSelect[idx2++] = values[idx];
-					}
-					
-					//Select count
-					qr.fillStatement(select,  valueParmsForSelect );
-					ResultSet rs = select.executeQuery();
-					int count = 0;
-					while(rs.next()){
-						count = rs.getInt(1);
-					}
-					rs.close();
-					if(count>0){
-						qr.fillStatement(update, valueParmsForUpdate);
-						update.executeUpdate();
-					} else {
-						qr.fillStatement(insert, values);
-						insert.executeUpdate();
-					}
-					
-				} else {
-					qr.fillStatement(insert, values);
-					insert.executeUpdate();
-				}
-				
-				
-				
-			}
-			
-			DbUtils.closeQuietly( select );
-			DbUtils.closeQuietly( insert );
-			DbUtils.closeQuietly( update );
-			
-			
-		} catch (SQLException e){
-			throw handleException(e);
-		} finally {
-			in.close();
-		}
-		
-	}
-	
-	/**
-	 * Converts the string data from the reader into objects, as the database framework uses type-detection to 
-	 * make the appropriate parameter SETs
-	 * @param dataTypes
-	 * @param stringValues
-	 * @return
-	 * @throws ParseException
-	 */
-	private static Object[] convert(String[] dataTypes, String[] stringValues) throws ParseException {
-		Object[] converted = new Object[stringValues.length];
-		for(int i = 0; i< stringValues.length; i++){
-			String dataTypeName = dataTypes[i];
-			String rawValue = stringValues[i];
-			Object convertedValue = null;
-			if(rawValue==null){
-				continue;
-			}
-			if("varchar".equalsIgnoreCase(dataTypeName)){
-				convertedValue = rawValue;
-			} else if ("integer".equalsIgnoreCase(dataTypeName)){
-				convertedValue = Integer.parseInt(rawValue);
-			} else if ("boolean".equalsIgnoreCase(dataTypeName)){
-				convertedValue = Short.parseShort(rawValue);
-			} else if ("decimal".equalsIgnoreCase(dataTypeName)){
-				convertedValue = Double.parseDouble(rawValue);
-			} else if ("numeric".equalsIgnoreCase(dataTypeName)){
-				convertedValue = Double.parseDouble(rawValue);
-			} else if ("datetime".equalsIgnoreCase(dataTypeName)){
-				convertedValue = lenientISODateTime.parse(rawValue);
-			}
-				
-			converted[i] = convertedValue;
-		}
-		return converted;
-	}
-}
+package com.google.code.shim.data.sql.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.MessageFormat;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.DbUtils;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.csvreader.CsvReader;
+import com.google.code.shim.data.DataAccessException;
+import com.google.code.shim.data.file.Checkpoint;
+import com.google.code.shim.data.file.CompressedInput;
+import com.google.code.shim.data.file.DelimitedRecord;
+import com.google.code.shim.data.file.MappedDelimitedReader;
+import com.google.code.shim.data.sql.BaseSqlDao;
+ 
+/**
+ * Load utility.  Allows you to load delimited files into database tables directly, 
+ * following certain file formatting conventions.
+ * @author dgau
+ *
+ */
+public class Loader extends BaseSqlDao {
+	static Logger logger = LogManager.getLogger(Loader.class); 
+	
+	/**
+	 * Default number of rows sent to the database in each JDBC batch.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+	/**
+	 * Default number of rows written between commits.
+	 */
+	public static final int DEFAULT_COMMIT_INTERVAL = 10000;
+
+	/**
+	 * How files with key columns (see {@link Loader#load(String, char, String)}) are applied to the table.
+	 */
+	public enum UpsertMode {
+		/**
+		 * Each record is looked up by key, then updated or inserted.  Works on any database.
+		 */
+		ROW,
+		/**
+		 * Records are batch-inserted into a staging table, which is then applied to the table with a single
+		 * dialect-specific MERGE statement, and dropped.  The staging table is a temporary table, except in parallel 
+		 * loads, which stage on several connections.  Keys must be unique within the file.  Dialects without merge
+		 * and staging templates load row by row.
+		 */
+		MERGE
+	}
+	
+	/**
+	 * How rows are sent to the database.  Unless one is {@link Loader#setBulkMode(BulkMode) set}, the loader uses the 
+	 * first mode listed by the dialect's <code>load.bulk</code> capability (see DialectInfo.properties) that suits 
+	 * the load, falling back to {@link #BATCH}.
+	 */
+	public enum BulkMode {
+		/**
+		 * Single-row prepared inserts, sent in JDBC batches.  Works on any database.
+		 */
+		BATCH,
+		/**
+		 * Prepared inserts with multi-row VALUES clauses, themselves sent in JDBC batches.  The rows per statement 
+		 * are limited by the dialect's <code>load.multirow.rows</code> and <code>load.multirow.parameters</code> 
+		 * capabilities.  Applies to plain inserts (including {@link UpsertMode#MERGE} staging); 
+		 * {@link UpsertMode#ROW} upserts are still written row by row.
+		 */
+		MULTI_ROW,
+		/**
+		 * Converted records are written to a file in the {@link Loader#setTextDirectory(File) text directory}, which 
+		 * the database attaches as the source of a text table (such as an HSQLDB TEXT table), and the table is 
+		 * loaded with a single INSERT ... SELECT, or merged from the text table in {@link UpsertMode#MERGE} mode.  
+		 * Records that cannot be converted are still rejected individually, but a row the database refuses fails 
+		 * the whole load.  Used only by serial, non-checkpointed loads that are not {@link UpsertMode#ROW} upserts, 
+		 * and only where the dialect has the <code>text.create</code> and <code>text.source</code> templates.
+		 */
+		TEXT_TABLE
+	}
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/**
+	 * Number of batches that may wait for each partition before the reading thread blocks.
+	 */
+	private static final int PARTITION_QUEUE_DEPTH = 4;
+	private static final Object[][] END_OF_PARTITION = new Object[0][];
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private int commitInterval = DEFAULT_COMMIT_INTERVAL;
+	private UpsertMode upsertMode = UpsertMode.ROW;
+	private int parallelism = 1;
+	private boolean preserveKeyOrder = false;
+	private Checkpoint checkpoint;
+	private BulkMode bulkMode;
+	private File textDirectory;
+
+	public Loader(DataSource dsToUse) throws DataAccessException{
+		super(dsToUse); 
+	}
+	
+	/**
+	 * Creates a loader for a particular SQL dialect, which determines the statements used for {@link UpsertMode#MERGE} 
+	 * and the preferred {@link BulkMode}.
+	 * @param dsToUse
+	 * @param dialectName
+	 * @throws DataAccessException
+	 */
+	public Loader(DataSource dsToUse, String dialectName) throws DataAccessException{
+		super(dsToUse, dialectName); 
+	}
+	
+	/**
+	 * Sets the number of rows sent to the database in each JDBC batch. Defaults to {@link #DEFAULT_BATCH_SIZE}.
+	 * @param rows
+	 */
+	public void setBatchSize(int rows){
+		this.batchSize = rows;
+	}
+	public int getBatchSize(){
+		return batchSize;
+	}
+	
+	/**
+	 * Sets the number of rows written between commits. This is rounded up to a whole number of batches. If the
+	 * driver does not support savepoints, every batch is committed regardless of this setting, so that a failing
+	 * batch can be rolled back on its own. Defaults to {@link #DEFAULT_COMMIT_INTERVAL}.
+	 * @param rows
+	 */
+	public void setCommitInterval(int rows){
+		this.commitInterval = rows;
+	}
+	public int getCommitInterval(){
+		return commitInterval;
+	}
+	
+	/**
+	 * Sets how files with key columns are loaded.  Defaults to {@link UpsertMode#ROW}.  If {@link UpsertMode#MERGE} is
+	 * chosen but the dialect has no merge template, the loader falls back to {@link UpsertMode#ROW}.
+	 * @param mode
+	 */
+	public void setUpsertMode(UpsertMode mode){
+		this.upsertMode = mode;
+	}
+	public UpsertMode getUpsertMode(){
+		return upsertMode;
+	}
+	
+	/**
+	 * Sets the number of threads (each with its own connection) used by {@link #load(File, char, String)}.  
+	 * Defaults to 1, which loads serially.
+	 * @param threads
+	 */
+	public void setParallelism(int threads){
+		this.parallelism = Math.max(1, threads);
+	}
+	public int getParallelism(){
+		return parallelism;
+	}
+	
+	/**
+	 * When loading a file with key columns in parallel using {@link UpsertMode#ROW}, routes every record to a worker 
+	 * chosen by its key instead of splitting the file into byte ranges.  Records with the same key are then applied 
+	 * in file order, so the last one in the file wins.  The file is parsed on a single thread in this mode.  
+	 * Defaults to false.
+	 * @param preserve
+	 */
+	public void setPreserveKeyOrder(boolean preserve){
+		this.preserveKeyOrder = preserve;
+	}
+	public boolean isPreserveKeyOrder(){
+		return preserveKeyOrder;
+	}
+	
+	/**
+	 * Sets how rows are sent to the database.  Defaults to null, which uses the dialect's preferred mode; see 
+	 * {@link BulkMode}.  If the chosen mode does not suit a load, the loader falls back to {@link BulkMode#BATCH}.
+	 * @param mode
+	 */
+	public void setBulkMode(BulkMode mode){
+		this.bulkMode = mode;
+	}
+	public BulkMode getBulkMode(){
+		return bulkMode;
+	}
+	
+	/**
+	 * Sets the directory in which {@link BulkMode#TEXT_TABLE} source files are written.  The database must resolve 
+	 * text table sources from this directory; for HSQLDB, it is the directory holding the database files.  Defaults 
+	 * to null, which disables text table loads.
+	 * @param directory
+	 */
+	public void setTextDirectory(File directory){
+		this.textDirectory = directory;
+	}
+	public File getTextDirectory(){
+		return textDirectory;
+	}
+	
+	/**
+	 * Makes serial loads of files ({@link #load(File, char, String)}) resumable.  Each time the loader commits, it 
+	 * saves the position of the next unread record to the checkpoint; a checkpoint held in a control table 
+	 * ({@link TableCheckpoint}) is saved in the same transaction as the data.  If a saved position exists when a 
+	 * load starts, reading resumes there, and the checkpoint is cleared when the load completes.  
+	 * <p>
+	 * A checkpoint kept in a file ({@link com.google.code.shim.data.file.FileCheckpoint}) is saved just after the commit, 
+	 * so the last batch may be applied twice after a crash; use key columns to make such loads idempotent.  
+	 * Checkpoints are not used by parallel or {@link UpsertMode#MERGE} loads.
+	 * </p>
+	 * @param checkpoint null (the default) for no checkpoints.
+	 */
+	public void setCheckpoint(Checkpoint checkpoint){
+		this.checkpoint = checkpoint;
+	}
+	public Checkpoint getCheckpoint(){
+		return checkpoint;
+	}
+	
+	/**
+	 * 
+	 * Loads a database table from a file (specified by a classpath resource).  The following file conventions are required:
+	 * <ol>
+	 * <li>the file must have the name: [table name].[filesuffix], optionally followed by .gz or .zip if it is compressed</li>
+	 * <li>the file must contain a single header line whose header names exactly correspond to the columns in the table</li>
+	 * <li>the second line must contain the data type of each column (see {@link ColumnConverter} for the supported types: varchar, integer, bigint, smallint, boolean, decimal, numeric, date, time, timestamp or datetime)</li>
+	 * <li>For "upsert" behavior, id lookup is necessary (to do an update instead of an insert).  To indicate which columns
+	 * are ids, suffix the column name with an asterisk '*'.  Key columns MUST come before non-key columns in your file format
+	 * (Compound keys are acceptable).  </li> 
+	 * 
+	 * </ol>
+	 * Rows are written in JDBC batches on a single connection, committing every {@link #getCommitInterval()} rows. 
+	 * Records that cannot be converted or written are logged and skipped, rather than aborting the load.
+	 * @param delimiter must be provided
+	 * @param charsetName
+	 * @return statistics for the load.
+	 * @throws IOException
+	 * @throws DataAccessException 
+	 * @throws ParseException 
+	 */
+	public LoadResult load(String resourceName, char delimiter, String charsetName ) throws IOException, DataAccessException, ParseException {
+		InputStream resource = getClass().getResourceAsStream(resourceName);
+		if(resource==null){
+			throw new IOException("Resource not found: " + resourceName);
+		}
+		InputStream in = CompressedInput.open(resource, resourceName);
+		try{
+			//Begin scanning the file.
+			CsvReader reader = new CsvReader (in, delimiter, charsetFor(charsetName));
+			try{
+				return load(tableName(CompressedInput.baseName(resourceName)), reader);
+			} finally {
+				reader.close();
+			}
+			
+		} finally {
+			in.close();
+		}
+		
+	}
+	
+	/**
+	 * Loads a database table from a file, following the same conventions as {@link #load(String, char, String)}.
+	 * <p>
+	 * When {@link #getParallelism()} is greater than one, the file is split into byte ranges aligned on record 
+	 * boundaries, and each range is parsed and written on its own thread and connection.  Each part commits 
+	 * independently; if any part fails, the others still complete and a DataAccessException describing the failed 
+	 * parts is thrown afterwards.  In {@link UpsertMode#MERGE} mode the parts are staged in parallel and merged once,
+	 * only if every part succeeded.  Parallel loads require an ASCII-compatible charset (such as UTF-8) and records 
+	 * without embedded newlines, and the data source should be pooled.
+	 * </p>
+	 * <p>
+	 * Gzip and zip files are decompressed on a separate thread as they are read (see {@link CompressedInput}); 
+	 * such files are always loaded serially, without checkpoints.
+	 * </p>
+	 * @param file the file to load; the table name is the file name up to its suffix (ignoring a .gz or .zip suffix).
+	 * @param delimiter must be provided
+	 * @param charsetName
+	 * @return statistics for the load.  For parallel loads, these include the statistics of each part.
+	 * @throws IOException
+	 * @throws DataAccessException
+	 * @throws ParseException
+	 */
+	public LoadResult load(File file, char delimiter, String charsetName) throws IOException, DataAccessException, ParseException {
+		String table = tableName(CompressedInput.baseName(file.getName()));
+		Charset charset = charsetFor(charsetName);
+		if(CompressedInput.isCompressed(file)){
+			if(parallelism > 1 || checkpoint!=null){
+				logger.warn(file + " is compressed, so it is loaded serially and without checkpoints.");
+			}
+			return loadStream(table, CompressedInput.open(file), delimiter, charset);
+		}
+		if(parallelism > 1){
+			if(checkpoint!=null){
+				logger.warn("Checkpoints are not used by parallel loads.");
+			}
+			return loadParallel(file, table, delimiter, charset);
+		}
+		if(checkpoint!=null){
+			if(upsertMode!=UpsertMode.MERGE){
+				return loadCheckpointed(file, table, delimiter, charset);
+			}
+			logger.warn("Checkpoints are not used by merge loads.");
+		}
+		
+		return loadStream(table, new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE), delimiter, charset);
+	}
+	
+	private LoadResult loadStream(String table, InputStream in, char delimiter, Charset charset) throws IOException, DataAccessException, ParseException {
+		try{
+			CsvReader reader = new CsvReader (in, delimiter, charset);
+			try{
+				return load(table, reader);
+			} finally {
+				reader.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+	
+	private LoadResult load(String table, CsvReader reader) throws IOException, DataAccessException, ParseException {
+		LoadLayout layout = readLayout(reader, table);
+		ColumnConverter[] converters = ColumnConverter.compile(reader.getValues());
+		String mergeTemplate = mergeTemplateFor(layout, false);
+		BulkMode bulk = bulkModeFor(layout, mergeTemplate, true);
+		if(bulk==BulkMode.TEXT_TABLE){
+			return loadText(table, reader, layout, converters, mergeTemplate);
+		}
+		
+		LoadResult result = new LoadResult(table);
+		Connection conn = null;
+		BatchWriter writer = null;
+		boolean autoCommit = true;
+		String stagingTable = null;
+		try{
+			conn = getDataSource().getConnection();
+			autoCommit = conn.getAutoCommit();
+			conn.setAutoCommit(false);
+			if(mergeTemplate!=null){
+				stagingTable = createStagingTable(conn, table, false);
+				writer = newWriter(conn, layout.insertInto(stagingTable), result, bulk);
+			} else {
+				writer = newWriter(conn, layout, result, bulk);
+			}
+			
+			readRecords(reader, converters, writer, result);
+			writer.finish();
+			
+			if(mergeTemplate!=null){
+				result.rowsLoaded = execute(conn, layout.mergeSql(mergeTemplate, stagingTable));
+				conn.commit();
+			}
+			
+		} catch (SQLException e){
+			rollbackQuietly(conn);
+			throw handleException(e);
+		} finally {
+			if(writer!=null){
+				writer.close();
+			}
+			if(stagingTable!=null){
+				dropStagingTable(conn, stagingTable);
+			}
+			release(conn, autoCommit);
+		}
+		
+		result.finish();
+		logger.info("Load complete. " + result);
+		return result;
+	}
+	
+	/**
+	 * Loads a file serially, saving the reader's position to the checkpoint at every commit.  The file is read with 
+	 * a {@link MappedDelimitedReader}, which reports the byte offset of each record so a restart can seek straight to 
+	 * it.
+	 */
+	private LoadResult loadCheckpointed(File file, String table, char delimiter, Charset charset) throws IOException, DataAccessException, ParseException {
+		final MappedDelimitedReader reader = new MappedDelimitedReader(file, delimiter, '"', charset);
+		try{
+			String[] headers = reader.readHeaders();
+			String[] dataTypes = reader.readHeaders();
+			if(headers==null || dataTypes==null){
+				throw new ParseException("Missing column or data type header in file for table " + table, 0);
+			}
+			LoadLayout layout = new LoadLayout(table, headers);
+			ColumnConverter[] converters = ColumnConverter.compile(dataTypes);
+			
+			Checkpoint.Position start = checkpoint.load();
+			if(start!=null){
+				if(start.getOffset() < reader.getPosition()){
+					throw new IOException("Checkpoint " + checkpoint + " at " + start + " does not fit " + file);
+				}
+				reader.seek(start.getOffset(), start.getRecords());
+				logger.info("Resuming load of " + table + " from " + start);
+			}
+			
+			LoadResult result = new LoadResult(table);
+			Connection conn = null;
+			BatchWriter writer = null;
+			boolean autoCommit = true;
+			try{
+				conn = getDataSource().getConnection();
+				autoCommit = conn.getAutoCommit();
+				writer = newWriter(conn, layout, result, bulkModeFor(layout, null, false));
+				// Where each of the last batch's rows started, for commits made part way through a replayed batch.
+				final long[] offsets = new long[writer.getBatchSize()];
+				final long[] records = new long[writer.getBatchSize()];
+				final long[] added = new long[1];
+				writer.setCommitHook(new BatchWriter.CommitHook(){
+					private Checkpoint.Position position;
+					
+					@Override
+					public void beforeCommit(Connection conn, int pending) throws SQLException {
+						if(pending==0){
+							// Every record read so far has been written (or rejected).
+							position = new Checkpoint.Position(reader.getPosition(), reader.getCurrentRecord() + 1);
+						} else {
+							int first = (int)((added[0] - pending) % offsets.length);
+							position = new Checkpoint.Position(offsets[first], records[first]);
+						}
+						checkpoint.beforeCommit(position, conn);
+					}
+					
+					@Override
+					public void afterCommit() throws SQLException {
+						try{
+							checkpoint.afterCommit(position);
+						} catch (IOException e){
+							throw new SQLException("Could not save checkpoint " + checkpoint + " at " + position, e);
+						}
+					}
+				});
+				
+				long offset = reader.getPosition();
+				long next = reader.getCurrentRecord() + 1;
+				while(reader.readRecord()){
+					result.rowsRead++;
+					DelimitedRecord record = reader.getRecord();
+					Object[] values = convertRecord(record.getValues(), record.getRecordNumber(), converters, result);
+					if(values!=null){
+						int slot = (int)(added[0]++ % offsets.length);
+						offsets[slot] = offset;
+						records[slot] = next;
+						writer.add(values);
+					}
+					offset = reader.getPosition();
+					next = reader.getCurrentRecord() + 1;
+				}
+				writer.finish();
+				
+			} catch (SQLException e){
+				rollbackQuietly(conn);
+				throw handleException(e);
+			} finally {
+				if(writer!=null){
+					writer.close();
+				}
+				release(conn, autoCommit);
+			}
+			
+			checkpoint.clear();
+			result.finish();
+			logger.info("Load complete. " + result);
+			return result;
+			
+		} finally {
+			reader.close();
+		}
+	}
+	
+	private LoadResult loadParallel(File file, String table, char delimiter, Charset charset) throws IOException, DataAccessException, ParseException {
+		LoadLayout layout;
+		String[] dataTypes;
+		CsvReader header = new CsvReader(new FileInputStream(file), delimiter, charset);
+		try{
+			layout = readLayout(header, table);
+			dataTypes = header.getValues();
+			// Fail fast on unsupported types; each thread compiles its own converters.
+			ColumnConverter.compile(dataTypes);
+		} finally {
+			header.close();
+		}
+		String mergeTemplate = mergeTemplateFor(layout, true);
+		boolean byKey = mergeTemplate==null && layout.isUpsert() && preserveKeyOrder;
+		BulkMode bulk = bulkModeFor(layout, mergeTemplate, false);
+		
+		LoadResult result = new LoadResult(table);
+		Connection conn = null;
+		boolean autoCommit = true;
+		String stagingTable = null;
+		ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+		try{
+			LoadLayout target = layout;
+			if(mergeTemplate!=null){
+				conn = getDataSource().getConnection();
+				autoCommit = conn.getAutoCommit();
+				conn.setAutoCommit(false);
+				stagingTable = createStagingTable(conn, table, true);
+				target = layout.insertInto(stagingTable);
+			}
+			
+			List<Future<LoadResult>> parts = new ArrayList<Future<LoadResult>>();
+			if(byKey){
+				routeByKey(pool, parts, file, target, bulk, dataTypes, delimiter, charset, result);
+			} else {
+				long dataStart = FileChunk.skipLines(file, 2);
+				for(FileChunk chunk: FileChunk.split(file, dataStart, parallelism)){
+					parts.add(pool.submit(new ChunkLoad(chunk, target, bulk, dataTypes, delimiter, charset)));
+				}
+			}
+			
+			for(Future<LoadResult> part: parts){
+				LoadResult partResult = part.get();
+				result.add(partResult);
+				logger.info("Finished " + partResult);
+			}
+			List<LoadResult> failed = result.getFailedParts();
+			if(!failed.isEmpty()){
+				throw new DataAccessException(failed.size() + " of " + parts.size() + " parts of " + table 
+					+ " failed to load: " + failed, failed.get(0).getError());
+			}
+			
+			if(mergeTemplate!=null){
+				result.rowsLoaded = execute(conn, layout.mergeSql(mergeTemplate, stagingTable));
+				conn.commit();
+			}
+			
+		} catch (SQLException e){
+			rollbackQuietly(conn);
+			throw handleException(e);
+		} catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw handleException(e);
+		} catch (ExecutionException e){
+			throw handleException(e);
+		} finally {
+			pool.shutdownNow();
+			if(stagingTable!=null){
+				dropStagingTable(conn, stagingTable);
+			}
+			release(conn, autoCommit);
+		}
+		
+		result.finish();
+		logger.info("Load complete. " + result);
+		return result;
+	}
+	
+	/**
+	 * Reads the file on this thread, sending each record to a partition chosen by its key, so that all records for a
+	 * given key are written by the same worker in file order.
+	 */
+	private void routeByKey(ExecutorService pool, List<Future<LoadResult>> parts, File file, LoadLayout layout, 
+		BulkMode bulk, String[] dataTypes, char delimiter, Charset charset, LoadResult result) throws IOException, InterruptedException, ParseException {
+		int n = parallelism;
+		List<BlockingQueue<Object[][]>> queues = new ArrayList<BlockingQueue<Object[][]>>(n);
+		for(int p=0; p<n; p++){
+			BlockingQueue<Object[][]> queue = new ArrayBlockingQueue<Object[][]>(PARTITION_QUEUE_DEPTH);
+			queues.add(queue);
+			parts.add(pool.submit(new PartitionLoad(p, queue, layout, bulk)));
+		}
+		
+		ColumnConverter[] converters = ColumnConverter.compile(dataTypes);
+		int size = Math.max(1, batchSize);
+		Object[][][] pending = new Object[n][size][];
+		int[] counts = new int[n];
+		InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+		try{
+			CsvReader reader = new CsvReader(in, delimiter, charset);
+			reader.readHeaders();
+			reader.readRecord();
+			while(reader.readRecord()){
+				result.rowsRead++;
+				Object[] values = convertRecord(reader, converters, result);
+				if(values==null){
+					continue;
+				}
+				int p = (Arrays.hashCode(layout.selectParameters(values)) & Integer.MAX_VALUE) % n;
+				pending[p][counts[p]++] = values;
+				if(counts[p]==size){
+					queues.get(p).put(pending[p]);
+					pending[p] = new Object[size][];
+					counts[p] = 0;
+				}
+			}
+			reader.close();
+		} finally {
+			in.close();
+		}
+		
+		for(int p=0; p<n; p++){
+			if(counts[p]>0){
+				queues.get(p).put(Arrays.copyOf(pending[p], counts[p]));
+			}
+			queues.get(p).put(END_OF_PARTITION);
+		}
+	}
+	
+	/**
+	 * Reads the two header lines: column names, then data types (available from the reader's current values).
+	 */
+	private static LoadLayout readLayout(CsvReader reader, String table) throws IOException, ParseException {
+		if(!reader.readHeaders() || !reader.readRecord()){
+			throw new ParseException("Missing column or data type header in file for table " + table, 0);
+		}
+		return new LoadLayout(table, reader.getHeaders());
+	}
+	
+	/**
+	 * @return the dialect's merge template if the layout should be merged, otherwise null.
+	 */
+	private String mergeTemplateFor(LoadLayout layout, boolean shared){
+		String mergeTemplate = null;
+		if(layout.isUpsert() && upsertMode==UpsertMode.MERGE){
+			mergeTemplate = getDialect().getSqlTemplate("merge");
+			if(mergeTemplate==null){
+				logger.warn("No merge template for dialect " + getDialect().getDialectName() + "; loading row by row.");
+			} else if(getDialect().getSqlTemplate(stagingTemplate(shared))==null){
+				logger.warn("No " + stagingTemplate(shared) + " template for dialect " + getDialect().getDialectName() 
+					+ "; loading row by row.");
+				mergeTemplate = null;
+			}
+		}
+		return mergeTemplate;
+	}
+	
+	private static String stagingTemplate(boolean shared){
+		return shared ? "staging.shared.create" : "staging.create";
+	}
+	
+	/**
+	 * Chooses how to send rows to the database: the {@link #setBulkMode(BulkMode) chosen} mode, or else the first 
+	 * mode in the dialect's <code>load.bulk</code> capability, that suits the load.
+	 * @param mergeTemplate non-null if the load is staged and merged.
+	 * @param serial true for a serial, non-checkpointed load (the only kind that may use a text table).
+	 */
+	private BulkMode bulkModeFor(LoadLayout layout, String mergeTemplate, boolean serial){
+		String[] preferred = bulkMode!=null ? new String[]{ bulkMode.name() } 
+			: getDialect().getCapability("load.bulk", "batch").split(",");
+		for(String name: preferred){
+			name = name.trim();
+			if("multirow".equalsIgnoreCase(name) || BulkMode.MULTI_ROW.name().equals(name)){
+				return BulkMode.MULTI_ROW;
+			} else if("text".equalsIgnoreCase(name) || BulkMode.TEXT_TABLE.name().equals(name)){
+				if(serial && textDirectory!=null && (mergeTemplate!=null || !layout.isUpsert()) 
+					&& getDialect().getSqlTemplate("text.create")!=null && getDialect().getSqlTemplate("text.source")!=null){
+					return BulkMode.TEXT_TABLE;
+				}
+			} else if("batch".equalsIgnoreCase(name) || BulkMode.BATCH.name().equals(name)){
+				return BulkMode.BATCH;
+			}
+		}
+		if(bulkMode!=null && bulkMode!=BulkMode.BATCH){
+			logger.warn(bulkMode + " does not suit this load of " + layout.table + " (dialect " 
+				+ getDialect().getDialectName() + "); using " + BulkMode.BATCH);
+		}
+		return BulkMode.BATCH;
+	}
+	
+	/**
+	 * @return a writer for the layout, inserting several rows per statement in {@link BulkMode#MULTI_ROW} mode.
+	 */
+	private BatchWriter newWriter(Connection conn, LoadLayout layout, LoadResult result, BulkMode bulk) throws SQLException{
+		BatchWriter writer = new BatchWriter(conn, layout, batchSize, commitInterval, result);
+		if(bulk==BulkMode.MULTI_ROW){
+			int rows = Integer.parseInt(getDialect().getCapability("load.multirow.rows", "100"));
+			int parameters = Integer.parseInt(getDialect().getCapability("load.multirow.parameters", "2000"));
+			try{
+				writer.setRowsPerInsert(Math.min(rows, parameters / Math.max(1, layout.columns.length)));
+			} catch (SQLException e){
+				writer.close();
+				throw e;
+			}
+		}
+		return writer;
+	}
+	
+	/**
+	 * Loads the remaining records from the reader through a text table: see {@link BulkMode#TEXT_TABLE}.
+	 */
+	private LoadResult loadText(String table, CsvReader reader, LoadLayout layout, ColumnConverter[] converters, 
+		String mergeTemplate) throws IOException, DataAccessException {
+		LoadResult result = new LoadResult(table);
+		String textTable = table + "_txt" + Long.toString(System.nanoTime() & 0xFFFFFFL, 36);
+		TextSource source = new TextSource(new File(textDirectory, textTable + ".txt"));
+		Connection conn = null;
+		boolean autoCommit = true;
+		boolean created = false;
+		try{
+			while(reader.readRecord()){
+				result.rowsRead++;
+				Object[] values = convertRecord(reader, converters, result);
+				if(values!=null){
+					source.write(values);
+				}
+			}
+			source.close();
+			
+			conn = getDataSource().getConnection();
+			autoCommit = conn.getAutoCommit();
+			conn.setAutoCommit(false);
+			execute(conn, MessageFormat.format(getDialect().getSqlTemplate("text.create"), textTable, table, 
+				layout.columnList()));
+			created = true;
+			execute(conn, MessageFormat.format(getDialect().getSqlTemplate("text.source"), textTable, 
+				source.getFile().getName()));
+			conn.commit();
+			
+			if(mergeTemplate!=null){
+				result.rowsLoaded = execute(conn, layout.mergeSql(mergeTemplate, textTable));
+			} else {
+				result.rowsLoaded = execute(conn, layout.insertSelectSql(textTable));
+			}
+			conn.commit();
+			
+		} catch (SQLException e){
+			rollbackQuietly(conn);
+			throw handleException(e);
+		} finally {
+			if(created){
+				dropStagingTable(conn, textTable);
+			}
+			release(conn, autoCommit);
+			source.delete();
+		}
+		
+		result.finish();
+		logger.info("Load complete (" + source.getRows() + " rows through text table). " + result);
+		return result;
+	}
+	
+	/**
+	 * Converts and writes the remaining records from the reader.
+	 */
+	private void readRecords(CsvReader reader, ColumnConverter[] converters, BatchWriter writer, LoadResult result) throws IOException, SQLException {
+		while(reader.readRecord()){
+			result.rowsRead++;
+			Object[] values = convertRecord(reader, converters, result);
+			if(values!=null){
+				writer.add(values);
+			}
+		}
+	}
+	
+	/**
+	 * @return the converted values of the current record, or null if the record was rejected.
+	 */
+	private static Object[] convertRecord(CsvReader reader, ColumnConverter[] converters, LoadResult result) throws IOException {
+		return convertRecord(reader.getValues(), reader.getCurrentRecord(), converters, result);
+	}
+	
+	private static Object[] convertRecord(String[] stringValues, long recordNumber, ColumnConverter[] converters, LoadResult result) {
+		try{
+			return convert(converters, stringValues);
+		} catch (ParseException e){
+			rejectRecord(recordNumber, result, e);
+		} catch (IllegalArgumentException e){
+			// Includes NumberFormatException, and out of range date fields.
+			rejectRecord(recordNumber, result, e);
+		}
+		return null;
+	}
+	
+	/**
+	 * Derives the table name from a file or resource name: the part after the last '/' and before the last '.'.
+	 */
+	private static String tableName(String name){
+		int suffixBegin = name.lastIndexOf('.');
+		String table = suffixBegin > 0 ? name.substring(0, suffixBegin) : name;
+		return table.substring(table.lastIndexOf('/')+1);
+	}
+	
+	private static Charset charsetFor(String charsetName){
+		if(charsetName==null || charsetName.isEmpty()){
+			charsetName="US-ASCII";
+		}
+		return Charset.forName(charsetName);
+	}
+	
+	/**
+	 * Loads one part of a file on its own connection.  Failures are recorded in the part's result rather than thrown,
+	 * so that the other parts can complete.
+	 */
+	private abstract class PartLoad implements Callable<LoadResult> {
+		final LoadLayout layout;
+		final BulkMode bulk;
+		final LoadResult result;
+		
+		PartLoad(LoadLayout layout, BulkMode bulk, String part){
+			this.layout = layout;
+			this.bulk = bulk;
+			this.result = new LoadResult(layout.table, part);
+		}
+		
+		abstract void write(BatchWriter writer) throws Exception;
+		
+		@Override
+		public LoadResult call(){
+			Connection conn = null;
+			BatchWriter writer = null;
+			boolean autoCommit = true;
+			try{
+				conn = getDataSource().getConnection();
+				autoCommit = conn.getAutoCommit();
+				writer = newWriter(conn, layout, result, bulk);
+				write(writer);
+				writer.finish();
+			} catch (Exception e){
+				if(e instanceof InterruptedException){
+					Thread.currentThread().interrupt();
+				}
+				rollbackQuietly(conn);
+				result.fail(e);
+				logger.error("Failed to load " + result, e);
+			} finally {
+				if(writer!=null){
+					writer.close();
+				}
+				release(conn, autoCommit);
+				result.finish();
+			}
+			return result;
+		}
+	}
+	
+	/**
+	 * Parses and writes a byte range of the file.
+	 */
+	private class ChunkLoad extends PartLoad {
+		private final FileChunk chunk;
+		private final String[] dataTypes;
+		private final char delimiter;
+		private final Charset charset;
+		
+		ChunkLoad(FileChunk chunk, LoadLayout layout, BulkMode bulk, String[] dataTypes, char delimiter, Charset charset){
+			super(layout, bulk, chunk.toString());
+			this.chunk = chunk;
+			this.dataTypes = dataTypes;
+			this.delimiter = delimiter;
+			this.charset = charset;
+		}
+		
+		@Override
+		void write(BatchWriter writer) throws Exception {
+			InputStream in = chunk.open();
+			try{
+				CsvReader reader = new CsvReader(in, delimiter, charset);
+				readRecords(reader, ColumnConverter.compile(dataTypes), writer, result);
+				reader.close();
+			} finally {
+				in.close();
+			}
+		}
+	}
+	
+	/**
+	 * Writes the batches of converted records routed to one partition, until the end marker arrives.
+	 */
+	private class PartitionLoad extends PartLoad {
+		private final BlockingQueue<Object[][]> queue;
+		
+		PartitionLoad(int partition, BlockingQueue<Object[][]> queue, LoadLayout layout, BulkMode bulk){
+			super(layout, bulk, "partition " + partition);
+			this.queue = queue;
+		}
+		
+		@Override
+		void write(BatchWriter writer) throws Exception {
+			while(true){
+				Object[][] rows = queue.poll();
+				if(rows==null){
+					// Commit before waiting, so this partition holds no locks that another partition (and therefore 
+					// the reading thread) could be blocked on.
+					writer.finish();
+					rows = queue.take();
+				}
+				if(rows==END_OF_PARTITION){
+					return;
+				}
+				for(Object[] values: rows){
+					writer.add(values);
+				}
+			}
+		}
+		
+		@Override
+		public LoadResult call(){
+			super.call();
+			if(result.getError()!=null){
+				// Keep consuming so the reading thread is never blocked by a failed partition.
+				try{
+					while(queue.take()!=END_OF_PARTITION){
+						// discard
+					}
+				} catch (InterruptedException e){
+					Thread.currentThread().interrupt();
+				}
+			}
+			return result;
+		}
+	}
+	
+	/**
+	 * Creates an empty copy of the table's columns to stage records in before merging: a temporary table private to 
+	 * the connection, or, for loads that stage on several connections, a shared table.
+	 * @return the name of the staging table
+	 */
+	private String createStagingTable(Connection conn, String table, boolean shared) throws SQLException{
+		String stagingTable = table + "_stg" + Long.toString(System.nanoTime() & 0xFFFFFFL, 36);
+		String temporaryName = getDialect().getSqlTemplate("staging.table");
+		if(!shared && temporaryName!=null){
+			stagingTable = MessageFormat.format(temporaryName, stagingTable);
+		}
+		execute(conn, MessageFormat.format(getDialect().getSqlTemplate(stagingTemplate(shared)), stagingTable, table));
+		conn.commit();
+		return stagingTable;
+	}
+	
+	private void dropStagingTable(Connection conn, String stagingTable){
+		try{
+			execute(conn, MessageFormat.format(getDialect().getSqlTemplate("staging.drop"), stagingTable));
+			conn.commit();
+		} catch (SQLException e){
+			rollbackQuietly(conn);
+			logger.error("Could not drop staging table " + stagingTable + ": " + e.getMessage());
+		}
+	}
+	
+	private static int execute(Connection conn, String sql) throws SQLException{
+		if(logger.isDebugEnabled()){
+			logger.debug("SQL> " + sql);
+		}
+		Statement stmt = conn.createStatement();
+		try{
+			return stmt.executeUpdate(sql);
+		} finally {
+			DbUtils.close(stmt);
+		}
+	}
+	
+	private static void rejectRecord(long recordNumber, LoadResult result, Exception e){
+		result.rowsRejected++;
+		logger.error("Rejected record " + recordNumber + ": " + e.getMessage());
+	}
+	
+	/**
+	 * Converts the string data from the reader into objects, as the database framework uses type-detection to 
+	 * make the appropriate parameter SETs
+	 * @param converters compiled from the data type header
+	 * @param stringValues
+	 * @return
+	 * @throws ParseException
+	 */
+	private static Object[] convert(ColumnConverter[] converters, String[] stringValues) throws ParseException {
+		if(stringValues.length != converters.length){
+			throw new ParseException("Expected " + converters.length + " fields but found " + stringValues.length, 0);
+		}
+		Object[] converted = new Object[stringValues.length];
+		for(int i = 0; i< stringValues.length; i++){
+			converted[i] = converters[i].convert(stringValues[i]);
+		}
+		return converted;
+	}
+}
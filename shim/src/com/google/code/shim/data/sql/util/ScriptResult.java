@@ -0,0 +1,168 @@
+package com.google.code.shim.data.sql.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Statistics for a single run of the {@link Scripter}, including the time taken by each statement.
+ *
+ * @author dgau
+ *
+ */
+public class ScriptResult {
+
+	private final String script;
+	private final long startTime;
+	private long endTime;
+	private int batches;
+	private final List<StatementTiming> statements = new ArrayList<StatementTiming>();
+
+	ScriptResult(String script) {
+		this.script = script;
+		this.startTime = System.currentTimeMillis();
+	}
+
+	StatementTiming add(int line, String sql) {
+		StatementTiming timing = new StatementTiming(statements.size() + 1, line, sql);
+		statements.add(timing);
+		return timing;
+	}
+
+	void batchExecuted() {
+		batches++;
+	}
+
+	void finish() {
+		endTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return the name of the script.
+	 */
+	public String getScript() {
+		return script;
+	}
+
+	/**
+	 * @return every statement run, in script order.
+	 */
+	public List<StatementTiming> getStatements() {
+		return Collections.unmodifiableList(statements);
+	}
+
+	/**
+	 * @return the number of JDBC batches executed.
+	 */
+	public int getBatchCount() {
+		return batches;
+	}
+
+	/**
+	 * @param count
+	 * @return up to <code>count</code> statements, slowest first.
+	 */
+	public List<StatementTiming> getSlowest(int count) {
+		List<StatementTiming> sorted = new ArrayList<StatementTiming>(statements);
+		Collections.sort(sorted, new Comparator<StatementTiming>() {
+			@Override
+			public int compare(StatementTiming a, StatementTiming b) {
+				return a.elapsedNanos < b.elapsedNanos ? 1 : a.elapsedNanos == b.elapsedNanos ? 0 : -1;
+			}
+		});
+		return sorted.subList(0, Math.min(count, sorted.size()));
+	}
+
+	/**
+	 * @return elapsed time of the script in milliseconds (or so far, if it is still running).
+	 */
+	public long getElapsedMillis() {
+		return (endTime == 0 ? System.currentTimeMillis() : endTime) - startTime;
+	}
+
+	@Override
+	public String toString() {
+		int batched = 0;
+		for (StatementTiming s : statements) {
+			if (s.batched) {
+				batched++;
+			}
+		}
+		return String.format("%s: %d statements (%d in %d batches) in %d ms", script, statements.size(), batched,
+			batches, getElapsedMillis());
+	}
+
+	/**
+	 * Timing of one statement of a script.
+	 */
+	public static class StatementTiming {
+		private final int number;
+		private final int line;
+		private final String sql;
+		long elapsedNanos;
+		int updateCount = -1;
+		boolean batched;
+
+		StatementTiming(int number, int line, String sql) {
+			this.number = number;
+			this.line = line;
+			this.sql = sql;
+		}
+
+		/**
+		 * @return the one-based position of the statement in the script.
+		 */
+		public int getNumber() {
+			return number;
+		}
+
+		/**
+		 * @return the line on which the statement begins.
+		 */
+		public int getLine() {
+			return line;
+		}
+
+		public String getSql() {
+			return sql;
+		}
+
+		/**
+		 * @return the time taken by the statement in nanoseconds. For a batched statement, this is an equal share of
+		 *         the time taken by its batch.
+		 */
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		/**
+		 * @return the elapsed time in milliseconds, see {@link #getElapsedNanos()}.
+		 */
+		public double getElapsedMillis() {
+			return elapsedNanos / 1000000.0;
+		}
+
+		/**
+		 * @return the update count reported by the driver, or -1 if the statement returned results or the driver did
+		 *         not report a count.
+		 */
+		public int getUpdateCount() {
+			return updateCount;
+		}
+
+		/**
+		 * @return true if the statement was sent in a JDBC batch.
+		 */
+		public boolean isBatched() {
+			return batched;
+		}
+
+		@Override
+		public String toString() {
+			String text = sql.length() > 80 ? sql.substring(0, 77) + "..." : sql;
+			return String.format("#%d (line %d) %.3f ms%s: %s", number, line, getElapsedMillis(), batched ? " batched"
+				: "", text.replaceAll("\\s+", " "));
+		}
+	}
+}
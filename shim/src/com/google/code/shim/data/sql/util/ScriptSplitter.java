@@ -0,0 +1,487 @@
+package com.google.code.shim.data.sql.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits a SQL script into statements as it is read. Statements end with a semicolon that is not inside:
+ * <ul>
+ * <li>a quoted string or identifier ('...', "..." or `...`, with doubled quotes as escapes),</li>
+ * <li>a comment (-- to the end of the line, or /* ... *&#47;),</li>
+ * <li>a dollar-quoted body ($$ ... $$ or $tag$ ... $tag$),</li>
+ * <li>the body of a routine or trigger: for statements beginning CREATE [OR REPLACE] PROCEDURE, FUNCTION or TRIGGER,
+ * or DECLARE, semicolons inside BEGIN ... END (and a PL/SQL declaration section after IS or AS) do not end the
+ * statement;</li>
+ * <li>a PL/SQL package, package body or type body, from its IS or AS to its closing END.</li>
+ * </ul>
+ * Other types (CREATE TYPE ... AS OBJECT, AS (...), AS ENUM and the like) end at their first semicolon.
+ * A package body with an initialization section (BEGIN just before its closing END) needs a "/" line after it.
+ * <p>
+ * A line <code>DELIMITER xx</code> between statements changes the terminator to <code>xx</code> (as in the MySQL
+ * client), in which case statements end only at that terminator. A line holding only "/" (as in SQL*Plus) always ends
+ * a statement, even inside a routine, and is otherwise ignored. Comments before a statement are dropped; comments
+ * inside it are kept.
+ * </p>
+ *
+ * @author dgau
+ *
+ */
+class ScriptSplitter {
+
+	private static final Set<String> ROUTINE_PREFIX = new HashSet<String>(Arrays.asList("CREATE", "OR", "REPLACE",
+		"ALTER", "EDITIONABLE", "NONEDITIONABLE"));
+	private static final Set<String> ROUTINES = new HashSet<String>(Arrays.asList("PROCEDURE", "FUNCTION", "TRIGGER",
+		"PACKAGE", "TYPE"));
+	/**
+	 * Routines whose IS or AS may begin a PL/SQL declaration section, ended by BEGIN.
+	 */
+	private static final Set<String> SUBPROGRAMS = new HashSet<String>(Arrays.asList("PROCEDURE", "FUNCTION",
+		"TRIGGER"));
+	/**
+	 * Words that may follow END without closing a BEGIN or CASE.
+	 */
+	private static final Set<String> END_QUALIFIERS = new HashSet<String>(Arrays.asList("IF", "LOOP", "WHILE",
+		"REPEAT", "FOR"));
+	/**
+	 * Words that, following IS or AS, begin a body rather than a PL/SQL declaration section.
+	 */
+	private static final Set<String> BODY_STARTS = new HashSet<String>(Arrays.asList("SELECT", "INSERT", "UPDATE",
+		"DELETE", "MERGE", "SET", "RETURN", "RETURNS", "WITH", "EXEC", "EXECUTE", "BEGIN", "IF", "WHILE", "DECLARE",
+		"EXTERNAL", "LANGUAGE", "CALL"));
+
+	private final PushbackReader in;
+	private String delimiter = ";";
+	private int line = 1;
+	private int statementLine;
+
+	private final StringBuilder sql = new StringBuilder();
+	private final StringBuilder word = new StringBuilder();
+
+	// Per-statement state.
+	private int words;
+	private boolean prefixOnly;
+	private boolean routine;
+	/**
+	 * The word naming what the statement creates (PROCEDURE, PACKAGE, ...), or DECLARE.
+	 */
+	private String unit;
+	private boolean declare;
+	private boolean seenBegin;
+	private boolean pendingEnd;
+	private int depth;
+	private String previousWord;
+
+	ScriptSplitter(Reader reader) {
+		this.in = new PushbackReader(reader instanceof BufferedReader ? reader : new BufferedReader(reader), 64);
+	}
+
+	/**
+	 * @return the line on which the last statement returned by {@link #next()} began.
+	 */
+	int getLine() {
+		return statementLine;
+	}
+
+	/**
+	 * @return the next statement, without its terminator, or null at the end of the script.
+	 * @throws IOException
+	 */
+	String next() throws IOException {
+		while (skipLeading()) {
+			statementLine = line;
+			if (delimiterDirective()) {
+				continue;
+			}
+			String statement = readStatement();
+			if (statement.length() > 0) {
+				return statement;
+			}
+		}
+		return null;
+	}
+
+	private int read() throws IOException {
+		int c = in.read();
+		if (c == '\n') {
+			line++;
+		}
+		return c;
+	}
+
+	private void unread(int c) throws IOException {
+		if (c < 0) {
+			return;
+		}
+		if (c == '\n') {
+			line--;
+		}
+		in.unread(c);
+	}
+
+	private int peek() throws IOException {
+		int c = read();
+		unread(c);
+		return c;
+	}
+
+	/**
+	 * Skips whitespace, comments and lone "/" lines before a statement.
+	 *
+	 * @return false at the end of the script.
+	 */
+	private boolean skipLeading() throws IOException {
+		int c;
+		while ((c = read()) >= 0) {
+			if (Character.isWhitespace(c)) {
+				continue;
+			}
+			if (c == '-' && peek() == '-') {
+				copyLineComment(false);
+			} else if (c == '/' && peek() == '*') {
+				read();
+				copyBlockComment(false);
+			} else if (c == '/' && (peek() < 0 || peek() == '\n' || peek() == '\r')) {
+				continue;
+			} else {
+				unread(c);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Handles a <code>DELIMITER xx</code> line.
+	 *
+	 * @return true if the next line was a delimiter directive.
+	 */
+	private boolean delimiterDirective() throws IOException {
+		String keyword = "DELIMITER";
+		char[] read = new char[keyword.length() + 1];
+		int n = 0;
+		boolean match = true;
+		while (n < read.length) {
+			int c = read();
+			if (c < 0) {
+				match = false;
+				break;
+			}
+			read[n++] = (char) c;
+			if (n <= keyword.length() ? Character.toUpperCase((char) c) != keyword.charAt(n - 1)
+				: !Character.isWhitespace(c) || c == '\n') {
+				match = false;
+				break;
+			}
+		}
+		if (!match) {
+			for (int i = n - 1; i >= 0; i--) {
+				unread(read[i]);
+			}
+			return false;
+		}
+		StringBuilder value = new StringBuilder();
+		int c;
+		while ((c = read()) >= 0 && c != '\n') {
+			value.append((char) c);
+		}
+		String newDelimiter = value.toString().trim();
+		if (newDelimiter.length() > 0) {
+			delimiter = newDelimiter;
+		}
+		return true;
+	}
+
+	private String readStatement() throws IOException {
+		sql.setLength(0);
+		word.setLength(0);
+		words = 0;
+		prefixOnly = true;
+		routine = false;
+		unit = null;
+		declare = false;
+		seenBegin = false;
+		pendingEnd = false;
+		depth = 0;
+		previousWord = null;
+
+		boolean standard = ";".equals(delimiter);
+		int c;
+		while ((c = read()) >= 0) {
+			char ch = (char) c;
+			if (isWordChar(ch)) {
+				word.append(ch);
+				sql.append(ch);
+				if (!standard && endsWithDelimiter()) {
+					return finish();
+				}
+				continue;
+			}
+			endWord();
+
+			if (ch == '/' && onBlankLine() && restOfLineBlank()) {
+				return finish();
+			} else if (ch == '\'' || ch == '"' || ch == '`') {
+				sql.append(ch);
+				copyQuoted(ch);
+				previousWord = null;
+				continue;
+			} else if (ch == '-' && peek() == '-') {
+				sql.append(ch);
+				copyLineComment(true);
+				continue;
+			} else if (ch == '/' && peek() == '*') {
+				sql.append(ch).append((char) read());
+				copyBlockComment(true);
+				continue;
+			} else if (ch == '$' && delimiter.charAt(0) != '$' && copyDollarQuoted()) {
+				previousWord = null;
+				continue;
+			}
+
+			sql.append(ch);
+			if (standard) {
+				if (ch == ';') {
+					resolveEnd();
+					if (depth <= 0 && !(routine && declare && !seenBegin)) {
+						sql.setLength(sql.length() - 1);
+						return finish();
+					}
+				}
+			} else if (endsWithDelimiter()) {
+				return finish();
+			}
+		}
+		endWord();
+		return finish();
+	}
+
+	private String finish() {
+		if (!";".equals(delimiter) && endsWithDelimiter()) {
+			sql.setLength(sql.length() - delimiter.length());
+		}
+		return sql.toString().trim();
+	}
+
+	private boolean endsWithDelimiter() {
+		int len = sql.length();
+		int dlen = delimiter.length();
+		return len >= dlen && sql.substring(len - dlen).equals(delimiter);
+	}
+
+	/**
+	 * @param sql
+	 *            a statement returned by {@link #next()}.
+	 * @return the word naming what a CREATE or ALTER statement creates or alters, such as TABLE, VIEW or PROCEDURE,
+	 *         after any OR REPLACE or similar words; or null for any other statement.
+	 */
+	static String createdUnit(String sql) {
+		int i = 0;
+		int words = 0;
+		while (true) {
+			while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+				i++;
+			}
+			int start = i;
+			while (i < sql.length() && isWordChar(sql.charAt(i))) {
+				i++;
+			}
+			if (i == start) {
+				return null;
+			}
+			String w = sql.substring(start, i).toUpperCase(Locale.ENGLISH);
+			words++;
+			if (words == 1) {
+				if (!"CREATE".equals(w) && !"ALTER".equals(w)) {
+					return null;
+				}
+			} else if (!ROUTINE_PREFIX.contains(w) || "CREATE".equals(w)) {
+				return w;
+			}
+		}
+	}
+
+	private static boolean isWordChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_';
+	}
+
+	private void endWord() {
+		if (word.length() == 0) {
+			return;
+		}
+		String w = word.toString().toUpperCase(Locale.ENGLISH);
+		word.setLength(0);
+		words++;
+
+		if (pendingEnd) {
+			pendingEnd = false;
+			if (END_QUALIFIERS.contains(w)) {
+				previousWord = w;
+				return;
+			}
+			depth--;
+			if ("CASE".equals(w)) {
+				previousWord = w;
+				return;
+			}
+		}
+
+		if (prefixOnly) {
+			if (words == 1 && "DECLARE".equals(w)) {
+				routine = true;
+				declare = true;
+				unit = w;
+			} else if (ROUTINES.contains(w) && words > 1) {
+				// A type is a routine only as a TYPE BODY.
+				routine = !"TYPE".equals(w);
+				unit = w;
+			}
+			prefixOnly = ROUTINE_PREFIX.contains(w) && ("CREATE".equals(w) ? words == 1 : words > 1);
+		} else if ("BODY".equals(w) && unit != null && unit.equals(previousWord)) {
+			routine = true;
+		}
+
+		if (routine) {
+			if ("BEGIN".equals(w)) {
+				depth++;
+				seenBegin = true;
+			} else if ("CASE".equals(w)) {
+				depth++;
+			} else if ("END".equals(w)) {
+				pendingEnd = true;
+			} else if (("IS".equals(w) || "AS".equals(w)) && depth == 0 && !seenBegin && !SUBPROGRAMS.contains(unit)
+				&& !"DECLARE".equals(unit)) {
+				// A package or type body: declarations up to the END that closes it.
+				depth++;
+				seenBegin = true;
+			} else if (("IS".equals(previousWord) || "AS".equals(previousWord)) && depth == 0 && !seenBegin
+				&& SUBPROGRAMS.contains(unit) && !BODY_STARTS.contains(w)) {
+				declare = true;
+			}
+		}
+		previousWord = w;
+	}
+
+	/**
+	 * @return true if only whitespace precedes the current character on its line.
+	 */
+	private boolean onBlankLine() {
+		for (int i = sql.length() - 1; i >= 0; i--) {
+			char c = sql.charAt(i);
+			if (c == '\n') {
+				return true;
+			}
+			if (!Character.isWhitespace(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Consumes the rest of the line if it is only whitespace.
+	 *
+	 * @return true if it was.
+	 */
+	private boolean restOfLineBlank() throws IOException {
+		char[] read = new char[32];
+		int n = 0;
+		int c;
+		while ((c = read()) >= 0 && c != '\n') {
+			read[n++] = (char) c;
+			if (!Character.isWhitespace(c) || n == read.length) {
+				// Not blank, or more trailing whitespace than can be put back.
+				for (int i = n - 1; i >= 0; i--) {
+					unread(read[i]);
+				}
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void resolveEnd() {
+		if (pendingEnd) {
+			pendingEnd = false;
+			depth--;
+		}
+	}
+
+	private void copyQuoted(char quote) throws IOException {
+		int c;
+		while ((c = read()) >= 0) {
+			sql.append((char) c);
+			if (c == quote) {
+				if (peek() == quote) {
+					sql.append((char) read());
+				} else {
+					return;
+				}
+			}
+		}
+	}
+
+	private void copyLineComment(boolean keep) throws IOException {
+		int c;
+		while ((c = read()) >= 0) {
+			if (keep) {
+				sql.append((char) c);
+			}
+			if (c == '\n') {
+				return;
+			}
+		}
+	}
+
+	private void copyBlockComment(boolean keep) throws IOException {
+		int c;
+		int previous = 0;
+		while ((c = read()) >= 0) {
+			if (keep) {
+				sql.append((char) c);
+			}
+			if (previous == '*' && c == '/') {
+				return;
+			}
+			previous = c;
+		}
+	}
+
+	/**
+	 * Copies a dollar-quoted body, the opening '$' having been read.
+	 *
+	 * If the '$' does not begin a dollar quote, it is copied along with any identifier characters after it.
+	 * 
+	 * @return true, once the characters are copied.
+	 */
+	private boolean copyDollarQuoted() throws IOException {
+		StringBuilder tag = new StringBuilder("$");
+		int c;
+		while ((c = read()) >= 0 && isWordChar((char) c) && !(tag.length() == 1 && Character.isDigit(c))) {
+			tag.append((char) c);
+		}
+		if (c != '$') {
+			// A positional parameter or an identifier character, not a quote.
+			unread(c);
+			sql.append(tag);
+			return true;
+		}
+		tag.append('$');
+		sql.append(tag);
+		String closing = tag.toString();
+		int start = sql.length();
+		while ((c = read()) >= 0) {
+			sql.append((char) c);
+			if (c == '$' && sql.length() - start >= closing.length()
+				&& sql.substring(sql.length() - closing.length()).equals(closing)) {
+				return true;
+			}
+		}
+		return true;
+	}
+}
@@ -1,80 +1,303 @@
-package com.google.code.shim.data.sql.util;
-
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.sql.SQLException;
-import java.sql.Statement;
-
-import javax.sql.DataSource;
-
-import org.apache.log4j.LogManager;
-import org.apache.log4j.Logger;
-
-import com.google.code.shim.data.DataAccessException;
-import com.google.code.shim.data.sql.BaseSqlDao;
- 
-/**
- * Executes database scripts.
- * 
- * Each statement must end with a semicolon (this is used to delimit statements).  
- * Whitespace is ignored.
- * @author dgau
- *
- */
-
-public class Scripter extends BaseSqlDao {
-	static Logger logger = LogManager.getLogger(Scripter.class); 
-	public Scripter(DataSource dsToUse) throws DataAccessException{
-		super(dsToUse); 
-	}
-	/**
-	 * 
-	 * @param resourceName script file.
-	 *   
-	 * @throws IOException
-	 * @throws DataAccessException 
-	 */
-	public void runScript(String resourceName ) throws IOException, DataAccessException {
-		InputStream input = getClass().getResourceAsStream(resourceName);
-		runScript(input);
-	}
-	
-	public void runScript(File file) throws IOException, DataAccessException{
-		FileInputStream input = new FileInputStream(file); 
-		runScript(input);
-	}
-	
-	private void runScript(InputStream input) throws IOException, DataAccessException{
-		try{
-		 
-			int i = -1;
-			StringBuilder buffer = new StringBuilder();
-			while ((i = input.read()) >= 0) {
-				char c = (char) i;
-
-				// look for semicolons to execute SQL
-				if (c == ';') {
-					// Run sql statement
-					logger.info("SQL> " + buffer.toString());
-					Statement stmt = getDataSource().getConnection().createStatement();
-					stmt.execute(buffer.toString());
-
-					logger.info("SQL> complete.");
-					// Reset buffer.
-					buffer.setLength(0);
-				} else {
-					buffer.append(c);
-
-				}
-			}
-			
-		} catch (SQLException e){
-			throw handleException(e);
-		} finally {
-			input.close();
-		}
-		
-	}
-}
+package com.google.code.shim.data.sql.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.DbUtils;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.google.code.shim.data.DataAccessException;
+import com.google.code.shim.data.sql.BaseSqlDao;
+
+/**
+ * Executes database scripts.
+ *
+ * Each statement must end with a semicolon (this is used to delimit statements).  Semicolons inside quotes,
+ * comments and routine bodies are handled as described in {@link ScriptSplitter}.
+ * Whitespace is ignored.
+ * <p>
+ * A script runs on a single connection in auto-commit mode, so each statement is committed as it runs and a failed
+ * statement stops the script, leaving the statements before it in place.  With {@link #setTransactional(boolean)},
+ * the script instead runs as one transaction: it is committed at the end (as well as by any COMMIT statements in the
+ * script), and rolled back if a statement fails.  Consecutive statements the dialect allows (see the
+ * <code>script.batch</code> capability in DialectInfo.properties) are sent in JDBC batches.
+ * </p>
+ * @author dgau
+ *
+ */
+
+public class Scripter extends BaseSqlDao {
+	static Logger logger = LogManager.getLogger(Scripter.class);
+
+	/**
+	 * Default number of statements sent to the database in each JDBC batch.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 100;
+
+	private static final Set<String> DML = new HashSet<String>(Arrays.asList("INSERT", "UPDATE", "DELETE", "MERGE"));
+	private static final Set<String> DDL = new HashSet<String>(Arrays.asList("CREATE", "ALTER", "DROP", "COMMENT",
+		"GRANT", "REVOKE", "TRUNCATE"));
+	/**
+	 * What a CREATE or ALTER creates when the statement must run on its own: SQL Server requires these to be the first
+	 * statement in a batch, and a JDBC batch is sent to it as one.
+	 */
+	private static final Set<String> UNBATCHED_UNITS = new HashSet<String>(Arrays.asList("PROCEDURE", "PROC",
+		"FUNCTION", "TRIGGER", "VIEW", "PACKAGE", "TYPE", "SCHEMA", "DEFAULT", "RULE"));
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private boolean transactional;
+
+	public Scripter(DataSource dsToUse) throws DataAccessException{
+		super(dsToUse);
+	}
+
+	/**
+	 * Creates a scripter for a particular SQL dialect, which determines which statements are batched.
+	 * @param dsToUse
+	 * @param dialectName
+	 * @throws DataAccessException
+	 */
+	public Scripter(DataSource dsToUse, String dialectName) throws DataAccessException{
+		super(dsToUse, dialectName);
+	}
+
+	/**
+	 * Sets the number of statements sent to the database in each JDBC batch; 1 or less disables batching.
+	 * Defaults to {@link #DEFAULT_BATCH_SIZE}.
+	 * @param statements
+	 */
+	public void setBatchSize(int statements){
+		this.batchSize = statements;
+	}
+	public int getBatchSize(){
+		return batchSize;
+	}
+
+	/**
+	 * Sets whether each script runs as one transaction, rolled back if a statement fails, rather than committing each
+	 * statement as it runs.  Defaults to false.
+	 * @param transactional
+	 */
+	public void setTransactional(boolean transactional){
+		this.transactional = transactional;
+	}
+	public boolean isTransactional(){
+		return transactional;
+	}
+
+	/**
+	 *
+	 * @param resourceName script file, encoded in UTF-8.
+	 *
+	 * @return statistics and per-statement timings for the script.
+	 * @throws IOException
+	 * @throws DataAccessException
+	 */
+	public ScriptResult runScript(String resourceName ) throws IOException, DataAccessException {
+		return runScript(resourceName, null);
+	}
+
+	/**
+	 *
+	 * @param resourceName script file.
+	 * @param charsetName encoding of the script; defaults to UTF-8.
+	 * @return statistics and per-statement timings for the script.
+	 * @throws IOException
+	 * @throws DataAccessException
+	 */
+	public ScriptResult runScript(String resourceName, String charsetName) throws IOException, DataAccessException {
+		InputStream input = getClass().getResourceAsStream(resourceName);
+		if(input==null){
+			throw new IOException("Resource not found: " + resourceName);
+		}
+		return runScript(input, charsetName, resourceName);
+	}
+
+	public ScriptResult runScript(File file) throws IOException, DataAccessException{
+		return runScript(file, null);
+	}
+
+	/**
+	 *
+	 * @param file script file.
+	 * @param charsetName encoding of the script; defaults to UTF-8.
+	 * @return statistics and per-statement timings for the script.
+	 * @throws IOException
+	 * @throws DataAccessException
+	 */
+	public ScriptResult runScript(File file, String charsetName) throws IOException, DataAccessException{
+		FileInputStream input = new FileInputStream(file);
+		return runScript(input, charsetName, file.getName());
+	}
+
+	/**
+	 * Runs a script from a reader, which is closed afterwards.
+	 * @param script
+	 * @param name describes the script in logs and the result.
+	 * @return statistics and per-statement timings for the script.
+	 * @throws IOException
+	 * @throws DataAccessException
+	 */
+	public ScriptResult runScript(Reader script, String name) throws IOException, DataAccessException{
+		try{
+			return run(new ScriptSplitter(script), name);
+		} finally {
+			script.close();
+		}
+	}
+
+	private ScriptResult runScript(InputStream input, String charsetName, String name) throws IOException, DataAccessException{
+		Charset charset = Charset.forName(charsetName==null || charsetName.isEmpty() ? "UTF-8" : charsetName);
+		return runScript(new InputStreamReader(input, charset), name);
+	}
+
+	private ScriptResult run(ScriptSplitter splitter, String name) throws IOException, DataAccessException{
+		ScriptResult result = new ScriptResult(name);
+		String batchMode = getDialect().getCapability("script.batch", "dml");
+		List<ScriptResult.StatementTiming> pending = new ArrayList<ScriptResult.StatementTiming>();
+		ScriptResult.StatementTiming current = null;
+		Connection conn = null;
+		Statement stmt = null;
+		boolean autoCommit = true;
+		try{
+			conn = getDataSource().getConnection();
+			autoCommit = conn.getAutoCommit();
+			conn.setAutoCommit(!transactional);
+			boolean batching = batchSize > 1 && !"none".equals(batchMode) && conn.getMetaData().supportsBatchUpdates();
+			stmt = conn.createStatement();
+
+			String sql;
+			while((sql = splitter.next())!=null){
+				current = result.add(splitter.getLine(), sql);
+				if(batching && isBatchable(sql, "all".equals(batchMode))){
+					if(logger.isDebugEnabled()){
+						logger.debug("SQL> " + sql);
+					}
+					stmt.addBatch(sql);
+					pending.add(current);
+					if(pending.size() >= batchSize){
+						executeBatch(stmt, pending, result);
+					}
+				} else {
+					executeBatch(stmt, pending, result);
+					execute(stmt, current);
+				}
+			}
+			current = null;
+			executeBatch(stmt, pending, result);
+			if(transactional){
+				conn.commit();
+			}
+
+		} catch (SQLException e){
+			logFailure(e, pending, current);
+			if(transactional){
+				rollbackQuietly(conn);
+			}
+			throw handleException(e);
+		} finally {
+			DbUtils.closeQuietly(stmt);
+			release(conn, autoCommit);
+		}
+
+		result.finish();
+		logger.info("Script complete. " + result);
+		if(logger.isDebugEnabled()){
+			for(ScriptResult.StatementTiming slow: result.getSlowest(5)){
+				logger.debug("Slowest: " + slow);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param ddl whether DDL statements may be batched too.
+	 * @return true if the statement can be sent in a batch: it returns no results, is not transaction control, and
+	 * does not create or alter a routine, view, or anything else that must be alone in its batch.
+	 */
+	static boolean isBatchable(String sql, boolean ddl){
+		int end = 0;
+		while(end < sql.length() && Character.isLetter(sql.charAt(end))){
+			end++;
+		}
+		String first = sql.substring(0, end).toUpperCase(Locale.ENGLISH);
+		if(DML.contains(first)){
+			return true;
+		}
+		return ddl && DDL.contains(first) && !UNBATCHED_UNITS.contains(ScriptSplitter.createdUnit(sql));
+	}
+
+	private static void execute(Statement stmt, ScriptResult.StatementTiming timing) throws SQLException{
+		if(logger.isDebugEnabled()){
+			logger.debug("SQL> " + timing.getSql());
+		}
+		long start = System.nanoTime();
+		boolean results = stmt.execute(timing.getSql());
+		timing.elapsedNanos = System.nanoTime() - start;
+		if(!results){
+			timing.updateCount = stmt.getUpdateCount();
+		}
+		if(logger.isDebugEnabled()){
+			logger.debug("SQL> complete. " + timing);
+		}
+	}
+
+	private static void executeBatch(Statement stmt, List<ScriptResult.StatementTiming> pending, ScriptResult result) throws SQLException{
+		if(pending.isEmpty()){
+			return;
+		}
+		long start = System.nanoTime();
+		int[] counts = stmt.executeBatch();
+		long share = (System.nanoTime() - start) / pending.size();
+		stmt.clearBatch();
+		for(int i = 0; i < pending.size(); i++){
+			ScriptResult.StatementTiming timing = pending.get(i);
+			timing.batched = true;
+			timing.elapsedNanos = share;
+			timing.updateCount = i < counts.length && counts[i] >= 0 ? counts[i] : -1;
+		}
+		result.batchExecuted();
+		if(logger.isDebugEnabled()){
+			logger.debug("SQL> batch of " + pending.size() + " complete in " + (share * pending.size() / 1000000) + " ms");
+		}
+		pending.clear();
+	}
+
+	/**
+	 * Logs the statement that failed: the current statement, or for a failed batch, the first statement without an
+	 * update count (if the driver stopped at the failure).
+	 */
+	private static void logFailure(SQLException e, List<ScriptResult.StatementTiming> pending, ScriptResult.StatementTiming current){
+		ScriptResult.StatementTiming failed = current;
+		if(!pending.isEmpty()){
+			failed = pending.get(0);
+			if(e instanceof BatchUpdateException){
+				int[] counts = ((BatchUpdateException) e).getUpdateCounts();
+				if(counts!=null && counts.length < pending.size()){
+					failed = pending.get(counts.length);
+				}
+			}
+		}
+		if(failed!=null){
+			logger.error("Statement #" + failed.getNumber() + " at line " + failed.getLine() + " failed: " + failed.getSql());
+		}
+	}
+}
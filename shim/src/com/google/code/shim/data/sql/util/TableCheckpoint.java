@@ -0,0 +1,119 @@
+package com.google.code.shim.data.sql.util;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.DbUtils;
+import org.apache.commons.dbutils.QueryRunner;
+
+import com.google.code.shim.data.file.Checkpoint;
+
+/**
+ * Keeps checkpoints in a control table, one row per load name. When the load commits on a single connection (as the
+ * {@link Loader} does), the row is updated in the same transaction as the data, so the checkpoint can never disagree
+ * with what was committed. The table must already exist, for example:
+ * 
+ * <pre>
+ * create table shim_checkpoint (
+ *   load_name varchar(255) primary key,
+ *   byte_offset bigint not null,
+ *   record_count bigint not null
+ * )
+ * </pre>
+ * 
+ * @author dgau
+ *
+ */
+public class TableCheckpoint extends Checkpoint {
+
+	/**
+	 * Default name of the control table.
+	 */
+	public static final String DEFAULT_TABLE = "shim_checkpoint";
+
+	private final DataSource ds;
+	private final String table;
+	private final String loadName;
+
+	/**
+	 * @param ds
+	 * @param loadName
+	 *            identifies the load, for example the data file's name.
+	 */
+	public TableCheckpoint(DataSource ds, String loadName) {
+		this(ds, DEFAULT_TABLE, loadName);
+	}
+
+	public TableCheckpoint(DataSource ds, String table, String loadName) {
+		this.ds = ds;
+		this.table = table;
+		this.loadName = loadName;
+	}
+
+	@Override
+	public Position load() throws IOException {
+		Connection conn = null;
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+		try {
+			conn = ds.getConnection();
+			stmt = conn.prepareStatement("select byte_offset, record_count from " + table + " where load_name=?");
+			stmt.setString(1, loadName);
+			rs = stmt.executeQuery();
+			return rs.next() ? new Position(rs.getLong(1), rs.getLong(2)) : null;
+		} catch (SQLException e) {
+			throw new IOException("Could not read checkpoint " + this + ": " + e.getMessage());
+		} finally {
+			DbUtils.closeQuietly(conn, stmt, rs);
+		}
+	}
+
+	/**
+	 * Saves the position on the given connection, or (if it is null) on a connection of its own.
+	 */
+	@Override
+	public void beforeCommit(Position position, Connection conn) throws SQLException {
+		if (conn == null) {
+			Connection own = ds.getConnection();
+			try {
+				save(position, own);
+				if (!own.getAutoCommit()) {
+					own.commit();
+				}
+			} finally {
+				DbUtils.closeQuietly(own);
+			}
+		} else {
+			save(position, conn);
+		}
+	}
+
+	private void save(Position position, Connection conn) throws SQLException {
+		QueryRunner qr = new QueryRunner();
+		int updated = qr.update(conn, "update " + table + " set byte_offset=?, record_count=? where load_name=?",
+			position.getOffset(), position.getRecords(), loadName);
+		if (updated == 0) {
+			qr.update(conn, "insert into " + table + " (load_name, byte_offset, record_count) values (?, ?, ?)",
+				loadName, position.getOffset(), position.getRecords());
+		}
+	}
+
+	@Override
+	public void clear() throws IOException {
+		try {
+			new QueryRunner(ds).update("delete from " + table + " where load_name=?", loadName);
+		} catch (SQLException e) {
+			throw new IOException("Could not clear checkpoint " + this + ": " + e.getMessage());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return table + "[" + loadName + "]";
+	}
+}
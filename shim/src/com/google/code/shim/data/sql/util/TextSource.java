@@ -0,0 +1,108 @@
+package com.google.code.shim.data.sql.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Writes converted records to a tab-delimited UTF-8 file that the database reads as the source of a text table (as
+ * HSQLDB's TEXT tables do). Nulls are written as empty fields; strings are always quoted, with embedded quotes
+ * doubled, so that empty strings and strings containing tabs or line ends survive.
+ *
+ * @author dgau
+ *
+ */
+class TextSource {
+
+	private static final int BUFFER_SIZE = 256 * 1024;
+
+	private final File file;
+	private final Writer out;
+	private long rows;
+
+	/**
+	 * Creates the file.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	TextSource(File file) throws IOException {
+		this.file = file;
+		this.out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"), BUFFER_SIZE);
+	}
+
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the number of rows written.
+	 */
+	long getRows() {
+		return rows;
+	}
+
+	/**
+	 * Writes a record.
+	 *
+	 * @param values
+	 *            converted values, in file column order.
+	 * @throws IOException
+	 */
+	void write(Object[] values) throws IOException {
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				out.write('\t');
+			}
+			Object value = values[i];
+			if (value == null) {
+				continue;
+			}
+			if (value instanceof String) {
+				String text = (String) value;
+				out.write('"');
+				if (text.indexOf('"') >= 0) {
+					text = text.replace("\"", "\"\"");
+				}
+				out.write(text);
+				out.write('"');
+			} else if (value instanceof Date && !(value instanceof java.sql.Date || value instanceof java.sql.Time
+				|| value instanceof Timestamp)) {
+				out.write(new Timestamp(((Date) value).getTime()).toString());
+			} else {
+				// Numbers, booleans and JDBC temporal values print in the forms the database parses.
+				out.write(value.toString());
+			}
+		}
+		out.write('\n');
+		rows++;
+	}
+
+	/**
+	 * Closes the file, leaving it in place for the database to read.
+	 *
+	 * @throws IOException
+	 */
+	void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * Closes and deletes the file.
+	 */
+	void delete() {
+		try {
+			out.close();
+		} catch (IOException e) {
+			Loader.logger.warn("Could not close " + file + ": " + e.getMessage());
+		}
+		if (file.exists() && !file.delete()) {
+			Loader.logger.warn("Could not delete " + file);
+		}
+	}
+}
@@ -0,0 +1,303 @@
+package com.google.code.shim.http;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * A pool of HTTP connections shared by {@link WebCall}s, so calls to the same host reuse open connections instead of
+ * paying for a new TCP (and TLS) connection each time. Connections are kept alive for as long as the server allows,
+ * up to a default, and a background thread closes connections that have expired or sat idle.
+ *
+ * WebCalls use the {@link #getShared() shared pool} unless they are given their own pool or client:<br/>
+ * <code>
+ * HttpClientPool.getShared().setMaxPerRoute("https://api.example.com", 100);<br/>
+ * new WebCall().get().https().host("api.example.com").path("orders").execute();<br/>
+ * </code>
+ *
+ * @author dgau
+ *
+ */
+public class HttpClientPool {
+	private static final Logger logger = LogManager.getLogger(HttpClientPool.class);
+
+	/**
+	 * Default limit on connections, across all routes.
+	 */
+	public static final int DEFAULT_MAX_TOTAL = 200;
+	/**
+	 * Default limit on connections to one route (scheme, host and port).
+	 */
+	public static final int DEFAULT_MAX_PER_ROUTE = 50;
+	/**
+	 * How long a connection is kept alive when the server does not say.
+	 */
+	public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+	/**
+	 * How long a connection may sit idle in the pool before it is closed.
+	 */
+	public static final long DEFAULT_IDLE_MILLIS = 60000;
+	/**
+	 * How long a call waits for a connection when its route is at its limit, before failing, unless set with
+	 * {@link #setTimeouts(int, int, long)}.
+	 */
+	public static final long DEFAULT_LEASE_MILLIS = 10000;
+
+	/**
+	 * The parameter holding how long a call waits to lease a connection: ClientPNames.CONN_MANAGER_TIMEOUT in later
+	 * versions of httpclient, which is read under this name by this one.
+	 */
+	static final String CONN_MANAGER_TIMEOUT = "http.conn-manager.timeout";
+
+	private static HttpClientPool shared;
+
+	private final ThreadSafeClientConnManager manager;
+	private final DefaultHttpClient client;
+	private final ScheduledExecutorService evictor;
+	private final long idleMillis;
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Creates a pool with the default limits.
+	 */
+	public HttpClientPool() {
+		this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE, DEFAULT_KEEP_ALIVE_MILLIS, DEFAULT_IDLE_MILLIS);
+	}
+
+	/**
+	 * Creates a pool.
+	 *
+	 * @param maxTotal
+	 *            limit on connections, across all routes.
+	 * @param maxPerRoute
+	 *            limit on connections to each route, unless set with {@link #setMaxPerRoute(String, int)}.
+	 * @param keepAliveMillis
+	 *            how long to keep a connection alive when the server's Keep-Alive header does not say.
+	 * @param idleMillis
+	 *            how long a connection may sit idle in the pool before it is closed.
+	 */
+	public HttpClientPool(int maxTotal, int maxPerRoute, final long keepAliveMillis, long idleMillis) {
+		this.idleMillis = idleMillis;
+		manager = new ThreadSafeClientConnManager(SchemeRegistryFactory.createDefault());
+		manager.setMaxTotal(maxTotal);
+		manager.setDefaultMaxPerRoute(maxPerRoute);
+
+		client = new DefaultHttpClient(manager);
+		// Without a lease timeout, calls to a host at its limit would wait for a connection indefinitely.
+		client.getParams().setLongParameter(CONN_MANAGER_TIMEOUT, DEFAULT_LEASE_MILLIS);
+		client.setKeepAliveStrategy(new ConnectionKeepAliveStrategy() {
+			private final ConnectionKeepAliveStrategy header = new DefaultConnectionKeepAliveStrategy();
+
+			@Override
+			public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+				long duration = header.getKeepAliveDuration(response, context);
+				return duration > 0 ? duration : keepAliveMillis;
+			}
+		});
+
+		evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "http-pool-evictor");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		long period = Math.max(1000, idleMillis / 2);
+		evictor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				evict();
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return the pool WebCalls use by default, created with the default limits on first use.
+	 */
+	public static synchronized HttpClientPool getShared() {
+		if (shared == null) {
+			shared = new HttpClientPool();
+		}
+		return shared;
+	}
+
+	/**
+	 * Replaces the pool WebCalls use by default. The previous pool is not shut down, since calls may still be using
+	 * it.
+	 *
+	 * @param pool
+	 */
+	public static synchronized void setShared(HttpClientPool pool) {
+		shared = pool;
+	}
+
+	/**
+	 * @return the client that executes calls with this pool's connections.
+	 */
+	public HttpClient getClient() {
+		return client;
+	}
+
+	/**
+	 * Sets the limit on connections to one route.
+	 *
+	 * @param uri
+	 *            the scheme, host and optional port of the route, such as "https://api.example.com".
+	 * @param max
+	 * @throws HttpException
+	 *             if the uri is not valid.
+	 */
+	public void setMaxPerRoute(String uri, int max) throws HttpException {
+		for (HttpRoute route : routes(uri)) {
+			manager.setMaxForRoute(route, max);
+		}
+	}
+
+	/**
+	 * @param uri
+	 *            the scheme, host and optional port of the route, such as "https://api.example.com".
+	 * @return the limit on connections to the route.
+	 * @throws HttpException
+	 *             if the uri is not valid.
+	 */
+	public int getMaxPerRoute(String uri) throws HttpException {
+		return manager.getMaxForRoute(routes(uri).get(0));
+	}
+
+	/**
+	 * Sets the timeouts for calls made with this pool.
+	 *
+	 * @param connectMillis
+	 *            how long to wait for a new connection to open.
+	 * @param socketMillis
+	 *            how long to wait for data once connected.
+	 * @param leaseMillis
+	 *            how long to wait for a connection from the pool when the route is at its limit; 0 waits
+	 *            indefinitely.
+	 */
+	public void setTimeouts(int connectMillis, int socketMillis, long leaseMillis) {
+		HttpConnectionParams.setConnectionTimeout(client.getParams(), connectMillis);
+		HttpConnectionParams.setSoTimeout(client.getParams(), socketMillis);
+		client.getParams().setLongParameter(CONN_MANAGER_TIMEOUT, leaseMillis);
+	}
+
+	/**
+	 * @return the limit on connections, across all routes.
+	 */
+	public int getMaxTotal() {
+		return manager.getMaxTotal();
+	}
+
+	/**
+	 * @return the open connections, idle or in use, across all routes.
+	 */
+	public int getConnections() {
+		return manager.getConnectionsInPool();
+	}
+
+	/**
+	 * @param uri
+	 *            the scheme, host and optional port of the route, such as "https://api.example.com".
+	 * @return the open connections to the route, idle or in use.
+	 * @throws HttpException
+	 *             if the uri is not valid.
+	 */
+	public int getConnections(String uri) throws HttpException {
+		int connections = 0;
+		for (HttpRoute route : routes(uri)) {
+			connections += manager.getConnectionsInPool(route);
+		}
+		return connections;
+	}
+
+	/**
+	 * @return the number of expired or idle connections closed so far.
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Closes connections that have expired or sat idle too long. Runs periodically on its own.
+	 */
+	public void evict() {
+		try {
+			int before = manager.getConnectionsInPool();
+			manager.closeExpiredConnections();
+			manager.closeIdleConnections(idleMillis, TimeUnit.MILLISECONDS);
+			int closed = before - manager.getConnectionsInPool();
+			if (closed > 0) {
+				evictions.addAndGet(closed);
+				if (logger.isDebugEnabled()) {
+					logger.debug("closed " + closed + " idle connections");
+				}
+			}
+		} catch (RuntimeException e) {
+			logger.warn("Could not evict idle connections: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Closes all connections and stops the eviction thread. The pool cannot be used afterwards.
+	 */
+	public void shutdown() {
+		evictor.shutdownNow();
+		manager.shutdown();
+	}
+
+	@Override
+	public String toString() {
+		return "HttpClientPool[connections=" + getConnections() + ", maxTotal=" + getMaxTotal() + ", maxPerRoute="
+			+ manager.getDefaultMaxPerRoute() + ", evictions=" + getEvictions() + "]";
+	}
+
+	/**
+	 * Builds the routes for a uri. A call to a uri without a port is routed to a target without one, so a uri on the
+	 * scheme's default port has two routes: with the port first, then without it.
+	 */
+	List<HttpRoute> routes(String uri) throws HttpException {
+		try {
+			URI parsed = new URI(uri);
+			String scheme = parsed.getScheme() == null ? "http" : parsed.getScheme().toLowerCase();
+			if (parsed.getHost() == null) {
+				throw new HttpException("No host in " + uri);
+			}
+			Scheme registered = manager.getSchemeRegistry().getScheme(scheme);
+			boolean secure = registered.isLayered();
+			List<HttpRoute> routes = new ArrayList<HttpRoute>(2);
+			int port = parsed.getPort() >= 0 ? parsed.getPort() : registered.getDefaultPort();
+			routes.add(new HttpRoute(new HttpHost(parsed.getHost(), port, scheme), null, secure));
+			if (port == registered.getDefaultPort()) {
+				routes.add(new HttpRoute(new HttpHost(parsed.getHost(), -1, scheme), null, secure));
+			}
+			return routes;
+		} catch (URISyntaxException e) {
+			throw new HttpException(e);
+		} catch (IllegalStateException e) {
+			// Not a registered scheme.
+			throw new HttpException(e);
+		}
+	}
+}
@@ -1,446 +1,759 @@
-package com.google.code.shim.http;
-
-import java.io.UnsupportedEncodingException;
-import java.net.URI;
-import java.util.ArrayList;
-import java.util.List;
-
-import org.apache.http.Header;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.HttpDelete;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.client.methods.HttpPut;
-import org.apache.http.client.methods.HttpRequestBase;
-import org.apache.http.client.utils.URLEncodedUtils;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.message.BasicHeader;
-import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.util.EntityUtils;
-import org.apache.log4j.LogManager;
-import org.apache.log4j.Logger;
-
-/**
- * An HTTP call - simplifies GET/POST/PUT/DELETE HTTP calls.  This class is used to both construct a URI, execute the call, and get response information.
- * 
- * Build HTTP calls by creating a WebCall object, and then chaining the methods to construct the call. Examples:
- * <ol>
- * <li>GET request:<br/>
- * <code>
- * WebCall call = new WebCall();<br/>
- * call.get()<br/>
-			.http()<br/>.host("graphical.weather.gov")<br/>.path("xml/sample_products/browser_interface/ndfdXMLclient.php")<br/>
-			.parm("lat", 42)<br/>
-			.parm("lon", -87)<br/>
-			.parm("product", "glance")<br/>
-			.parm("begin", "2012-01-10T14:00")<br/>
-			.parm("end", "2012-01-17T14:00")<br/>
-			.execute();<br/>
- * </code></li>
- * <li>POST request:<br/>
- * <code>
- * WebCall call = new WebCall();<br/>
- * call.post()<br/>
-			.http()<br/>.host("upcoming.yahooapis.com")<br/>.path("services/rest/")<br/>
-			.formElement("method", "venue.add")<br/>
-			.formElement("api_key", "foobar")<br/>
-			.formElement("token", "asdflafdh")<br/>
-			.formElement("venuename", "Test REST Venue.add")<br/>
-			.formElement("venueaddress", "123 Privacy Ln")<br/>
-			.formElement("venuecity", "Los Angeles")<br/>
-			.formElement("metro_id", "1")<br/>
-			.execute();<br/>
- * </code></li>
- * 
- * @author dgau
- * 
- */
-public class WebCall {
-	private static final Logger logger = LogManager.getLogger(WebCall.class);
-	private final HttpClient httpclient = new DefaultHttpClient();
-
-	private enum HttpReqType {
-		GET, PUT, POST, DELETE;
-	}
-
-	private String uriString = "";
-	private HttpEntity entity;
-	private List<BasicHeader> headers = new ArrayList<BasicHeader>();// for query string
-	private List<NameValuePair> qparams = new ArrayList<NameValuePair>();// for query string
-	private List<NameValuePair> fparams = new ArrayList<NameValuePair>();// for form encoding
-	private long duration;
-	private HttpResponse response;
-	private HttpReqType requestType;
-
-	/**
-	 * Empty constructor.
-	 */
-	public WebCall() {
-	}
-
-	/**
-	 * Begin constructing an HTTP GET request.
-	 * 
-	 *  @return
-	 * @throws HttpException
-	 */
-	public WebCall get() throws HttpException {
-		requestType = HttpReqType.GET;
-		return this;
-	}
-	/**
-	 * Begin constructing an HTTP POST request.
-	 * 
-	 * @return
-	 * @throws HttpException
-	 */
-	public WebCall post() throws HttpException {
-		requestType = HttpReqType.POST;
-		return this;
-	}
-
-	/**
-	 * Begin constructing an HTTP PUT request.
-	 * 
-	 * @return
-	 * @throws HttpException
-	 */
-	public WebCall put() throws HttpException {
-		requestType = HttpReqType.PUT;
-		return this;
-	}
-	/**
-	 * Begin constructing an HTTP DELETE request.
-	 * 
-	 * @return
-	 * @throws HttpException
-	 */
-	public WebCall delete() throws HttpException {
-		requestType = HttpReqType.DELETE;
-		return this;
-	}
-	/**
-	 * Begin building the request URI for an HTTP call.
-	 * @return
-	 */
-	public WebCall http() {
-		uriString += "http://";
-		return this;
-	}
-	/**
-	 * Begin building the request URI for an HTTPS call.
-	 * 
-	 * @return
-	 */
-	public WebCall https() {
-		uriString += "https://";
-		return this;
-	}
-	/**
-	 * Append the host to the request URI (make sure to call {@link #http()} or {@link #https()} first).
-	 * @param uriHost
-	 * @return
-	 */
-	public WebCall host(String uriHost) {
-		uriString += uriHost;
-		return this;
-	}
-	/**
-	 * Append the port number to the request URI (make sure you called {@link #host(String)} before this method).
-	 * @param uriPort
-	 * @return
-	 */
-	public WebCall port(int uriPort) {
-		uriString += ":" + uriPort;
-		return this;
-	}
-	/**
-	 * Append the path to the request URI.  THis method can be called multiple times to build the path context of the URI.
-	 * @param uriPath
-	 * @return
-	 */
-	public WebCall path(String uriPath) {
-		if (!uriString.endsWith("/") && !uriPath.startsWith("/")) {
-			uriString += "/";
-		}
-		uriString += uriPath;
-		return this;
-	}
-	/**
-	 * Appends a web fragment to the end of the URI.  Call this after you are done with making all your {@link #path(String)} calls.
-	 * @param uriFragment
-	 * @return
-	 */
-	public WebCall fragment(String uriFragment) {
-		uriString += "#" + uriFragment;
-		return this;
-	}
-
-	/**
-	 * Adds a header to the call.  You can do this at any time in the URI construction process.
-	 * 
-	 * @param headerName
-	 * @param headerValue
-	 * @return
-	 */
-	public WebCall header(String headerName, String headerValue) {
-		headers.add(new BasicHeader(headerName, headerValue));
-		return this;
-	}
-
-	/**
-	 * Adds a parm to the request URI directly (use this for GET requests).  You can do this at any time in the URI construction process.
-	 * 
-	 * @param parmName
-	 * @param parmValue
-	 * @return
-	 */
-	public WebCall parm(String parmName, Object parmValue) {
-		qparams.add(new BasicNameValuePair(parmName, parmValue.toString()));
-		return this;
-	}
-
-	/**
-	 * Adds a parm to the body of the request (use this for urlencoded POST requests).  You can do this at any time in the URI construction process.
-	 * 
-	 * @param parmName
-	 * @param parmValue
-	 * @return
-	 * @throws UnsupportedEncodingException
-	 */
-	public WebCall formElement(String elementName, Object elementValue) throws UnsupportedEncodingException {
-		fparams.add(new BasicNameValuePair(elementName, elementValue.toString()));
-		return this;
-	}
-
-	/**
-	 * Adds data to the body content of the request. (use this for POST or PUT requests).  You can do this at any time in the URI construction process.
-	 * 
-	 * @param data
-	 * @param mimeType
-	 * @param charset
-	 * @return
-	 * @throws UnsupportedEncodingException
-	 * @throws HttpException
-	 */
-	public WebCall payload(String data, String mimeType, String charset) throws HttpException {
-		try {
-			entity = new StringEntity(data, mimeType, charset);
-		} catch (UnsupportedEncodingException e) {
-			throw new HttpException(e);
-		}
-
-		return this;
-	}
-
-	/**
-	 * Executes the request.
-	 * After execution, you can use the {@link #getResponseEntity()}, {@link #getResponseEntityAsString()}, {@link #getResponseEntityAsString(String)},
-	 * {@link #getStatusCode()}, {@link #getStatusReason()}, {@link #getResponseHeader(String)}, and {@link #getDuration()} methods as needed to 
-	 * see how it went.
-	 * @return
-	 * @throws HttpException
-	 */
-	public WebCall execute() throws HttpException {
-		try {
-			uriString += "?" + URLEncodedUtils.format(qparams, "UTF-8");
-			URI uri = new URI(uriString);
-
-			// Any form elements given?
-			if (this.fparams != null && !this.fparams.isEmpty()) {
-				// Note, this blows away any previously set entity.
-				entity = new UrlEncodedFormEntity(fparams, "UTF-8");
-			}
-
-			HttpRequestBase request = null;
-
-			switch (requestType) {
-			case GET:
-				HttpGet get = new HttpGet(uri);
-				request = get;
-				break;
-
-			case POST:
-				HttpPost post = new HttpPost(uri);
-				if (this.entity != null) {
-					post.setEntity(this.entity);
-				}
-				request = post;
-				break;
-
-			case PUT:
-				HttpPut put = new HttpPut(uri);
-				if (this.entity != null) {
-					put.setEntity(this.entity);
-				}
-				request = put;
-				break;
-
-			case DELETE:
-				HttpDelete delete = new HttpDelete(uri);
-				request = delete;
-				break;
-			}
-
-			// Put the headers into the request.
-			for (Header h : headers) {
-				request.addHeader(h);
-			}
-
-			if (logger.isDebugEnabled()) {
-				logger.debug("URI: " + request.getURI());
-			}
-
-			// Finally, execute the request.
-			long start = System.currentTimeMillis();
-			response = httpclient.execute(request);
-			this.duration = System.currentTimeMillis() - start;
-
-		} catch (Exception e) {
-			throw new HttpException(e);
-		}
-		return this;
-	}
-
-	/**
-	 * Gets the duration of the call in milliseconds.
-	 * 
-	 * @return
-	 */
-	public long getDuration() {
-		return this.duration;
-	}
-
-	/**
-	 * When called after the {@link #execute()}, this returns the status code from the response, otherwise -1.
-	 * 
-	 * @return
-	 */
-	public int getStatusCode() {
-		if (response == null)
-			return -1;
-		return response.getStatusLine().getStatusCode();
-	}
-
-	/**
-	 * When called after the {@link #execute()}, this returns the status code from the response, otherwise null.
-	 * 
-	 * @return
-	 */
-	public String getStatusReason() {
-		if (response == null)
-			return null;
-		return response.getStatusLine().getReasonPhrase();
-	}
-
-	/**
-	 * When called after the {@link #execute()}, this returns the raw HttpEntity from the response, otherwise null.
-	 * 
-	 * @return
-	 */
-	public HttpEntity getResponseEntity() {
-		if (response == null)
-			return null;
-		return response.getEntity();
-	}
-
-	/**
-	 * When called after the {@link #execute()}, this returns the HttpEntity, as a String, from the response, otherwise
-	 * null. The UTF-8 charset is used by default.
-	 * 
-	 * @return
-	 * @throws HttpException
-	 */
-	public String getResponseEntityAsString() throws HttpException {
-		try {
-			if (response == null)
-				return null;
-			return EntityUtils.toString(response.getEntity(), "UTF-8");
-		} catch (Exception e) {
-			throw new HttpException(e);
-		}
-
-	}
-
-	/**
-	 * When called after the {@link #execute()}, this returns the HttpEntity, as a String, from the response, otherwise
-	 * null.
-	 * 
-	 * @param charset
-	 * @return
-	 * @throws HttpException
-	 */
-	public String getResponseEntityAsString(String charset) throws HttpException {
-		try {
-			if (response == null)
-				return null;
-			return EntityUtils.toString(response.getEntity(), charset);
-		} catch (Exception e) {
-			throw new HttpException(e);
-		}
-
-	}
-
-	/**
-	 * Returns response header information for the given header name.
-	 * @param hdrName
-	 * @return the headers or null if nothing was found.
-	 */
-	public Header[] getResponseHeader(String hdrName) throws HttpException{
-		try {
-			if (response == null)
-				return null;
-			
-			return response.getHeaders(hdrName);
-		} catch (Exception e) {
-			throw new HttpException(e);
-		}
-	}
-	
-	public static final void main(String[] args) {
-		try {
-
-			WebCall call = new WebCall();
-			call.get()
-				.http().host("graphical.weather.gov").path("xml/sample_products/browser_interface/ndfdXMLclient.php")
-				.parm("lat", 42.1297)
-				.parm("lon", -87.8329)
-				.parm("product", "glance")
-				.parm("begin", "2012-01-10T14:00")
-				.parm("end", "2012-01-17T14:00")
-				.execute();
-
-			System.out.println("status: " + call.getStatusCode());
-			System.out.println("reason: " + call.getStatusReason());
-			System.out.println("response: " + call.getResponseEntityAsString());
-			System.out.println(call.getDuration() + "ms");
-
-			call = new WebCall();
-			call.post()
-				.http().host("upcoming.yahooapis.com").path("services/rest/")
-				.formElement("method", "venue.add")
-				.formElement("api_key", "foobar")
-				.formElement("token", "asdflafdh")
-				.formElement("venuename", "Test REST Venue.add")
-				.formElement("venueaddress", "123 Privacy Ln")
-				.formElement("venuecity", "Los Angeles")
-				.formElement("metro_id", "1")
-				.execute();
-
-			System.out.println("status: " + call.getStatusCode());
-			System.out.println("reason: " + call.getStatusReason());
-			System.out.println("response: " + call.getResponseEntityAsString());
-			System.out.println(call.getDuration() + "ms");
-
-		} catch (Exception e) {
-			System.err.println(e.getMessage());
-			e.printStackTrace(System.err);
-			System.exit(-1);
-		}
-	}
-}
+package com.google.code.shim.http;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.util.EntityUtils;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * An HTTP call - simplifies GET/POST/PUT/DELETE HTTP calls.  This class is used to both construct a URI, execute the call, and get response information.
+ * 
+ * Build HTTP calls by creating a WebCall object, and then chaining the methods to construct the call. Examples:
+ * <ol>
+ * <li>GET request:<br/>
+ * <code>
+ * WebCall call = new WebCall();<br/>
+ * call.get()<br/>
+			.http()<br/>.host("graphical.weather.gov")<br/>.path("xml/sample_products/browser_interface/ndfdXMLclient.php")<br/>
+			.parm("lat", 42)<br/>
+			.parm("lon", -87)<br/>
+			.parm("product", "glance")<br/>
+			.parm("begin", "2012-01-10T14:00")<br/>
+			.parm("end", "2012-01-17T14:00")<br/>
+			.execute();<br/>
+ * </code></li>
+ * <li>POST request:<br/>
+ * <code>
+ * WebCall call = new WebCall();<br/>
+ * call.post()<br/>
+			.http()<br/>.host("upcoming.yahooapis.com")<br/>.path("services/rest/")<br/>
+			.formElement("method", "venue.add")<br/>
+			.formElement("api_key", "foobar")<br/>
+			.formElement("token", "asdflafdh")<br/>
+			.formElement("venuename", "Test REST Venue.add")<br/>
+			.formElement("venueaddress", "123 Privacy Ln")<br/>
+			.formElement("venuecity", "Los Angeles")<br/>
+			.formElement("metro_id", "1")<br/>
+			.execute();<br/>
+ * </code></li>
+ * </ol>
+ * 
+ * Calls share the connections of the {@link HttpClientPool#getShared() shared pool}, unless they are constructed with
+ * a pool or client of their own. The response body is read when the call executes, so its connection goes back to the
+ * pool right away, unless the call is {@link #streaming()}.
+ * 
+ * @author dgau
+ * 
+ */
+public class WebCall {
+	private static final Logger logger = LogManager.getLogger(WebCall.class);
+	private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+	/**
+	 * Charset of a response body whose Content-Type header does not name one. HTTP/1.1 would have ISO-8859-1 for
+	 * text, but the JSON and XML services these calls talk to almost always send UTF-8.
+	 */
+	public static final String DEFAULT_CHARSET = "UTF-8";
+	private final HttpClient httpclient;
+
+	private enum HttpReqType {
+		GET, PUT, POST, DELETE;
+	}
+
+	private String uriString = "";
+	private HttpEntity entity;
+	private List<BasicHeader> headers = new ArrayList<BasicHeader>();// for query string
+	private List<NameValuePair> qparams = new ArrayList<NameValuePair>();// for query string
+	private List<NameValuePair> fparams = new ArrayList<NameValuePair>();// for form encoding
+	private long duration;
+	private HttpResponse response;
+	private HttpReqType requestType;
+	private int timeoutMillis;
+	private boolean streaming;
+	private volatile HttpRequestBase request;
+
+	/**
+	 * Creates a call that uses the shared connection pool.
+	 */
+	public WebCall() {
+		this(HttpClientPool.getShared());
+	}
+
+	/**
+	 * Creates a call that uses the given connection pool.
+	 * 
+	 * @param pool
+	 */
+	public WebCall(HttpClientPool pool) {
+		this(pool.getClient());
+	}
+
+	/**
+	 * Creates a call that uses its own client, such as a <code>new DefaultHttpClient()</code> for a call that should
+	 * not share connections.
+	 * 
+	 * @param httpclient
+	 */
+	public WebCall(HttpClient httpclient) {
+		this.httpclient = httpclient;
+	}
+
+	/**
+	 * Begin constructing an HTTP GET request.
+	 * 
+	 *  @return
+	 * @throws HttpException
+	 */
+	public WebCall get() throws HttpException {
+		requestType = HttpReqType.GET;
+		return this;
+	}
+	/**
+	 * Begin constructing an HTTP POST request.
+	 * 
+	 * @return
+	 * @throws HttpException
+	 */
+	public WebCall post() throws HttpException {
+		requestType = HttpReqType.POST;
+		return this;
+	}
+
+	/**
+	 * Begin constructing an HTTP PUT request.
+	 * 
+	 * @return
+	 * @throws HttpException
+	 */
+	public WebCall put() throws HttpException {
+		requestType = HttpReqType.PUT;
+		return this;
+	}
+	/**
+	 * Begin constructing an HTTP DELETE request.
+	 * 
+	 * @return
+	 * @throws HttpException
+	 */
+	public WebCall delete() throws HttpException {
+		requestType = HttpReqType.DELETE;
+		return this;
+	}
+	/**
+	 * Begin building the request URI for an HTTP call.
+	 * @return
+	 */
+	public WebCall http() {
+		uriString += "http://";
+		return this;
+	}
+	/**
+	 * Begin building the request URI for an HTTPS call.
+	 * 
+	 * @return
+	 */
+	public WebCall https() {
+		uriString += "https://";
+		return this;
+	}
+	/**
+	 * Append the host to the request URI (make sure to call {@link #http()} or {@link #https()} first).
+	 * @param uriHost
+	 * @return
+	 */
+	public WebCall host(String uriHost) {
+		uriString += uriHost;
+		return this;
+	}
+	/**
+	 * Append the port number to the request URI (make sure you called {@link #host(String)} before this method).
+	 * @param uriPort
+	 * @return
+	 */
+	public WebCall port(int uriPort) {
+		uriString += ":" + uriPort;
+		return this;
+	}
+	/**
+	 * Append the path to the request URI.  THis method can be called multiple times to build the path context of the URI.
+	 * @param uriPath
+	 * @return
+	 */
+	public WebCall path(String uriPath) {
+		if (!uriString.endsWith("/") && !uriPath.startsWith("/")) {
+			uriString += "/";
+		}
+		uriString += uriPath;
+		return this;
+	}
+	/**
+	 * Appends a web fragment to the end of the URI.  Call this after you are done with making all your {@link #path(String)} calls.
+	 * @param uriFragment
+	 * @return
+	 */
+	public WebCall fragment(String uriFragment) {
+		uriString += "#" + uriFragment;
+		return this;
+	}
+
+	/**
+	 * Sets how long the call waits to connect, and then for each read of the response, instead of the client's
+	 * timeouts.
+	 * 
+	 * @param millis
+	 * @return
+	 */
+	public WebCall timeout(int millis) {
+		this.timeoutMillis = millis;
+		return this;
+	}
+
+	/**
+	 * Leaves the response body on the connection when the call executes, instead of reading it into memory, so a
+	 * large body can be streamed with {@link #writeResponseTo(OutputStream)}, {@link #writeResponseTo(FileChannel)},
+	 * {@link #getResponseReader()}, {@link #forEachResponseLine(LineHandler)} or {@link #getResponseStream()}. The
+	 * body can be read once, and its connection is held until it has been read or the call is {@link #close()
+	 * closed}.
+	 * 
+	 * @return
+	 */
+	public WebCall streaming() {
+		this.streaming = true;
+		return this;
+	}
+
+	/**
+	 * Adds a header to the call.  You can do this at any time in the URI construction process.
+	 * 
+	 * @param headerName
+	 * @param headerValue
+	 * @return
+	 */
+	public WebCall header(String headerName, String headerValue) {
+		headers.add(new BasicHeader(headerName, headerValue));
+		return this;
+	}
+
+	/**
+	 * Adds a parm to the request URI directly (use this for GET requests).  You can do this at any time in the URI construction process.
+	 * 
+	 * @param parmName
+	 * @param parmValue
+	 * @return
+	 */
+	public WebCall parm(String parmName, Object parmValue) {
+		qparams.add(new BasicNameValuePair(parmName, parmValue.toString()));
+		return this;
+	}
+
+	/**
+	 * Adds a parm to the body of the request (use this for urlencoded POST requests).  You can do this at any time in the URI construction process.
+	 * 
+	 * @param parmName
+	 * @param parmValue
+	 * @return
+	 * @throws UnsupportedEncodingException
+	 */
+	public WebCall formElement(String elementName, Object elementValue) throws UnsupportedEncodingException {
+		fparams.add(new BasicNameValuePair(elementName, elementValue.toString()));
+		return this;
+	}
+
+	/**
+	 * Adds data to the body content of the request. (use this for POST or PUT requests).  You can do this at any time in the URI construction process.
+	 * 
+	 * @param data
+	 * @param mimeType
+	 * @param charset
+	 * @return
+	 * @throws UnsupportedEncodingException
+	 * @throws HttpException
+	 */
+	public WebCall payload(String data, String mimeType, String charset) throws HttpException {
+		try {
+			entity = new StringEntity(data, mimeType, charset);
+		} catch (UnsupportedEncodingException e) {
+			throw new HttpException(e);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Executes the request.
+	 * After execution, you can use the {@link #getResponseEntity()}, {@link #getResponseEntityAsString()}, {@link #getResponseEntityAsString(String)},
+	 * {@link #getStatusCode()}, {@link #getStatusReason()}, {@link #getResponseHeader(String)}, and {@link #getDuration()} methods as needed to 
+	 * see how it went.
+	 * @return
+	 * @throws HttpException
+	 */
+	public WebCall execute() throws HttpException {
+		HttpRequestBase request = null;
+		try {
+			URI uri = new URI(uriString + "?" + URLEncodedUtils.format(qparams, "UTF-8"));
+
+			// Any form elements given?
+			if (this.fparams != null && !this.fparams.isEmpty()) {
+				// Note, this blows away any previously set entity.
+				entity = new UrlEncodedFormEntity(fparams, "UTF-8");
+			}
+
+
+			switch (requestType) {
+			case GET:
+				HttpGet get = new HttpGet(uri);
+				request = get;
+				break;
+
+			case POST:
+				HttpPost post = new HttpPost(uri);
+				if (this.entity != null) {
+					post.setEntity(this.entity);
+				}
+				request = post;
+				break;
+
+			case PUT:
+				HttpPut put = new HttpPut(uri);
+				if (this.entity != null) {
+					put.setEntity(this.entity);
+				}
+				request = put;
+				break;
+
+			case DELETE:
+				HttpDelete delete = new HttpDelete(uri);
+				request = delete;
+				break;
+			}
+
+			// Put the headers into the request.
+			for (Header h : headers) {
+				request.addHeader(h);
+			}
+			if (timeoutMillis > 0) {
+				HttpConnectionParams.setConnectionTimeout(request.getParams(), timeoutMillis);
+				HttpConnectionParams.setSoTimeout(request.getParams(), timeoutMillis);
+			}
+			this.request = request;
+
+			if (logger.isDebugEnabled()) {
+				logger.debug("URI: " + request.getURI());
+			}
+
+			// Finally, execute the request.
+			long start = System.currentTimeMillis();
+			response = httpclient.execute(request);
+			HttpEntity body = response.getEntity();
+			if (body != null && !streaming) {
+				// Read the body now, which releases the connection back to the pool.
+				response.setEntity(new BufferedHttpEntity(body));
+				EntityUtils.consume(body);
+			}
+			this.duration = System.currentTimeMillis() - start;
+
+		} catch (Exception e) {
+			if (request != null) {
+				// Don't leave a half-read connection leased from the pool.
+				request.abort();
+			}
+			throw new HttpException(e);
+		} finally {
+			this.request = null;
+		}
+		return this;
+	}
+
+	/**
+	 * Executes the request on the {@link WebCallExecutor#getShared() shared executor}, without waiting for it. Use
+	 * this to make several calls at once:<br/>
+	 * <code>
+	 * Future&lt;WebCall&gt; orders = new WebCall().get().https().host("orders.example.com").path("recent").executeAsync();<br/>
+	 * Future&lt;WebCall&gt; stock = new WebCall().get().https().host("stock.example.com").path("levels").executeAsync();<br/>
+	 * String recent = orders.get(2, TimeUnit.SECONDS).getResponseEntityAsString();<br/>
+	 * </code>
+	 * The future's <code>get</code> throws an ExecutionException holding the HttpException if the call fails.
+	 * Cancelling the future aborts the call.
+	 * 
+	 * @return the call, once executed.
+	 * @throws HttpException
+	 *             if the executor has too many calls waiting.
+	 */
+	public Future<WebCall> executeAsync() throws HttpException {
+		return WebCallExecutor.getShared().submit(this);
+	}
+
+	/**
+	 * Executes the request on the given executor, without waiting for it.
+	 * 
+	 * @param executor
+	 * @return the call, once executed.
+	 * @throws HttpException
+	 *             if the executor has too many calls waiting.
+	 * @see #executeAsync()
+	 */
+	public Future<WebCall> executeAsync(WebCallExecutor executor) throws HttpException {
+		return executor.submit(this);
+	}
+
+	/**
+	 * Aborts the request if it is executing, which makes {@link #execute()} throw an HttpException.
+	 */
+	public void abort() {
+		HttpRequestBase current = request;
+		if (current != null) {
+			current.abort();
+		}
+	}
+
+	/**
+	 * Gets the duration of the call in milliseconds.
+	 * 
+	 * @return
+	 */
+	public long getDuration() {
+		return this.duration;
+	}
+
+	/**
+	 * When called after the {@link #execute()}, this returns the status code from the response, otherwise -1.
+	 * 
+	 * @return
+	 */
+	public int getStatusCode() {
+		if (response == null)
+			return -1;
+		return response.getStatusLine().getStatusCode();
+	}
+
+	/**
+	 * When called after the {@link #execute()}, this returns the status code from the response, otherwise null.
+	 * 
+	 * @return
+	 */
+	public String getStatusReason() {
+		if (response == null)
+			return null;
+		return response.getStatusLine().getReasonPhrase();
+	}
+
+	/**
+	 * When called after the {@link #execute()}, this returns the raw HttpEntity from the response, otherwise null.
+	 * 
+	 * @return
+	 */
+	public HttpEntity getResponseEntity() {
+		if (response == null)
+			return null;
+		return response.getEntity();
+	}
+
+	/**
+	 * When called after the {@link #execute()}, this returns the HttpEntity, as a String, from the response, otherwise
+	 * null. It is decoded with the {@link #getResponseCharset() response's charset}: the one its Content-Type header
+	 * names, or {@link #DEFAULT_CHARSET} (UTF-8).
+	 * 
+	 * @return
+	 * @throws HttpException
+	 */
+	public String getResponseEntityAsString() throws HttpException {
+		try {
+			if (response == null)
+				return null;
+			return EntityUtils.toString(response.getEntity(), DEFAULT_CHARSET);
+		} catch (Exception e) {
+			throw new HttpException(e);
+		}
+
+	}
+
+	/**
+	 * When called after the {@link #execute()}, this returns the HttpEntity, as a String, from the response, otherwise
+	 * null.
+	 * 
+	 * @param charset
+	 *            charset to decode with if the response's Content-Type header does not name one.
+	 * @return
+	 * @throws HttpException
+	 */
+	public String getResponseEntityAsString(String charset) throws HttpException {
+		try {
+			if (response == null)
+				return null;
+			return EntityUtils.toString(response.getEntity(), charset);
+		} catch (Exception e) {
+			throw new HttpException(e);
+		}
+
+	}
+
+	/**
+	 * When called after the {@link #execute()}, this returns the charset of the response body, from its Content-Type
+	 * header, or {@link #DEFAULT_CHARSET} (UTF-8) if the header does not say; otherwise null. Every method that
+	 * decodes the body without being given a charset uses this one.
+	 * 
+	 * @return
+	 * @throws HttpException
+	 */
+	public String getResponseCharset() throws HttpException {
+		try {
+			if (response == null || response.getEntity() == null)
+				return null;
+			String charset = EntityUtils.getContentCharSet(response.getEntity());
+			return charset == null ? DEFAULT_CHARSET : charset;
+		} catch (Exception e) {
+			throw new HttpException(e);
+		}
+	}
+
+	/**
+	 * When called after the {@link #execute()}, this returns the response body as a stream, otherwise null. Closing
+	 * the stream releases a {@link #streaming()} call's connection.
+	 * 
+	 * @return
+	 * @throws HttpException
+	 */
+	public InputStream getResponseStream() throws HttpException {
+		try {
+			if (response == null || response.getEntity() == null)
+				return null;
+			return response.getEntity().getContent();
+		} catch (Exception e) {
+			throw new HttpException(e);
+		}
+	}
+
+	/**
+	 * When called after the {@link #execute()}, this returns the response body as characters, decoded with the
+	 * {@link #getResponseCharset() response's charset}, otherwise null. Hand it to a streaming parser, such as a Gson
+	 * JsonReader. Closing the reader releases a {@link #streaming()} call's connection.
+	 * 
+	 * @return
+	 * @throws HttpException
+	 */
+	public Reader getResponseReader() throws HttpException {
+		InputStream in = getResponseStream();
+		if (in == null)
+			return null;
+		try {
+			return new InputStreamReader(in, getResponseCharset());
+		} catch (UnsupportedEncodingException e) {
+			close(in);
+			throw new HttpException(e);
+		}
+	}
+
+	/**
+	 * When called after the {@link #execute()}, this writes the response body to the given stream, which is left
+	 * open.
+	 * 
+	 * @param out
+	 * @return the number of bytes written.
+	 * @throws HttpException
+	 */
+	public long writeResponseTo(OutputStream out) throws HttpException {
+		InputStream in = getResponseStream();
+		if (in == null)
+			return 0;
+		try {
+			byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+			long total = 0;
+			int n;
+			while ((n = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, n);
+				total += n;
+			}
+			return total;
+		} catch (Exception e) {
+			throw new HttpException(e);
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * When called after the {@link #execute()}, this writes the response body to the given channel, such as a file,
+	 * at its current position. The channel is left open.
+	 * 
+	 * @param channel
+	 * @return the number of bytes written.
+	 * @throws HttpException
+	 */
+	public long writeResponseTo(FileChannel channel) throws HttpException {
+		InputStream in = getResponseStream();
+		if (in == null)
+			return 0;
+		try {
+			ReadableByteChannel source = Channels.newChannel(in);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(STREAM_BUFFER_SIZE);
+			long total = 0;
+			while (source.read(buffer) >= 0 || buffer.position() > 0) {
+				buffer.flip();
+				total += channel.write(buffer);
+				buffer.compact();
+			}
+			return total;
+		} catch (Exception e) {
+			throw new HttpException(e);
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Receives the lines of a response body, such as the records of newline-delimited JSON.
+	 */
+	public interface LineHandler {
+		/**
+		 * Handles one line. Throwing stops the reading.
+		 * 
+		 * @param line
+		 *            the line, without its line end.
+		 * @throws Exception
+		 */
+		void handle(String line) throws Exception;
+	}
+
+	/**
+	 * When called after the {@link #execute()}, this reads the response body a line at a time, decoded with the
+	 * {@link #getResponseCharset() response's charset}.
+	 * 
+	 * @param handler
+	 * @return the number of lines read.
+	 * @throws HttpException
+	 *             if the body cannot be read, or the handler throws.
+	 */
+	public long forEachResponseLine(LineHandler handler) throws HttpException {
+		Reader reader = getResponseReader();
+		if (reader == null)
+			return 0;
+		try {
+			BufferedReader lines = new BufferedReader(reader, STREAM_BUFFER_SIZE);
+			long count = 0;
+			String line;
+			while ((line = lines.readLine()) != null) {
+				handler.handle(line);
+				count++;
+			}
+			return count;
+		} catch (Exception e) {
+			throw new HttpException(e);
+		} finally {
+			close(reader);
+		}
+	}
+
+	/**
+	 * Releases the connection of a {@link #streaming()} call whose response body has not been read, closing it
+	 * rather than reading the rest of the body.
+	 */
+	public void close() {
+		HttpEntity body = response == null ? null : response.getEntity();
+		if (body instanceof ConnectionReleaseTrigger) {
+			try {
+				((ConnectionReleaseTrigger) body).abortConnection();
+			} catch (IOException e) {
+				logger.warn("Could not close the connection: " + e.getMessage());
+			}
+		}
+	}
+
+	private static void close(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			logger.warn("Could not close the response: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns response header information for the given header name.
+	 * @param hdrName
+	 * @return the headers or null if nothing was found.
+	 */
+	public Header[] getResponseHeader(String hdrName) throws HttpException{
+		try {
+			if (response == null)
+				return null;
+			
+			return response.getHeaders(hdrName);
+		} catch (Exception e) {
+			throw new HttpException(e);
+		}
+	}
+	
+	public static final void main(String[] args) {
+		try {
+
+			WebCall call = new WebCall();
+			call.get()
+				.http().host("graphical.weather.gov").path("xml/sample_products/browser_interface/ndfdXMLclient.php")
+				.parm("lat", 42.1297)
+				.parm("lon", -87.8329)
+				.parm("product", "glance")
+				.parm("begin", "2012-01-10T14:00")
+				.parm("end", "2012-01-17T14:00")
+				.execute();
+
+			System.out.println("status: " + call.getStatusCode());
+			System.out.println("reason: " + call.getStatusReason());
+			System.out.println("response: " + call.getResponseEntityAsString());
+			System.out.println(call.getDuration() + "ms");
+
+			call = new WebCall();
+			call.post()
+				.http().host("upcoming.yahooapis.com").path("services/rest/")
+				.formElement("method", "venue.add")
+				.formElement("api_key", "foobar")
+				.formElement("token", "asdflafdh")
+				.formElement("venuename", "Test REST Venue.add")
+				.formElement("venueaddress", "123 Privacy Ln")
+				.formElement("venuecity", "Los Angeles")
+				.formElement("metro_id", "1")
+				.execute();
+
+			System.out.println("status: " + call.getStatusCode());
+			System.out.println("reason: " + call.getStatusReason());
+			System.out.println("response: " + call.getResponseEntityAsString());
+			System.out.println(call.getDuration() + "ms");
+
+		} catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace(System.err);
+			System.exit(-1);
+		}
+	}
+}
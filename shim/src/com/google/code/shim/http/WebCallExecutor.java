@@ -0,0 +1,205 @@
+package com.google.code.shim.http;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes {@link WebCall}s in the background on a bounded pool of threads, so a caller can make several calls at
+ * once. Calls wait in a bounded queue when all threads are busy. The number of calls to one host at once is limited
+ * by the connection pool the calls use (see {@link HttpClientPool#setMaxPerRoute(String, int)}); a call to a host at
+ * its limit holds its thread while it waits for a connection, and fails if none is free within the pool's lease
+ * timeout (see {@link HttpClientPool#setTimeouts(int, int, long)}).
+ * 
+ * @author dgau
+ * 
+ */
+public class WebCallExecutor {
+
+	/**
+	 * Default number of calls executing at once.
+	 */
+	public static final int DEFAULT_THREADS = 32;
+	/**
+	 * Default number of calls that may wait for a thread.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+	private static WebCallExecutor shared;
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Creates an executor with the default limits.
+	 */
+	public WebCallExecutor() {
+		this(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * Creates an executor.
+	 * 
+	 * @param threads
+	 *            number of calls executing at once.
+	 * @param queueCapacity
+	 *            number of calls that may wait for a thread.
+	 */
+	public WebCallExecutor(int threads, int queueCapacity) {
+		final AtomicInteger count = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(
+			queueCapacity), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "webcall-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * @return the executor {@link WebCall#executeAsync()} uses, created with the default limits on first use.
+	 */
+	public static synchronized WebCallExecutor getShared() {
+		if (shared == null) {
+			shared = new WebCallExecutor();
+		}
+		return shared;
+	}
+
+	/**
+	 * Replaces the executor {@link WebCall#executeAsync()} uses. The previous executor is not shut down, since calls
+	 * may still be waiting on it.
+	 * 
+	 * @param executor
+	 */
+	public static synchronized void setShared(WebCallExecutor executor) {
+		shared = executor;
+	}
+
+	/**
+	 * Executes a call in the background.
+	 * 
+	 * @param call
+	 * @return the call, once executed. Cancelling it aborts the call.
+	 * @throws HttpException
+	 *             if too many calls are waiting.
+	 */
+	public Future<WebCall> submit(final WebCall call) throws HttpException {
+		FutureTask<WebCall> task = new FutureTask<WebCall>(new Callable<WebCall>() {
+			@Override
+			public WebCall call() throws Exception {
+				return call.execute();
+			}
+		}) {
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				boolean cancelled = super.cancel(mayInterruptIfRunning);
+				if (cancelled) {
+					call.abort();
+				}
+				return cancelled;
+			}
+		};
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			throw new HttpException("Too many calls are waiting to execute", e);
+		}
+		return task;
+	}
+
+	/**
+	 * Executes calls at once and waits for them, up to a deadline. Calls that have not finished by the deadline are
+	 * cancelled.
+	 * 
+	 * @param calls
+	 * @param timeout
+	 *            how long to wait for all the calls.
+	 * @param unit
+	 * @return a future for each call, in order, each either done or cancelled.
+	 * @throws HttpException
+	 *             if too many calls are waiting.
+	 * @throws InterruptedException
+	 *             if interrupted while waiting; the calls are cancelled.
+	 */
+	public List<Future<WebCall>> executeAll(Collection<WebCall> calls, long timeout, TimeUnit unit)
+		throws HttpException, InterruptedException {
+		List<Future<WebCall>> futures = new ArrayList<Future<WebCall>>(calls.size());
+		boolean finished = false;
+		try {
+			for (WebCall call : calls) {
+				futures.add(submit(call));
+			}
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			for (Future<WebCall> future : futures) {
+				try {
+					future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				} catch (ExecutionException e) {
+					// Reported by the future.
+				} catch (TimeoutException e) {
+					break;
+				}
+			}
+			finished = true;
+		} finally {
+			for (Future<WebCall> future : futures) {
+				if (!future.isDone() || !finished) {
+					future.cancel(true);
+				}
+			}
+		}
+		return futures;
+	}
+
+	/**
+	 * @return the number of calls executing.
+	 */
+	public int getActive() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * @return the number of calls waiting for a thread.
+	 */
+	public int getQueued() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * @return the number of calls finished, approximately.
+	 */
+	public long getCompleted() {
+		return executor.getCompletedTaskCount();
+	}
+
+	/**
+	 * Stops accepting calls, and cancels those waiting. Calls already executing finish.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+		List<Runnable> waiting = new ArrayList<Runnable>();
+		executor.getQueue().drainTo(waiting);
+		for (Runnable call : waiting) {
+			((Future<?>) call).cancel(false);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "WebCallExecutor[active=" + getActive() + ", queued=" + getQueued() + ", completed=" + getCompleted()
+			+ "]";
+	}
+}
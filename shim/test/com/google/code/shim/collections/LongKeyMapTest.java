@@ -0,0 +1,58 @@
+package com.google.code.shim.collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongKeyMapTest {
+
+	@Test
+	public void testMatchesHashMap() {
+		// Starts small, so the table grows several times.
+		LongKeyMap<String> map = new LongKeyMap<String>();
+		Map<Long, String> expected = new HashMap<Long, String>();
+		Random random = new Random(11);
+		for (int i = 0; i < 5000; i++) {
+			// Sequential ids, negative ids and repeats.
+			long key = i % 3 == 0 ? random.nextInt(1000) - 500 : i * 1000L;
+			assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+		}
+		assertEquals(expected.size(), map.size());
+		for (Map.Entry<Long, String> entry : expected.entrySet()) {
+			assertTrue(map.containsKey(entry.getKey()));
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+		assertFalse(map.containsKey(-1000000L));
+		assertNull(map.get(-1000000L));
+
+		// Keys and values line up.
+		long[] keys = map.keys();
+		assertEquals(expected.size(), keys.length);
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals(expected.get(keys[i]), map.values().get(i));
+		}
+	}
+
+	@Test
+	public void testPresizedAndCleared() {
+		LongKeyMap<Integer> map = new LongKeyMap<Integer>(100);
+		for (int i = 0; i < 100; i++) {
+			map.put(i, i);
+		}
+		assertEquals(100, map.size());
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(5));
+		assertEquals(0, map.keys().length);
+		map.put(0, 1);
+		assertEquals(Arrays.asList(1), map.values());
+	}
+}
@@ -0,0 +1,194 @@
+package com.google.code.shim.data.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AbstractDelimitedFileHandlerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Records the sequence numbers seen for each key, and optionally fails on one record.
+	 */
+	static class RecordingHandler extends AbstractDelimitedFileHandler {
+		final Map<String, List<Integer>> seen = Collections.synchronizedMap(new HashMap<String, List<Integer>>());
+		final String failOn;
+		boolean finished;
+
+		RecordingHandler(String fileName, String failOn) {
+			super(fileName, null);
+			this.failOn = failOn;
+		}
+
+		@Override
+		public void beforeLoop() throws Exception {
+		}
+
+		@Override
+		public void onEachRecord(String[] headers, String[] values) throws Exception {
+			if (values[1].equals(failOn)) {
+				throw new IllegalStateException("bad record " + failOn);
+			}
+			List<Integer> list;
+			synchronized (seen) {
+				list = seen.get(values[0]);
+				if (list == null) {
+					list = new ArrayList<Integer>();
+					seen.put(values[0], list);
+				}
+			}
+			synchronized (list) {
+				list.add(Integer.valueOf(values[1]));
+			}
+		}
+
+		@Override
+		public void afterLoop() throws Exception {
+		}
+
+		@Override
+		public void finish() {
+			finished = true;
+		}
+
+		int total() {
+			int total = 0;
+			for (List<Integer> list : seen.values()) {
+				total += list.size();
+			}
+			return total;
+		}
+	}
+
+	private String writeFile(int rows) throws Exception {
+		File file = folder.newFile("records" + rows + ".txt");
+		Writer out = new FileWriter(file);
+		try {
+			out.write("key\tseq\n");
+			for (int i = 0; i < rows; i++) {
+				out.write("k" + (i % 7) + "\t" + i + "\n");
+			}
+		} finally {
+			out.close();
+		}
+		return file.getPath();
+	}
+
+	@Test
+	public void testSerial() throws Exception {
+		RecordingHandler handler = new RecordingHandler(writeFile(100), null);
+		handler.run();
+		assertEquals(100, handler.total());
+		assertEquals(100, handler.getRecordsProcessed());
+		assertEquals(99, handler.getCurrentRow());
+		assertTrue(handler.finished);
+	}
+
+	@Test
+	public void testUnorderedWorkers() throws Exception {
+		for (boolean mapped : new boolean[] { false, true }) {
+			RecordingHandler handler = new RecordingHandler(writeFile(5000), null);
+			handler.setWorkers(4);
+			handler.setBatchSize(16);
+			handler.setMemoryMapped(mapped);
+			handler.run();
+			assertNull(handler.getError());
+			assertEquals(5000, handler.total());
+			assertEquals(5000, handler.getRecordsProcessed());
+		}
+	}
+
+	@Test
+	public void testOrderedWorkers() throws Exception {
+		RecordingHandler handler = new RecordingHandler(writeFile(5000), null);
+		handler.setWorkers(3);
+		handler.setBatchSize(10);
+		handler.setQueueCapacity(2);
+		handler.setOrdered(true);
+		handler.run();
+		assertEquals(5000, handler.total());
+		for (List<Integer> list : handler.seen.values()) {
+			for (int i = 1; i < list.size(); i++) {
+				assertTrue(list.get(i - 1) < list.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testWorkerErrorStopsProcessing() throws Exception {
+		RecordingHandler handler = new RecordingHandler(writeFile(20000), "150");
+		handler.setWorkers(2);
+		handler.setBatchSize(10);
+		handler.run();
+		assertTrue(handler.getError() instanceof IllegalStateException);
+		assertTrue(handler.getRecordsProcessed() < 20000);
+		assertTrue(handler.finished);
+	}
+
+	@Test(timeout = 30000)
+	public void testWorkerErrorInOrderedPipeline() throws Exception {
+		RecordingHandler handler = new RecordingHandler(writeFile(20000), null) {
+			@Override
+			public void onEachRecord(String[] headers, String[] values) throws Exception {
+				if (values[1].equals("150")) {
+					throw new AssertionError("bad record 150");
+				}
+				super.onEachRecord(headers, values);
+			}
+		};
+		handler.setWorkers(3);
+		handler.setBatchSize(10);
+		handler.setQueueCapacity(3);
+		handler.setOrdered(true);
+		try {
+			handler.run();
+			fail("Expected the worker's error");
+		} catch (AssertionError e) {
+			assertEquals("bad record 150", e.getMessage());
+		}
+		assertTrue(handler.getRecordsProcessed() < 20000);
+		assertTrue(handler.finished);
+	}
+
+	@Test
+	public void testCheckpointResume() throws Exception {
+		for (boolean mapped : new boolean[] { false, true }) {
+			String fileName = writeFile(mapped ? 101 : 100);
+			FileCheckpoint checkpoint = FileCheckpoint.forDataFile(new File(fileName));
+
+			RecordingHandler handler = new RecordingHandler(fileName, "55");
+			handler.setMemoryMapped(mapped);
+			handler.setCheckpoint(checkpoint, 10);
+			handler.run();
+			assertTrue(handler.getError() instanceof IllegalStateException);
+			assertEquals(50, checkpoint.load().getRecords());
+
+			// The rerun starts after the 50 records checkpointed.
+			handler = new RecordingHandler(fileName, null);
+			handler.setMemoryMapped(mapped);
+			handler.setCheckpoint(checkpoint, 10);
+			handler.run();
+			assertNull(handler.getError());
+			assertEquals(mapped ? 51 : 50, handler.getRecordsProcessed());
+			assertEquals(mapped ? 100 : 99, handler.getCurrentRow());
+			assertFalse(checkpoint.getFile().exists());
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package com.google.code.shim.data.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompressedInputTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Several buffers' worth of compressible text.
+	 */
+	private static byte[] content() {
+		StringBuilder text = new StringBuilder();
+		Random random = new Random(7);
+		for (int i = 0; text.length() < CompressedInput.DEFAULT_BUFFER_SIZE * 3 + 123; i++) {
+			text.append(i).append('\t').append(random.nextInt(1000)).append('\n');
+		}
+		return text.toString().getBytes();
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1000];
+			int n;
+			while ((n = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, n);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testGzip() throws Exception {
+		byte[] content = content();
+		// Detected by magic bytes, whatever the name.
+		File file = folder.newFile("data.txt");
+		OutputStream out = new GZIPOutputStream(new FileOutputStream(file));
+		out.write(content);
+		out.close();
+
+		assertEquals(CompressedInput.Format.GZIP, CompressedInput.formatOf(file));
+		InputStream in = CompressedInput.open(file);
+		assertTrue(in instanceof ReadAheadInputStream);
+		assertArrayEquals(content, readAll(in));
+	}
+
+	@Test
+	public void testZip() throws Exception {
+		byte[] content = content();
+		File file = folder.newFile("data.zip");
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+		out.putNextEntry(new ZipEntry("dir/"));
+		out.closeEntry();
+		out.putNextEntry(new ZipEntry("dir/data.txt"));
+		out.write(content);
+		out.closeEntry();
+		out.close();
+
+		assertEquals(CompressedInput.Format.ZIP, CompressedInput.formatOf(file));
+		assertArrayEquals(content, readAll(CompressedInput.open(file)));
+	}
+
+	@Test
+	public void testPlain() throws Exception {
+		byte[] content = content();
+		File file = folder.newFile("data.txt");
+		OutputStream out = new FileOutputStream(file);
+		out.write(content);
+		out.close();
+
+		assertFalse(CompressedInput.isCompressed(file));
+		assertArrayEquals(content, readAll(CompressedInput.open(file)));
+	}
+
+	@Test
+	public void testPlainFileWithCompressedName() throws Exception {
+		byte[] content = content();
+		for (String name : new String[] { "plain.txt.gz", "plain.zip" }) {
+			File file = folder.newFile(name);
+			OutputStream out = new FileOutputStream(file);
+			out.write(content);
+			out.close();
+
+			assertFalse(name, CompressedInput.isCompressed(file));
+			assertArrayEquals(content, readAll(CompressedInput.open(file)));
+		}
+		// Too short to hold the magic bytes, so the name decides.
+		File empty = folder.newFile("empty.gz");
+		assertEquals(CompressedInput.Format.GZIP, CompressedInput.formatOf(empty));
+	}
+
+	@Test
+	public void testCorruptGzipFails() throws Exception {
+		byte[] content = content();
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		OutputStream out = new GZIPOutputStream(compressed);
+		out.write(content);
+		out.close();
+
+		File file = folder.newFile("data.txt.gz");
+		out = new FileOutputStream(file);
+		out.write(Arrays.copyOf(compressed.toByteArray(), compressed.size() / 2));
+		out.close();
+		try {
+			readAll(CompressedInput.open(file));
+			fail("Expected a truncated file to fail");
+		} catch (IOException e) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testCloseStopsReading() throws Exception {
+		File file = folder.newFile("data.gz");
+		OutputStream out = new GZIPOutputStream(new FileOutputStream(file));
+		out.write(content());
+		out.close();
+
+		InputStream in = CompressedInput.open(file);
+		assertTrue(in.read() >= 0);
+		in.close();
+		try {
+			in.read();
+			fail("Expected a closed stream to fail");
+		} catch (IOException e) {
+			// Expected.
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testReadAheadRethrowsRuntimeException() throws Exception {
+		InputStream failing = new InputStream() {
+			private int count;
+
+			@Override
+			public int read() {
+				if (count == 10) {
+					throw new IllegalStateException("source failed");
+				}
+				return count++;
+			}
+		};
+		InputStream in = new ReadAheadInputStream(failing, 4, 2, "failing");
+		try {
+			for (int i = 0; i < 8; i++) {
+				assertEquals(i, in.read());
+			}
+			readAll(in);
+			fail("Expected the source's exception");
+		} catch (IllegalStateException e) {
+			assertEquals("source failed", e.getMessage());
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testBaseName() {
+		assertEquals("t_city.txt", CompressedInput.baseName("t_city.txt.gz"));
+		assertEquals("t_city.txt", CompressedInput.baseName("t_city.txt.ZIP"));
+		assertEquals("t_city.txt", CompressedInput.baseName("t_city.txt"));
+	}
+}
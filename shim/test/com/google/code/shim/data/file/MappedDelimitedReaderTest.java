@@ -0,0 +1,142 @@
+package com.google.code.shim.data.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.csvreader.CsvReader;
+
+public class MappedDelimitedReaderTest {
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File write(String content, Charset charset) throws Exception {
+		File file = folder.newFile("data" + System.nanoTime() + ".txt");
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes(charset.name()));
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	@Test
+	public void testFields() throws Exception {
+		File file = write("id,name,note\r\n" + "1,Ann,\"says \"\"hi\"\", then, leaves\"\r\n" + "\r\n"
+			+ "-42,Zo\u00EB,\"two\nlines\"\r\n" + "7,,", UTF8);
+
+		MappedDelimitedReader reader = new MappedDelimitedReader(file, ',', '"', UTF8);
+		try {
+			assertArrayEquals(new String[] { "id", "name", "note" }, reader.readHeaders());
+
+			assertTrue(reader.readRecord());
+			DelimitedRecord record = reader.getRecord();
+			assertEquals(0, record.getRecordNumber());
+			assertEquals(3, record.size());
+			assertEquals(1, record.getInt(0));
+			assertEquals("Ann", record.get(1).toString());
+			assertEquals('A', record.get(1).charAt(0));
+			assertEquals("says \"hi\", then, leaves", record.getString(2));
+
+			assertTrue(reader.readRecord());
+			assertEquals(1, reader.getCurrentRecord());
+			assertEquals(-42L, record.getLong(0));
+			assertEquals("Zo\u00EB", record.get(1).toString());
+			assertEquals(3, record.get(1).length());
+			assertEquals("two\nlines", record.getString(2));
+			DelimitedRecord kept = record.copy();
+
+			assertTrue(reader.readRecord());
+			assertArrayEquals(new String[] { "7", "", "" }, record.getValues());
+			assertTrue(record.isEmpty(2));
+
+			assertFalse(reader.readRecord());
+			assertEquals("Zo\u00EB", kept.getString(1));
+			assertEquals(-42, kept.getInt(0));
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testMatchesCsvReaderAcrossWindows() throws Exception {
+		StringBuilder content = new StringBuilder("a\tb\tc\n");
+		for (int i = 0; i < 500; i++) {
+			content.append(i).append("\tvalue ").append(i).append("\t\"quoted\t").append(i).append("\"\n");
+		}
+		Charset latin1 = Charset.forName("ISO-8859-1");
+		File file = write(content.toString(), latin1);
+
+		CsvReader expected = new CsvReader(file.getPath(), '\t', latin1);
+		// A tiny window forces records to straddle the mapped regions.
+		MappedDelimitedReader reader = new MappedDelimitedReader(file, '\t', '"', latin1, 64);
+		try {
+			expected.readHeaders();
+			assertArrayEquals(expected.getHeaders(), reader.readHeaders());
+			int count = 0;
+			while (expected.readRecord()) {
+				assertTrue(reader.readRecord());
+				assertArrayEquals(expected.getValues(), reader.getRecord().getValues());
+				count++;
+			}
+			assertFalse(reader.readRecord());
+			assertEquals(500, count);
+		} finally {
+			expected.close();
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testTrimsLikeCsvReader() throws Exception {
+		Charset latin1 = Charset.forName("ISO-8859-1");
+		for (char delimiter : new char[] { ',', '\t' }) {
+			String d = String.valueOf(delimiter);
+			String content = " a " + d + " 12 \n" + "  \"x y\" " + d + " z\n" + "\"a\" b" + d + "c\n"
+				+ "\t tab\t" + d + "x\n" + "\" q \"  " + d + "  \r\n" + "   \n" + "\n" + d + "\n" + " a b \r\n";
+			File file = write(content, latin1);
+
+			CsvReader expected = new CsvReader(file.getPath(), delimiter, latin1);
+			MappedDelimitedReader reader = new MappedDelimitedReader(file, delimiter, '"', latin1);
+			try {
+				int count = 0;
+				while (expected.readRecord()) {
+					assertTrue(reader.readRecord());
+					assertArrayEquals(Arrays.toString(expected.getValues()), expected.getValues(), reader.getRecord()
+						.getValues());
+					count++;
+				}
+				assertFalse(reader.readRecord());
+				assertEquals(8, count);
+			} finally {
+				expected.close();
+				reader.close();
+			}
+		}
+
+		File file = write(" a , 12 \n", latin1);
+		MappedDelimitedReader reader = new MappedDelimitedReader(file, ',', '"', latin1);
+		try {
+			reader.setTrimWhitespace(false);
+			assertTrue(reader.readRecord());
+			assertArrayEquals(new String[] { " a ", " 12 " }, reader.getRecord().getValues());
+		} finally {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,397 @@
+package com.google.code.shim.data.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.types.ObjectId;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.code.shim.data.DataAccessException;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.Mongo;
+import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.WriteResult;
+
+public class BaseMongoDaoTest {
+
+	private BaseMongoDaoTestHarness dao;
+
+	@Before
+	public void setUp() throws Exception {
+		// Nothing here talks to the server.
+		dao = new BaseMongoDaoTestHarness(null);
+	}
+
+	@Test
+	public void testBuildQueryMissingProperty() throws Exception {
+		assertNull(dao.buildQuery("mongo.noSuchQuery"));
+	}
+
+	@Test
+	public void testAggregateCommand() throws Exception {
+		Date since = new Date(1330000000000L);
+		DBObject pipeline = dao.buildQuery("mongo.salesByStore", since, Arrays.asList("north", "south"));
+		DBObject command = BaseMongoDao.aggregateCommand("sales", pipeline);
+
+		assertEquals("sales", command.get("aggregate"));
+		List<?> stages = (List<?>) command.get("pipeline");
+		assertEquals(3, stages.size());
+		DBObject match = (DBObject) ((DBObject) stages.get(0)).get("$match");
+		assertEquals(since, ((DBObject) match.get("sold")).get("$gte"));
+		assertEquals(Arrays.asList("north", "south"), ((DBObject) match.get("store")).get("$in"));
+		assertEquals("$store", ((DBObject) ((DBObject) stages.get(1)).get("$group")).get("_id"));
+	}
+
+	@Test
+	public void testAggregateCommandSingleStage() throws Exception {
+		DBObject command = BaseMongoDao.aggregateCommand("sales", dao.buildQuery("mongo.countAll"));
+		List<?> stages = (List<?>) command.get("pipeline");
+		assertEquals(1, stages.size());
+		assertNull(((DBObject) ((DBObject) stages.get(0)).get("$group")).get("_id"));
+	}
+
+	@Test
+	public void testReadPreferenceFor() throws Exception {
+		ReadPreference salesByStore = dao.readPreferenceFor("mongo.salesByStore");
+		assertTrue(salesByStore instanceof ReadPreference.TaggedReadPreference);
+		assertEquals("east", ((ReadPreference.TaggedReadPreference) salesByStore).getTags().get("dc"));
+		assertSame(ReadPreference.PRIMARY, dao.readPreferenceFor("mongo.countAll"));
+
+		// Queries without their own use the DAO's.
+		assertNull(dao.readPreferenceFor("mongo.other"));
+		dao.setReadPreference(ReadPreference.SECONDARY);
+		assertSame(ReadPreference.SECONDARY, dao.readPreferenceFor("mongo.other"));
+		assertSame(ReadPreference.PRIMARY, dao.readPreferenceFor("mongo.countAll"));
+	}
+
+	@Test
+	public void testParseReadPreference() throws Exception {
+		assertSame(ReadPreference.PRIMARY, ReadPreferences.parse("primaryPreferred"));
+		assertSame(ReadPreference.SECONDARY, ReadPreferences.parse(" nearest "));
+		assertSame(ReadPreference.SECONDARY, ReadPreferences.parse("secondary"));
+		for (String bad : new String[] { "fastest", "primary { dc : 1 }", "secondary { dc : " }) {
+			try {
+				ReadPreferences.parse(bad);
+				fail("Expected " + bad + " to be refused");
+			} catch (DataAccessException e) {
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * A cursor that records what is applied to it, on a client that never connects.
+	 */
+	static class RecordingCursor extends DBCursor {
+		DBObject sort;
+		Object hint;
+		Integer skip;
+		Integer limit;
+		Integer batchSize;
+
+		RecordingCursor(Mongo mongo) {
+			super(mongo.getDB("test").getCollection("sales"), null, null, ReadPreference.PRIMARY);
+		}
+
+		@Override
+		public DBCursor sort(DBObject orderBy) {
+			sort = orderBy;
+			return this;
+		}
+
+		@Override
+		public DBCursor hint(DBObject indexKeys) {
+			hint = indexKeys;
+			return this;
+		}
+
+		@Override
+		public DBCursor hint(String indexName) {
+			hint = indexName;
+			return this;
+		}
+
+		@Override
+		public DBCursor skip(int n) {
+			skip = n;
+			return this;
+		}
+
+		@Override
+		public DBCursor limit(int n) {
+			limit = n;
+			return this;
+		}
+
+		@Override
+		public DBCursor batchSize(int n) {
+			batchSize = n;
+			return this;
+		}
+	}
+
+	@Test
+	public void testApplyCursorProperties() throws Exception {
+		Mongo mongo = new Mongo("127.0.0.1", 1);
+		try {
+			RecordingCursor cursor = new RecordingCursor(mongo);
+			dao.applyCursorProperties(cursor, "mongo.recent", true);
+			assertEquals(new BasicDBObject("sold", -1), cursor.sort);
+			assertEquals(new BasicDBObject("sold", 1), cursor.hint);
+			assertEquals(Integer.valueOf(20), cursor.skip);
+			assertEquals(Integer.valueOf(5), cursor.limit);
+			assertEquals(Integer.valueOf(50), cursor.batchSize);
+
+			// Outside a window (e.g. for each range of a parallel scan), only the hint and batch size apply.
+			cursor = new RecordingCursor(mongo);
+			dao.applyCursorProperties(cursor, "mongo.recent", false);
+			assertNull(cursor.sort);
+			assertNull(cursor.skip);
+			assertNull(cursor.limit);
+			assertEquals(new BasicDBObject("sold", 1), cursor.hint);
+			assertEquals(Integer.valueOf(50), cursor.batchSize);
+
+			// A hint that is not JSON names an index; the DAO's batch size applies when the query has none.
+			dao.setBatchSize(200);
+			cursor = new RecordingCursor(mongo);
+			dao.applyCursorProperties(cursor, "mongo.byStore", true);
+			assertEquals("store_1", cursor.hint);
+			assertEquals(Integer.valueOf(200), cursor.batchSize);
+			assertNull(cursor.sort);
+			assertNull(cursor.skip);
+			assertNull(cursor.limit);
+
+			for (String bad : new String[] { "mongo.badSkip", "mongo.badBatchSize" }) {
+				try {
+					dao.applyCursorProperties(new RecordingCursor(mongo), bad, true);
+					fail("Expected " + bad + " to be refused");
+				} catch (DataAccessException e) {
+					assertTrue(e.getMessage(), e.getMessage().contains("not a number"));
+				}
+			}
+		} finally {
+			mongo.close();
+		}
+	}
+
+	@Test
+	public void testRangeQueries() throws Exception {
+		DBObject query = new BasicDBObject("store", "Boston");
+		List<DBObject> ranges = BaseMongoDao.rangeQueries(query, "_id", Arrays.<Object> asList(100, 200));
+		assertEquals(3, ranges.size());
+		assertEquals(new BasicDBObject("store", "Boston").append("_id", new BasicDBObject("$lt", 100)), ranges.get(0));
+		assertEquals(new BasicDBObject("store", "Boston").append("_id", new BasicDBObject("$gte", 100).append("$lt",
+			200)), ranges.get(1));
+		assertEquals(new BasicDBObject("store", "Boston").append("_id", new BasicDBObject("$gte", 200)), ranges.get(2));
+
+		// A condition of the query's own on the key is kept alongside the range.
+		DBObject keyed = new BasicDBObject("_id", new BasicDBObject("$ne", 150));
+		ranges = BaseMongoDao.rangeQueries(keyed, "_id", Arrays.<Object> asList(100));
+		assertEquals(2, ranges.size());
+		assertEquals(Arrays.asList(keyed, new BasicDBObject("_id", new BasicDBObject("$lt", 100))), ranges.get(0).get(
+			"$and"));
+
+		// Without split points the query is scanned whole.
+		ranges = BaseMongoDao.rangeQueries(query, "_id", new ArrayList<Object>());
+		assertEquals(1, ranges.size());
+		assertSame(query, ranges.get(0));
+	}
+
+	@Test
+	public void testEvenly() {
+		List<Object> points = new ArrayList<Object>();
+		for (int i = 1; i <= 7; i++) {
+			points.add(i * 10);
+		}
+		// Seven points make eight ranges; every second point makes four.
+		assertEquals(Arrays.<Object> asList(20, 40, 60), BaseMongoDao.evenly(points, 4));
+		assertEquals(Arrays.<Object> asList(40), BaseMongoDao.evenly(points, 2));
+		// Too few points to thin out.
+		assertSame(points, BaseMongoDao.evenly(points, 9));
+	}
+
+	@Test
+	public void testInterpolate() {
+		assertEquals(Arrays.<Object> asList(25, 50, 75), BaseMongoDao.interpolate(0, 100, 4));
+		assertEquals(Arrays.<Object> asList(5000000000L), BaseMongoDao.interpolate(0, 10000000000L, 2));
+		assertEquals(Arrays.<Object> asList(0.5), BaseMongoDao.interpolate(0.0, 1, 2));
+		assertEquals(Arrays.<Object> asList(new Date(2000)), BaseMongoDao.interpolate(new Date(1000), new Date(3000), 2));
+
+		ObjectId min = new ObjectId(1330000000, 5, 7);
+		ObjectId max = new ObjectId(1330000400, 9, 1);
+		List<Object> ids = BaseMongoDao.interpolate(min, max, 4);
+		assertEquals(Arrays.<Object> asList(new ObjectId(1330000100, 0, 0), new ObjectId(1330000200, 0, 0),
+			new ObjectId(1330000300, 0, 0)), ids);
+
+		// Narrow spans give fewer, distinct points.
+		assertEquals(Arrays.<Object> asList(1), BaseMongoDao.interpolate(0, 2, 4));
+		// Values that cannot be interpolated give none.
+		assertTrue(BaseMongoDao.interpolate("a", "z", 4).isEmpty());
+		assertTrue(BaseMongoDao.interpolate(1, new Date(), 4).isEmpty());
+		assertTrue(BaseMongoDao.interpolate(null, 10, 4).isEmpty());
+	}
+
+	/**
+	 * Stands in for a server: stores inserted documents, with unique indexes on _id and sku, and stops a message at
+	 * its first duplicate as the server does.
+	 */
+	static class FakeServerDao extends BaseMongoDaoTestHarness {
+		final Map<Object, DBObject> stored = new HashMap<Object, DBObject>();
+		final Set<Object> skus = new HashSet<Object>();
+		int messages;
+
+		FakeServerDao() throws DataAccessException {
+			super(null);
+		}
+
+		@Override
+		protected DBCollection getCollection() {
+			return null;
+		}
+
+		@Override
+		void insert(DBCollection coll, List<DBObject> docs, WriteConcern concern) {
+			messages++;
+			for (DBObject doc : docs) {
+				if (doc.get("_id") == null) {
+					doc.put("_id", new ObjectId());
+				}
+			}
+			for (DBObject doc : docs) {
+				if (stored.containsKey(doc.get("_id")) || skus.contains(doc.get("sku"))) {
+					throw new MongoException(11000, "E11000 duplicate key error");
+				}
+				stored.put(doc.get("_id"), doc);
+				skus.add(doc.get("sku"));
+			}
+		}
+
+		@Override
+		boolean exists(DBCollection coll, Object id) {
+			return stored.containsKey(id);
+		}
+
+		/**
+		 * Upserts by _id: replaces the document, or applies $set and $unset to it.
+		 */
+		@Override
+		WriteResult upsert(DBCollection coll, DBObject query, DBObject update, WriteConcern concern) {
+			messages++;
+			Object id = query.get("_id");
+			DBObject doc = stored.get(id);
+			if (doc == null || !update.containsField("$set") && !update.containsField("$unset")) {
+				doc = new BasicDBObject("_id", id);
+				stored.put(id, doc);
+			}
+			if (update.containsField("$set") || update.containsField("$unset")) {
+				if (update.containsField("$set")) {
+					doc.putAll((DBObject) update.get("$set"));
+				}
+				if (update.containsField("$unset")) {
+					for (String key : ((DBObject) update.get("$unset")).keySet()) {
+						doc.removeField(key);
+					}
+				}
+			} else {
+				doc.putAll(update);
+			}
+			return null;
+		}
+
+		@Override
+		WriteResult remove(DBCollection coll, DBObject query, WriteConcern concern) {
+			messages++;
+			stored.remove(query.get("_id"));
+			return null;
+		}
+	}
+
+	@Test
+	public void testDeleteDropsPendingSave() throws Exception {
+		FakeServerDao dao = new FakeServerDao();
+		dao.enableWriteBehind(100, 60000, WriteConcern.NONE);
+		try {
+			dao.stored.put("k", new BasicDBObject("_id", "k").append("sku", "old"));
+			dao.saveUsingProperty("mongo.byId", item("k", "new"), "k");
+			dao.deleteUsingProperty("mongo.byId", "k");
+			dao.getWriteBehind().flush();
+			assertNull(dao.stored.get("k"));
+			assertEquals(0, dao.getWriteBehind().getPending());
+		} finally {
+			dao.disableWriteBehind();
+		}
+	}
+
+	@Test
+	public void testChangesFlushPendingSave() throws Exception {
+		FakeServerDao dao = new FakeServerDao();
+		dao.enableWriteBehind(100, 60000, WriteConcern.NONE);
+		try {
+			Map<String, Object> saved = item("k", "new");
+			saved.put("note", "keep");
+			dao.saveUsingProperty("mongo.byId", saved, "k");
+			dao.modifyUsingProperty("mongo.byId", new DocumentChanges().set("sku", "changed").unset("note"), "k");
+			dao.getWriteBehind().flush();
+			assertEquals("changed", dao.stored.get("k").get("sku"));
+			assertFalse(dao.stored.get("k").containsField("note"));
+		} finally {
+			dao.disableWriteBehind();
+		}
+	}
+
+	private static Map<String, Object> item(Object id, String sku) {
+		Map<String, Object> item = new HashMap<String, Object>();
+		if (id != null) {
+			item.put("_id", id);
+		}
+		item.put("sku", sku);
+		return item;
+	}
+
+	@Test
+	public void testInsertAllRetryCountsWrittenDocuments() throws Exception {
+		FakeServerDao dao = new FakeServerDao();
+		dao.stored.put("old", new BasicDBObject("_id", "old"));
+		dao.skus.add("taken");
+
+		List<Map<String, Object>> items = new ArrayList<Map<String, Object>>();
+		items.add(item(null, "a"));
+		items.add(item(null, "b"));
+		items.add(item("own", "c"));
+		items.add(item(null, "taken"));
+		items.add(item(null, "d"));
+		items.add(item("old", "e"));
+		BulkResult result = dao.insertAll(items, WriteConcern.SAFE);
+
+		// One message for the chunk, which stops at "taken", then one per document.
+		assertEquals(1 + items.size(), dao.messages);
+		// "a" and "b" were written by the chunk; their generated _ids are found, so they count as inserted.
+		assertEquals(Arrays.asList(2, 3, 5), new ArrayList<Integer>(result.getFailures().keySet()));
+		assertEquals(3, result.getSucceeded());
+		for (int i = 0; i < items.size(); i++) {
+			assertTrue(result.isDuplicate(i) || result.getFailure(i) == null);
+			assertTrue(items.get(i).get("_id") != null);
+		}
+		assertEquals(5, dao.stored.size());
+	}
+}
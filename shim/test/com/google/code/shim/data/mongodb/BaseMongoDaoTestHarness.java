@@ -0,0 +1,16 @@
+package com.google.code.shim.data.mongodb;
+
+import com.google.code.shim.data.DataAccessException;
+import com.mongodb.DB;
+
+/**
+ * Proxy class for testing the parts of BaseMongoDao that do not need a running server.
+ * @author dgau
+ *
+ */
+public class BaseMongoDaoTestHarness extends BaseMongoDao {
+
+	public BaseMongoDaoTestHarness(DB injectedDb) throws DataAccessException {
+		super(injectedDb, "sales");
+	}
+}
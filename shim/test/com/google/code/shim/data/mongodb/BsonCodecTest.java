@@ -0,0 +1,100 @@
+package com.google.code.shim.data.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.io.BasicOutputBuffer;
+import org.junit.Test;
+
+import com.google.code.shim.collections.StringKeyMap;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBEncoder;
+
+public class BsonCodecTest {
+
+	private static byte[] encode(DBObject doc) {
+		BasicOutputBuffer buffer = new BasicOutputBuffer();
+		new DefaultDBEncoder().writeObject(buffer, doc);
+		return buffer.toByteArray();
+	}
+
+	private static DBObject decode(byte[] bytes) {
+		return StringKeyDocument.DECODER_FACTORY.create().decode(bytes, (com.mongodb.DBCollection) null);
+	}
+
+	@Test
+	public void testRoundTrip() {
+		Calendar when = Calendar.getInstance();
+		when.setTimeInMillis(1330000000000L);
+		Map<String, Object> address = new LinkedHashMap<String, Object>();
+		address.put("city", "Boston");
+		address.put("lat", new BigDecimal("42.36"));
+		List<Object> prices = new ArrayList<Object>(Arrays.asList(new BigDecimal("1.50"), 2, null));
+		Map<String, Object> doc = new LinkedHashMap<String, Object>();
+		doc.put("name", "store 1");
+		doc.put("address", address);
+		doc.put("prices", prices);
+		doc.put("unit", TimeUnit.SECONDS);
+		doc.put("grade", Character.valueOf('A'));
+		doc.put("opened", when);
+		doc.put("visits", new BigInteger("12345678901"));
+		doc.put("huge", new BigInteger("123456789012345678901234567890"));
+
+		DBObject read = decode(encode(new MapDocument(doc)));
+
+		// The caller's map is written as it is, not converted in place.
+		assertTrue(address.get("lat") instanceof BigDecimal);
+		assertTrue(prices.get(0) instanceof BigDecimal);
+
+		assertTrue(read instanceof StringKeyMap);
+		StringKeyMap map = StringKeyDocument.asStringKeyMap(read);
+		assertSame(read, map);
+		assertEquals("store 1", map.getString("name"));
+		StringKeyMap readAddress = (StringKeyMap) map.get("address");
+		assertEquals(42.36, (Double) readAddress.get("lat"), 0.0);
+		assertEquals(Arrays.<Object> asList(1.5, 2, null), map.get("prices"));
+		assertEquals("SECONDS", map.get("unit"));
+		assertEquals("A", map.get("grade"));
+		assertEquals(new Date(1330000000000L), map.get("opened"));
+		assertEquals(12345678901L, map.get("visits"));
+		assertEquals(1.2345678901234568E29, (Double) map.get("huge"), 1e15);
+	}
+
+	@Test
+	public void testCopyIsIndependent() {
+		Map<String, Object> nested = new LinkedHashMap<String, Object>();
+		nested.put("n", new BigDecimal("1"));
+		Map<String, Object> doc = new LinkedHashMap<String, Object>();
+		doc.put("nested", nested);
+		doc.put("list", new ArrayList<Object>(Arrays.asList("a")));
+
+		DBObject copy = (DBObject) BsonCodec.copy(doc);
+		nested.put("n", 2);
+		assertEquals(1.0, ((DBObject) copy.get("nested")).get("n"));
+		assertFalse(copy.get("nested") instanceof MapDocument);
+		assertEquals(Arrays.asList("a"), copy.get("list"));
+	}
+
+	@Test
+	public void testMapDocumentTakesGeneratedId() {
+		Map<String, Object> doc = new LinkedHashMap<String, Object>();
+		new MapDocument(doc).put("_id", "generated");
+		assertEquals("generated", doc.get("_id"));
+		assertEquals(1.5, new MapDocument(new LinkedHashMap<String, Object>(new BasicDBObject("a", new BigDecimal(
+			"1.5")))).toMap().get("a"));
+	}
+}
@@ -0,0 +1,73 @@
+package com.google.code.shim.data.mongodb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+public class BulkChunksTest {
+
+	private static List<DBObject> docs(int count, int textLength) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < textLength; i++) {
+			text.append('x');
+		}
+		List<DBObject> docs = new ArrayList<DBObject>();
+		for (int i = 0; i < count; i++) {
+			docs.add(new BasicDBObject("n", i).append("text", text.toString()));
+		}
+		return docs;
+	}
+
+	@Test
+	public void testSplitByCount() {
+		List<int[]> chunks = BulkChunks.split(docs(25, 10), 10, 0);
+		assertEquals(3, chunks.size());
+		assertArrayEquals(new int[] { 0, 10 }, chunks.get(0));
+		assertArrayEquals(new int[] { 10, 20 }, chunks.get(1));
+		assertArrayEquals(new int[] { 20, 25 }, chunks.get(2));
+	}
+
+	@Test
+	public void testSplitByBytes() {
+		// Each document is a little over 1000 bytes of BSON, so three fit in 3500 bytes.
+		List<int[]> chunks = BulkChunks.split(docs(10, 1000), 100, 3500);
+		assertEquals(4, chunks.size());
+		assertArrayEquals(new int[] { 0, 3 }, chunks.get(0));
+		assertArrayEquals(new int[] { 9, 10 }, chunks.get(3));
+	}
+
+	@Test
+	public void testOversizedDocumentGetsOwnChunk() {
+		List<int[]> chunks = BulkChunks.split(docs(3, 1000), 100, 500);
+		assertEquals(3, chunks.size());
+		assertArrayEquals(new int[] { 1, 2 }, chunks.get(1));
+	}
+
+	@Test
+	public void testEmpty() {
+		assertTrue(BulkChunks.split(new ArrayList<DBObject>(), 10, 100).isEmpty());
+	}
+
+	@Test
+	public void testResultOutcomes() {
+		BulkResult result = new BulkResult("insert", 5, true);
+		result.fail(3, new MongoException(11000, "E11000 duplicate key error"));
+		result.fail(1, new MongoException(10334, "object too large"));
+		assertEquals(3, result.getSucceeded());
+		assertEquals(2, result.getFailed());
+		assertTrue(result.isDuplicate(3));
+		assertFalse(result.isDuplicate(1));
+		assertFalse(result.isDuplicate(0));
+		assertEquals(Integer.valueOf(1), result.getFailures().firstKey());
+	}
+}
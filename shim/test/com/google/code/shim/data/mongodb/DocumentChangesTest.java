@@ -0,0 +1,98 @@
+package com.google.code.shim.data.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+public class DocumentChangesTest {
+
+	private static Map<String, Object> document() {
+		Map<String, Object> address = new LinkedHashMap<String, Object>();
+		address.put("city", "Boston");
+		address.put("zip", "02110");
+		Map<String, Object> doc = new LinkedHashMap<String, Object>();
+		doc.put("name", "store 1");
+		doc.put("visits", 10);
+		doc.put("rating", 4.5);
+		doc.put("tags", Arrays.asList("a", "b"));
+		doc.put("address", address);
+		doc.put("note", "temporary");
+		return doc;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDiff() {
+		Map<String, Object> before = document();
+		Map<String, Object> after = document();
+		((Map<String, Object>) after.get("address")).put("city", "Cambridge");
+		after.put("visits", 12);
+		after.put("rating", new BigDecimal("4.5"));
+		after.remove("note");
+		after.put("opened", "2012");
+
+		DBObject update = DocumentChanges.diff(before, after).toDBObject();
+		DBObject set = (DBObject) update.get("$set");
+		assertEquals(3, set.keySet().size());
+		assertEquals("Cambridge", set.get("address.city"));
+		assertEquals(12, set.get("visits"));
+		assertEquals("2012", set.get("opened"));
+		assertEquals(new BasicDBObject("note", 1), update.get("$unset"));
+		assertNull(update.get("$inc"));
+	}
+
+	@Test
+	public void testDiffIncrements() {
+		Map<String, Object> before = document();
+		Map<String, Object> after = document();
+		after.put("visits", 7);
+		after.put("tags", Arrays.asList("a", "c"));
+
+		DBObject update = DocumentChanges.diff(before, after, true).toDBObject();
+		assertEquals(new BasicDBObject("visits", -3), update.get("$inc"));
+		assertEquals(Arrays.asList("a", "c"), ((DBObject) update.get("$set")).get("tags"));
+	}
+
+	@Test
+	public void testNoChanges() {
+		assertTrue(DocumentChanges.diff(document(), document()).isEmpty());
+		assertTrue(DocumentChanges.diff(document(), document(), true).toDBObject().keySet().isEmpty());
+	}
+
+	@Test
+	public void testExplicitChanges() {
+		DocumentChanges changes = new DocumentChanges().set("a.b", 1).inc("count", 2).inc("count", 3).unset("old")
+			.inc("total", 1.5);
+		assertFalse(changes.isEmpty());
+		DBObject update = changes.toDBObject();
+		assertEquals(1, ((DBObject) update.get("$set")).get("a.b"));
+		assertEquals(5, ((DBObject) update.get("$inc")).get("count"));
+		assertEquals(1.5, ((DBObject) update.get("$inc")).get("total"));
+
+		// A later change to the same field replaces an earlier one.
+		update = changes.set("count", 0).toDBObject();
+		assertEquals(0, ((DBObject) update.get("$set")).get("count"));
+		assertFalse(((DBObject) update.get("$inc")).containsField("count"));
+	}
+
+	@Test
+	public void testModifierSetsEveryField() {
+		Map<String, Object> fields = new LinkedHashMap<String, Object>();
+		fields.put("a", 1);
+		fields.put("b.c", new BigDecimal("2.5"));
+		DBObject set = (DBObject) BaseMongoDao.modifier(new MapDocument(fields)).get("$set");
+		assertEquals(1, set.get("a"));
+		assertEquals(2.5, set.get("b.c"));
+	}
+}
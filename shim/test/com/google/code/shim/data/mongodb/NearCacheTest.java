@@ -0,0 +1,121 @@
+package com.google.code.shim.data.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.code.shim.collections.StringKeyMap;
+import com.mongodb.BasicDBObject;
+
+public class NearCacheTest {
+
+	private static StringKeyMap document(Object id, String name) {
+		StringKeyMap doc = new StringKeyMap();
+		doc.put("_id", id);
+		doc.put("name", name);
+		StringKeyMap nested = new StringKeyMap();
+		nested.put("theme", "dark");
+		doc.put("settings", nested);
+		List<Object> tags = new ArrayList<Object>();
+		tags.add("a");
+		doc.put("tags", tags);
+		return doc;
+	}
+
+	@Test
+	public void testHitsAndCopies() {
+		NearCache cache = new NearCache(10, 60000);
+		assertNull(cache.get("q1"));
+		StringKeyMap original = document(1, "one");
+		cache.put("q1", original, cache.generation());
+
+		// Changing the document put, or one got, leaves the cache alone.
+		original.put("name", "changed");
+		StringKeyMap hit = cache.get("q1");
+		assertEquals("one", hit.get("name"));
+		((StringKeyMap) hit.get("settings")).put("theme", "light");
+		hit.put("tags", null);
+		StringKeyMap again = cache.get("q1");
+		assertEquals("dark", ((StringKeyMap) again.get("settings")).get("theme"));
+		assertNotNull(again.get("tags"));
+
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedDropped() {
+		NearCache cache = new NearCache(2, 60000);
+		cache.put("q1", document(1, "one"), cache.generation());
+		cache.put("q2", document(2, "two"), cache.generation());
+		cache.get("q1");
+		cache.put("q3", document(3, "three"), cache.generation());
+		assertEquals(2, cache.size());
+		assertNotNull(cache.get("q1"));
+		assertNull(cache.get("q2"));
+		assertEquals(1, cache.getEvictions());
+	}
+
+	@Test
+	public void testExpiry() throws Exception {
+		NearCache cache = new NearCache(10, 20);
+		cache.put("q1", document(1, "one"), cache.generation());
+		Thread.sleep(50);
+		assertNull(cache.get("q1"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testInvalidation() {
+		NearCache cache = new NearCache(10, 60000);
+		cache.put("byId 1", document(1, "one"), cache.generation());
+		cache.put("byName one", document(1, "one"), cache.generation());
+		cache.put("byId 2", document(2, "two"), cache.generation());
+
+		// A write to one document evicts it, however it was found.
+		cache.invalidate(new BasicDBObject("_id", 1));
+		assertEquals(1, cache.size());
+		assertNotNull(cache.get("byId 2"));
+
+		// Any other write empties the cache.
+		cache.invalidate(new BasicDBObject("name", "two"));
+		assertEquals(0, cache.size());
+		cache.put("byId 2", document(2, "two"), cache.generation());
+		cache.invalidate(new BasicDBObject("_id", new BasicDBObject("$in", new int[] { 2 })));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testStaleReadNotCached() {
+		NearCache cache = new NearCache(10, 60000);
+		// A lookup misses and reads the document; meanwhile a write to it evicts it.
+		long generation = cache.generation();
+		cache.invalidate(new BasicDBObject("_id", 1));
+		assertFalse(cache.put("byId 1", document(1, "old"), generation));
+		assertNull(cache.get("byId 1"));
+
+		generation = cache.generation();
+		cache.clear();
+		assertFalse(cache.put("byId 1", document(1, "old"), generation));
+		assertTrue(cache.put("byId 1", document(1, "new"), cache.generation()));
+		assertEquals("new", cache.get("byId 1").get("name"));
+	}
+
+	@Test
+	public void testDocumentWithoutIdNotCached() {
+		NearCache cache = new NearCache(10, 60000);
+		StringKeyMap projected = document(1, "one");
+		projected.remove("_id");
+		assertFalse(cache.put("nameOnly 1", projected, cache.generation()));
+		assertNull(cache.get("nameOnly 1"));
+		assertEquals(0, cache.size());
+	}
+}
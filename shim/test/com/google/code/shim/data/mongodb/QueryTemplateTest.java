@@ -0,0 +1,96 @@
+package com.google.code.shim.data.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import com.google.code.shim.data.DataAccessException;
+import com.mongodb.DBObject;
+
+public class QueryTemplateTest {
+
+	@Test
+	public void testStringsAreNotInjected() throws Exception {
+		QueryTemplate template = QueryTemplate.compile("{ name : ? }");
+		String hostile = "x\", $where : \"1 == 1";
+		DBObject query = template.bind(hostile);
+		assertEquals(1, query.keySet().size());
+		assertEquals(hostile, query.get("name"));
+	}
+
+	@Test
+	public void testTypedBinding() throws Exception {
+		QueryTemplate template = QueryTemplate.compile("{ _id : ?, created : { $gte : ? }, tags : { $in : ? }, "
+			+ "address : ?, price : ? }");
+		assertEquals(5, template.getParameterCount());
+
+		ObjectId id = new ObjectId();
+		Date created = new Date(1330000000000L);
+		Map<String, Object> address = new LinkedHashMap<String, Object>();
+		address.put("city", "Boston");
+		address.put("zip", "02110");
+		DBObject query = template.bind(id, created, Arrays.asList("a", "b"), address, new BigDecimal("9.95"));
+
+		assertEquals(id, query.get("_id"));
+		assertEquals(created, ((DBObject) query.get("created")).get("$gte"));
+		List<?> tags = (List<?>) ((DBObject) query.get("tags")).get("$in");
+		assertEquals(Arrays.<Object> asList("a", "b"), tags);
+		assertEquals("Boston", ((DBObject) query.get("address")).get("city"));
+		assertEquals(9.95, (Double) query.get("price"), 0.0);
+	}
+
+	@Test
+	public void testQuestionMarksInStringsAreLiterals() throws Exception {
+		QueryTemplate template = QueryTemplate.compile("{ q : \"why?\", r : 'who?', s : ? }");
+		assertEquals(1, template.getParameterCount());
+		DBObject query = template.bind("value");
+		assertEquals("why?", query.get("q"));
+		assertEquals("who?", query.get("r"));
+		assertEquals("value", query.get("s"));
+	}
+
+	@Test
+	public void testTooFewParameters() throws Exception {
+		QueryTemplate template = QueryTemplate.compile("{ a : ?, b : [ ?, ? ] }");
+		try {
+			template.bind("one");
+			fail("Expected too few parameters to fail");
+		} catch (DataAccessException e) {
+			assertTrue(e.getMessage().contains("Expected 3 parameters"));
+		}
+	}
+
+	@Test
+	public void testBindingsAreIndependent() throws Exception {
+		QueryTemplate template = QueryTemplate.compile("{ a : { b : ? }, c : [ 1, ? ] }");
+		DBObject first = template.bind(1, 2);
+		DBObject second = template.bind(3, 4);
+		assertNotSame(first.get("a"), second.get("a"));
+		assertEquals(1, ((DBObject) first.get("a")).get("b"));
+		assertEquals(3, ((DBObject) second.get("a")).get("b"));
+		assertEquals(2, ((List<?>) first.get("c")).get(1));
+		assertEquals(4, ((List<?>) second.get("c")).get(1));
+
+		// Changing a bound query leaves the template alone.
+		((DBObject) first.get("a")).put("b", 99);
+		assertEquals(5, ((DBObject) template.bind(5, 6).get("a")).get("b"));
+	}
+
+	@Test
+	public void testNoParameters() throws Exception {
+		QueryTemplate template = QueryTemplate.compile("{ name : 1, _id : 0 }");
+		assertEquals(0, template.getParameterCount());
+		assertEquals(1, template.bind().get("name"));
+	}
+}
@@ -0,0 +1,126 @@
+package com.google.code.shim.data.mongodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.code.shim.data.DataAccessException;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+public class WriteBehindBufferTest {
+
+	/**
+	 * Records the batches it is given.
+	 */
+	private static class RecordingWriter implements WriteBehindBuffer.Writer {
+		final List<List<DBObject>> queries = new ArrayList<List<DBObject>>();
+		final List<List<DBObject>> updates = new ArrayList<List<DBObject>>();
+
+		@Override
+		public synchronized BulkResult write(List<DBObject> q, List<DBObject> u) {
+			queries.add(q);
+			updates.add(u);
+			return new BulkResult("test", q.size(), true);
+		}
+
+		synchronized int documents() {
+			int n = 0;
+			for (List<DBObject> batch : queries) {
+				n += batch.size();
+			}
+			return n;
+		}
+	}
+
+	private WriteBehindBuffer buffer;
+
+	@After
+	public void close() throws Exception {
+		if (buffer != null) {
+			buffer.close();
+		}
+	}
+
+	@Test
+	public void testCoalescing() throws Exception {
+		RecordingWriter writer = new RecordingWriter();
+		buffer = new WriteBehindBuffer("test", writer, 100, 60000);
+
+		buffer.add(new BasicDBObject("_id", "a"), new BasicDBObject("count", 1).append("seen", "mon"), true);
+		buffer.add(new BasicDBObject("_id", "a"), new BasicDBObject("count", 2), false);
+		buffer.add(new BasicDBObject("_id", "a"), new BasicDBObject("last.by", "x"), false);
+		buffer.add(new BasicDBObject("_id", "b"), new BasicDBObject("count", 7), true);
+		assertEquals(2, buffer.getPending());
+		assertEquals(2, buffer.getCoalesced());
+
+		BulkResult result = buffer.flush();
+		assertEquals(2, result.getCount());
+		assertEquals(1, writer.queries.size());
+		assertEquals("a", writer.queries.get(0).get(0).get("_id"));
+		DBObject a = writer.updates.get(0).get(0);
+		assertEquals(2, a.get("count"));
+		assertEquals("mon", a.get("seen"));
+		assertEquals("x", ((DBObject) a.get("last")).get("by"));
+		assertEquals(7, writer.updates.get(0).get(1).get("count"));
+		assertEquals(2, buffer.getWritten());
+		assertEquals(0, buffer.getPending());
+
+		// A modification on its own is sent as modifiers; a later save replaces it.
+		buffer.add(new BasicDBObject("_id", "c"), new BasicDBObject("count", 1), false);
+		buffer.flush();
+		assertTrue(writer.updates.get(1).get(0).containsField("$set"));
+		buffer.add(new BasicDBObject("_id", "c"), new BasicDBObject("count", 1), false);
+		buffer.add(new BasicDBObject("_id", "c"), new BasicDBObject("count", 5), true);
+		buffer.flush();
+		assertEquals(5, writer.updates.get(2).get(0).get("count"));
+		assertNull(writer.updates.get(2).get(0).get("$set"));
+	}
+
+	@Test
+	public void testFlushWhenFull() throws Exception {
+		RecordingWriter writer = new RecordingWriter();
+		buffer = new WriteBehindBuffer("test", writer, 10, 60000);
+		for (int i = 0; i < 25; i++) {
+			buffer.add(new BasicDBObject("_id", i), new BasicDBObject("n", i), true);
+		}
+		assertTrue(buffer.awaitFlush(5, TimeUnit.SECONDS));
+		assertEquals(25, writer.documents());
+		assertEquals(25, buffer.getWritten());
+	}
+
+	@Test
+	public void testTimedFlush() throws Exception {
+		RecordingWriter writer = new RecordingWriter();
+		buffer = new WriteBehindBuffer("test", writer, 100, 20);
+		buffer.add(new BasicDBObject("_id", 1), new BasicDBObject("n", 1), true);
+		long deadline = System.currentTimeMillis() + 5000;
+		while (writer.documents() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, writer.documents());
+	}
+
+	@Test
+	public void testCloseFlushes() throws Exception {
+		RecordingWriter writer = new RecordingWriter();
+		WriteBehindBuffer closing = new WriteBehindBuffer("test", writer, 100, 60000);
+		closing.add(new BasicDBObject("_id", 1), new BasicDBObject("n", 1), true);
+		closing.close();
+		assertEquals(1, writer.documents());
+		try {
+			closing.add(new BasicDBObject("_id", 2), new BasicDBObject("n", 2), true);
+			fail("Expected a closed buffer to refuse writes");
+		} catch (DataAccessException e) {
+			// Expected.
+		}
+	}
+}
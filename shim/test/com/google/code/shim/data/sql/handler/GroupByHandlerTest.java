@@ -0,0 +1,134 @@
+package com.google.code.shim.data.sql.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.dbutils.DbUtils;
+import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.code.shim.collections.Transformations;
+import com.google.code.shim.collections.Transformations.AggregateFunction;
+
+public class GroupByHandlerTest {
+
+	static JDBCDataSource ds = new JDBCDataSource();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		ds.setUrl("jdbc:hsqldb:mem:groupbytest");
+		Connection conn = ds.getConnection("sa", "");
+
+		String create =
+			"create table t_pets( state varchar(2) not null, " +
+				"pet_type varchar(10), " +
+				"city varchar(20), " +
+				"owner_count integer " +
+				")";
+		Statement createStatement = conn.createStatement();
+		createStatement.execute(create);
+		createStatement.close();
+
+		// Deliberately unsorted.
+		Object[][] pets = new Object[][] {
+			new Object[] { "IL", "dog", "Chicago", 100 },
+			new Object[] { "WI", "dog", "Madison", 105 },
+			new Object[] { "IL", "cat", "Chicago", 50 },
+			new Object[] { "MN", "dog", "St Paul", 110 },
+			new Object[] { "IL", "dog", "Rockford", 100 },
+			new Object[] { "WI", "cat", "Madison", 30 },
+			new Object[] { "MN", "fish", "St Paul", 60 },
+			new Object[] { "IL", "cat", "Rockford", 50 },
+			new Object[] { "MN", "snake", "St Paul", null }
+		};
+
+		QueryRunner qr = new QueryRunner(ds);
+		qr.batch("insert into t_pets (state, pet_type, city, owner_count) values (?,?,?,?)", pets);
+
+		DbUtils.closeQuietly(conn);
+	}
+
+	private static List<Map<String, Object>> query(GroupByHandler handler) throws SQLException {
+		return query("select state, pet_type, city, owner_count from t_pets", handler);
+	}
+
+	private static <T> T query(String sql, ResultSetHandler<T> handler) throws SQLException {
+		QueryRunner qr = new QueryRunner(ds);
+		return qr.query(sql, handler);
+	}
+
+	@Test
+	public void testSumBySingleKey() {
+		try {
+			List<Map<String, Object>> results = query(new GroupByHandler("owner_count", AggregateFunction.SUM, "state"));
+
+			assertEquals(3, results.size());
+			// First-encountered order.
+			assertEquals("IL", results.get(0).get("state"));
+			assertEquals(300.0, ((Number) results.get(0).get("owner_count")).doubleValue(), 0);
+			assertEquals("WI", results.get(1).get("state"));
+			assertEquals(135.0, ((Number) results.get(1).get("owner_count")).doubleValue(), 0);
+			assertEquals("MN", results.get(2).get("state"));
+			assertEquals(170.0, ((Number) results.get(2).get("owner_count")).doubleValue(), 0);
+
+		} catch (SQLException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testMatchesTransformationsGroupBy() {
+		try {
+			for (AggregateFunction fc : new AggregateFunction[] { AggregateFunction.MIN, AggregateFunction.MAX,
+				AggregateFunction.COUNT }) {
+				String sql = "select state, pet_type, city, owner_count from t_pets where owner_count is not null";
+				List<Map<String, Object>> streamed = query(sql, new GroupByHandler("owner_count", fc, "state",
+					"pet_type"));
+				List<Map<String, Object>> table = query(sql, new RowListHandler());
+				List<Map<String, Object>> materialized = Transformations.groupBy(table, "owner_count", fc, "state",
+					"pet_type");
+
+				Transformations.sort(streamed, "state", "pet_type");
+				assertEquals(materialized.size(), streamed.size());
+				for (int i = 0; i < materialized.size(); i++) {
+					assertEquals(materialized.get(i).get("state"), streamed.get(i).get("state"));
+					assertEquals(materialized.get(i).get("pet_type"), streamed.get(i).get("pet_type"));
+					assertEquals(((Number) materialized.get(i).get("owner_count")).doubleValue(),
+						((Number) streamed.get(i).get("owner_count")).doubleValue(), 0);
+				}
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testNullsIgnored() {
+		try {
+			List<Map<String, Object>> results = query(new GroupByHandler("owner_count", AggregateFunction.AVG,
+				"pet_type"));
+			for (Map<String, Object> row : results) {
+				if ("snake".equals(row.get("pet_type"))) {
+					assertNull(row.get("owner_count"));
+				} else if ("cat".equals(row.get("pet_type"))) {
+					assertEquals(130.0 / 3, ((Number) row.get("owner_count")).doubleValue(), 0.000001);
+				}
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.google.code.shim.data.sql.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.dbutils.DbUtils;
+import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.code.shim.collections.CompositeKey;
+import com.google.code.shim.collections.LongKeyMap;
+
+public class RowIndexHandlerTest {
+
+	static JDBCDataSource ds = new JDBCDataSource();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		ds.setUrl("jdbc:hsqldb:mem:rowindextest");
+		Connection conn = ds.getConnection("sa", "");
+
+		String create =
+			"create table t_pets( pet_id integer, " +
+				"state varchar(2) not null, " +
+				"pet_type varchar(10), " +
+				"owner_count integer " +
+				")";
+		Statement createStatement = conn.createStatement();
+		createStatement.execute(create);
+		createStatement.close();
+
+		Object[][] pets = new Object[][] {
+			new Object[] { 1, "IL", "dog", 100 },
+			new Object[] { 2, "WI", "dog", 105 },
+			new Object[] { 3, "IL", "cat", 50 },
+			new Object[] { 4, "MN", "dog", 110 },
+			new Object[] { 5, "IL", "dog", 120 },
+			new Object[] { null, "MN", "fish", 60 }
+		};
+
+		QueryRunner qr = new QueryRunner(ds);
+		qr.batch("insert into t_pets (pet_id, state, pet_type, owner_count) values (?,?,?,?)", pets);
+
+		DbUtils.closeQuietly(conn);
+	}
+
+	private static <T> T query(ResultSetHandler<T> handler) throws SQLException {
+		QueryRunner qr = new QueryRunner(ds);
+		return qr.query("select pet_id, state, pet_type, owner_count from t_pets order by pet_id", handler);
+	}
+
+	@Test
+	public void testUniqueIndex() {
+		try {
+			Map<Object, Map<String, Object>> index = query(new RowIndexHandler("STATE", "pet_type"));
+
+			assertEquals(5, index.size());
+			// A repeated key keeps the last row.
+			assertEquals(120, index.get(new CompositeKey("IL", "dog")).get("owner_count"));
+			assertEquals(50, index.get(new CompositeKey("IL", "cat")).get("owner_count"));
+			assertNull(index.get(new CompositeKey("WI", "cat")));
+
+			Map<Object, Map<String, Object>> byId = query(new RowIndexHandler(10, "pet_id"));
+			assertEquals("WI", byId.get(2).get("state"));
+			// Result set order.
+			List<Object> ids = new ArrayList<Object>(byId.keySet());
+			assertEquals(4, ids.get(ids.size() - 2));
+
+		} catch (SQLException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testGroupIndex() {
+		try {
+			Map<Object, List<Map<String, Object>>> index = query(new RowGroupIndexHandler("state"));
+
+			assertEquals(3, index.size());
+			List<Map<String, Object>> il = index.get("IL");
+			assertEquals(3, il.size());
+			assertEquals(1, il.get(0).get("pet_id"));
+			assertEquals(5, il.get(2).get("pet_id"));
+			assertEquals(2, index.get("MN").size());
+
+		} catch (SQLException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testLongKeyIndex() {
+		try {
+			LongKeyMap<Map<String, Object>> index = query(new LongKeyRowIndexHandler("pet_id"));
+
+			// The row without an id is skipped.
+			assertEquals(5, index.size());
+			assertEquals("cat", index.get(3).get("pet_type"));
+			assertFalse(index.containsKey(0));
+
+		} catch (SQLException e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.google.code.shim.data.sql.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class ColumnConverterTest {
+
+	@Test
+	public void testCompile() throws Exception {
+		ColumnConverter[] converters = ColumnConverter.compile(new String[] { "varchar", "INTEGER", "bigint", "boolean",
+			"numeric" });
+		assertEquals("", converters[0].convert(""));
+		assertEquals(42, converters[1].convert("42"));
+		assertNull(converters[1].convert(""));
+		assertEquals(9876543210L, converters[2].convert("9876543210"));
+		assertEquals(Boolean.TRUE, converters[3].convert("Yes"));
+		assertEquals(Boolean.FALSE, converters[3].convert("0"));
+		assertEquals(1.5d, converters[4].convert("1.5"));
+
+		try {
+			ColumnConverter.compile(new String[] { "varchar", "blob" });
+			fail("blob is not supported");
+		} catch (ParseException e) {
+			assertEquals(1, e.getErrorOffset());
+		}
+	}
+
+	@Test
+	public void testTimestamp() throws Exception {
+		ColumnConverter converter = ColumnConverter.forType("timestamp");
+
+		Timestamp ts = (Timestamp) converter.convert("2012-03-04T05:06:07.123456789Z");
+		Calendar utc = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
+		utc.setTime(ts);
+		assertEquals(2012, utc.get(Calendar.YEAR));
+		assertEquals(Calendar.MARCH, utc.get(Calendar.MONTH));
+		assertEquals(5, utc.get(Calendar.HOUR_OF_DAY));
+		assertEquals(123456789, ts.getNanos());
+
+		Timestamp offset = (Timestamp) converter.convert("2012-03-04 00:06:07.123456789-05:00");
+		assertEquals(ts, offset);
+
+		Timestamp local = (Timestamp) converter.convert("2012-03-04 05:06:07.5");
+		assertEquals(500000000, local.getNanos());
+		assertEquals(Timestamp.valueOf("2012-03-04 05:06:07.5"), local);
+
+		assertEquals(java.sql.Date.valueOf("2012-02-29"), ColumnConverter.forType("date").convert("2012-02-29"));
+		assertEquals(java.sql.Time.valueOf("23:59:58"), ColumnConverter.forType("time").convert("23:59:58"));
+
+		Date datetime = (Date) ColumnConverter.forType("datetime").convert("2012-03-04T00:06:07-0500");
+		assertEquals(ts.getTime() - 123, datetime.getTime());
+	}
+
+	@Test
+	public void testInvalidTemporal() {
+		ColumnConverter converter = ColumnConverter.forType("date");
+		for (String bad : new String[] { "2012-3-04", "2012-03-04x", "20120304" }) {
+			try {
+				converter.convert(bad);
+				fail(bad + " is not a date");
+			} catch (ParseException e) {
+				// expected
+			}
+		}
+		try {
+			converter.convert("2012-02-30");
+			fail("February 30th is not a date");
+		} catch (IllegalArgumentException e) {
+			// expected
+		} catch (ParseException e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.google.code.shim.data.sql.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.commons.dbutils.QueryRunner;
+import org.hsqldb.jdbc.JDBCDataSource;
+
+/**
+ * Compares the {@link Loader.BulkMode bulk modes} by loading the same generated file into a fresh HSQLDB file
+ * database with each one. Not a unit test; run it from the command line:
+ *
+ * <pre>
+ * java -cp ... com.google.code.shim.data.sql.util.LoaderBenchmark [rows] [batch size]
+ * </pre>
+ *
+ * Rows default to 1,000,000 and the batch size to {@link Loader#DEFAULT_BATCH_SIZE}.
+ *
+ * @author dgau
+ *
+ */
+public class LoaderBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : Loader.DEFAULT_BATCH_SIZE;
+
+		File work = File.createTempFile("loaderbench", "");
+		work.delete();
+		work.mkdirs();
+		try {
+			File dataDir = new File(work, "data");
+			dataDir.mkdirs();
+			File data = new File(dataDir, "t_sale.txt");
+			writeFile(data, rows);
+			System.out.println(String.format("%,d rows, %,d bytes, batch size %d", rows, data.length(), batchSize));
+
+			for (Loader.BulkMode mode : Loader.BulkMode.values()) {
+				File dbDir = new File(work, mode.name().toLowerCase());
+				dbDir.mkdirs();
+				JDBCDataSource ds = new JDBCDataSource();
+				ds.setUrl("jdbc:hsqldb:file:" + new File(dbDir, "db").getPath() + ";hsqldb.log_data=false");
+				ds.setUser("sa");
+				ds.setPassword("");
+				QueryRunner qr = new QueryRunner(ds);
+				qr.update("create table t_sale( sale_id bigint primary key, store varchar(20) not null, "
+					+ "sku varchar(20) not null, quantity integer, price decimal(10,2), sold timestamp )");
+
+				Loader loader = new Loader(ds, "hsqldb");
+				loader.setBulkMode(mode);
+				loader.setBatchSize(batchSize);
+				loader.setTextDirectory(dbDir);
+				long start = System.nanoTime();
+				LoadResult result = loader.load(data, '\t', "UTF-8");
+				long millis = (System.nanoTime() - start) / 1000000;
+				System.out.println(String.format("%-10s %,8d ms %,10.0f rows/sec  %s", mode, millis, result
+					.getRowsLoaded()
+					* 1000.0 / Math.max(1, millis), result));
+				qr.update("shutdown");
+			}
+		} finally {
+			delete(work);
+		}
+	}
+
+	private static void writeFile(File file, int rows) throws Exception {
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"), 256 * 1024);
+		try {
+			out.write("sale_id\tstore\tsku\tquantity\tprice\tsold\n");
+			out.write("bigint\tvarchar\tvarchar\tinteger\tdecimal\ttimestamp\n");
+			for (int i = 1; i <= rows; i++) {
+				out.write(i + "\tstore " + (i % 97) + "\tSKU-" + (i % 5003) + "\t" + (i % 12) + "\t" + (i % 1000) / 10.0
+					+ "\t2012-0" + (1 + i % 9) + "-1" + (i % 10) + " 1" + (i % 10) + ":30:00\n");
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,527 @@
+package com.google.code.shim.data.sql.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.dbutils.DbUtils;
+import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.handlers.ScalarHandler;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.code.shim.data.DataAccessException;
+import com.google.code.shim.data.file.Checkpoint;
+import com.google.code.shim.data.file.FileCheckpoint;
+
+public class LoaderTest {
+
+	static JDBCDataSource ds = new JDBCDataSource();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		ds.setUrl("jdbc:hsqldb:mem:loadertest");
+		ds.setUser("sa");
+		ds.setPassword("");
+		Connection conn = ds.getConnection();
+
+		String create =
+			"create table t_city( city_id integer primary key, " +
+				"city_name varchar(30) not null, " +
+				"state varchar(2) not null, " +
+				"population integer " +
+				")";
+		Statement createStatement = conn.createStatement();
+		createStatement.execute(create);
+		createStatement.close();
+
+		DbUtils.closeQuietly(conn);
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void setUp() throws Exception {
+		new QueryRunner(ds).update("delete from t_city");
+	}
+
+	private static Object scalar(String sql, Object... parms) throws Exception {
+		return new QueryRunner(ds).query(sql, new ScalarHandler(), parms);
+	}
+
+	@Test
+	public void testBatchedLoadIsolatesBadRows() {
+		try {
+			Loader loader = new Loader(ds);
+			loader.setBatchSize(2);
+			loader.setCommitInterval(4);
+
+			LoadResult result = loader.load("/com/google/code/shim/data/sql/util/t_city.txt", '\t', null);
+
+			assertNotNull(result);
+			assertEquals("t_city", result.getTable());
+			assertEquals(7, result.getRowsRead());
+			// "not-a-number" population, and a duplicate city_id.
+			assertEquals(2, result.getRowsRejected());
+			assertEquals(5, result.getRowsLoaded());
+
+			assertEquals(5, ((Number) scalar("select count(*) from t_city")).intValue());
+			assertEquals("Rockford", scalar("select city_name from t_city where city_id=?", 2));
+			assertEquals(382578, ((Number) scalar("select population from t_city where city_id=?", 6)).intValue());
+
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testLoadReleasesConnection() {
+		try {
+			Loader loader = new Loader(ds);
+			loader.load("/com/google/code/shim/data/sql/util/t_city.txt", '\t', "UTF-8");
+
+			// A second load conflicts on every key, so every row is rejected but the load still completes.
+			LoadResult result = loader.load("/com/google/code/shim/data/sql/util/t_city.txt", '\t', "UTF-8");
+			assertEquals(0, result.getRowsLoaded());
+			assertEquals(7, result.getRowsRejected());
+			assertEquals(5, ((Number) scalar("select count(*) from t_city")).intValue());
+
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	private void assertUpserted(Loader.UpsertMode mode) throws Exception {
+		assertUpserted(new Loader(ds, "hsqldb"), mode);
+	}
+
+	private void assertUpserted(Loader loader, Loader.UpsertMode mode) throws Exception {
+		loader.load("/com/google/code/shim/data/sql/util/t_city.txt", '\t', null);
+
+		loader.setUpsertMode(mode);
+		LoadResult result = loader.load("/com/google/code/shim/data/sql/util/upsert/t_city.txt", '\t', null);
+		assertEquals(4, result.getRowsRead());
+		assertEquals(4, result.getRowsLoaded());
+		assertEquals(0, result.getRowsRejected());
+
+		assertEquals(7, ((Number) scalar("select count(*) from t_city")).intValue());
+		assertEquals(2700000, ((Number) scalar("select population from t_city where city_id=?", 1)).intValue());
+		assertEquals("Rockford IL", scalar("select city_name from t_city where city_id=?", 2));
+		assertEquals("Green Bay", scalar("select city_name from t_city where city_id=?", 7));
+		assertEquals(86265, ((Number) scalar("select population from t_city where city_id=?", 8)).intValue());
+		// Untouched rows.
+		assertEquals("Milwaukee", scalar("select city_name from t_city where city_id=?", 4));
+	}
+
+	@Test
+	public void testRowUpsert() {
+		try {
+			assertUpserted(Loader.UpsertMode.ROW);
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testMergeUpsert() {
+		try {
+			assertUpserted(Loader.UpsertMode.MERGE);
+
+			// The staging table is gone.
+			assertEquals(0, ((Number) scalar("select count(*) from information_schema.tables " +
+				"where table_name like 'T_CITY_STG%'")).intValue());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testMergeFallsBackToRowUpsert() {
+		try {
+			// The generic dialect has no merge or staging templates.
+			assertUpserted(new Loader(ds, "generic"), Loader.UpsertMode.MERGE);
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes a t_city file with the given number of rows; every 100th row has a bad population.
+	 */
+	private File cityFile(int rows, boolean keyed) throws Exception {
+		File dir = folder.newFolder("cities" + rows + keyed);
+		File file = new File(dir, "t_city.txt");
+		Writer out = new FileWriter(file);
+		try {
+			out.write((keyed ? "city_id*" : "city_id") + "\tcity_name\tstate\tpopulation\n");
+			out.write("integer\tvarchar\tvarchar\tinteger\n");
+			for (int i = 1; i <= rows; i++) {
+				out.write(i + "\tCity " + i + "\tWI\t" + (i % 100 == 0 ? "n/a" : String.valueOf(i * 10)) + "\n");
+			}
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	@Test
+	public void testParallelLoad() {
+		try {
+			Loader loader = new Loader(ds);
+			loader.setParallelism(4);
+			loader.setBatchSize(50);
+
+			LoadResult result = loader.load(cityFile(1000, false), '\t', "UTF-8");
+			assertEquals(4, result.getParts().size());
+			assertEquals(0, result.getFailedParts().size());
+			assertEquals(1000, result.getRowsRead());
+			assertEquals(10, result.getRowsRejected());
+			assertEquals(990, result.getRowsLoaded());
+
+			assertEquals(990, ((Number) scalar("select count(*) from t_city")).intValue());
+			assertEquals(9990, ((Number) scalar("select population from t_city where city_id=?", 999)).intValue());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testParallelUpsert() {
+		try {
+			for (Loader.UpsertMode mode : Loader.UpsertMode.values()) {
+				new QueryRunner(ds).update("delete from t_city");
+				Loader loader = new Loader(ds, "hsqldb");
+				loader.load("/com/google/code/shim/data/sql/util/t_city.txt", '\t', null);
+
+				loader.setParallelism(3);
+				loader.setBatchSize(20);
+				loader.setUpsertMode(mode);
+				loader.setPreserveKeyOrder(true);
+				LoadResult result = loader.load(cityFile(500, true), '\t', "UTF-8");
+				assertEquals(500, result.getRowsRead());
+				assertEquals(5, result.getRowsRejected());
+				assertEquals(495, result.getRowsLoaded());
+
+				assertEquals(495, ((Number) scalar("select count(*) from t_city")).intValue());
+				assertEquals("City 2", scalar("select city_name from t_city where city_id=?", 2));
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * A file checkpoint that fails to save after a given number of saves, as if the process had died.
+	 */
+	static class FailingCheckpoint extends FileCheckpoint {
+		private int saves;
+		private final int failAt;
+
+		FailingCheckpoint(File file, int failAt) {
+			super(file);
+			this.failAt = failAt;
+		}
+
+		@Override
+		public void afterCommit(Checkpoint.Position position) throws IOException {
+			if (++saves == failAt) {
+				throw new IOException("simulated crash");
+			}
+			super.afterCommit(position);
+		}
+	}
+
+	@Test
+	public void testCheckpointResume() {
+		try {
+			File file = cityFile(1000, true);
+			Loader loader = new Loader(ds);
+			loader.setBatchSize(100);
+			loader.setCommitInterval(100);
+			loader.setUpsertMode(Loader.UpsertMode.ROW);
+
+			File sidecar = FileCheckpoint.forDataFile(file).getFile();
+			loader.setCheckpoint(new FailingCheckpoint(sidecar, 2));
+			try {
+				loader.load(file, '\t', "UTF-8");
+				fail("Expected the load to fail");
+			} catch (DataAccessException e) {
+				// The first commit's checkpoint was saved.
+			}
+			// 100 rows written, and row 100 rejected.
+			assertEquals(101, FileCheckpoint.forDataFile(file).load().getRecords());
+
+			loader.setCheckpoint(FileCheckpoint.forDataFile(file));
+			LoadResult result = loader.load(file, '\t', "UTF-8");
+			assertEquals(899, result.getRowsRead());
+			assertEquals(990, ((Number) scalar("select count(*) from t_city")).intValue());
+			assertEquals("City 999", scalar("select city_name from t_city where city_id=?", 999));
+			assertFalse(sidecar.exists());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCheckpointedLoadTrimsFields() {
+		try {
+			File file = new File(folder.newFolder("padded"), "t_city.txt");
+			Writer out = new FileWriter(file);
+			try {
+				out.write("city_id\tcity_name\tstate\tpopulation\n");
+				out.write("integer\tvarchar\tvarchar\tinteger\n");
+				out.write(" 12 \t Padded City \tWI\t 340 \n");
+			} finally {
+				out.close();
+			}
+			Loader loader = new Loader(ds);
+			loader.setCheckpoint(FileCheckpoint.forDataFile(file));
+			LoadResult result = loader.load(file, '\t', "UTF-8");
+			assertEquals(1, result.getRowsLoaded());
+			assertEquals(0, result.getRowsRejected());
+			assertEquals("Padded City", scalar("select city_name from t_city where city_id=?", 12));
+			assertEquals(340, ((Number) scalar("select population from t_city where city_id=?", 12)).intValue());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * Wraps a connection so that its driver appears not to support savepoints.
+	 */
+	private static Connection withoutSavepoints(final Connection conn) {
+		return (Connection) Proxy.newProxyInstance(LoaderTest.class.getClassLoader(), new Class<?>[] { Connection.class },
+			new InvocationHandler() {
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					try {
+						Object value = method.invoke(conn, args);
+						if ("getMetaData".equals(method.getName())) {
+							final DatabaseMetaData meta = (DatabaseMetaData) value;
+							return Proxy.newProxyInstance(LoaderTest.class.getClassLoader(),
+								new Class<?>[] { DatabaseMetaData.class }, new InvocationHandler() {
+									@Override
+									public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+										if ("supportsSavepoints".equals(method.getName())) {
+											return Boolean.FALSE;
+										}
+										try {
+											return method.invoke(meta, args);
+										} catch (InvocationTargetException e) {
+											throw e.getCause();
+										}
+									}
+								});
+						}
+						return value;
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				}
+			});
+	}
+
+	@Test
+	public void testReplayCommitsSaveCheckpoint() {
+		try {
+			JDBCDataSource noSavepoints = new JDBCDataSource() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public Connection getConnection() throws SQLException {
+					return withoutSavepoints(super.getConnection());
+				}
+			};
+			noSavepoints.setUrl("jdbc:hsqldb:mem:loadertest");
+			noSavepoints.setUser("sa");
+			noSavepoints.setPassword("");
+			new QueryRunner(ds).update("insert into t_city values (20, 'Taken', 'WI', 1)");
+
+			File file = cityFile(50, false);
+			final List<Checkpoint.Position> saved = new ArrayList<Checkpoint.Position>();
+			Loader loader = new Loader(noSavepoints);
+			loader.setBatchSize(100);
+			loader.setCheckpoint(new FileCheckpoint(FileCheckpoint.forDataFile(file).getFile()) {
+				@Override
+				public void beforeCommit(Checkpoint.Position position, Connection conn) throws SQLException {
+					saved.add(position);
+					super.beforeCommit(position, conn);
+				}
+			});
+			LoadResult result = loader.load(file, '\t', "UTF-8");
+			assertEquals(49, result.getRowsLoaded());
+			assertEquals(1, result.getRowsRejected());
+
+			// The failed batch is replayed and committed row by row; each commit covers exactly the rows before it.
+			List<Long> lineStarts = new ArrayList<Long>();
+			InputStream in = new FileInputStream(file);
+			try {
+				long offset = 0;
+				int b;
+				lineStarts.add(0L);
+				while ((b = in.read()) >= 0) {
+					offset++;
+					if (b == '\n') {
+						lineStarts.add(offset);
+					}
+				}
+			} finally {
+				in.close();
+			}
+			List<Long> records = new ArrayList<Long>();
+			for (Checkpoint.Position position : saved) {
+				records.add(position.getRecords());
+				// Two header lines precede the records.
+				assertEquals(position.toString(), lineStarts.get((int) position.getRecords() + 2).longValue(),
+					position.getOffset());
+			}
+			assertEquals(Long.valueOf(1), records.get(0));
+			assertEquals(Long.valueOf(19), records.get(18));
+			assertEquals(Long.valueOf(21), records.get(19));
+			assertEquals(Long.valueOf(50), records.get(records.size() - 1));
+			assertEquals(50, ((Number) scalar("select count(*) from t_city")).intValue());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCompressedLoad() {
+		try {
+			File file = cityFile(1000, false);
+			File gzipped = new File(file.getParentFile(), "t_city.txt.gz");
+			InputStream in = new FileInputStream(file);
+			OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipped));
+			try {
+				byte[] buffer = new byte[8192];
+				int n;
+				while ((n = in.read(buffer)) >= 0) {
+					out.write(buffer, 0, n);
+				}
+			} finally {
+				in.close();
+				out.close();
+			}
+
+			Loader loader = new Loader(ds);
+			// Compressed files are loaded serially.
+			loader.setParallelism(4);
+			LoadResult result = loader.load(gzipped, '\t', "UTF-8");
+			assertEquals("t_city", result.getTable());
+			assertEquals(1000, result.getRowsRead());
+			assertEquals(990, result.getRowsLoaded());
+			assertEquals(990, ((Number) scalar("select count(*) from t_city")).intValue());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testMultiRowLoad() {
+		try {
+			Loader loader = new Loader(ds, "hsqldb");
+			loader.setBulkMode(Loader.BulkMode.MULTI_ROW);
+			loader.setBatchSize(4);
+
+			// A failing multi-row batch is still replayed row by row.
+			LoadResult result = loader.load("/com/google/code/shim/data/sql/util/t_city.txt", '\t', null);
+			assertEquals(2, result.getRowsRejected());
+			assertEquals(5, result.getRowsLoaded());
+
+			new QueryRunner(ds).update("delete from t_city");
+			loader.setBatchSize(64);
+			result = loader.load(cityFile(1000, false), '\t', "UTF-8");
+			assertEquals(990, result.getRowsLoaded());
+			assertEquals(990, ((Number) scalar("select count(*) from t_city")).intValue());
+			assertEquals(9990, ((Number) scalar("select population from t_city where city_id=?", 999)).intValue());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testTextTableLoad() {
+		JDBCDataSource fileDs = new JDBCDataSource();
+		try {
+			// Text tables need a database on disk, which reads its sources from its own directory.
+			File dir = folder.newFolder("textdb");
+			fileDs.setUrl("jdbc:hsqldb:file:" + new File(dir, "db").getPath());
+			fileDs.setUser("sa");
+			fileDs.setPassword("");
+			new QueryRunner(fileDs).update("create table t_city( city_id integer primary key, "
+				+ "city_name varchar(30) not null, state varchar(2) not null, population integer )");
+
+			Loader loader = new Loader(fileDs, "hsqldb");
+			loader.setBulkMode(Loader.BulkMode.TEXT_TABLE);
+			loader.setTextDirectory(dir);
+			LoadResult result = loader.load(cityFile(1000, false), '\t', "UTF-8");
+			assertEquals(1000, result.getRowsRead());
+			assertEquals(10, result.getRowsRejected());
+			assertEquals(990, result.getRowsLoaded());
+
+			loader.setUpsertMode(Loader.UpsertMode.MERGE);
+			result = loader.load(cityFile(500, true), '\t', "UTF-8");
+			assertEquals(495, result.getRowsLoaded());
+
+			QueryRunner qr = new QueryRunner(fileDs);
+			assertEquals(990, ((Number) qr.query("select count(*) from t_city", new ScalarHandler())).intValue());
+			assertEquals("City 2", qr.query("select city_name from t_city where city_id=2", new ScalarHandler()));
+			// The source files and text tables are gone.
+			assertEquals(0, dir.listFiles(new java.io.FilenameFilter() {
+				@Override
+				public boolean accept(File d, String name) {
+					return name.startsWith("t_city_txt");
+				}
+			}).length);
+			assertEquals(0, ((Number) qr.query("select count(*) from information_schema.tables "
+				+ "where table_name like 'T_CITY_TXT%'", new ScalarHandler())).intValue());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		} finally {
+			try {
+				new QueryRunner(fileDs).update("shutdown");
+			} catch (Exception e) {
+				// Already closed.
+			}
+		}
+	}
+}
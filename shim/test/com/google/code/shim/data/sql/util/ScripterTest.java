@@ -0,0 +1,165 @@
+package com.google.code.shim.data.sql.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+
+import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.handlers.ScalarHandler;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.code.shim.data.DataAccessException;
+
+public class ScripterTest {
+
+	static JDBCDataSource ds = new JDBCDataSource();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		ds.setUrl("jdbc:hsqldb:mem:scriptertest");
+		ds.setUser("sa");
+		ds.setPassword("");
+	}
+
+	private static Object scalar(String sql, Object... parms) throws Exception {
+		return new QueryRunner(ds).query(sql, new ScalarHandler(), parms);
+	}
+
+	@Test
+	public void testSplitter() throws Exception {
+		ScriptSplitter splitter = new ScriptSplitter(new StringReader("-- leading comment\n"
+			+ "select ';' from dual; select \"a;b\" from t /* ; */;\n"
+			+ "create function f() returns text as $body$ select 'x;y'; $body$ language sql;\n"
+			+ "create or replace procedure p is\n  v number;\nbegin\n  if v > 0 then v := 1; end if;\n"
+			+ "  v := case when v = 1 then 2 else 3 end;\nend;\n/\n"
+			+ "DELIMITER //\ncreate trigger t before insert on x for each row begin set @a = 1; end//\n"
+			+ "DELIMITER ;\nselect 1"));
+
+		assertEquals("select ';' from dual", splitter.next());
+		assertEquals(2, splitter.getLine());
+		assertEquals("select \"a;b\" from t /* ; */", splitter.next());
+		assertEquals("create function f() returns text as $body$ select 'x;y'; $body$ language sql", splitter.next());
+		String procedure = splitter.next();
+		assertTrue(procedure, procedure.startsWith("create or replace procedure p is"));
+		assertTrue(procedure, procedure.endsWith("else 3 end;\nend"));
+		assertEquals("create trigger t before insert on x for each row begin set @a = 1; end", splitter.next());
+		assertEquals("select 1", splitter.next());
+		assertNull(splitter.next());
+	}
+
+	@Test
+	public void testSplitterTypesAndPackages() throws Exception {
+		ScriptSplitter splitter = new ScriptSplitter(new StringReader(
+			"CREATE TYPE t AS (a int, b text);select 1;select 2;"));
+		assertEquals("CREATE TYPE t AS (a int, b text)", splitter.next());
+		assertEquals("select 1", splitter.next());
+		assertEquals("select 2", splitter.next());
+		assertNull(splitter.next());
+
+		splitter = new ScriptSplitter(new StringReader("CREATE OR REPLACE TYPE t AS OBJECT (\n  a NUMBER,\n"
+			+ "  MEMBER FUNCTION f RETURN NUMBER\n);\n/\n"
+			+ "CREATE OR REPLACE TYPE BODY t AS\n  MEMBER FUNCTION f RETURN NUMBER IS\n  BEGIN\n    RETURN a;\n"
+			+ "  END;\nEND;\n/\nselect 1 from dual;"));
+		assertEquals("CREATE OR REPLACE TYPE t AS OBJECT (\n  a NUMBER,\n  MEMBER FUNCTION f RETURN NUMBER\n)",
+			splitter.next());
+		String body = splitter.next();
+		assertTrue(body, body.startsWith("CREATE OR REPLACE TYPE BODY t AS"));
+		assertTrue(body, body.endsWith("END;\nEND"));
+		assertEquals("select 1 from dual", splitter.next());
+		assertNull(splitter.next());
+
+		splitter = new ScriptSplitter(new StringReader("CREATE OR REPLACE PACKAGE p AS PROCEDURE x; END p;\n/\n"
+			+ "CREATE OR REPLACE PACKAGE BODY p AS\n  PROCEDURE x IS\n    v NUMBER;\n  BEGIN\n    v := 1;\n"
+			+ "  END;\nEND p;\n/\nselect 2 from dual;"));
+		assertEquals("CREATE OR REPLACE PACKAGE p AS PROCEDURE x; END p", splitter.next());
+		body = splitter.next();
+		assertTrue(body, body.startsWith("CREATE OR REPLACE PACKAGE BODY p AS"));
+		assertTrue(body, body.endsWith("END;\nEND p"));
+		assertEquals("select 2 from dual", splitter.next());
+		assertNull(splitter.next());
+	}
+
+	@Test
+	public void testSlashLineEndsRoutine() throws Exception {
+		// A package body with an initialization section, then a procedure whose BEGIN never comes.
+		ScriptSplitter splitter = new ScriptSplitter(new StringReader("CREATE PACKAGE BODY p AS\n"
+			+ "  n NUMBER;\nBEGIN\n  n := 0;\nEND p;\n/\nCREATE PROCEDURE q IS\n  v NUMBER;\n  /\nselect 3 from dual;"));
+		String body = splitter.next();
+		assertTrue(body, body.endsWith("n := 0;\nEND p;"));
+		assertEquals("CREATE PROCEDURE q IS\n  v NUMBER;", splitter.next());
+		assertEquals("select 3 from dual", splitter.next());
+		assertNull(splitter.next());
+	}
+
+	@Test
+	public void testRoutinesAreNotBatched() throws Exception {
+		assertEquals("TABLE", ScriptSplitter.createdUnit("create table t (id int)"));
+		assertEquals("PROCEDURE", ScriptSplitter.createdUnit("CREATE OR ALTER PROCEDURE p AS SELECT 1"));
+		assertEquals("PACKAGE", ScriptSplitter.createdUnit("create or replace editionable package body p as"));
+		assertNull(ScriptSplitter.createdUnit("insert into t values (1)"));
+
+		assertTrue(Scripter.isBatchable("insert into t values (1)", false));
+		assertTrue(Scripter.isBatchable("create table t (id int)", true));
+		assertTrue(Scripter.isBatchable("alter table t add name varchar(10)", true));
+		assertTrue(Scripter.isBatchable("drop view v", true));
+		assertFalse(Scripter.isBatchable("create table t (id int)", false));
+		assertFalse(Scripter.isBatchable("CREATE VIEW v AS SELECT 1 AS one", true));
+		assertFalse(Scripter.isBatchable("create or replace function f() returns int", true));
+		assertFalse(Scripter.isBatchable("ALTER PROC p AS SELECT 1", true));
+		assertFalse(Scripter.isBatchable("create trigger t on x after insert as select 1", true));
+	}
+
+	@Test
+	public void testSeedScript() throws Exception {
+		Scripter scripter = new Scripter(ds, "hsqldb");
+		scripter.setBatchSize(2);
+		ScriptResult result = scripter.runScript("/com/google/code/shim/data/sql/util/seed.sql");
+
+		assertEquals(7, result.getStatements().size());
+		assertEquals(2, result.getStatements().get(0).getLine());
+		assertTrue(result.getStatements().get(4).isBatched());
+		assertEquals(1, result.getStatements().get(4).getUpdateCount());
+		assertTrue(result.getBatchCount() >= 2);
+
+		assertEquals(4, ((Number) scalar("select count(*) from t_note")).intValue());
+		assertEquals("Caf\u00E9; open late!", scalar("select body from t_note where note_id=1"));
+		assertEquals("It's -- not a comment", scalar("select body from t_note where note_id=2"));
+		assertEquals("from a procedure", scalar("select body from t_note where note_id=4"));
+	}
+
+	@Test
+	public void testFailureStopsScript() throws Exception {
+		Scripter scripter = new Scripter(ds);
+		scripter.runScript(new StringReader("create table t_stop (id integer primary key);"), "create");
+		try {
+			scripter.runScript(new StringReader("insert into t_stop values (1);\ninsert into t_stop values (2);\n"
+				+ "insert into t_stop values (1);\ninsert into t_stop values (3);"), "duplicates");
+			fail("duplicate key should fail the script");
+		} catch (DataAccessException e) {
+			// expected
+		}
+		// Statements before the failure were committed; the rest never ran.
+		assertEquals(2, ((Number) scalar("select count(*) from t_stop")).intValue());
+	}
+
+	@Test
+	public void testFailureRollsBack() throws Exception {
+		Scripter scripter = new Scripter(ds);
+		scripter.setTransactional(true);
+		scripter.runScript(new StringReader("create table t_fail (id integer primary key);"), "create");
+		try {
+			scripter.runScript(new StringReader("insert into t_fail values (1);\ninsert into t_fail values (2);\n"
+				+ "insert into t_fail values (1);\ninsert into t_fail values (3);"), "duplicates");
+			fail("duplicate key should fail the script");
+		} catch (DataAccessException e) {
+			// expected
+		}
+		assertEquals(0, ((Number) scalar("select count(*) from t_fail")).intValue());
+	}
+}
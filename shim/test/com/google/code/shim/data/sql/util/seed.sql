@@ -0,0 +1,20 @@
+-- Seed script for ScripterTest; saved as UTF-8.
+create table t_note (
+	note_id integer primary key,
+	body varchar(100) -- the text; may contain semicolons
+);
+
+/* Procedures contain semicolons in their bodies. */
+create procedure add_note(in id integer, in txt varchar(100))
+modifies sql data
+begin atomic
+	declare n integer;
+	set n = id;
+	insert into t_note values (n, txt);
+end;
+
+insert into t_note values (1, 'Café; open late');
+insert into t_note values (2, 'It''s -- not a comment');
+insert into t_note values (3, '/* not a comment either */');
+call add_note(4, 'from a procedure');
+update t_note set body = body || '!' where note_id = 1;
@@ -0,0 +1,128 @@
+package com.google.code.shim.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpClientPoolTest {
+
+	private HttpServer server;
+	private HttpClientPool pool;
+	private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+
+	@Before
+	public void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				clientPorts.add(exchange.getRemoteAddress().getPort());
+				byte[] body = ("hello " + exchange.getRequestURI().getQuery()).getBytes("UTF-8");
+				exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+				exchange.sendResponseHeaders(200, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		});
+		server.start();
+		pool = new HttpClientPool(10, 2, 5000, 60000);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+		server.stop(0);
+	}
+
+	@Test
+	public void testCallsReuseConnections() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			WebCall call = new WebCall(pool).get().http().host("localhost").port(server.getAddress().getPort())
+				.path("test").parm("i", i).execute();
+			assertEquals(200, call.getStatusCode());
+			assertEquals("hello i=" + i, call.getResponseEntityAsString());
+		}
+		// One connection, returned to the pool after each call.
+		assertEquals(1, clientPorts.size());
+		assertEquals(1, pool.getConnections("http://localhost:" + server.getAddress().getPort()));
+	}
+
+	@Test
+	public void testRoutes() throws Exception {
+		List<HttpRoute> routes = pool.routes("https://api.example.com");
+		assertEquals(2, routes.size());
+		assertEquals(443, routes.get(0).getTargetHost().getPort());
+		assertEquals(-1, routes.get(1).getTargetHost().getPort());
+		assertEquals(true, routes.get(0).isSecure());
+		assertEquals(80, pool.routes("http://api.example.com/orders").get(0).getTargetHost().getPort());
+		assertEquals(2, pool.routes("http://api.example.com:80").size());
+		assertEquals(1, pool.routes("http://api.example.com:8080").size());
+
+		pool.setMaxPerRoute("http://api.example.com:8080", 7);
+		assertEquals(7, pool.getMaxPerRoute("http://api.example.com:8080/"));
+		assertEquals(2, pool.getMaxPerRoute("http://api.example.com"));
+		for (String bad : new String[] { "not a uri", "ftp://api.example.com" }) {
+			try {
+				pool.setMaxPerRoute(bad, 1);
+				fail("Expected " + bad + " to be refused");
+			} catch (HttpException e) {
+				// Expected.
+			}
+		}
+	}
+
+	@Test
+	public void testDefaultLeaseTimeout() throws Exception {
+		assertEquals(HttpClientPool.DEFAULT_LEASE_MILLIS, pool.getClient().getParams().getLongParameter(
+			HttpClientPool.CONN_MANAGER_TIMEOUT, 0));
+		pool.setTimeouts(1000, 1000, 250);
+		assertEquals(250, pool.getClient().getParams().getLongParameter(HttpClientPool.CONN_MANAGER_TIMEOUT, 0));
+	}
+
+	@Test
+	public void testDefaultPortLimit() throws Exception {
+		// Make the test server the default for http, so calls can leave out the port.
+		int port = server.getAddress().getPort();
+		pool.getClient().getConnectionManager().getSchemeRegistry().register(
+			new Scheme("http", port, PlainSocketFactory.getSocketFactory()));
+		pool.setMaxPerRoute("http://localhost", 1);
+		pool.setTimeouts(2000, 2000, 200);
+
+		// A streaming call holds its connection until closed.
+		WebCall held = new WebCall(pool).get().http().host("localhost").path("test").parm("i", 1).streaming()
+			.execute();
+		assertEquals(1, pool.getConnections("http://localhost"));
+		assertEquals(1, pool.getConnections("http://localhost:" + port));
+		try {
+			new WebCall(pool).get().http().host("localhost").path("test").parm("i", 2).execute();
+			fail("Expected the route's one connection to be in use");
+		} catch (HttpException e) {
+			assertTrue(e.getCause() instanceof ConnectionPoolTimeoutException);
+		} finally {
+			held.close();
+		}
+		WebCall call = new WebCall(pool).get().http().host("localhost").path("test").parm("i", 3).execute();
+		assertEquals("hello i=3", call.getResponseEntityAsString());
+	}
+}
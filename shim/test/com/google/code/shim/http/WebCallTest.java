@@ -0,0 +1,190 @@
+package com.google.code.shim.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class WebCallTest {
+
+	private static final int LINES = 20000;
+
+	private HttpServer server;
+	private HttpClientPool pool;
+	private WebCallExecutor executor;
+
+	@Before
+	public void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				if (exchange.getRequestURI().getPath().startsWith("/slow")) {
+					try {
+						Thread.sleep(3000);
+					} catch (InterruptedException e) {
+						// Stopping.
+					}
+				}
+				if (exchange.getRequestURI().getPath().startsWith("/lines")) {
+					// Chunked, in a charset other than the default.
+					exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=ISO-8859-1");
+					exchange.sendResponseHeaders(200, 0);
+					OutputStream out = exchange.getResponseBody();
+					for (int i = 0; i < LINES; i++) {
+						out.write(("caf\u00e9 " + i + "\n").getBytes("ISO-8859-1"));
+					}
+					out.close();
+					return;
+				}
+				byte[] body = ("hello " + exchange.getRequestURI().getQuery()).getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		});
+		server.start();
+		pool = new HttpClientPool();
+		executor = new WebCallExecutor(4, 100);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdown();
+		pool.shutdown();
+		server.stop(0);
+	}
+
+	private WebCall call(String path) throws HttpException {
+		return new WebCall(pool).get().http().host("localhost").port(server.getAddress().getPort()).path(path);
+	}
+
+	@Test
+	public void testExecuteAsync() throws Exception {
+		List<Future<WebCall>> futures = new ArrayList<Future<WebCall>>();
+		for (int i = 0; i < 10; i++) {
+			futures.add(call("fast").parm("i", i).executeAsync(executor));
+		}
+		for (int i = 0; i < 10; i++) {
+			assertEquals("hello i=" + i, futures.get(i).get(5, TimeUnit.SECONDS).getResponseEntityAsString());
+		}
+	}
+
+	@Test
+	public void testExecuteAllCancelsLateCalls() throws Exception {
+		long start = System.currentTimeMillis();
+		List<Future<WebCall>> futures = executor.executeAll(Arrays.asList(call("fast").parm("n", 1), call("slow")
+			.parm("n", 2)), 500, TimeUnit.MILLISECONDS);
+		assertTrue(System.currentTimeMillis() - start < 2500);
+		assertEquals(200, futures.get(0).get().getStatusCode());
+		assertFalse(futures.get(0).isCancelled());
+		assertTrue(futures.get(1).isCancelled());
+	}
+
+	@Test
+	public void testDefaultCharset() throws Exception {
+		// The body is UTF-8 with no charset in its Content-Type.
+		WebCall call = call("fast").parm("q", "caf\u00e9").execute();
+		assertEquals(WebCall.DEFAULT_CHARSET, call.getResponseCharset());
+		assertEquals("hello q=caf\u00e9", call.getResponseEntityAsString());
+
+		WebCall streamed = call("fast").parm("q", "caf\u00e9").streaming().execute();
+		final List<String> lines = new ArrayList<String>();
+		streamed.forEachResponseLine(new WebCall.LineHandler() {
+			@Override
+			public void handle(String line) {
+				lines.add(line);
+			}
+		});
+		assertEquals(Arrays.asList("hello q=caf\u00e9"), lines);
+
+		// A charset named by the response wins over the one given.
+		WebCall latin = call("lines").execute();
+		assertTrue(latin.getResponseEntityAsString("UTF-8").startsWith("caf\u00e9 0\n"));
+	}
+
+	@Test
+	public void testShutdownFinishesExecutingCalls() throws Exception {
+		WebCallExecutor one = new WebCallExecutor(1, 10);
+		Future<WebCall> slow = call("slow").parm("n", 1).executeAsync(one);
+		Future<WebCall> waiting = call("fast").parm("n", 2).executeAsync(one);
+		Thread.sleep(200);
+		one.shutdown();
+		assertTrue(waiting.isCancelled());
+		assertEquals("hello n=1", slow.get(10, TimeUnit.SECONDS).getResponseEntityAsString());
+		try {
+			call("fast").executeAsync(one);
+			fail("Expected a shut down executor to refuse calls");
+		} catch (HttpException e) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testStreamLines() throws Exception {
+		// One connection, so a call can only follow once the last has released it.
+		HttpClientPool single = new HttpClientPool(1, 1, 5000, 60000);
+		single.setTimeouts(2000, 5000, 1000);
+		pool.shutdown();
+		pool = single;
+
+		WebCall call = call("lines").streaming().execute();
+		assertEquals("ISO-8859-1", call.getResponseCharset());
+		final AtomicInteger count = new AtomicInteger();
+		long lines = call.forEachResponseLine(new WebCall.LineHandler() {
+			@Override
+			public void handle(String line) throws Exception {
+				assertEquals("caf\u00e9 " + count.getAndIncrement(), line);
+			}
+		});
+		assertEquals(LINES, lines);
+		assertEquals("hello n=1", call("fast").parm("n", 1).execute().getResponseEntityAsString());
+	}
+
+	@Test
+	public void testStreamToFile() throws Exception {
+		File file = File.createTempFile("webcall", ".txt");
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		try {
+			WebCall call = call("lines").streaming().execute();
+			long written = call.writeResponseTo(out.getChannel());
+			assertEquals(file.length(), written);
+			assertTrue(written > LINES * 7);
+		} finally {
+			out.close();
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testCloseUnreadStream() throws Exception {
+		WebCall call = call("lines").streaming().execute();
+		assertEquals(200, call.getStatusCode());
+		call.close();
+		assertEquals(0, pool.getConnections());
+		assertEquals("hello n=1", call("fast").parm("n", 1).execute().getResponseEntityAsString());
+	}
+}